@@ -0,0 +1,114 @@
+package cn.edu.thssdb.benchmark;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.index.BPlusTree;
+import cn.edu.thssdb.schema.Cell;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations of BPlusTree keyed by the Cells a table stores, for each key type, fanout and
+ * insertion order. Every score is the average time of a single operation.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexBenchmark {
+    static final int SIZE = 100000;
+
+    @Param({"INT", "LONG", "STRING"})
+    public String keyType;
+
+    @Param({"16", "129", "512"})
+    public int fanout;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    public String order;
+
+    private int savedFanout;
+    private Cell[] keys;
+    private Cell[] lookups;
+    private BPlusTree<Cell, Cell> tree;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        savedFanout = Global.fanout;
+        Global.fanout = fanout;
+        keys = Keys.cells(keyType, SIZE, order.equals("RANDOM"));
+        lookups = Keys.shuffled(keys);
+        tree = build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        Global.fanout = savedFanout;
+    }
+
+    private BPlusTree<Cell, Cell> build() {
+        BPlusTree<Cell, Cell> built = new BPlusTree<>();
+        for (Cell key : keys)
+            built.put(key, key);
+        return built;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public BPlusTree<Cell, Cell> put() {
+        return build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void get(Blackhole blackhole) {
+        for (Cell key : lookups)
+            blackhole.consume(tree.get(key));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void iterate(Blackhole blackhole) {
+        for (Pair<Cell, Cell> pair : tree)
+            blackhole.consume(pair.right);
+    }
+
+    /**
+     * Removes every key from a tree built in the state, so the build is not timed.
+     */
+    @State(Scope.Thread)
+    public static class FullTree {
+        BPlusTree<Cell, Cell> tree;
+
+        @Setup(Level.Invocation)
+        public void setUp(IndexBenchmark benchmark) {
+            tree = benchmark.build();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public BPlusTree<Cell, Cell> remove(FullTree state) {
+        for (Cell key : lookups)
+            state.tree.remove(key);
+        return state.tree;
+    }
+}
@@ -0,0 +1,51 @@
+package cn.edu.thssdb.benchmark;
+
+import cn.edu.thssdb.schema.Cell;
+
+import java.util.Random;
+
+/**
+ * Distinct benchmark keys, generated from a fixed seed so every run sees the same data.
+ */
+
+final class Keys {
+    private static final long SEED = 42;
+
+    private Keys() {
+
+    }
+
+    // the i-th key of the type, ascending in i; strings are zero-padded to keep that order
+    static Cell cell(String keyType, int i) {
+        switch (keyType) {
+            case "INT":
+                return new Cell(i);
+            case "LONG":
+                return new Cell(i * 1000003L);
+            case "STRING":
+                return new Cell(String.format("key%09d", i));
+            default:
+                throw new IllegalArgumentException("unknown key type " + keyType);
+        }
+    }
+
+    // size keys in ascending order, or the same keys shuffled
+    static Cell[] cells(String keyType, int size, boolean random) {
+        Cell[] cells = new Cell[size];
+        for (int i = 0; i < size; i++)
+            cells[i] = cell(keyType, i);
+        return random ? shuffled(cells) : cells;
+    }
+
+    static <T> T[] shuffled(T[] values) {
+        T[] copy = values.clone();
+        Random random = new Random(SEED);
+        for (int i = copy.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            T swap = copy[i];
+            copy[i] = copy[j];
+            copy[j] = swap;
+        }
+        return copy;
+    }
+}
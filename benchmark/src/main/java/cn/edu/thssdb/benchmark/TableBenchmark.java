@@ -0,0 +1,172 @@
+package cn.edu.thssdb.benchmark;
+
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.Row;
+import cn.edu.thssdb.schema.Table;
+import cn.edu.thssdb.type.ColumnType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row operations of a Table of (key, name, score) rows: inserts, full scans, the first save
+ * of a table as a checkpoint, a save of the rows changed since the previous one as a segment,
+ * and a recover into a new Table object. Scores are per row, of the rows saved for segment.
+ * Table files are written below thssdb/data/benchmark in the working directory.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TableBenchmark {
+    static final int ROWS = 100000;
+    static final int CHANGED = 1000;
+    private static final String DATABASE = "benchmark";
+
+    @Param({"INT", "LONG", "STRING"})
+    public String keyType;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    public String order;
+
+    private Column[] columns;
+    private Cell[] keys;
+    private Row[] rows;
+    private Table table;
+    private int changes;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        columns = new Column[]{
+                new Column("id", ColumnType.valueOf(keyType), 1, true, 32),
+                new Column("name", ColumnType.STRING, 0, false, 32),
+                new Column("score", ColumnType.DOUBLE, 0, false, 0)
+        };
+        keys = Keys.cells(keyType, ROWS, order.equals("RANDOM"));
+        rows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++)
+            rows[i] = new Row(new Cell[]{keys[i], new Cell("name" + i), new Cell((double) i)});
+        table = newTable();
+        for (Row row : rows)
+            table.insert(row);
+        table.persist();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        table.dropTable();
+    }
+
+    private Table newTable() {
+        return new Table(DATABASE, "t_" + keyType.toLowerCase() + "_" + order.toLowerCase(), columns);
+    }
+
+    /**
+     * An empty table with no file behind it, rebuilt before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class EmptyTable {
+        Table table;
+
+        @Setup(Level.Invocation)
+        public void setUp(TableBenchmark benchmark) {
+            table = new Table(DATABASE, "t_insert", benchmark.columns);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            table.dropTable();
+        }
+    }
+
+    /**
+     * A filled table with no file behind it, rebuilt before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class UnsavedTable {
+        Table table;
+
+        @Setup(Level.Invocation)
+        public void setUp(TableBenchmark benchmark) {
+            table = new Table(DATABASE, "t_checkpoint", benchmark.columns);
+            for (Row row : benchmark.rows)
+                table.insert(row);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            table.dropTable();
+        }
+    }
+
+    /**
+     * Updates the score of the next CHANGED rows of the saved table before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class ChangedRows {
+        @Setup(Level.Invocation)
+        public void setUp(TableBenchmark benchmark) {
+            for (int i = 0; i < CHANGED; i++) {
+                int row = benchmark.changes++ % ROWS;
+                benchmark.table.update(benchmark.keys[row], new Row(new Cell[]{
+                        benchmark.keys[row], new Cell("name" + row), new Cell((double) benchmark.changes)}));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Table insert(EmptyTable state) {
+        for (Row row : rows)
+            state.table.insert(row);
+        return state.table;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void scan(Blackhole blackhole) {
+        Iterator<Row> iterator = table.iterator();
+        while (iterator.hasNext())
+            blackhole.consume(iterator.next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Table checkpoint(UnsavedTable state) {
+        state.table.persist();
+        return state.table;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHANGED)
+    public Table segment(ChangedRows state) {
+        table.persist();
+        return table;
+    }
+
+    // reads the checkpoint saved by the trial setup
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Table recover() {
+        return newTable();
+    }
+}
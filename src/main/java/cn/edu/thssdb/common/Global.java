@@ -2,6 +2,20 @@ package cn.edu.thssdb.common;
 
 public class Global {
     public static int fanout = 129;
+    // tables keep their rows in a latched ConcurrentBPlusTree, so row operations skip the table lock
+    public static boolean concurrentIndex = false;
+    // tables keep their rows in a copy-on-write VersionedBPlusTree, so reads never wait for writers, takes precedence over concurrentIndex
+    public static boolean versionedIndex = false;
+    // new tables keep their rows in a PagedBPlusTree file cached by the shared BufferPool, takes precedence over the other two
+    // (a table keeps the storage it was created with, see TableStorage)
+    public static boolean pagedIndex = false;
+    public static int pageSize = 8192;
+    public static int bufferPoolPages = 4096;
+    public static int offHeapSlabSize = 1 << 20;
+    // estimated bytes the rows and indexes of heap tables may take before cold tables are unloaded
+    public static long tableCacheBytes = Long.MAX_VALUE;
+    // threads that load the tables of a database on startup
+    public static int recoveryThreads = Runtime.getRuntime().availableProcessors();
 
     public static int SUCCESS_CODE = 0;
     public static int FAILURE_CODE = -1;
@@ -24,6 +38,13 @@ public class Global {
 
     public static final String DBMS_DIR = "thssdb";
     public static final String META_SUFFIX = "_meta";
+    public static final String PAGES_SUFFIX = "_pages";
+    public static final String DICTIONARY_SUFFIX = "_dict";
+    public static final String INDEX_META_PREFIX = "INDEX,";
+    public static final String COLUMNAR_META = "STORAGE,COLUMNAR";
+    public static final String PAGED_META = "STORAGE,PAGED";
+    public static final String OFF_HEAP_META = "STORAGE,OFFHEAP";
+    public static final String COMPRESSED_META = "STORAGE,COMPRESSED";
 
     public static final String LOG_BEGIN_TRANSACTION = "begin transaction";
     public static final String LOG_COMMIT = "commit";
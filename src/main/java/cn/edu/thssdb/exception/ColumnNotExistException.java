@@ -0,0 +1,15 @@
+package cn.edu.thssdb.exception;
+
+public class ColumnNotExistException extends RuntimeException {
+    private String columnName;
+
+    public ColumnNotExistException(String name) {
+        super();
+        columnName = name;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Exception: column \"" + columnName + "\" doesn't exist!";
+    }
+}
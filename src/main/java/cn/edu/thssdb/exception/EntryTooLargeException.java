@@ -0,0 +1,17 @@
+package cn.edu.thssdb.exception;
+
+public class EntryTooLargeException extends RuntimeException {
+    private int size;
+    private int maxSize;
+
+    public EntryTooLargeException(int size, int maxSize) {
+        super();
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Exception: the entry takes " + size + " bytes, more than the " + maxSize + " bytes a page can hold!";
+    }
+}
@@ -1,59 +1,322 @@
 package cn.edu.thssdb.index;
 
+import cn.edu.thssdb.common.Global;
 import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
 
-public final class BPlusTree<K extends Comparable<K>, V> implements Iterable<Pair<K, V>> {
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * B+ tree kept in memory.
+ * <p>
+ * Keys greater than every key in the tree are appended to the last leaf without any search,
+ * and the nodes they fill are split unevenly, so ascending keys such as sequential ids leave
+ * full nodes behind instead of half-empty ones.
+ */
+
+public final class BPlusTree<K extends Comparable<K>, V> implements Index<K, V> {
 
     BPlusTreeNode<K, V> root;
     private int size;
+    private BPlusTreeLeafNode<K, V> lastLeaf; // cached, reset by every operation that may merge leaves
 
     public BPlusTree() {
         root = new BPlusTreeLeafNode<>(0);
     }
 
+    @Override
     public int size() {
         return size;
     }
 
+    @Override
     public V get(K key) {
         if (key == null) throw new IllegalArgumentException("argument key to get() is null");
         return root.get(key);
     }
 
+    @Override
     public void update(K key, V value) {
+        lastLeaf = null;
         root.remove(key);
         root.put(key, value);
     }
 
+    @Override
     public void put(K key, V value) {
         if (key == null) throw new IllegalArgumentException("argument key to put() is null");
+        if (isAppend(key)) {
+            append(key, value);
+            return;
+        }
         root.put(key, value);
         size++;
         checkRoot();
     }
 
+    @Override
     public void remove(K key) {
         if (key == null) throw new IllegalArgumentException("argument key to remove() is null");
+        lastLeaf = null;
         root.remove(key);
         size--;
-        if (root instanceof BPlusTreeInternalNode && root.size() == 0) {
-            root = ((BPlusTreeInternalNode<K, V>) root).children.get(0);
+        checkRoot();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to putIfAbsent() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to putIfAbsent() is null");
+        if (isAppend(key)) {
+            append(key, value);
+            return null;
         }
+        V previous = root.compute(key, (k, old) -> old == null ? value : old);
+        if (previous == null) {
+            size++;
+            checkRoot();
+        }
+        return previous;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to replace() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to replace() is null");
+        return root.compute(key, (k, old) -> old == null ? null : value);
     }
 
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (key == null) throw new IllegalArgumentException("argument key to compute() is null");
+        if (isAppend(key)) {
+            V value = remapping.apply(key, null);
+            if (value != null)
+                append(key, value);
+            return value;
+        }
+        lastLeaf = null;
+        ArrayList<V> computed = new ArrayList<>(1);
+        V previous = root.compute(key, (k, old) -> {
+            V value = remapping.apply(k, old);
+            computed.add(value);
+            return value;
+        });
+        V value = computed.get(0);
+        if (previous == null && value != null)
+            size++;
+        else if (previous != null && value == null)
+            size--;
+        checkRoot();
+        return value;
+    }
+
+    /**
+     * Inserts the entries leaf by leaf: one descent finds the leaf of the next key and the
+     * separator that bounds it, and the following keys below that separator go into the same
+     * leaf while it has room. A full leaf takes one regular insert that splits it.
+     */
+    @Override
+    public int putAll(List<Pair<K, V>> sortedEntries) {
+        for (Pair<K, V> entry : sortedEntries)
+            if (entry.left == null) throw new IllegalArgumentException("argument key to putAll() is null");
+        ArrayList<BPlusTreeInternalNode<K, V>> path = new ArrayList<>();
+        int count = 0;
+        while (count < sortedEntries.size()) {
+            Pair<K, V> entry = sortedEntries.get(count);
+            if (isAppend(entry.left)) {
+                append(entry.left, entry.right);
+                count++;
+                continue;
+            }
+            K upper = null;
+            BPlusTreeNode<K, V> node = root;
+            path.clear();
+            while (node instanceof BPlusTreeInternalNode) {
+                BPlusTreeInternalNode<K, V> internal = (BPlusTreeInternalNode<K, V>) node;
+                path.add(internal);
+                int childIndex = internal.childIndex(entry.left);
+                if (childIndex < internal.size())
+                    upper = internal.keys[childIndex];
+                node = internal.children[childIndex];
+            }
+            BPlusTreeLeafNode<K, V> leaf = (BPlusTreeLeafNode<K, V>) node;
+            int first = count;
+            boolean present = false;
+            while (count < sortedEntries.size() && leaf.size() < Global.fanout - 1) {
+                entry = sortedEntries.get(count);
+                if (upper != null && entry.left.compareTo(upper) >= 0)
+                    break;
+                int index = leaf.binarySearch(entry.left);
+                if (index >= 0) {
+                    present = true;
+                    break;
+                }
+                leaf.insert(-index - 1, entry.left, entry.right);
+                count++;
+            }
+            // the leaf was filled without the descent of put, bring the counts on its path up to date
+            size += count - first;
+            for (BPlusTreeInternalNode<K, V> internal : path)
+                internal.count += count - first;
+            if (present)
+                return count;
+            if (count == first) {
+                if (putIfAbsent(entry.left, entry.right) != null)
+                    return count;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
     public boolean contains(K key) {
         if (key == null) throw new IllegalArgumentException("argument key to contains() is null");
         return root.containsKey(key);
     }
 
+    /**
+     * Number of keys less than the key, or not greater than it if inclusive. Internal nodes
+     * keep the number of entries below them, so this takes one descent.
+     */
+    @Override
+    public int rank(K key, boolean inclusive) {
+        if (key == null) throw new IllegalArgumentException("argument key to rank() is null");
+        return root.rank(key, inclusive);
+    }
+
+    /**
+     * The entry with the given rank, counted from 0 in key order, found in one descent.
+     */
+    public Pair<K, V> select(int rank) {
+        if (rank < 0 || rank >= size) throw new IllegalArgumentException("argument rank to select() is out of range");
+        return root.select(rank);
+    }
+
+    /**
+     * Number of keys between from and to, a null bound leaves that side open. Takes two
+     * descents however many keys lie in the range.
+     */
+    @Override
+    public int count(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        int upper = to == null ? size : root.rank(to, toInclusive);
+        int lower = from == null ? 0 : root.rank(from, !fromInclusive);
+        return Math.max(0, upper - lower);
+    }
+
+    /**
+     * Builds the tree bottom-up in one pass: leaves are filled to capacity and chained,
+     * then every internal level is packed over the level below it. The tree is only
+     * replaced once all entries have been read, so a bad input leaves it empty.
+     */
+    @Override
+    public void bulkLoad(Iterator<Pair<K, V>> sortedEntries) {
+        if (size != 0) throw new IllegalStateException("bulkLoad() needs an empty tree");
+        lastLeaf = null;
+        ArrayList<BPlusTreeNode<K, V>> level = new ArrayList<>();
+        BPlusTreeLeafNode<K, V> leaf = null;
+        int count = 0;
+        K last = null;
+        while (sortedEntries.hasNext()) {
+            Pair<K, V> entry = sortedEntries.next();
+            if (entry.left == null) throw new IllegalArgumentException("argument key to bulkLoad() is null");
+            if (last != null) {
+                int cmp = last.compareTo(entry.left);
+                if (cmp == 0) throw new DuplicateKeyException();
+                if (cmp > 0) throw new IllegalArgumentException("keys given to bulkLoad() are not in ascending order");
+            }
+            if (leaf == null || leaf.size() == Global.fanout - 1) {
+                BPlusTreeLeafNode<K, V> newLeaf = new BPlusTreeLeafNode<>(0);
+                if (leaf != null) {
+                    leaf.next = newLeaf;
+                    newLeaf.prev = leaf;
+                }
+                leaf = newLeaf;
+                level.add(leaf);
+            }
+            leaf.keys[leaf.nodeSize] = entry.left;
+            leaf.values[leaf.nodeSize] = entry.right;
+            leaf.nodeSize++;
+            last = entry.left;
+            count++;
+        }
+        if (count == 0) return;
+        balanceLastNode(level);
+        while (level.size() > 1)
+            level = buildInternalLevel(level);
+        root = level.get(0);
+        size = count;
+    }
+
+    private ArrayList<BPlusTreeNode<K, V>> buildInternalLevel(ArrayList<BPlusTreeNode<K, V>> children) {
+        ArrayList<BPlusTreeNode<K, V>> level = new ArrayList<>();
+        for (int from = 0; from < children.size(); from += Global.fanout) {
+            int to = Math.min(from + Global.fanout, children.size());
+            BPlusTreeInternalNode<K, V> node = new BPlusTreeInternalNode<>(to - from - 1);
+            node.children[0] = children.get(from);
+            for (int i = from + 1; i < to; i++) {
+                node.keys[i - from - 1] = children.get(i).getFirstLeafKey();
+                node.children[i - from] = children.get(i);
+            }
+            node.recount();
+            level.add(node);
+        }
+        balanceLastNode(level);
+        return level;
+    }
+
+    // only the last node of a packed level can be under-full, share entries with its left neighbour
+    private void balanceLastNode(ArrayList<BPlusTreeNode<K, V>> level) {
+        int last = level.size() - 1;
+        if (last > 0 && level.get(last).isUnderFlow()) {
+            BPlusTreeNode<K, V> left = level.get(last - 1);
+            left.merge(level.remove(last));
+            level.add(left.split());
+        }
+    }
+
+    // true if the key is greater than every key in the tree, a lookup of the last leaf is cached
+    private boolean isAppend(K key) {
+        if (lastLeaf == null || lastLeaf.next != null)
+            lastLeaf = root.getLastLeaf();
+        return lastLeaf.size() > 0 && key.compareTo(lastLeaf.keys[lastLeaf.size() - 1]) > 0;
+    }
+
+    private void append(K key, V value) {
+        if (lastLeaf.size() < Global.fanout - 1) {
+            lastLeaf.append(key, value);
+            // the leaf was reached without a descent, count the entry on the rightmost path
+            for (BPlusTreeNode<K, V> node = root; node instanceof BPlusTreeInternalNode; ) {
+                BPlusTreeInternalNode<K, V> internal = (BPlusTreeInternalNode<K, V>) node;
+                internal.count++;
+                node = internal.children[internal.size()];
+            }
+        } else {
+            root.append(key, value);
+            if (root.isOverFlow())
+                growRoot(root.splitLast());
+        }
+        size++;
+    }
+
+    private void growRoot(BPlusTreeNode<K, V> newSiblingNode) {
+        BPlusTreeInternalNode<K, V> newRoot = new BPlusTreeInternalNode<>(1);
+        newRoot.keys[0] = newSiblingNode.getFirstLeafKey();
+        newRoot.children[0] = root;
+        newRoot.children[1] = newSiblingNode;
+        newRoot.recount();
+        root = newRoot;
+    }
+
     private void checkRoot() {
         if (root.isOverFlow()) {
-            BPlusTreeNode<K, V> newSiblingNode = root.split();
-            BPlusTreeInternalNode<K, V> newRoot = new BPlusTreeInternalNode<>(1);
-            newRoot.keys.set(0, newSiblingNode.getFirstLeafKey());
-            newRoot.children.set(0, root);
-            newRoot.children.set(1, newSiblingNode);
-            root = newRoot;
+            growRoot(root.split());
+        } else if (root instanceof BPlusTreeInternalNode && root.size() == 0) {
+            root = ((BPlusTreeInternalNode<K, V>) root).children[0];
         }
     }
 
@@ -61,4 +324,51 @@ public final class BPlusTree<K extends Comparable<K>, V> implements Iterable<Pai
     public BPlusTreeIterator<K, V> iterator() {
         return new BPlusTreeIterator<>(this);
     }
+
+    /**
+     * Ascending scan over [from, to). A null bound leaves that side open.
+     */
+    public BPlusTreeIterator<K, V> seek(K from, K to) {
+        return seek(from, true, to, false);
+    }
+
+    /**
+     * Ascending scan from the lower bound to the upper bound, descending once to the
+     * start leaf and following the leaf chain from there.
+     */
+    @Override
+    public BPlusTreeIterator<K, V> seek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (size == 0)
+            return new BPlusTreeIterator<>(null, 0, null, false, false);
+        if (from == null)
+            return new BPlusTreeIterator<>(root.getFirstLeaf(), 0, to, toInclusive, false);
+        BPlusTreeLeafNode<K, V> leaf = root.getLeaf(from);
+        int index = leaf.binarySearch(from);
+        if (index >= 0)
+            index = fromInclusive ? index : index + 1;
+        else
+            index = -index - 1;
+        return new BPlusTreeIterator<>(leaf, index, to, toInclusive, false);
+    }
+
+    /**
+     * Same range as {@link #seek(Comparable, boolean, Comparable, boolean)}, walked from the
+     * upper bound down to the lower bound.
+     */
+    @Override
+    public BPlusTreeIterator<K, V> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (size == 0)
+            return new BPlusTreeIterator<>(null, 0, null, false, true);
+        if (to == null) {
+            BPlusTreeLeafNode<K, V> last = root.getLastLeaf();
+            return new BPlusTreeIterator<>(last, last.size() - 1, from, fromInclusive, true);
+        }
+        BPlusTreeLeafNode<K, V> leaf = root.getLeaf(to);
+        int index = leaf.binarySearch(to);
+        if (index >= 0)
+            index = toInclusive ? index : index - 1;
+        else
+            index = -index - 2;
+        return new BPlusTreeIterator<>(leaf, index, from, fromInclusive, true);
+    }
 }
@@ -1,31 +1,35 @@
 package cn.edu.thssdb.index;
 
-import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.function.BiFunction;
 
 public final class BPlusTreeInternalNode<K extends Comparable<K>, V> extends BPlusTreeNode<K, V> {
 
-    ArrayList<BPlusTreeNode<K, V>> children;
+    BPlusTreeNode<K, V>[] children;
+    int count; // entries below this node, kept up to date on every path a change takes
 
+    @SuppressWarnings("unchecked")
     BPlusTreeInternalNode(int size) {
-        keys = new ArrayList<>(Collections.nCopies((int) (1.5 * Global.fanout) + 1, null));
-        children = new ArrayList<>((Collections.nCopies((int) (1.5 * Global.fanout) + 2, null)));
+        keys = (K[]) new Comparable[capacity()];
+        children = (BPlusTreeNode<K, V>[]) new BPlusTreeNode[capacity() + 1];
         this.nodeSize = size;
     }
 
     private void childrenAdd(int index, BPlusTreeNode<K, V> node) {
-        for (int i = nodeSize + 1; i > index; i--) {
-            children.set(i, children.get(i - 1));
-        }
-        children.set(index, node);
+        System.arraycopy(children, index, children, index + 1, nodeSize + 1 - index);
+        children[index] = node;
     }
 
     private void childrenRemove(int index) {
-        for (int i = index; i < nodeSize; i++) {
-            children.set(i, children.get(i + 1));
-        }
+        System.arraycopy(children, index + 1, children, index, nodeSize - index);
+        children[nodeSize] = null;
+    }
+
+    int childIndex(K key) {
+        int index = binarySearch(key);
+        return index >= 0 ? index + 1 : -index - 1;
     }
 
     @Override
@@ -42,21 +46,62 @@ public final class BPlusTreeInternalNode<K extends Comparable<K>, V> extends BPl
     void put(K key, V value) {
         BPlusTreeNode<K, V> child = searchChild(key);
         child.put(key, value);
+        count++;
         if (child.isOverFlow()) {
             BPlusTreeNode<K, V> newSiblingNode = child.split();
             insertChild(newSiblingNode.getFirstLeafKey(), newSiblingNode);
         }
     }
 
+    @Override
+    void append(K key, V value) {
+        BPlusTreeNode<K, V> child = children[nodeSize];
+        child.append(key, value);
+        count++;
+        if (child.isOverFlow()) {
+            BPlusTreeNode<K, V> newSiblingNode = child.splitLast();
+            keys[nodeSize] = newSiblingNode.getFirstLeafKey();
+            children[nodeSize + 1] = newSiblingNode;
+            nodeSize++;
+        }
+    }
+
     @Override
     void remove(K key) {
         int index = binarySearch(key);
         int childIndex = index >= 0 ? index + 1 : -index - 1;
-        BPlusTreeNode<K, V> child = children.get(childIndex);
+        BPlusTreeNode<K, V> child = children[childIndex];
         child.remove(key);
+        count--;
+        rebalance(index, childIndex, child);
+    }
+
+    @Override
+    V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        int index = binarySearch(key);
+        int childIndex = index >= 0 ? index + 1 : -index - 1;
+        BPlusTreeNode<K, V> child = children[childIndex];
+        int childSize = child.nodeSize;
+        int childCount = child.count();
+        V previous = child.compute(key, remapping);
+        count += child.count() - childCount;
+        if (child.isOverFlow()) {
+            BPlusTreeNode<K, V> newSiblingNode = child.split();
+            insertChild(newSiblingNode.getFirstLeafKey(), newSiblingNode);
+        } else if (child.nodeSize < childSize) {
+            rebalance(index, childIndex, child);
+        } else if (index >= 0) {
+            // the key removed may have been the first of the child
+            keys[index] = children[index + 1].getFirstLeafKey();
+        }
+        return previous;
+    }
+
+    // merges the child with a sibling if a removal left it under-full, index is the key's search result
+    private void rebalance(int index, int childIndex, BPlusTreeNode<K, V> child) {
         if (child.isUnderFlow()) {
-            BPlusTreeNode<K, V> childLeftSibling = getChildLeftSibling(key);
-            BPlusTreeNode<K, V> childRightSibling = getChildRightSibling(key);
+            BPlusTreeNode<K, V> childLeftSibling = childIndex > 0 ? children[childIndex - 1] : null;
+            BPlusTreeNode<K, V> childRightSibling = childIndex < nodeSize ? children[childIndex + 1] : null;
             BPlusTreeNode<K, V> left = childLeftSibling != null ? childLeftSibling : child;
             BPlusTreeNode<K, V> right = childLeftSibling != null ? child : childRightSibling;
             left.merge(right);
@@ -72,25 +117,81 @@ public final class BPlusTreeInternalNode<K extends Comparable<K>, V> extends BPl
                 insertChild(newSiblingNode.getFirstLeafKey(), newSiblingNode);
             }
         } else if (index >= 0)
-            keys.set(index, children.get(index + 1).getFirstLeafKey());
+            keys[index] = children[index + 1].getFirstLeafKey();
+    }
+
+    @Override
+    int count() {
+        return count;
+    }
+
+    @Override
+    int rank(K key, boolean inclusive) {
+        int childIndex = childIndex(key);
+        int rank = 0;
+        for (int i = 0; i < childIndex; i++)
+            rank += children[i].count();
+        return rank + children[childIndex].rank(key, inclusive);
+    }
+
+    @Override
+    Pair<K, V> select(int rank) {
+        int i = 0;
+        while (rank >= children[i].count()) {
+            rank -= children[i].count();
+            i++;
+        }
+        return children[i].select(rank);
+    }
+
+    // recomputes the count from the children, for nodes built or split outside the insert path
+    void recount() {
+        count = 0;
+        for (int i = 0; i <= nodeSize; i++)
+            count += children[i].count();
     }
 
     @Override
     K getFirstLeafKey() {
-        return children.get(0).getFirstLeafKey();
+        return children[0].getFirstLeafKey();
+    }
+
+    @Override
+    BPlusTreeLeafNode<K, V> getLeaf(K key) {
+        return searchChild(key).getLeaf(key);
+    }
+
+    @Override
+    BPlusTreeLeafNode<K, V> getFirstLeaf() {
+        return children[0].getFirstLeaf();
+    }
+
+    @Override
+    BPlusTreeLeafNode<K, V> getLastLeaf() {
+        return children[nodeSize].getLastLeaf();
     }
 
     @Override
     BPlusTreeNode<K, V> split() {
-        int from = size() / 2 + 1;
-        int to = size();
-        BPlusTreeInternalNode<K, V> newSiblingNode = new BPlusTreeInternalNode(to - from);
-        for (int i = 0; i < to - from; i++) {
-            newSiblingNode.keys.set(i, keys.get(i + from));
-            newSiblingNode.children.set(i, children.get(i + from));
-        }
-        newSiblingNode.children.set(to - from, children.get(to));
-        this.nodeSize = this.nodeSize - to + from - 1;
+        return splitAt(nodeSize / 2 + 1);
+    }
+
+    @Override
+    BPlusTreeNode<K, V> splitLast() {
+        return splitAt(nodeSize - 1);
+    }
+
+    // the new sibling takes the keys from the index on and the children to their right
+    private BPlusTreeNode<K, V> splitAt(int from) {
+        int to = nodeSize;
+        BPlusTreeInternalNode<K, V> newSiblingNode = new BPlusTreeInternalNode<>(to - from);
+        System.arraycopy(keys, from, newSiblingNode.keys, 0, to - from);
+        System.arraycopy(children, from, newSiblingNode.children, 0, to - from + 1);
+        Arrays.fill(keys, from - 1, to, null);
+        Arrays.fill(children, from, to + 1, null);
+        nodeSize = from - 1;
+        newSiblingNode.recount();
+        count -= newSiblingNode.count;
         return newSiblingNode;
     }
 
@@ -99,25 +200,22 @@ public final class BPlusTreeInternalNode<K extends Comparable<K>, V> extends BPl
         int index = nodeSize;
         BPlusTreeInternalNode<K, V> node = (BPlusTreeInternalNode<K, V>) sibling;
         int length = node.nodeSize;
-        keys.set(index, node.getFirstLeafKey());
-        for (int i = 0; i < length; i++) {
-            keys.set(i + index + 1, node.keys.get(i));
-            children.set(i + index + 1, node.children.get(i));
-        }
-        children.set(length + index + 1, node.children.get(length));
+        keys[index] = node.getFirstLeafKey();
+        System.arraycopy(node.keys, 0, keys, index + 1, length);
+        System.arraycopy(node.children, 0, children, index + 1, length + 1);
         nodeSize = index + length + 1;
+        count += node.count;
     }
 
     private BPlusTreeNode<K, V> searchChild(K key) {
-        int index = binarySearch(key);
-        return children.get(index >= 0 ? index + 1 : -index - 1);
+        return children[childIndex(key)];
     }
 
     private void insertChild(K key, BPlusTreeNode<K, V> child) {
         int index = binarySearch(key);
         int childIndex = index >= 0 ? index + 1 : -index - 1;
         if (index >= 0) {
-            children.set(childIndex, child);
+            children[childIndex] = child;
         } else {
             childrenAdd(childIndex + 1, child);
             keysAdd(childIndex, key);
@@ -131,20 +229,4 @@ public final class BPlusTreeInternalNode<K extends Comparable<K>, V> extends BPl
             keysRemove(index);
         }
     }
-
-    private BPlusTreeNode<K, V> getChildLeftSibling(K key) {
-        int index = binarySearch(key);
-        int childIndex = index >= 0 ? index + 1 : -index - 1;
-        if (childIndex > 0)
-            return children.get(childIndex - 1);
-        return null;
-    }
-
-    private BPlusTreeNode<K, V> getChildRightSibling(K key) {
-        int index = binarySearch(key);
-        int childIndex = index >= 0 ? index + 1 : -index - 1;
-        if (childIndex < size())
-            return children.get(childIndex + 1);
-        return null;
-    }
 }
@@ -3,39 +3,63 @@ package cn.edu.thssdb.index;
 import cn.edu.thssdb.common.Pair;
 
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks the leaf chain of a BPlusTree, either ascending through next pointers
+ * or descending through prev pointers, and stops at an optional bound key.
+ * The tree must not be modified while iterating.
+ */
 
 public class BPlusTreeIterator<K extends Comparable<K>, V> implements Iterator<Pair<K, V>> {
-    private LinkedList<BPlusTreeNode<K, V>> queue;
-    private LinkedList<Pair<K, V>> buffer;
+    private BPlusTreeLeafNode<K, V> leaf;
+    private int index;
+    private final K bound; // null means the scan is open on this side
+    private final boolean boundInclusive;
+    private final boolean descending;
 
     BPlusTreeIterator(BPlusTree<K, V> tree) {
-        queue = new LinkedList<>();
-        buffer = new LinkedList<>();
-        if (tree.size() == 0) return;
-        queue.add(tree.root);
+        this(tree.size() == 0 ? null : tree.root.getFirstLeaf(), 0, null, false, false);
+    }
+
+    BPlusTreeIterator(BPlusTreeLeafNode<K, V> leaf, int index, K bound, boolean boundInclusive, boolean descending) {
+        this.leaf = leaf;
+        this.index = index;
+        this.bound = bound;
+        this.boundInclusive = boundInclusive;
+        this.descending = descending;
+        seek();
+    }
+
+    private void seek() {
+        while (leaf != null && (index < 0 || index >= leaf.size())) {
+            if (descending) {
+                leaf = leaf.prev;
+                index = leaf == null ? -1 : leaf.size() - 1;
+            } else {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+        if (leaf == null || bound == null)
+            return;
+        int cmp = leaf.keys[index].compareTo(bound);
+        if (descending ? cmp < 0 || (cmp == 0 && !boundInclusive) : cmp > 0 || (cmp == 0 && !boundInclusive))
+            leaf = null;
     }
 
     @Override
     public boolean hasNext() {
-        return !queue.isEmpty() || !buffer.isEmpty();
+        return leaf != null;
     }
 
     @Override
     public Pair<K, V> next() {
-        if (buffer.isEmpty()) {
-            while (true) {
-                BPlusTreeNode<K, V> node = queue.poll();
-                if (node instanceof BPlusTreeLeafNode) {
-                    for (int i = 0; i < node.size(); i++)
-                        buffer.add(
-                                new Pair<>(node.keys.get(i), ((BPlusTreeLeafNode<K, V>) node).values.get(i)));
-                    break;
-                } else if (node instanceof BPlusTreeInternalNode)
-                    for (int i = 0; i <= node.size(); i++)
-                        queue.add(((BPlusTreeInternalNode<K, V>) node).children.get(i));
-            }
-        }
-        return buffer.poll();
+        if (leaf == null)
+            throw new NoSuchElementException();
+        Pair<K, V> pair = new Pair<>(leaf.keys[index], leaf.values[index]);
+        index += descending ? -1 : 1;
+        seek();
+        return pair;
     }
 }
@@ -1,32 +1,33 @@
 package cn.edu.thssdb.index;
 
+import cn.edu.thssdb.common.Pair;
 import cn.edu.thssdb.exception.DuplicateKeyException;
 import cn.edu.thssdb.exception.KeyNotExistException;
-import cn.edu.thssdb.common.Global;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.function.BiFunction;
 
 public class BPlusTreeLeafNode<K extends Comparable<K>, V> extends BPlusTreeNode<K, V> {
 
-    ArrayList<V> values;
-    private BPlusTreeLeafNode<K, V> next;
+    V[] values;
+    BPlusTreeLeafNode<K, V> next;
+    BPlusTreeLeafNode<K, V> prev;
 
+    @SuppressWarnings("unchecked")
     BPlusTreeLeafNode(int size) {
-        keys = new ArrayList<>(Collections.nCopies((int) (1.5 * Global.fanout) + 1, null));
-        values = new ArrayList<>(Collections.nCopies((int) (1.5 * Global.fanout) + 1, null));
+        keys = (K[]) new Comparable[capacity()];
+        values = (V[]) new Object[capacity()];
         nodeSize = size;
     }
 
     private void valuesAdd(int index, V value) {
-        for (int i = nodeSize; i > index; i--)
-            values.set(i, values.get(i - 1));
-        values.set(index, value);
+        System.arraycopy(values, index, values, index + 1, nodeSize - index);
+        values[index] = value;
     }
 
     private void valuesRemove(int index) {
-        for (int i = index; i < nodeSize - 1; i++)
-            values.set(i, values.get(i + 1));
+        System.arraycopy(values, index + 1, values, index, nodeSize - index - 1);
+        values[nodeSize - 1] = null;
     }
 
     @Override
@@ -38,64 +39,133 @@ public class BPlusTreeLeafNode<K extends Comparable<K>, V> extends BPlusTreeNode
     V get(K key) {
         int index = binarySearch(key);
         if (index >= 0)
-            return values.get(index);
+            return values[index];
         throw new KeyNotExistException();
     }
 
     @Override
     void put(K key, V value) {
         int index = binarySearch(key);
-        int valueIndex = index >= 0 ? index : -index - 1;
         if (index >= 0)
             throw new DuplicateKeyException();
-        else {
-            valuesAdd(valueIndex, value);
-            keysAdd(valueIndex, key);
-        }
+        insert(-index - 1, key, value);
+    }
+
+    // inserts at a position found by binarySearch
+    void insert(int index, K key, V value) {
+        valuesAdd(index, value);
+        keysAdd(index, key);
+    }
+
+    @Override
+    void append(K key, V value) {
+        keys[nodeSize] = key;
+        values[nodeSize] = value;
+        nodeSize++;
     }
 
     @Override
     void remove(K key) {
         int index = binarySearch(key);
-        if (index >= 0) {
-            valuesRemove(index);
-            keysRemove(index);
-        } else
+        if (index < 0)
             throw new KeyNotExistException();
+        valuesRemove(index);
+        keysRemove(index);
+    }
+
+    @Override
+    V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        int index = binarySearch(key);
+        V previous = index >= 0 ? values[index] : null;
+        V value = remapping.apply(key, previous);
+        if (index >= 0) {
+            if (value != null) {
+                values[index] = value;
+            } else {
+                valuesRemove(index);
+                keysRemove(index);
+            }
+        } else if (value != null) {
+            valuesAdd(-index - 1, value);
+            keysAdd(-index - 1, key);
+        }
+        return previous;
+    }
+
+    @Override
+    int count() {
+        return nodeSize;
+    }
+
+    @Override
+    int rank(K key, boolean inclusive) {
+        int index = binarySearch(key);
+        if (index >= 0)
+            return inclusive ? index + 1 : index;
+        return -index - 1;
+    }
+
+    @Override
+    Pair<K, V> select(int rank) {
+        return new Pair<>(keys[rank], values[rank]);
     }
 
     @Override
     K getFirstLeafKey() {
-        return keys.get(0);
+        return keys[0];
     }
 
     @Override
-    BPlusTreeNode split() {
-        int from = (size() + 1) / 2;
-        int to = size();
-        BPlusTreeLeafNode<K, V> newSiblingNode = new BPlusTreeLeafNode(to - from);
-        for (int i = 0; i < to - from; i++) {
-            newSiblingNode.keys.set(i, keys.get(i + from));
-            newSiblingNode.values.set(i, values.get(i + from));
-            keys.set(i + from, null);
-            values.set(i + from, null);
-        }
+    BPlusTreeLeafNode<K, V> getLeaf(K key) {
+        return this;
+    }
+
+    @Override
+    BPlusTreeLeafNode<K, V> getFirstLeaf() {
+        return this;
+    }
+
+    @Override
+    BPlusTreeLeafNode<K, V> getLastLeaf() {
+        return this;
+    }
+
+    @Override
+    BPlusTreeNode<K, V> split() {
+        return splitAt((nodeSize + 1) / 2);
+    }
+
+    @Override
+    BPlusTreeNode<K, V> splitLast() {
+        return splitAt(nodeSize - 1);
+    }
+
+    private BPlusTreeNode<K, V> splitAt(int from) {
+        int to = nodeSize;
+        BPlusTreeLeafNode<K, V> newSiblingNode = new BPlusTreeLeafNode<>(to - from);
+        System.arraycopy(keys, from, newSiblingNode.keys, 0, to - from);
+        System.arraycopy(values, from, newSiblingNode.values, 0, to - from);
+        Arrays.fill(keys, from, to, null);
+        Arrays.fill(values, from, to, null);
         nodeSize = from;
         newSiblingNode.next = next;
+        newSiblingNode.prev = this;
+        if (next != null)
+            next.prev = newSiblingNode;
         next = newSiblingNode;
         return newSiblingNode;
     }
 
     @Override
     void merge(BPlusTreeNode<K, V> sibling) {
-        int index = size();
+        int index = nodeSize;
         BPlusTreeLeafNode<K, V> node = (BPlusTreeLeafNode<K, V>) sibling;
-        int length = node.size();
-        for (int i = 0; i < length; i++) {
-            keys.set(i + index, node.keys.get(i));
-            values.set(i + index, node.values.get(i));
-        }
+        int length = node.nodeSize;
+        System.arraycopy(node.keys, 0, keys, index, length);
+        System.arraycopy(node.values, 0, values, index, length);
         nodeSize = index + length;
         next = node.next;
+        if (next != null)
+            next.prev = this;
     }
 }
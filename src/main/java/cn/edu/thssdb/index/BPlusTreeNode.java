@@ -1,26 +1,60 @@
 package cn.edu.thssdb.index;
 
 import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.function.BiFunction;
+
+/**
+ * Node of a BPlusTree. Keys live in a plain array sized for a merge of two nodes, and entries
+ * are shifted with System.arraycopy.
+ */
 
 abstract class BPlusTreeNode<K extends Comparable<K>, V> {
-    ArrayList<K> keys;
+    K[] keys;
     int nodeSize;
 
+    // a merge of an under-full node and a full sibling must fit
+    static int capacity() {
+        return (int) (1.5 * Global.fanout) + 1;
+    }
+
     abstract V get(K key);
 
     abstract void put(K key, V value);
 
+    // inserts a key greater than every key in the tree, along the rightmost path without searching
+    abstract void append(K key, V value);
+
     abstract void remove(K key);
 
+    // stores remapping(key, current value) or removes the key on null, returns the previous value
+    abstract V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping);
+
     abstract boolean containsKey(K key);
 
+    // number of entries in the subtree
+    abstract int count();
+
+    // number of keys in the subtree less than the key, or not greater than it if inclusive
+    abstract int rank(K key, boolean inclusive);
+
+    // the entry with the given rank in the subtree, counted from 0
+    abstract Pair<K, V> select(int rank);
+
     abstract K getFirstLeafKey();
 
+    abstract BPlusTreeLeafNode<K, V> getLeaf(K key);
+
+    abstract BPlusTreeLeafNode<K, V> getFirstLeaf();
+
+    abstract BPlusTreeLeafNode<K, V> getLastLeaf();
+
     abstract BPlusTreeNode<K, V> split();
 
+    // splits off only the last entry, so a node filled by ascending inserts stays full
+    abstract BPlusTreeNode<K, V> splitLast();
+
     abstract void merge(BPlusTreeNode<K, V> sibling);
 
     int size() {
@@ -36,21 +70,30 @@ abstract class BPlusTreeNode<K extends Comparable<K>, V> {
     }
 
     int binarySearch(K key) {
-        return Collections.binarySearch(keys.subList(0, nodeSize), key);
+        int low = 0;
+        int high = nodeSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = keys[mid].compareTo(key);
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
     }
 
     void keysAdd(int index, K key) {
-        for (int i = nodeSize; i > index; i--) {
-            keys.set(i, keys.get(i - 1));
-        }
-        keys.set(index, key);
+        System.arraycopy(keys, index, keys, index + 1, nodeSize - index);
+        keys[index] = key;
         nodeSize++;
     }
 
     void keysRemove(int index) {
-        for (int i = index; i < nodeSize - 1; i++) {
-            keys.set(i, keys.get(i + 1));
-        }
+        System.arraycopy(keys, index + 1, keys, index, nodeSize - index - 1);
         nodeSize--;
+        keys[nodeSize] = null;
     }
 }
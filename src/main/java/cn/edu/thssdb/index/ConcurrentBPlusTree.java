@@ -0,0 +1,571 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * Thread-safe B+ tree with a read/write latch on every node.
+ * <p>
+ * Readers couple read latches from the root down to the leaf. Writers first try the same
+ * descent with a write latch on the leaf only, which is enough whenever the leaf has room.
+ * Otherwise they start again from the root holding write latches, and release the
+ * ancestors of every node that cannot split (latch crabbing).
+ * <p>
+ * putIfAbsent, replace and compute run the remapping under the leaf's write latch, so they are
+ * atomic with respect to every other operation on the key.
+ * <p>
+ * Removals never merge nodes, so they only ever latch one leaf. Scans buffer one leaf at a
+ * time and find the next leaf by searching again from the root, so an iterator never holds a
+ * latch between calls.
+ */
+
+public final class ConcurrentBPlusTree<K extends Comparable<K>, V> implements Index<K, V> {
+
+    private final ReentrantReadWriteLock rootLatch = new ReentrantReadWriteLock();
+    private Node<K, V> root;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public ConcurrentBPlusTree() {
+        root = new LeafNode<>();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to get() is null");
+        LeafNode<K, V> leaf = readLeaf(key);
+        try {
+            int index = leaf.binarySearch(key);
+            if (index < 0)
+                throw new KeyNotExistException();
+            return leaf.valueAt(index);
+        } finally {
+            leaf.latch.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to contains() is null");
+        LeafNode<K, V> leaf = readLeaf(key);
+        try {
+            return leaf.binarySearch(key) >= 0;
+        } finally {
+            leaf.latch.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to put() is null");
+        LeafNode<K, V> leaf = writeLeaf(key);
+        try {
+            if (leaf.binarySearch(key) >= 0)
+                throw new DuplicateKeyException();
+            if (leaf.isSafeForInsert()) {
+                leaf.insert(key, value);
+                size.incrementAndGet();
+                return;
+            }
+        } finally {
+            leaf.latch.writeLock().unlock();
+        }
+        computePessimistic(key, (k, old) -> {
+            if (old != null)
+                throw new DuplicateKeyException();
+            return value;
+        });
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to putIfAbsent() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to putIfAbsent() is null");
+        return computeLatched(key, (k, old) -> old == null ? value : old);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to replace() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to replace() is null");
+        LeafNode<K, V> leaf = writeLeaf(key);
+        try {
+            int index = leaf.binarySearch(key);
+            if (index < 0)
+                return null;
+            V previous = leaf.valueAt(index);
+            leaf.values[index] = value;
+            return previous;
+        } finally {
+            leaf.latch.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (key == null) throw new IllegalArgumentException("argument key to compute() is null");
+        ArrayList<V> computed = new ArrayList<>(1);
+        computeLatched(key, (k, old) -> {
+            V value = remapping.apply(k, old);
+            computed.add(value);
+            return value;
+        });
+        return computed.get(0);
+    }
+
+    @Override
+    public void update(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to update() is null");
+        LeafNode<K, V> leaf = writeLeaf(key);
+        try {
+            int index = leaf.binarySearch(key);
+            if (index < 0)
+                throw new KeyNotExistException();
+            leaf.values[index] = value;
+        } finally {
+            leaf.latch.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to remove() is null");
+        LeafNode<K, V> leaf = writeLeaf(key);
+        try {
+            int index = leaf.binarySearch(key);
+            if (index < 0)
+                throw new KeyNotExistException();
+            leaf.delete(index);
+            size.decrementAndGet();
+        } finally {
+            leaf.latch.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bulkLoad(Iterator<Pair<K, V>> sortedEntries) {
+        BPlusTree<K, V> packed = new BPlusTree<>();
+        packed.bulkLoad(sortedEntries);
+        try {
+            rootLatch.writeLock().lock();
+            if (size.get() != 0) throw new IllegalStateException("bulkLoad() needs an empty tree");
+            root = copyOf(packed.root);
+            size.set(packed.size());
+        } finally {
+            rootLatch.writeLock().unlock();
+        }
+    }
+
+    private Node<K, V> copyOf(BPlusTreeNode<K, V> node) {
+        if (node instanceof BPlusTreeLeafNode) {
+            BPlusTreeLeafNode<K, V> leaf = (BPlusTreeLeafNode<K, V>) node;
+            LeafNode<K, V> copy = new LeafNode<>();
+            System.arraycopy(leaf.keys, 0, copy.keys, 0, leaf.size());
+            System.arraycopy(leaf.values, 0, copy.values, 0, leaf.size());
+            copy.nodeSize = leaf.size();
+            return copy;
+        }
+        BPlusTreeInternalNode<K, V> internal = (BPlusTreeInternalNode<K, V>) node;
+        InternalNode<K, V> copy = new InternalNode<>();
+        System.arraycopy(internal.keys, 0, copy.keys, 0, internal.size());
+        for (int i = 0; i <= internal.size(); i++)
+            copy.children[i] = copyOf(internal.children[i]);
+        copy.nodeSize = internal.size();
+        return copy;
+    }
+
+    // read-latched leaf that covers the key, reached by coupling read latches from the root
+    private LeafNode<K, V> readLeaf(K key) {
+        rootLatch.readLock().lock();
+        Node<K, V> node = root;
+        node.latch.readLock().lock();
+        rootLatch.readLock().unlock();
+        while (node instanceof InternalNode) {
+            Node<K, V> child = ((InternalNode<K, V>) node).searchChild(key);
+            child.latch.readLock().lock();
+            node.latch.readLock().unlock();
+            node = child;
+        }
+        return (LeafNode<K, V>) node;
+    }
+
+    // write-latched leaf that covers the key, internal nodes are only read-latched on the way
+    private LeafNode<K, V> writeLeaf(K key) {
+        rootLatch.readLock().lock();
+        Node<K, V> node = root;
+        lockForOptimisticWrite(node);
+        rootLatch.readLock().unlock();
+        while (node instanceof InternalNode) {
+            Node<K, V> child = ((InternalNode<K, V>) node).searchChild(key);
+            lockForOptimisticWrite(child);
+            node.latch.readLock().unlock();
+            node = child;
+        }
+        return (LeafNode<K, V>) node;
+    }
+
+    private void lockForOptimisticWrite(Node<K, V> node) {
+        if (node instanceof LeafNode)
+            node.latch.writeLock().lock();
+        else
+            node.latch.readLock().lock();
+    }
+
+    // applies the remapping under the leaf latch when the leaf cannot split, returns the previous value
+    private V computeLatched(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        LeafNode<K, V> leaf = writeLeaf(key);
+        try {
+            int index = leaf.binarySearch(key);
+            if (index >= 0 || leaf.isSafeForInsert())
+                return applyAt(leaf, index, key, remapping);
+        } finally {
+            leaf.latch.writeLock().unlock();
+        }
+        return computePessimistic(key, remapping);
+    }
+
+    private V applyAt(LeafNode<K, V> leaf, int index, K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        V previous = index >= 0 ? leaf.valueAt(index) : null;
+        V value = remapping.apply(key, previous);
+        if (index >= 0) {
+            if (value != null) {
+                leaf.values[index] = value;
+            } else {
+                leaf.delete(index);
+                size.decrementAndGet();
+            }
+        } else if (value != null) {
+            leaf.insert(key, value);
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    private V computePessimistic(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        ArrayDeque<Node<K, V>> path = new ArrayDeque<>();
+        boolean holdsRoot = true;
+        rootLatch.writeLock().lock();
+        try {
+            Node<K, V> node = root;
+            node.latch.writeLock().lock();
+            path.push(node);
+            while (true) {
+                if (node.isSafeForInsert()) {
+                    // nothing above this node can change any more
+                    while (path.size() > 1)
+                        path.removeLast().latch.writeLock().unlock();
+                    if (holdsRoot) {
+                        rootLatch.writeLock().unlock();
+                        holdsRoot = false;
+                    }
+                }
+                if (!(node instanceof InternalNode))
+                    break;
+                node = ((InternalNode<K, V>) node).searchChild(key);
+                node.latch.writeLock().lock();
+                path.push(node);
+            }
+
+            LeafNode<K, V> leaf = (LeafNode<K, V>) path.pop();
+            V previous;
+            try {
+                previous = applyAt(leaf, leaf.binarySearch(key), key, remapping);
+            } catch (RuntimeException e) {
+                leaf.latch.writeLock().unlock();
+                while (!path.isEmpty())
+                    path.pop().latch.writeLock().unlock();
+                throw e;
+            }
+
+            Node<K, V> child = leaf;
+            while (child.isOverFlow()) {
+                Pair<K, Node<K, V>> split = child.split();
+                InternalNode<K, V> parent = (InternalNode<K, V>) path.peek();
+                if (parent == null) {
+                    InternalNode<K, V> newRoot = new InternalNode<>();
+                    newRoot.keys[0] = split.left;
+                    newRoot.children[0] = child;
+                    newRoot.children[1] = split.right;
+                    newRoot.nodeSize = 1;
+                    root = newRoot;
+                    break;
+                }
+                parent.insertChild(split.left, split.right);
+                child.latch.writeLock().unlock();
+                child = path.pop();
+            }
+            child.latch.writeLock().unlock();
+            while (!path.isEmpty())
+                path.pop().latch.writeLock().unlock();
+            return previous;
+        } finally {
+            if (holdsRoot)
+                rootLatch.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return new TreeIterator<>(this, null, true, null, false, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> seek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new TreeIterator<>(this, from, fromInclusive, to, toInclusive, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new TreeIterator<>(this, to, toInclusive, from, fromInclusive, true);
+    }
+
+    abstract static class Node<K extends Comparable<K>, V> {
+        final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+        final Object[] keys = new Object[Global.fanout];
+        int nodeSize;
+
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        int binarySearch(K key) {
+            int low = 0;
+            int high = nodeSize - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = ((K) keys[mid]).compareTo(key);
+                if (cmp < 0)
+                    low = mid + 1;
+                else if (cmp > 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        boolean isOverFlow() {
+            return nodeSize > Global.fanout - 1;
+        }
+
+        boolean isSafeForInsert() {
+            return nodeSize < Global.fanout - 1;
+        }
+
+        // splits off the upper half, returns the separator key and the new right sibling
+        abstract Pair<K, Node<K, V>> split();
+    }
+
+    static final class InternalNode<K extends Comparable<K>, V> extends Node<K, V> {
+        @SuppressWarnings("unchecked")
+        final Node<K, V>[] children = (Node<K, V>[]) new Node[Global.fanout + 1];
+
+        int childIndex(K key) {
+            int index = binarySearch(key);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        Node<K, V> searchChild(K key) {
+            return children[childIndex(key)];
+        }
+
+        void insertChild(K key, Node<K, V> child) {
+            int index = -binarySearch(key) - 1;
+            System.arraycopy(keys, index, keys, index + 1, nodeSize - index);
+            System.arraycopy(children, index + 1, children, index + 2, nodeSize - index);
+            keys[index] = key;
+            children[index + 1] = child;
+            nodeSize++;
+        }
+
+        @Override
+        Pair<K, Node<K, V>> split() {
+            int from = nodeSize / 2 + 1;
+            InternalNode<K, V> sibling = new InternalNode<>();
+            sibling.nodeSize = nodeSize - from;
+            System.arraycopy(keys, from, sibling.keys, 0, sibling.nodeSize);
+            System.arraycopy(children, from, sibling.children, 0, sibling.nodeSize + 1);
+            K separator = keyAt(from - 1);
+            Arrays.fill(keys, from - 1, nodeSize, null);
+            Arrays.fill(children, from, nodeSize + 1, null);
+            nodeSize = from - 1;
+            return new Pair<>(separator, sibling);
+        }
+    }
+
+    static final class LeafNode<K extends Comparable<K>, V> extends Node<K, V> {
+        final Object[] values = new Object[Global.fanout];
+
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) values[index];
+        }
+
+        void insert(K key, V value) {
+            int index = -binarySearch(key) - 1;
+            System.arraycopy(keys, index, keys, index + 1, nodeSize - index);
+            System.arraycopy(values, index, values, index + 1, nodeSize - index);
+            keys[index] = key;
+            values[index] = value;
+            nodeSize++;
+        }
+
+        void delete(int index) {
+            System.arraycopy(keys, index + 1, keys, index, nodeSize - index - 1);
+            System.arraycopy(values, index + 1, values, index, nodeSize - index - 1);
+            nodeSize--;
+            keys[nodeSize] = null;
+            values[nodeSize] = null;
+        }
+
+        @Override
+        Pair<K, Node<K, V>> split() {
+            int from = (nodeSize + 1) / 2;
+            LeafNode<K, V> sibling = new LeafNode<>();
+            sibling.nodeSize = nodeSize - from;
+            System.arraycopy(keys, from, sibling.keys, 0, sibling.nodeSize);
+            System.arraycopy(values, from, sibling.values, 0, sibling.nodeSize);
+            Arrays.fill(keys, from, nodeSize, null);
+            Arrays.fill(values, from, nodeSize, null);
+            nodeSize = from;
+            return new Pair<>(sibling.keyAt(0), sibling);
+        }
+    }
+
+    /**
+     * Copies the matching entries of one leaf at a time while holding its read latch.
+     * The next leaf is found by searching from the separator that bounds the current one,
+     * so leaves that split in between are not skipped.
+     */
+    static final class TreeIterator<K extends Comparable<K>, V> implements Iterator<Pair<K, V>> {
+        private final ConcurrentBPlusTree<K, V> tree;
+        private final K end;
+        private final boolean endInclusive;
+        private final boolean descending;
+        private K position; // null before the first leaf of an open scan
+        private boolean positionInclusive;
+        private boolean exhausted;
+        private final ArrayList<Pair<K, V>> buffer = new ArrayList<>();
+        private int next;
+
+        TreeIterator(ConcurrentBPlusTree<K, V> tree, K start, boolean startInclusive, K end, boolean endInclusive,
+                     boolean descending) {
+            this.tree = tree;
+            this.position = start;
+            this.positionInclusive = startInclusive;
+            this.end = end;
+            this.endInclusive = endInclusive;
+            this.descending = descending;
+            fill();
+        }
+
+        private boolean beforeEnd(K key) {
+            if (end == null) return true;
+            int cmp = key.compareTo(end);
+            return descending ? cmp > 0 || (cmp == 0 && endInclusive) : cmp < 0 || (cmp == 0 && endInclusive);
+        }
+
+        private boolean afterPosition(K key) {
+            if (position == null) return true;
+            int cmp = key.compareTo(position);
+            return descending ? cmp < 0 || (cmp == 0 && positionInclusive) : cmp > 0 || (cmp == 0 && positionInclusive);
+        }
+
+        private void fill() {
+            buffer.clear();
+            next = 0;
+            while (buffer.isEmpty() && !exhausted) {
+                K boundary = readLeaf();
+                if (boundary == null || !beforeEnd(boundary)) {
+                    exhausted = true;
+                } else {
+                    // continue with the leaf on the other side of the separator
+                    position = boundary;
+                    positionInclusive = !descending;
+                }
+            }
+        }
+
+        // buffers the matching entries of the leaf at the current position and returns the
+        // separator on its far side, or null if it is the last leaf in scan direction
+        private K readLeaf() {
+            tree.rootLatch.readLock().lock();
+            Node<K, V> node = tree.root;
+            node.latch.readLock().lock();
+            tree.rootLatch.readLock().unlock();
+            K boundary = null;
+            while (node instanceof InternalNode) {
+                InternalNode<K, V> internal = (InternalNode<K, V>) node;
+                int childIndex;
+                if (position == null)
+                    childIndex = descending ? internal.nodeSize : 0;
+                else if (descending) {
+                    int index = internal.binarySearch(position);
+                    childIndex = index >= 0 ? (positionInclusive ? index + 1 : index) : -index - 1;
+                } else
+                    childIndex = internal.childIndex(position);
+                if (descending && childIndex > 0)
+                    boundary = internal.keyAt(childIndex - 1);
+                else if (!descending && childIndex < internal.nodeSize)
+                    boundary = internal.keyAt(childIndex);
+                Node<K, V> child = internal.children[childIndex];
+                child.latch.readLock().lock();
+                node.latch.readLock().unlock();
+                node = child;
+            }
+            LeafNode<K, V> leaf = (LeafNode<K, V>) node;
+            try {
+                if (descending) {
+                    for (int i = leaf.nodeSize - 1; i >= 0; i--) {
+                        K key = leaf.keyAt(i);
+                        if (!afterPosition(key)) continue;
+                        if (!beforeEnd(key)) return null;
+                        buffer.add(new Pair<>(key, leaf.valueAt(i)));
+                    }
+                } else {
+                    for (int i = 0; i < leaf.nodeSize; i++) {
+                        K key = leaf.keyAt(i);
+                        if (!afterPosition(key)) continue;
+                        if (!beforeEnd(key)) return null;
+                        buffer.add(new Pair<>(key, leaf.valueAt(i)));
+                    }
+                }
+            } finally {
+                leaf.latch.readLock().unlock();
+            }
+            return boundary;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < buffer.size();
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (next >= buffer.size())
+                throw new NoSuchElementException();
+            Pair<K, V> pair = buffer.get(next++);
+            if (next == buffer.size())
+                fill();
+            return pair;
+        }
+    }
+}
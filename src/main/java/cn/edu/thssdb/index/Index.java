@@ -0,0 +1,111 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Pair;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Ordered key-value index a table keeps its rows in.
+ * Implemented by the generic BPlusTree and by the primitive-keyed trees.
+ */
+
+public interface Index<K extends Comparable<K>, V> extends Iterable<Pair<K, V>> {
+
+    int size();
+
+    V get(K key);
+
+    void put(K key, V value);
+
+    void update(K key, V value);
+
+    void remove(K key);
+
+    boolean contains(K key);
+
+    /**
+     * Inserts the value unless the key is present.
+     * Returns the value already stored under the key, or null if the value was inserted.
+     */
+    default V putIfAbsent(K key, V value) {
+        if (contains(key))
+            return get(key);
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * Replaces the value of a present key.
+     * Returns the previous value, or null if the key is absent and nothing changed.
+     */
+    default V replace(K key, V value) {
+        if (!contains(key))
+            return null;
+        V previous = get(key);
+        update(key, value);
+        return previous;
+    }
+
+    /**
+     * Stores remapping(key, current value or null) under the key, or removes the key when
+     * the function returns null. Returns the new value. If the function throws, the index is
+     * left unchanged. The trees override these defaults to do it in a single descent.
+     */
+    default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        V previous = contains(key) ? get(key) : null;
+        V value = remapping.apply(key, previous);
+        if (previous != null && value != null)
+            update(key, value);
+        else if (previous != null)
+            remove(key);
+        else if (value != null)
+            put(key, value);
+        return value;
+    }
+
+    /**
+     * Inserts entries given in strictly ascending key order, stopping before the first key that
+     * is already present. Returns the number of entries inserted. Values must not be null.
+     * The heap trees insert consecutive keys that fall into one leaf after a single descent.
+     */
+    default int putAll(List<Pair<K, V>> sortedEntries) {
+        int count = 0;
+        for (Pair<K, V> entry : sortedEntries) {
+            if (putIfAbsent(entry.left, entry.right) != null)
+                break;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Builds an empty index from entries in strictly ascending key order.
+     */
+    void bulkLoad(Iterator<Pair<K, V>> sortedEntries);
+
+    Iterator<Pair<K, V>> seek(K from, boolean fromInclusive, K to, boolean toInclusive);
+
+    /**
+     * Number of keys less than the key, or not greater than it if inclusive.
+     */
+    default int rank(K key, boolean inclusive) {
+        if (key == null) throw new IllegalArgumentException("argument key to rank() is null");
+        return count(null, false, key, inclusive);
+    }
+
+    /**
+     * Number of keys between from and to, a null bound leaves that side open. The heap trees
+     * keep subtree counts and take two descents, other indexes count the entries of a seek.
+     */
+    default int count(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        Iterator<Pair<K, V>> iterator = seek(from, fromInclusive, to, toInclusive);
+        int count = 0;
+        for (; iterator.hasNext(); iterator.next())
+            count++;
+        return count;
+    }
+
+    Iterator<Pair<K, V>> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive);
+}
@@ -0,0 +1,57 @@
+package cn.edu.thssdb.index;
+
+import java.util.function.BiFunction;
+
+/**
+ * B+ tree specialized for int keys. Nodes keep their keys in a plain int[] so lookups
+ * compare primitives instead of calling compareTo on boxed values, see PrimitiveBPlusTree.
+ */
+
+public final class IntBPlusTree<V> extends PrimitiveBPlusTree<Integer, V> {
+
+    public IntBPlusTree() {
+        super(false);
+    }
+
+    public V get(int key) {
+        return getKey(key);
+    }
+
+    public void update(int key, V value) {
+        updateKey(key, value);
+    }
+
+    public void put(int key, V value) {
+        putKey(key, value);
+    }
+
+    public void remove(int key) {
+        removeKey(key);
+    }
+
+    public boolean contains(int key) {
+        return containsKey(key);
+    }
+
+    public V putIfAbsent(int key, V value) {
+        return putIfAbsentKey(key, value);
+    }
+
+    public V replace(int key, V value) {
+        return replaceKey(key, value);
+    }
+
+    public V compute(int key, BiFunction<? super Integer, ? super V, ? extends V> remapping) {
+        return computeKey(key, remapping);
+    }
+
+    @Override
+    Integer box(long key) {
+        return (int) key;
+    }
+
+    @Override
+    long unbox(Integer key) {
+        return key;
+    }
+}
@@ -0,0 +1,57 @@
+package cn.edu.thssdb.index;
+
+import java.util.function.BiFunction;
+
+/**
+ * B+ tree specialized for long keys. Nodes keep their keys in a plain long[] so lookups
+ * compare primitives instead of calling compareTo on boxed values, see PrimitiveBPlusTree.
+ */
+
+public final class LongBPlusTree<V> extends PrimitiveBPlusTree<Long, V> {
+
+    public LongBPlusTree() {
+        super(true);
+    }
+
+    public V get(long key) {
+        return getKey(key);
+    }
+
+    public void update(long key, V value) {
+        updateKey(key, value);
+    }
+
+    public void put(long key, V value) {
+        putKey(key, value);
+    }
+
+    public void remove(long key) {
+        removeKey(key);
+    }
+
+    public boolean contains(long key) {
+        return containsKey(key);
+    }
+
+    public V putIfAbsent(long key, V value) {
+        return putIfAbsentKey(key, value);
+    }
+
+    public V replace(long key, V value) {
+        return replaceKey(key, value);
+    }
+
+    public V compute(long key, BiFunction<? super Long, ? super V, ? extends V> remapping) {
+        return computeKey(key, remapping);
+    }
+
+    @Override
+    Long box(long key) {
+        return key;
+    }
+
+    @Override
+    long unbox(Long key) {
+        return key;
+    }
+}
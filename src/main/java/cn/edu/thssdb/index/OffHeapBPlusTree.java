@@ -0,0 +1,661 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.EntryTooLargeException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import cn.edu.thssdb.storage.Codec;
+import cn.edu.thssdb.storage.OffHeapStore;
+import cn.edu.thssdb.storage.OrderedCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * B+ tree whose nodes and values live in direct memory blocks of an OffHeapStore, so the heap
+ * only holds the entries an operation is working on.
+ * <p>
+ * A node is a block of one page: a header, an array of fixed-size slots in key order and the
+ * encoded keys packed from the end of the block. A slot holds the offset and length of its key
+ * and either the address of the value, stored in its own block, or the child to the right of
+ * the key. Keys written by an OrderedCodec are compared as unsigned bytes where they lie,
+ * other keys are decoded for comparison as the search visits them.
+ * <p>
+ * Ordered keys are also compressed. A node stores the prefix its keys share once and only the
+ * rest of each key in the slots, and a leaf split pushes up the shortest separator between its
+ * halves rather than a whole key, so long keys with common leading bytes such as URLs or
+ * composite keys pack many more entries per node.
+ * <p>
+ * Space left by removed keys is reclaimed when the node next runs out of room, and a node
+ * splits once it is still full after that, so a key may take at most a quarter of a node.
+ * Removals do not merge nodes.
+ * <p>
+ * Not thread-safe, callers serialize writers as they do for BPlusTree. Readers may run
+ * together.
+ */
+
+public final class OffHeapBPlusTree<K extends Comparable<K>, V> implements Index<K, V> {
+    // node header: leaf flag, key count, start of the packed keys, first child of an internal
+    // node, then offset and length of the prefix all its keys share
+    private static final int LEAF = 0;
+    private static final int COUNT = 1;
+    private static final int HEAP = 5;
+    private static final int FIRST_CHILD = 9;
+    private static final int PREFIX = 17;
+    private static final int SLOTS = 21;
+    // slot: offset and length of the key past the prefix as unsigned shorts, then the value
+    // address or right child
+    private static final int SLOT = 12;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final boolean ordered;
+    private final OffHeapStore store;
+    private final int nodeSize;
+    private final int maxKeySize;
+    private final byte[] scratch;
+    private long root;
+    private int size;
+
+    public OffHeapBPlusTree(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, new OffHeapStore());
+    }
+
+    public OffHeapBPlusTree(Codec<K> keyCodec, Codec<V> valueCodec, OffHeapStore store) {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.ordered = keyCodec instanceof OrderedCodec;
+        this.store = store;
+        // a node and its header fill one block of a page, slots address it with unsigned shorts
+        this.nodeSize = Math.min(Global.pageSize, 1 << 16) - OffHeapStore.HEADER;
+        this.maxKeySize = (nodeSize - SLOTS) / 4 - SLOT;
+        this.scratch = new byte[nodeSize];
+        this.root = newNode(true, OffHeapStore.NONE);
+        this.size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to get() is null");
+        Probe probe = new Probe(key);
+        ByteBuffer leaf = findLeaf(probe);
+        int index = search(leaf, probe);
+        if (index < 0)
+            throw new KeyNotExistException();
+        return store.load(pointer(leaf, index), valueCodec);
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to contains() is null");
+        Probe probe = new Probe(key);
+        return search(findLeaf(probe), probe) >= 0;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to put() is null");
+        apply(key, (k, old) -> {
+            if (old != null)
+                throw new DuplicateKeyException();
+            return value;
+        });
+    }
+
+    @Override
+    public void update(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to update() is null");
+        apply(key, (k, old) -> {
+            if (old == null)
+                throw new KeyNotExistException();
+            return value;
+        });
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to putIfAbsent() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to putIfAbsent() is null");
+        return apply(key, (k, old) -> old == null ? value : old);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to replace() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to replace() is null");
+        return apply(key, (k, old) -> old == null ? null : value);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (key == null) throw new IllegalArgumentException("argument key to compute() is null");
+        ArrayList<V> computed = new ArrayList<>(1);
+        apply(key, (k, old) -> {
+            V value = remapping.apply(k, old);
+            computed.add(value);
+            return value;
+        });
+        return computed.get(0);
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to remove() is null");
+        Probe probe = new Probe(key);
+        ByteBuffer leaf = findLeaf(probe);
+        int index = search(leaf, probe);
+        if (index < 0)
+            throw new KeyNotExistException();
+        store.free(pointer(leaf, index));
+        removeSlot(leaf, index);
+        size--;
+    }
+
+    /**
+     * Inserts entries given in strictly ascending key order into the empty tree.
+     */
+    @Override
+    public void bulkLoad(Iterator<Pair<K, V>> sortedEntries) {
+        if (size != 0) throw new IllegalStateException("bulkLoad() needs an empty tree");
+        K last = null;
+        while (sortedEntries.hasNext()) {
+            Pair<K, V> entry = sortedEntries.next();
+            if (entry.left == null) throw new IllegalArgumentException("argument key to bulkLoad() is null");
+            if (last != null && last.compareTo(entry.left) > 0)
+                throw new IllegalArgumentException("keys given to bulkLoad() are not in ascending order");
+            put(entry.left, entry.right);
+            last = entry.left;
+        }
+    }
+
+    public OffHeapStore getStore() {
+        return store;
+    }
+
+    /**
+     * Frees every node and value, leaving an empty tree.
+     */
+    public void release() {
+        store.release();
+        root = newNode(true, OffHeapStore.NONE);
+        size = 0;
+    }
+
+    private long newNode(boolean leaf, long firstChild) {
+        long address = store.allocate(nodeSize);
+        ByteBuffer node = store.view(address);
+        node.put(LEAF, (byte) (leaf ? 1 : 0));
+        node.putInt(COUNT, 0);
+        node.putInt(HEAP, nodeSize);
+        node.putLong(FIRST_CHILD, firstChild);
+        node.putInt(PREFIX, 0);
+        return address;
+    }
+
+    private static boolean isLeaf(ByteBuffer node) {
+        return node.get(LEAF) == 1;
+    }
+
+    private static int count(ByteBuffer node) {
+        return node.getInt(COUNT);
+    }
+
+    private static long pointer(ByteBuffer node, int index) {
+        return node.getLong(SLOTS + index * SLOT + 4);
+    }
+
+    private static long child(ByteBuffer node, int index) {
+        return index == 0 ? node.getLong(FIRST_CHILD) : pointer(node, index - 1);
+    }
+
+    private static int prefixOffset(ByteBuffer node) {
+        return node.getChar(PREFIX);
+    }
+
+    private static int prefixLength(ByteBuffer node) {
+        return node.getChar(PREFIX + 2);
+    }
+
+    private static int suffixOffset(ByteBuffer node, int index) {
+        return node.getChar(SLOTS + index * SLOT);
+    }
+
+    private static int suffixLength(ByteBuffer node, int index) {
+        return node.getChar(SLOTS + index * SLOT + 2);
+    }
+
+    private K key(ByteBuffer node, int index) {
+        if (prefixLength(node) != 0)
+            return keyCodec.read(ByteBuffer.wrap(keyBytes(node, index)));
+        node.position(suffixOffset(node, index));
+        return keyCodec.read(node);
+    }
+
+    private byte[] keyBytes(ByteBuffer node, int index) {
+        int prefixLength = prefixLength(node);
+        byte[] bytes = new byte[prefixLength + suffixLength(node, index)];
+        node.position(prefixOffset(node));
+        node.get(bytes, 0, prefixLength);
+        node.position(suffixOffset(node, index));
+        node.get(bytes, prefixLength, bytes.length - prefixLength);
+        return bytes;
+    }
+
+    private byte[] encode(K key) {
+        ByteBuffer buffer = ByteBuffer.allocate(keyCodec.size(key));
+        keyCodec.write(key, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * A key being looked up, encoded and, unless keys compare as bytes, decoded. Separators
+     * cut short by a split can only be held encoded, so scans also position themselves by these.
+     */
+    private final class Probe {
+        final ByteBuffer bytes;
+        final K key;
+
+        Probe(K key) {
+            this.bytes = ByteBuffer.wrap(encode(key));
+            this.key = key;
+        }
+
+        Probe(byte[] bytes) {
+            this.bytes = ByteBuffer.wrap(bytes);
+            this.key = ordered ? null : keyCodec.read(ByteBuffer.wrap(bytes));
+        }
+
+        int compareTo(Probe probe) {
+            return ordered ? Arrays.compareUnsigned(bytes.array(), probe.bytes.array()) : key.compareTo(probe.key);
+        }
+    }
+
+    // compares length bytes of the node at offset with the probe bytes from start to limit as
+    // unsigned bytes, eight at a time
+    private static int compare(ByteBuffer node, int offset, int length, ByteBuffer probe, int start, int limit) {
+        int common = Math.min(length, limit - start);
+        int i = 0;
+        for (; i + 8 <= common; i += 8) {
+            long a = node.getLong(offset + i);
+            long b = probe.getLong(start + i);
+            if (a != b)
+                return Long.compareUnsigned(a, b);
+        }
+        for (; i < common; i++) {
+            int cmp = Byte.toUnsignedInt(node.get(offset + i)) - Byte.toUnsignedInt(probe.get(start + i));
+            if (cmp != 0)
+                return cmp;
+        }
+        return length - (limit - start);
+    }
+
+    // compares the key at the index with the probe, the shared prefix first and then the rest
+    private int compare(ByteBuffer node, int index, Probe probe) {
+        if (!ordered)
+            return key(node, index).compareTo(probe.key);
+        int prefixLength = prefixLength(node);
+        int limit = probe.bytes.limit();
+        int cmp = compare(node, prefixOffset(node), prefixLength, probe.bytes, 0, Math.min(prefixLength, limit));
+        if (cmp != 0)
+            return cmp;
+        return compare(node, suffixOffset(node, index), suffixLength(node, index), probe.bytes, prefixLength, limit);
+    }
+
+    private int search(ByteBuffer node, Probe probe) {
+        int count = count(node);
+        int prefixLength = prefixLength(node);
+        int limit = ordered ? probe.bytes.limit() : 0;
+        if (prefixLength != 0) {
+            // every key starts with the prefix, so a probe that does not is below or above them all
+            int cmp = compare(node, prefixOffset(node), prefixLength, probe.bytes, 0, Math.min(prefixLength, limit));
+            if (cmp != 0)
+                return cmp > 0 ? -1 : -(count + 1);
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = ordered
+                    ? compare(node, suffixOffset(node, mid), suffixLength(node, mid), probe.bytes, prefixLength, limit)
+                    : key(node, mid).compareTo(probe.key);
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    private int childIndex(ByteBuffer node, Probe probe) {
+        int index = search(node, probe);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private ByteBuffer findLeaf(Probe probe) {
+        ByteBuffer node = store.view(root);
+        while (!isLeaf(node))
+            node = store.view(child(node, childIndex(node, probe)));
+        return node;
+    }
+
+    private void checkKeySize(Probe probe) {
+        int keySize = probe.bytes.limit();
+        if (keySize > maxKeySize)
+            throw new EntryTooLargeException(keySize, maxKeySize);
+    }
+
+    // moves count slots starting at from to start at to, through the scratch array
+    private void moveSlots(ByteBuffer node, int from, int to, int count) {
+        node.position(SLOTS + from * SLOT);
+        node.get(scratch, 0, count * SLOT);
+        node.position(SLOTS + to * SLOT);
+        node.put(scratch, 0, count * SLOT);
+    }
+
+    private void removeSlot(ByteBuffer node, int index) {
+        int count = count(node);
+        moveSlots(node, index + 1, index, count - index - 1);
+        node.putInt(COUNT, count - 1);
+    }
+
+    // inserts the encoded key and pointer at the index, returns false if the node is full even
+    // after its removed keys are reclaimed and its prefix shortened to fit the key
+    private boolean insertSlot(ByteBuffer node, int index, byte[] key, long pointer) {
+        int count = count(node);
+        int prefixLength = prefixLength(node);
+        int suffixLength = key.length - prefixLength;
+        boolean shared = compare(node, prefixOffset(node), prefixLength, ByteBuffer.wrap(key), 0,
+                Math.min(prefixLength, key.length)) == 0;
+        if (!shared || node.getInt(HEAP) - SLOTS - count * SLOT < SLOT + suffixLength) {
+            Entries entries = new Entries(node, index, key, pointer);
+            if (entries.size(0, count + 1) > nodeSize)
+                return false;
+            fill(node, entries, 0, count + 1);
+            return true;
+        }
+        int heap = node.getInt(HEAP) - suffixLength;
+        node.position(heap);
+        node.put(key, prefixLength, suffixLength);
+        moveSlots(node, index, index + 1, count - index);
+        int slot = SLOTS + index * SLOT;
+        node.putChar(slot, (char) heap);
+        node.putChar(slot + 2, (char) suffixLength);
+        node.putLong(slot + 4, pointer);
+        node.putInt(COUNT, count + 1);
+        node.putInt(HEAP, heap);
+        return true;
+    }
+
+    /**
+     * The encoded keys and pointers of a node with one entry inserted, as a node is rebuilt from.
+     */
+    private final class Entries {
+        final byte[][] keys;
+        final long[] pointers;
+
+        Entries(ByteBuffer node, int index, byte[] key, long pointer) {
+            int count = count(node);
+            keys = new byte[count + 1][];
+            pointers = new long[count + 1];
+            for (int i = 0, j = 0; i <= count; i++) {
+                if (i == index) {
+                    keys[i] = key;
+                    pointers[i] = pointer;
+                } else {
+                    keys[i] = keyBytes(node, j);
+                    pointers[i] = pointer(node, j++);
+                }
+            }
+        }
+
+        // the prefix of the sorted keys [from, to) is the one their first and last share, it is
+        // only taken where keys compare as bytes and from two keys on
+        int prefixLength(int from, int to) {
+            if (!ordered || to - from < 2)
+                return 0;
+            byte[] first = keys[from];
+            byte[] last = keys[to - 1];
+            int mismatch = Arrays.mismatch(first, last);
+            return Math.min(mismatch < 0 ? first.length : mismatch, first.length);
+        }
+
+        // bytes a node holding entries [from, to) takes
+        int size(int from, int to) {
+            int prefixLength = prefixLength(from, to);
+            int size = SLOTS + prefixLength;
+            for (int i = from; i < to; i++)
+                size += SLOT + keys[i].length - prefixLength;
+            return size;
+        }
+    }
+
+    // rewrites the node to hold entries [from, to), packing their shared prefix once and then
+    // the rest of each key
+    private void fill(ByteBuffer node, Entries entries, int from, int to) {
+        int prefixLength = entries.prefixLength(from, to);
+        int heap = nodeSize - prefixLength;
+        if (prefixLength > 0) {
+            node.position(heap);
+            node.put(entries.keys[from], 0, prefixLength);
+        }
+        node.putChar(PREFIX, (char) heap);
+        node.putChar(PREFIX + 2, (char) prefixLength);
+        for (int i = from; i < to; i++) {
+            byte[] key = entries.keys[i];
+            heap -= key.length - prefixLength;
+            node.position(heap);
+            node.put(key, prefixLength, key.length - prefixLength);
+            int slot = SLOTS + (i - from) * SLOT;
+            node.putChar(slot, (char) heap);
+            node.putChar(slot + 2, (char) (key.length - prefixLength));
+            node.putLong(slot + 4, entries.pointers[i]);
+        }
+        node.putInt(COUNT, to - from);
+        node.putInt(HEAP, heap);
+    }
+
+    // the shortest key above the left one and at most the right one, so a leaf split pushes up
+    // only the bytes needed to tell its halves apart
+    private byte[] separator(byte[] left, byte[] right) {
+        if (!ordered)
+            return right;
+        int mismatch = Arrays.mismatch(left, right);
+        return Arrays.copyOf(right, mismatch + 1);
+    }
+
+    // splits the full node with the key and pointer inserted at the index by encoded size,
+    // returns the separator and address of the new right sibling
+    private Pair<byte[], Long> split(ByteBuffer node, int index, byte[] key, long pointer) {
+        Entries entries = new Entries(node, index, key, pointer);
+        int count = entries.keys.length;
+        int total = 0;
+        for (byte[] bytes : entries.keys)
+            total += bytes.length + SLOT;
+        int mid = 0;
+        int used = 0;
+        while (mid < count - 1 && used < total / 2) {
+            used += entries.keys[mid].length + SLOT;
+            mid++;
+        }
+        byte[] separator;
+        long sibling;
+        if (isLeaf(node)) {
+            separator = separator(entries.keys[mid - 1], entries.keys[mid]);
+            sibling = newNode(true, OffHeapStore.NONE);
+            fill(store.view(sibling), entries, mid, count);
+        } else {
+            // the separator moves up and its right child becomes the first child of the sibling
+            separator = entries.keys[mid];
+            sibling = newNode(false, entries.pointers[mid]);
+            fill(store.view(sibling), entries, mid + 1, count);
+        }
+        fill(node, entries, 0, mid);
+        return new Pair<>(separator, sibling);
+    }
+
+    // stores remapping(key, current value) in one descent, or removes the key on null, returns the previous value
+    private V apply(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        ArrayList<V> previous = new ArrayList<>(1);
+        Pair<byte[], Long> split = insert(root, new Probe(key), remapping, previous);
+        if (split != null) {
+            long newRoot = newNode(false, root);
+            insertSlot(store.view(newRoot), 0, split.left, split.right);
+            root = newRoot;
+        }
+        return previous.get(0);
+    }
+
+    // applies the remapping in the leaf below the node and records the previous value,
+    // returns the separator and address of a new right sibling if the node split
+    private Pair<byte[], Long> insert(long address, Probe probe,
+                                      BiFunction<? super K, ? super V, ? extends V> remapping, ArrayList<V> previous) {
+        ByteBuffer node = store.view(address);
+        if (!isLeaf(node)) {
+            int index = childIndex(node, probe);
+            Pair<byte[], Long> split = insert(child(node, index), probe, remapping, previous);
+            if (split == null || insertSlot(node, index, split.left, split.right))
+                return null;
+            return split(node, index, split.left, split.right);
+        }
+        int index = search(node, probe);
+        V old = index >= 0 ? store.load(pointer(node, index), valueCodec) : null;
+        previous.add(old);
+        V value = remapping.apply(probe.key, old);
+        if (old != null && value != null) {
+            node.putLong(SLOTS + index * SLOT + 4, store.replace(pointer(node, index), value, valueCodec));
+        } else if (old != null) {
+            store.free(pointer(node, index));
+            removeSlot(node, index);
+            size--;
+        } else if (value != null) {
+            checkKeySize(probe);
+            long row = store.store(value, valueCodec);
+            size++;
+            index = -index - 1;
+            byte[] key = probe.bytes.array();
+            if (!insertSlot(node, index, key, row))
+                return split(node, index, key, row);
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return new TreeIterator(null, true, null, false, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> seek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new TreeIterator(from, fromInclusive, to, toInclusive, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new TreeIterator(to, toInclusive, from, fromInclusive, true);
+    }
+
+    /**
+     * Decodes the matching entries of one leaf at a time and keeps no address between calls.
+     * The next leaf is found by searching from the separator that bounds the current one.
+     */
+    private final class TreeIterator implements Iterator<Pair<K, V>> {
+        private final Probe end;
+        private final boolean endInclusive;
+        private final boolean descending;
+        private Probe position; // null before the first leaf of an open scan
+        private boolean positionInclusive;
+        private boolean exhausted;
+        private final ArrayList<Pair<K, V>> buffer = new ArrayList<>();
+        private int next;
+
+        TreeIterator(K start, boolean startInclusive, K end, boolean endInclusive, boolean descending) {
+            this.position = start == null ? null : new Probe(start);
+            this.positionInclusive = startInclusive;
+            this.end = end == null ? null : new Probe(end);
+            this.endInclusive = endInclusive;
+            this.descending = descending;
+            fill();
+        }
+
+        private boolean beforeEnd(int cmp) {
+            return descending ? cmp > 0 || (cmp == 0 && endInclusive) : cmp < 0 || (cmp == 0 && endInclusive);
+        }
+
+        private boolean afterPosition(int cmp) {
+            return descending ? cmp < 0 || (cmp == 0 && positionInclusive) : cmp > 0 || (cmp == 0 && positionInclusive);
+        }
+
+        private void fill() {
+            buffer.clear();
+            next = 0;
+            while (buffer.isEmpty() && !exhausted) {
+                byte[] boundary = readLeaf();
+                Probe probe = boundary == null ? null : new Probe(boundary);
+                if (probe == null || (end != null && !beforeEnd(probe.compareTo(end)))) {
+                    exhausted = true;
+                } else {
+                    position = probe;
+                    positionInclusive = !descending;
+                }
+            }
+        }
+
+        // buffers the matching entries of the leaf at the current position and returns the
+        // separator on its far side, or null if it is the last leaf in scan direction
+        private byte[] readLeaf() {
+            ByteBuffer node = store.view(root);
+            byte[] boundary = null;
+            while (!isLeaf(node)) {
+                int count = count(node);
+                int childIndex;
+                if (position == null)
+                    childIndex = descending ? count : 0;
+                else if (descending) {
+                    int index = search(node, position);
+                    childIndex = index >= 0 ? (positionInclusive ? index + 1 : index) : -index - 1;
+                } else
+                    childIndex = childIndex(node, position);
+                if (descending && childIndex > 0)
+                    boundary = keyBytes(node, childIndex - 1);
+                else if (!descending && childIndex < count)
+                    boundary = keyBytes(node, childIndex);
+                node = store.view(child(node, childIndex));
+            }
+            int count = count(node);
+            for (int i = 0; i < count; i++) {
+                int at = descending ? count - 1 - i : i;
+                if (position != null && !afterPosition(compare(node, at, position))) continue;
+                if (end != null && !beforeEnd(compare(node, at, end))) return null;
+                buffer.add(new Pair<>(key(node, at), store.load(pointer(node, at), valueCodec)));
+            }
+            return boundary;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < buffer.size();
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (next >= buffer.size())
+                throw new NoSuchElementException();
+            Pair<K, V> pair = buffer.get(next++);
+            if (next == buffer.size())
+                fill();
+            return pair;
+        }
+    }
+}
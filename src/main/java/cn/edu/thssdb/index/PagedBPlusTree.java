@@ -0,0 +1,681 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.EntryTooLargeException;
+import cn.edu.thssdb.exception.FileIOException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import cn.edu.thssdb.storage.BufferPool;
+import cn.edu.thssdb.storage.Codec;
+import cn.edu.thssdb.storage.Frame;
+import cn.edu.thssdb.storage.PageFile;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * B+ tree whose nodes are pages of a file, read and written through a BufferPool.
+ * <p>
+ * Nodes split by encoded size rather than by key count: a node splits once it no longer
+ * fits in a page, so an entry may take at most a quarter of a page. Operations pin the
+ * pages on their root-to-leaf path and unpin them before returning, so only the buffer pool
+ * bounds how much of the tree is in memory. Removals do not merge nodes.
+ * <p>
+ * Not thread-safe, callers serialize access as they do for BPlusTree. Pages are copied on
+ * write: a page the header on disk reaches is never written again, a change goes to a copy
+ * on a new page and so does every node above it. New pages reach the file when evicted and
+ * on flush(), which then writes the header with the new root, so the file always holds the
+ * tree as of the last flush. Pages the tree stopped using are reused after the next flush,
+ * and found again by walking the internal nodes when the file is opened.
+ */
+
+public final class PagedBPlusTree<K extends Comparable<K>, V> implements Index<K, V> {
+    private static final int MAGIC = 0x42505431;
+    private static final int LEAF_HEADER = 5;
+    private static final int INTERNAL_HEADER = 9;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final BufferPool pool;
+    private final PageFile<Node<K, V>> file;
+    private final int maxEntrySize;
+    private final BitSet fresh; // pages allocated since the last flush, the header on disk does not reach them
+    private final ArrayList<Integer> released; // pages the header on disk reaches that the tree no longer uses
+    private int rootId;
+    private int size;
+
+    public PagedBPlusTree(String path, Codec<K> keyCodec, Codec<V> valueCodec, BufferPool pool) {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.pool = pool;
+        this.file = new PageFile<>(path, new NodeCodec());
+        this.maxEntrySize = (Global.pageSize - INTERNAL_HEADER) / 4;
+        this.fresh = new BitSet();
+        this.released = new ArrayList<>();
+        ByteBuffer header = file.readHeader();
+        // pages evicted before the first flush leave a file whose header was never written
+        if (header == null || header.getInt(0) == 0) {
+            Frame<Node<K, V>> root = allocate(new Node<>(true));
+            rootId = root.getPageId();
+            pool.unpin(root, true);
+            size = 0;
+        } else {
+            if (header.getInt() != MAGIC)
+                throw new FileIOException(path + " is not a page file");
+            rootId = header.getInt();
+            size = header.getInt();
+            file.setPageCount(header.getInt());
+            // pages written after the last flush and those the tree stopped using before it
+            BitSet reachable = pages(rootId);
+            for (int pageId = reachable.nextClearBit(1); pageId < file.getPageCount();
+                 pageId = reachable.nextClearBit(pageId + 1))
+                file.free(pageId);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to get() is null");
+        Frame<Node<K, V>> frame = findLeaf(key);
+        try {
+            Node<K, V> leaf = frame.getPage();
+            int index = Collections.binarySearch(leaf.keys, key);
+            if (index < 0)
+                throw new KeyNotExistException();
+            return leaf.values.get(index);
+        } finally {
+            pool.unpin(frame, false);
+        }
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to contains() is null");
+        Frame<Node<K, V>> frame = findLeaf(key);
+        try {
+            return Collections.binarySearch(frame.getPage().keys, key) >= 0;
+        } finally {
+            pool.unpin(frame, false);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to put() is null");
+        apply(key, (k, old) -> {
+            if (old != null)
+                throw new DuplicateKeyException();
+            return value;
+        });
+    }
+
+    @Override
+    public void update(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to update() is null");
+        apply(key, (k, old) -> {
+            if (old == null)
+                throw new KeyNotExistException();
+            return value;
+        });
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to putIfAbsent() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to putIfAbsent() is null");
+        return apply(key, (k, old) -> old == null ? value : old);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to replace() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to replace() is null");
+        return apply(key, (k, old) -> old == null ? null : value);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (key == null) throw new IllegalArgumentException("argument key to compute() is null");
+        ArrayList<V> computed = new ArrayList<>(1);
+        apply(key, (k, old) -> {
+            V value = remapping.apply(k, old);
+            computed.add(value);
+            return value;
+        });
+        return computed.get(0);
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to remove() is null");
+        apply(key, (k, old) -> {
+            if (old == null)
+                throw new KeyNotExistException();
+            return null;
+        });
+    }
+
+    /**
+     * Builds the empty tree bottom-up from entries given in strictly ascending key order:
+     * leaves are filled to the page size one after another, then each level of internal
+     * nodes above them, and the root is the single node of the last level.
+     */
+    @Override
+    public void bulkLoad(Iterator<Pair<K, V>> sortedEntries) {
+        if (size != 0) throw new IllegalStateException("bulkLoad() needs an empty tree");
+        ArrayList<Pair<K, Integer>> level = new ArrayList<>(); // the first key and page of each node
+        Node<K, V> leaf = new Node<>(true);
+        int count = 0;
+        K last = null;
+        try {
+            while (sortedEntries.hasNext()) {
+                Pair<K, V> entry = sortedEntries.next();
+                if (entry.left == null) throw new IllegalArgumentException("argument key to bulkLoad() is null");
+                if (last != null) {
+                    int cmp = last.compareTo(entry.left);
+                    if (cmp == 0) throw new DuplicateKeyException();
+                    if (cmp > 0) throw new IllegalArgumentException("keys given to bulkLoad() are not in ascending order");
+                }
+                checkEntrySize(entry.left, entry.right);
+                int entrySize = keyCodec.size(entry.left) + valueCodec.size(entry.right);
+                if (leaf.bytes + entrySize > Global.pageSize) {
+                    level.add(new Pair<>(leaf.keys.get(0), write(leaf)));
+                    leaf = new Node<>(true);
+                }
+                leaf.keys.add(entry.left);
+                leaf.values.add(entry.right);
+                leaf.bytes += entrySize;
+                last = entry.left;
+                count++;
+            }
+        } catch (RuntimeException e) {
+            for (Pair<K, Integer> node : level)
+                release(node.right);
+            throw e;
+        }
+        if (count == 0) return;
+        level.add(new Pair<>(leaf.keys.get(0), write(leaf)));
+        while (level.size() > 1)
+            level = buildInternalLevel(level);
+        // an empty tree may still have the nodes its removed entries were in
+        BitSet old = pages(rootId);
+        for (int pageId = old.nextSetBit(0); pageId >= 0; pageId = old.nextSetBit(pageId + 1))
+            release(pageId);
+        rootId = level.get(0).right;
+        size = count;
+    }
+
+    // internal nodes filled to the page size over the given nodes of the level below
+    private ArrayList<Pair<K, Integer>> buildInternalLevel(ArrayList<Pair<K, Integer>> children) {
+        ArrayList<Pair<K, Integer>> level = new ArrayList<>();
+        Node<K, V> node = null;
+        K first = null;
+        for (Pair<K, Integer> child : children) {
+            int entrySize = keyCodec.size(child.left) + 4;
+            if (node != null && node.bytes + entrySize > Global.pageSize) {
+                level.add(new Pair<>(first, write(node)));
+                node = null;
+            }
+            if (node == null) {
+                node = new Node<>(false);
+                node.children.add(child.right);
+                first = child.left;
+            } else {
+                node.keys.add(child.left);
+                node.children.add(child.right);
+                node.bytes += entrySize;
+            }
+        }
+        level.add(new Pair<>(first, write(node)));
+        return level;
+    }
+
+    /**
+     * Writes all dirty pages and syncs them, then writes the header that makes them the tree
+     * and syncs it. The pages the tree stopped using since the last flush are reused after it.
+     */
+    public void flush() {
+        pool.flush(file);
+        file.force();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        header.putInt(MAGIC).putInt(rootId).putInt(size).putInt(file.getPageCount()).flip();
+        file.writeHeader(header);
+        file.force();
+        fresh.clear();
+        for (int pageId : released)
+            file.free(pageId);
+        released.clear();
+    }
+
+    public void close() {
+        flush();
+        pool.discard(file);
+        file.close();
+    }
+
+    /**
+     * Drops the cached pages and deletes the file.
+     */
+    public void delete() {
+        pool.discard(file);
+        file.close();
+        File pages = new File(file.getPath());
+        if (pages.exists() && !pages.delete())
+            throw new FileIOException(file.getPath() + " when deleting page file");
+    }
+
+    // a pinned new page holding the node, which may be changed until the next flush
+    private Frame<Node<K, V>> allocate(Node<K, V> node) {
+        Frame<Node<K, V>> frame = pool.pinNew(file, node);
+        fresh.set(frame.getPageId());
+        return frame;
+    }
+
+    // the page of a new node, unpinned
+    private int write(Node<K, V> node) {
+        Frame<Node<K, V>> frame = allocate(node);
+        pool.unpin(frame, true);
+        return frame.getPageId();
+    }
+
+    // the pinned frame itself if its page is new since the last flush, otherwise a pinned copy
+    // of the node on a new page, the old page unpinned and released
+    private Frame<Node<K, V>> writable(Frame<Node<K, V>> frame) {
+        if (fresh.get(frame.getPageId()))
+            return frame;
+        Frame<Node<K, V>> copy = allocate(frame.getPage().copy());
+        pool.unpin(frame, false);
+        release(frame.getPageId());
+        return copy;
+    }
+
+    // a page the tree no longer uses, free at once unless the header on disk reaches it
+    private void release(int pageId) {
+        pool.discard(file, pageId);
+        if (fresh.get(pageId)) {
+            fresh.clear(pageId);
+            file.free(pageId);
+        } else {
+            released.add(pageId);
+        }
+    }
+
+    // the pages of the tree below the root, level by level; every leaf is at the same depth,
+    // so once a child is a leaf the rest of its level is known from the parents and not read
+    private BitSet pages(int rootId) {
+        BitSet pages = new BitSet();
+        ArrayList<Integer> level = new ArrayList<>(Collections.singletonList(rootId));
+        boolean leaves = false;
+        while (!level.isEmpty()) {
+            ArrayList<Integer> below = new ArrayList<>();
+            for (int pageId : level) {
+                pages.set(pageId);
+                if (leaves)
+                    continue;
+                Frame<Node<K, V>> frame = pool.pin(file, pageId);
+                try {
+                    below.addAll(frame.getPage().children);
+                } finally {
+                    pool.unpin(frame, false);
+                }
+            }
+            if (!below.isEmpty()) {
+                Frame<Node<K, V>> frame = pool.pin(file, below.get(0));
+                try {
+                    leaves = frame.getPage().leaf;
+                } finally {
+                    pool.unpin(frame, false);
+                }
+            }
+            level = below;
+        }
+        return pages;
+    }
+
+    // returns the pinned leaf that may hold the key
+    private Frame<Node<K, V>> findLeaf(K key) {
+        Frame<Node<K, V>> frame = pool.pin(file, rootId);
+        try {
+            while (!frame.getPage().leaf) {
+                Node<K, V> node = frame.getPage();
+                Frame<Node<K, V>> child = pool.pin(file, node.children.get(childIndex(node, key)));
+                pool.unpin(frame, false);
+                frame = child;
+            }
+        } catch (RuntimeException e) {
+            pool.unpin(frame, false);
+            throw e;
+        }
+        return frame;
+    }
+
+    private static <K extends Comparable<K>> int childIndex(Node<K, ?> node, K key) {
+        int index = Collections.binarySearch(node.keys, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private void checkEntrySize(K key, V value) {
+        int entrySize = keyCodec.size(key) + valueCodec.size(value);
+        if (entrySize > maxEntrySize)
+            throw new EntryTooLargeException(entrySize, maxEntrySize);
+    }
+
+    // stores remapping(key, current value) in one descent, or removes the key on null, returns the previous value
+    private V apply(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        ArrayList<V> previous = new ArrayList<>(1);
+        Change<K> change = insert(rootId, key, remapping, previous);
+        if (change != null) {
+            rootId = change.pageId;
+            if (change.split != null)
+                growRoot(change.split);
+        }
+        return previous.get(0);
+    }
+
+    // what an insert changed in a node that its parent has to change: the page the node was
+    // copied to, and the separator and page of a new right sibling if it split
+    private static final class Change<K> {
+        final int pageId;
+        final Pair<K, Integer> split;
+
+        Change(int pageId, Pair<K, Integer> split) {
+            this.pageId = pageId;
+            this.split = split;
+        }
+    }
+
+    // applies the remapping in the leaf below the page and records the previous value,
+    // returns null unless the node moved to another page or split
+    private Change<K> insert(int pageId, K key, BiFunction<? super K, ? super V, ? extends V> remapping,
+                             ArrayList<V> previous) {
+        Frame<Node<K, V>> frame = pool.pin(file, pageId);
+        boolean dirty = false;
+        try {
+            Node<K, V> node = frame.getPage();
+            if (node.leaf) {
+                int index = Collections.binarySearch(node.keys, key);
+                V old = index >= 0 ? node.values.get(index) : null;
+                previous.add(old);
+                V value = remapping.apply(key, old);
+                if (value != null)
+                    checkEntrySize(key, value);
+                if (old == null && value == null)
+                    return null;
+                frame = writable(frame);
+                node = frame.getPage();
+                if (old != null && value != null) {
+                    node.bytes += valueCodec.size(value) - valueCodec.size(old);
+                    node.values.set(index, value);
+                } else if (old != null) {
+                    node.bytes -= keyCodec.size(key) + valueCodec.size(old);
+                    node.keys.remove(index);
+                    node.values.remove(index);
+                    size--;
+                } else {
+                    index = -index - 1;
+                    node.keys.add(index, key);
+                    node.values.add(index, value);
+                    node.bytes += keyCodec.size(key) + valueCodec.size(value);
+                    size++;
+                }
+            } else {
+                int index = childIndex(node, key);
+                Change<K> change = insert(node.children.get(index), key, remapping, previous);
+                if (change == null)
+                    return null;
+                frame = writable(frame);
+                node = frame.getPage();
+                node.children.set(index, change.pageId);
+                if (change.split != null) {
+                    node.keys.add(index, change.split.left);
+                    node.children.add(index + 1, change.split.right);
+                    node.bytes += keyCodec.size(change.split.left) + 4;
+                }
+            }
+            dirty = true;
+            Pair<K, Integer> split = node.bytes > Global.pageSize ? split(node) : null;
+            return frame.getPageId() == pageId && split == null ? null : new Change<>(frame.getPageId(), split);
+        } finally {
+            pool.unpin(frame, dirty);
+        }
+    }
+
+    // moves the upper half of the node's bytes to a new page
+    private Pair<K, Integer> split(Node<K, V> node) {
+        int count = node.keys.size();
+        int used = node.leaf ? LEAF_HEADER : INTERNAL_HEADER;
+        int mid = 0;
+        while (mid < count - 1 && used < node.bytes / 2) {
+            used += keyCodec.size(node.keys.get(mid)) + (node.leaf ? valueCodec.size(node.values.get(mid)) : 4);
+            mid++;
+        }
+        Node<K, V> sibling = new Node<>(node.leaf);
+        K separator = node.keys.get(mid);
+        if (node.leaf) {
+            sibling.keys.addAll(node.keys.subList(mid, count));
+            sibling.values.addAll(node.values.subList(mid, count));
+            node.keys.subList(mid, count).clear();
+            node.values.subList(mid, count).clear();
+        } else {
+            sibling.keys.addAll(node.keys.subList(mid + 1, count));
+            sibling.children.addAll(node.children.subList(mid + 1, count + 1));
+            node.keys.subList(mid, count).clear();
+            node.children.subList(mid + 1, count + 1).clear();
+        }
+        node.bytes = measure(node);
+        sibling.bytes = measure(sibling);
+        return new Pair<>(separator, write(sibling));
+    }
+
+    private void growRoot(Pair<K, Integer> split) {
+        Node<K, V> root = new Node<>(false);
+        root.keys.add(split.left);
+        root.children.add(rootId);
+        root.children.add(split.right);
+        root.bytes = measure(root);
+        rootId = write(root);
+    }
+
+    private int measure(Node<K, V> node) {
+        int bytes = node.leaf ? LEAF_HEADER : INTERNAL_HEADER;
+        for (int i = 0; i < node.keys.size(); i++)
+            bytes += keyCodec.size(node.keys.get(i)) + (node.leaf ? valueCodec.size(node.values.get(i)) : 4);
+        return bytes;
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return new TreeIterator(null, true, null, false, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> seek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new TreeIterator(from, fromInclusive, to, toInclusive, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new TreeIterator(to, toInclusive, from, fromInclusive, true);
+    }
+
+    static final class Node<K, V> {
+        final boolean leaf;
+        final ArrayList<K> keys = new ArrayList<>();
+        final ArrayList<V> values = new ArrayList<>();
+        final ArrayList<Integer> children = new ArrayList<>();
+        int bytes;
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+            this.bytes = leaf ? LEAF_HEADER : INTERNAL_HEADER;
+        }
+
+        Node<K, V> copy() {
+            Node<K, V> node = new Node<>(leaf);
+            node.keys.addAll(keys);
+            node.values.addAll(values);
+            node.children.addAll(children);
+            node.bytes = bytes;
+            return node;
+        }
+    }
+
+    // page layout: leaf flag, key count, then the first child of an internal node,
+    // then every key followed by its value or by the child to its right
+    private final class NodeCodec implements Codec<Node<K, V>> {
+        @Override
+        public int size(Node<K, V> node) {
+            return node.bytes;
+        }
+
+        @Override
+        public void write(Node<K, V> node, ByteBuffer buffer) {
+            buffer.put((byte) (node.leaf ? 1 : 0));
+            buffer.putInt(node.keys.size());
+            if (!node.leaf)
+                buffer.putInt(node.children.get(0));
+            for (int i = 0; i < node.keys.size(); i++) {
+                keyCodec.write(node.keys.get(i), buffer);
+                if (node.leaf)
+                    valueCodec.write(node.values.get(i), buffer);
+                else
+                    buffer.putInt(node.children.get(i + 1));
+            }
+        }
+
+        @Override
+        public Node<K, V> read(ByteBuffer buffer) {
+            int start = buffer.position();
+            Node<K, V> node = new Node<>(buffer.get() == 1);
+            int count = buffer.getInt();
+            node.keys.ensureCapacity(count);
+            if (!node.leaf)
+                node.children.add(buffer.getInt());
+            for (int i = 0; i < count; i++) {
+                node.keys.add(keyCodec.read(buffer));
+                if (node.leaf)
+                    node.values.add(valueCodec.read(buffer));
+                else
+                    node.children.add(buffer.getInt());
+            }
+            node.bytes = buffer.position() - start;
+            return node;
+        }
+    }
+
+    /**
+     * Copies the matching entries of one leaf at a time and holds no pin between calls.
+     * The next leaf is found by searching from the separator that bounds the current one.
+     */
+    private final class TreeIterator implements Iterator<Pair<K, V>> {
+        private final K end;
+        private final boolean endInclusive;
+        private final boolean descending;
+        private K position; // null before the first leaf of an open scan
+        private boolean positionInclusive;
+        private boolean exhausted;
+        private final ArrayList<Pair<K, V>> buffer = new ArrayList<>();
+        private int next;
+
+        TreeIterator(K start, boolean startInclusive, K end, boolean endInclusive, boolean descending) {
+            this.position = start;
+            this.positionInclusive = startInclusive;
+            this.end = end;
+            this.endInclusive = endInclusive;
+            this.descending = descending;
+            fill();
+        }
+
+        private boolean beforeEnd(K key) {
+            if (end == null) return true;
+            int cmp = key.compareTo(end);
+            return descending ? cmp > 0 || (cmp == 0 && endInclusive) : cmp < 0 || (cmp == 0 && endInclusive);
+        }
+
+        private boolean afterPosition(K key) {
+            if (position == null) return true;
+            int cmp = key.compareTo(position);
+            return descending ? cmp < 0 || (cmp == 0 && positionInclusive) : cmp > 0 || (cmp == 0 && positionInclusive);
+        }
+
+        private void fill() {
+            buffer.clear();
+            next = 0;
+            while (buffer.isEmpty() && !exhausted) {
+                K boundary = readLeaf();
+                if (boundary == null || !beforeEnd(boundary)) {
+                    exhausted = true;
+                } else {
+                    position = boundary;
+                    positionInclusive = !descending;
+                }
+            }
+        }
+
+        // buffers the matching entries of the leaf at the current position and returns the
+        // separator on its far side, or null if it is the last leaf in scan direction
+        private K readLeaf() {
+            Frame<Node<K, V>> frame = pool.pin(file, rootId);
+            K boundary = null;
+            try {
+                while (!frame.getPage().leaf) {
+                    Node<K, V> node = frame.getPage();
+                    int childIndex;
+                    if (position == null)
+                        childIndex = descending ? node.keys.size() : 0;
+                    else if (descending) {
+                        int index = Collections.binarySearch(node.keys, position);
+                        childIndex = index >= 0 ? (positionInclusive ? index + 1 : index) : -index - 1;
+                    } else
+                        childIndex = childIndex(node, position);
+                    if (descending && childIndex > 0)
+                        boundary = node.keys.get(childIndex - 1);
+                    else if (!descending && childIndex < node.keys.size())
+                        boundary = node.keys.get(childIndex);
+                    Frame<Node<K, V>> child = pool.pin(file, node.children.get(childIndex));
+                    pool.unpin(frame, false);
+                    frame = child;
+                }
+                Node<K, V> leaf = frame.getPage();
+                int count = leaf.keys.size();
+                for (int i = 0; i < count; i++) {
+                    int at = descending ? count - 1 - i : i;
+                    K key = leaf.keys.get(at);
+                    if (!afterPosition(key)) continue;
+                    if (!beforeEnd(key)) return null;
+                    buffer.add(new Pair<>(key, leaf.values.get(at)));
+                }
+            } finally {
+                pool.unpin(frame, false);
+            }
+            return boundary;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < buffer.size();
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (next >= buffer.size())
+                throw new NoSuchElementException();
+            Pair<K, V> pair = buffer.get(next++);
+            if (next == buffer.size())
+                fill();
+            return pair;
+        }
+    }
+}
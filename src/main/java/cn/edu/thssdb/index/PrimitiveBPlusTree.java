@@ -0,0 +1,932 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * B+ tree over primitive keys, shared by IntBPlusTree and LongBPlusTree. Nodes keep their
+ * keys in a plain int[] or long[], so lookups compare primitives instead of calling
+ * compareTo on boxed values. Keys are passed around as long, which holds every int.
+ * The node layout, the split/merge rules and the append path for ascending keys are the
+ * same as in BPlusTree.
+ */
+
+abstract class PrimitiveBPlusTree<K extends Comparable<K>, V> implements Index<K, V> {
+    private final boolean longKeys;
+    private final int fanout; // Global.fanout when the tree was created, for all of its nodes
+    Node<V> root;
+    private int size;
+    private LeafNode<V> lastLeaf; // cached, reset by every operation that may merge leaves
+
+    PrimitiveBPlusTree(boolean longKeys) {
+        this.longKeys = longKeys;
+        this.fanout = Global.fanout;
+        root = new LeafNode<>(longKeys, fanout, 0);
+    }
+
+    abstract K box(long key);
+
+    abstract long unbox(K key);
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    final V getKey(long key) {
+        return root.get(key);
+    }
+
+    final void updateKey(long key, V value) {
+        lastLeaf = null;
+        root.remove(key);
+        root.put(key, value);
+    }
+
+    final void putKey(long key, V value) {
+        if (isAppend(key)) {
+            append(key, value);
+            return;
+        }
+        root.put(key, value);
+        size++;
+        checkRoot();
+    }
+
+    final void removeKey(long key) {
+        lastLeaf = null;
+        root.remove(key);
+        size--;
+        checkRoot();
+    }
+
+    final boolean containsKey(long key) {
+        return root.containsKey(key);
+    }
+
+    final V putIfAbsentKey(long key, V value) {
+        if (value == null) throw new IllegalArgumentException("argument value to putIfAbsent() is null");
+        if (isAppend(key)) {
+            append(key, value);
+            return null;
+        }
+        V previous = root.compute(key, old -> old == null ? value : old);
+        if (previous == null) {
+            size++;
+            checkRoot();
+        }
+        return previous;
+    }
+
+    final V replaceKey(long key, V value) {
+        if (value == null) throw new IllegalArgumentException("argument value to replace() is null");
+        return root.compute(key, old -> old == null ? null : value);
+    }
+
+    final V computeKey(long key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (isAppend(key)) {
+            V value = remapping.apply(box(key), null);
+            if (value != null)
+                append(key, value);
+            return value;
+        }
+        lastLeaf = null;
+        ArrayList<V> computed = new ArrayList<>(1);
+        V previous = root.compute(key, old -> {
+            V value = remapping.apply(box(key), old);
+            computed.add(value);
+            return value;
+        });
+        V value = computed.get(0);
+        if (previous == null && value != null)
+            size++;
+        else if (previous != null && value == null)
+            size--;
+        checkRoot();
+        return value;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to get() is null");
+        return getKey(unbox(key));
+    }
+
+    @Override
+    public void update(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to update() is null");
+        updateKey(unbox(key), value);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to put() is null");
+        putKey(unbox(key), value);
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to remove() is null");
+        removeKey(unbox(key));
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to contains() is null");
+        return containsKey(unbox(key));
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to putIfAbsent() is null");
+        return putIfAbsentKey(unbox(key), value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to replace() is null");
+        return replaceKey(unbox(key), value);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (key == null) throw new IllegalArgumentException("argument key to compute() is null");
+        return computeKey(unbox(key), remapping);
+    }
+
+    /**
+     * Number of keys less than the key, or not greater than it if inclusive, in one descent
+     * over the counts internal nodes keep, see BPlusTree#rank.
+     */
+    @Override
+    public int rank(K key, boolean inclusive) {
+        if (key == null) throw new IllegalArgumentException("argument key to rank() is null");
+        return rankKey(unbox(key), inclusive);
+    }
+
+    private int rankKey(long key, boolean inclusive) {
+        int rank = 0;
+        Node<V> node = root;
+        while (node instanceof InternalNode) {
+            InternalNode<V> internal = (InternalNode<V>) node;
+            int childIndex = internal.childIndex(key);
+            for (int i = 0; i < childIndex; i++)
+                rank += internal.children[i].count();
+            node = internal.children[childIndex];
+        }
+        int index = node.binarySearch(key);
+        if (index >= 0)
+            return rank + (inclusive ? index + 1 : index);
+        return rank - index - 1;
+    }
+
+    /**
+     * The entry with the given rank, counted from 0 in key order, found in one descent.
+     */
+    public Pair<K, V> select(int rank) {
+        if (rank < 0 || rank >= size) throw new IllegalArgumentException("argument rank to select() is out of range");
+        Node<V> node = root;
+        while (node instanceof InternalNode) {
+            InternalNode<V> internal = (InternalNode<V>) node;
+            int i = 0;
+            while (rank >= internal.children[i].count()) {
+                rank -= internal.children[i].count();
+                i++;
+            }
+            node = internal.children[i];
+        }
+        LeafNode<V> leaf = (LeafNode<V>) node;
+        return new Pair<>(box(leaf.key(rank)), leaf.valueAt(rank));
+    }
+
+    /**
+     * Number of keys between from and to, a null bound leaves that side open, in two descents.
+     */
+    @Override
+    public int count(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        int upper = to == null ? size : rankKey(unbox(to), toInclusive);
+        int lower = from == null ? 0 : rankKey(unbox(from), !fromInclusive);
+        return Math.max(0, upper - lower);
+    }
+
+    /**
+     * Inserts the entries leaf by leaf, see BPlusTree#putAll.
+     */
+    @Override
+    public int putAll(List<Pair<K, V>> sortedEntries) {
+        for (Pair<K, V> entry : sortedEntries)
+            if (entry.left == null) throw new IllegalArgumentException("argument key to putAll() is null");
+        ArrayList<InternalNode<V>> path = new ArrayList<>();
+        int count = 0;
+        while (count < sortedEntries.size()) {
+            Pair<K, V> entry = sortedEntries.get(count);
+            long key = unbox(entry.left);
+            if (isAppend(key)) {
+                append(key, entry.right);
+                count++;
+                continue;
+            }
+            boolean bounded = false;
+            long upper = 0;
+            Node<V> node = root;
+            path.clear();
+            while (node instanceof InternalNode) {
+                InternalNode<V> internal = (InternalNode<V>) node;
+                path.add(internal);
+                int childIndex = internal.childIndex(key);
+                if (childIndex < internal.nodeSize) {
+                    bounded = true;
+                    upper = internal.key(childIndex);
+                }
+                node = internal.children[childIndex];
+            }
+            LeafNode<V> leaf = (LeafNode<V>) node;
+            int first = count;
+            boolean present = false;
+            while (count < sortedEntries.size() && leaf.nodeSize < fanout - 1) {
+                entry = sortedEntries.get(count);
+                key = unbox(entry.left);
+                if (bounded && key >= upper)
+                    break;
+                int index = leaf.binarySearch(key);
+                if (index >= 0) {
+                    present = true;
+                    break;
+                }
+                leaf.insert(-index - 1, key, entry.right);
+                count++;
+            }
+            // the leaf was filled without the descent of put, bring the counts on its path up to date
+            size += count - first;
+            for (InternalNode<V> internal : path)
+                internal.count += count - first;
+            if (present)
+                return count;
+            if (count == first) {
+                if (putIfAbsentKey(key, entry.right) != null)
+                    return count;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Builds the tree bottom-up in one pass, see BPlusTree#bulkLoad.
+     */
+    @Override
+    public void bulkLoad(Iterator<Pair<K, V>> sortedEntries) {
+        if (size != 0) throw new IllegalStateException("bulkLoad() needs an empty tree");
+        lastLeaf = null;
+        ArrayList<Node<V>> level = new ArrayList<>();
+        LeafNode<V> leaf = null;
+        int count = 0;
+        long last = 0;
+        while (sortedEntries.hasNext()) {
+            Pair<K, V> entry = sortedEntries.next();
+            if (entry.left == null) throw new IllegalArgumentException("argument key to bulkLoad() is null");
+            long key = unbox(entry.left);
+            if (count > 0 && last >= key) {
+                if (last == key) throw new DuplicateKeyException();
+                throw new IllegalArgumentException("keys given to bulkLoad() are not in ascending order");
+            }
+            if (leaf == null || leaf.nodeSize == fanout - 1) {
+                LeafNode<V> newLeaf = new LeafNode<>(longKeys, fanout, 0);
+                if (leaf != null) {
+                    leaf.next = newLeaf;
+                    newLeaf.prev = leaf;
+                }
+                leaf = newLeaf;
+                level.add(leaf);
+            }
+            leaf.append(key, entry.right);
+            last = key;
+            count++;
+        }
+        if (count == 0) return;
+        balanceLastNode(level);
+        while (level.size() > 1)
+            level = buildInternalLevel(level);
+        root = level.get(0);
+        size = count;
+    }
+
+    private ArrayList<Node<V>> buildInternalLevel(ArrayList<Node<V>> children) {
+        ArrayList<Node<V>> level = new ArrayList<>();
+        for (int from = 0; from < children.size(); from += fanout) {
+            int to = Math.min(from + fanout, children.size());
+            InternalNode<V> node = new InternalNode<>(longKeys, fanout, to - from - 1);
+            node.children[0] = children.get(from);
+            for (int i = from + 1; i < to; i++) {
+                node.setKey(i - from - 1, children.get(i).getFirstLeafKey());
+                node.children[i - from] = children.get(i);
+            }
+            node.recount();
+            level.add(node);
+        }
+        balanceLastNode(level);
+        return level;
+    }
+
+    private void balanceLastNode(ArrayList<Node<V>> level) {
+        int last = level.size() - 1;
+        if (last > 0 && level.get(last).isUnderFlow()) {
+            Node<V> left = level.get(last - 1);
+            left.merge(level.remove(last));
+            level.add(left.split());
+        }
+    }
+
+    // true if the key is greater than every key in the tree, a lookup of the last leaf is cached
+    private boolean isAppend(long key) {
+        if (lastLeaf == null || lastLeaf.next != null)
+            lastLeaf = root.getLastLeaf();
+        return lastLeaf.nodeSize > 0 && key > lastLeaf.key(lastLeaf.nodeSize - 1);
+    }
+
+    private void append(long key, V value) {
+        if (lastLeaf.nodeSize < fanout - 1) {
+            lastLeaf.append(key, value);
+            // the leaf was reached without a descent, count the entry on the rightmost path
+            for (Node<V> node = root; node instanceof InternalNode; ) {
+                InternalNode<V> internal = (InternalNode<V>) node;
+                internal.count++;
+                node = internal.children[internal.nodeSize];
+            }
+        } else {
+            root.append(key, value);
+            if (root.isOverFlow())
+                growRoot(root.splitLast());
+        }
+        size++;
+    }
+
+    private void growRoot(Node<V> newSiblingNode) {
+        InternalNode<V> newRoot = new InternalNode<>(longKeys, fanout, 1);
+        newRoot.setKey(0, newSiblingNode.getFirstLeafKey());
+        newRoot.children[0] = root;
+        newRoot.children[1] = newSiblingNode;
+        newRoot.recount();
+        root = newRoot;
+    }
+
+    private void checkRoot() {
+        if (root.isOverFlow()) {
+            growRoot(root.split());
+        } else if (root instanceof InternalNode && root.nodeSize == 0) {
+            root = ((InternalNode<V>) root).children[0];
+        }
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return new TreeIterator(size == 0 ? null : root.getFirstLeaf(), 0, false, 0, false, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> seek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (size == 0)
+            return new TreeIterator(null, 0, false, 0, false, false);
+        long bound = to == null ? 0 : unbox(to);
+        if (from == null)
+            return new TreeIterator(root.getFirstLeaf(), 0, to != null, bound, toInclusive, false);
+        long key = unbox(from);
+        LeafNode<V> leaf = root.getLeaf(key);
+        int index = leaf.binarySearch(key);
+        if (index >= 0)
+            index = fromInclusive ? index : index + 1;
+        else
+            index = -index - 1;
+        return new TreeIterator(leaf, index, to != null, bound, toInclusive, false);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (size == 0)
+            return new TreeIterator(null, 0, false, 0, false, true);
+        long bound = from == null ? 0 : unbox(from);
+        if (to == null) {
+            LeafNode<V> last = root.getLastLeaf();
+            return new TreeIterator(last, last.nodeSize - 1, from != null, bound, fromInclusive, true);
+        }
+        long key = unbox(to);
+        LeafNode<V> leaf = root.getLeaf(key);
+        int index = leaf.binarySearch(key);
+        if (index >= 0)
+            index = toInclusive ? index : index - 1;
+        else
+            index = -index - 2;
+        return new TreeIterator(leaf, index, from != null, bound, fromInclusive, true);
+    }
+
+    abstract static class Node<V> {
+        // the keys are in the array of the key type of the tree, the other one is null
+        int[] intKeys;
+        long[] longKeys;
+        int nodeSize;
+        final int fanout; // of the tree
+
+        // a node holds up to fanout - 1 keys, and more for a moment before it is split
+        Node(boolean longKeys, int fanout) {
+            this.fanout = fanout;
+            int capacity = (int) (1.5 * fanout) + 1;
+            if (longKeys)
+                this.longKeys = new long[capacity];
+            else
+                this.intKeys = new int[capacity];
+        }
+
+        abstract V get(long key);
+
+        abstract void put(long key, V value);
+
+        // inserts a key greater than every key in the tree, along the rightmost path without searching
+        abstract void append(long key, V value);
+
+        abstract void remove(long key);
+
+        // stores remapping(current value) or removes the key on null, returns the previous value
+        abstract V compute(long key, Function<? super V, ? extends V> remapping);
+
+        abstract boolean containsKey(long key);
+
+        // entries in and below the node
+        abstract int count();
+
+        abstract long getFirstLeafKey();
+
+        abstract LeafNode<V> getLeaf(long key);
+
+        abstract LeafNode<V> getFirstLeaf();
+
+        abstract LeafNode<V> getLastLeaf();
+
+        abstract Node<V> split();
+
+        // splits off only the last entry, so a node filled by ascending inserts stays full
+        abstract Node<V> splitLast();
+
+        abstract void merge(Node<V> sibling);
+
+        boolean isOverFlow() {
+            return nodeSize > fanout - 1;
+        }
+
+        boolean isUnderFlow() {
+            return nodeSize < (fanout + 1) / 2 - 1;
+        }
+
+        int capacity() {
+            return intKeys != null ? intKeys.length : longKeys.length;
+        }
+
+        // an int tree is only given keys that were ints, so narrowing them loses nothing
+        long key(int index) {
+            return intKeys != null ? intKeys[index] : longKeys[index];
+        }
+
+        void setKey(int index, long key) {
+            if (intKeys != null)
+                intKeys[index] = (int) key;
+            else
+                longKeys[index] = key;
+        }
+
+        int binarySearch(long key) {
+            return intKeys != null ? Arrays.binarySearch(intKeys, 0, nodeSize, (int) key)
+                    : Arrays.binarySearch(longKeys, 0, nodeSize, key);
+        }
+
+        // System.arraycopy of keys, into a node of the same tree
+        void copyKeys(int from, Node<V> to, int toIndex, int length) {
+            if (intKeys != null)
+                System.arraycopy(intKeys, from, to.intKeys, toIndex, length);
+            else
+                System.arraycopy(longKeys, from, to.longKeys, toIndex, length);
+        }
+
+        void keysAdd(int index, long key) {
+            copyKeys(index, this, index + 1, nodeSize - index);
+            setKey(index, key);
+            nodeSize++;
+        }
+
+        void keysRemove(int index) {
+            copyKeys(index + 1, this, index, nodeSize - index - 1);
+            nodeSize--;
+        }
+    }
+
+    static final class InternalNode<V> extends Node<V> {
+        Node<V>[] children;
+        int count; // entries below this node, kept up to date on every path a change takes
+
+        @SuppressWarnings("unchecked")
+        InternalNode(boolean longKeys, int fanout, int size) {
+            super(longKeys, fanout);
+            children = (Node<V>[]) new Node[capacity() + 1];
+            nodeSize = size;
+        }
+
+        private void childrenAdd(int index, Node<V> node) {
+            System.arraycopy(children, index, children, index + 1, nodeSize + 1 - index);
+            children[index] = node;
+        }
+
+        private void childrenRemove(int index) {
+            System.arraycopy(children, index + 1, children, index, nodeSize - index);
+            children[nodeSize] = null;
+        }
+
+        @Override
+        boolean containsKey(long key) {
+            return searchChild(key).containsKey(key);
+        }
+
+        @Override
+        V get(long key) {
+            return searchChild(key).get(key);
+        }
+
+        @Override
+        void put(long key, V value) {
+            Node<V> child = searchChild(key);
+            child.put(key, value);
+            count++;
+            if (child.isOverFlow()) {
+                Node<V> newSiblingNode = child.split();
+                insertChild(newSiblingNode.getFirstLeafKey(), newSiblingNode);
+            }
+        }
+
+        @Override
+        void append(long key, V value) {
+            Node<V> child = children[nodeSize];
+            child.append(key, value);
+            count++;
+            if (child.isOverFlow()) {
+                Node<V> newSiblingNode = child.splitLast();
+                setKey(nodeSize, newSiblingNode.getFirstLeafKey());
+                children[nodeSize + 1] = newSiblingNode;
+                nodeSize++;
+            }
+        }
+
+        @Override
+        void remove(long key) {
+            int index = binarySearch(key);
+            int childIndex = index >= 0 ? index + 1 : -index - 1;
+            Node<V> child = children[childIndex];
+            child.remove(key);
+            count--;
+            rebalance(index, childIndex, child);
+        }
+
+        @Override
+        V compute(long key, Function<? super V, ? extends V> remapping) {
+            int index = binarySearch(key);
+            int childIndex = index >= 0 ? index + 1 : -index - 1;
+            Node<V> child = children[childIndex];
+            int childSize = child.nodeSize;
+            int childCount = child.count();
+            V previous = child.compute(key, remapping);
+            count += child.count() - childCount;
+            if (child.isOverFlow()) {
+                Node<V> newSiblingNode = child.split();
+                insertChild(newSiblingNode.getFirstLeafKey(), newSiblingNode);
+            } else if (child.nodeSize < childSize) {
+                rebalance(index, childIndex, child);
+            } else if (index >= 0) {
+                // the key removed may have been the first of the child
+                setKey(index, children[index + 1].getFirstLeafKey());
+            }
+            return previous;
+        }
+
+        // merges the child with a sibling if a removal left it under-full, index is the key's search result
+        private void rebalance(int index, int childIndex, Node<V> child) {
+            if (child.isUnderFlow()) {
+                Node<V> childLeftSibling = childIndex > 0 ? children[childIndex - 1] : null;
+                Node<V> childRightSibling = childIndex < nodeSize ? children[childIndex + 1] : null;
+                Node<V> left = childLeftSibling != null ? childLeftSibling : child;
+                Node<V> right = childLeftSibling != null ? child : childRightSibling;
+                left.merge(right);
+                if (index >= 0) {
+                    childrenRemove(index + 1);
+                    keysRemove(index);
+                } else {
+                    assert right != null;
+                    deleteChild(right.getFirstLeafKey());
+                }
+                if (left.isOverFlow()) {
+                    Node<V> newSiblingNode = left.split();
+                    insertChild(newSiblingNode.getFirstLeafKey(), newSiblingNode);
+                }
+            } else if (index >= 0)
+                setKey(index, children[index + 1].getFirstLeafKey());
+        }
+
+        @Override
+        int count() {
+            return count;
+        }
+
+        // recomputes the count from the children, for nodes built or split outside the insert path
+        void recount() {
+            count = 0;
+            for (int i = 0; i <= nodeSize; i++)
+                count += children[i].count();
+        }
+
+        @Override
+        long getFirstLeafKey() {
+            return children[0].getFirstLeafKey();
+        }
+
+        @Override
+        LeafNode<V> getLeaf(long key) {
+            return searchChild(key).getLeaf(key);
+        }
+
+        @Override
+        LeafNode<V> getFirstLeaf() {
+            return children[0].getFirstLeaf();
+        }
+
+        @Override
+        LeafNode<V> getLastLeaf() {
+            return children[nodeSize].getLastLeaf();
+        }
+
+        @Override
+        Node<V> split() {
+            return splitAt(nodeSize / 2 + 1);
+        }
+
+        @Override
+        Node<V> splitLast() {
+            return splitAt(nodeSize - 1);
+        }
+
+        // the new sibling takes the keys from the index on and the children to their right
+        private Node<V> splitAt(int from) {
+            int to = nodeSize;
+            InternalNode<V> newSiblingNode = new InternalNode<>(longKeys != null, fanout, to - from);
+            copyKeys(from, newSiblingNode, 0, to - from);
+            System.arraycopy(children, from, newSiblingNode.children, 0, to - from + 1);
+            Arrays.fill(children, from, to + 1, null);
+            nodeSize = from - 1;
+            newSiblingNode.recount();
+            count -= newSiblingNode.count;
+            return newSiblingNode;
+        }
+
+        @Override
+        void merge(Node<V> sibling) {
+            int index = nodeSize;
+            InternalNode<V> node = (InternalNode<V>) sibling;
+            int length = node.nodeSize;
+            setKey(index, node.getFirstLeafKey());
+            node.copyKeys(0, this, index + 1, length);
+            System.arraycopy(node.children, 0, children, index + 1, length + 1);
+            nodeSize = index + length + 1;
+            count += node.count;
+        }
+
+        int childIndex(long key) {
+            int index = binarySearch(key);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        private Node<V> searchChild(long key) {
+            return children[childIndex(key)];
+        }
+
+        private void insertChild(long key, Node<V> child) {
+            int index = binarySearch(key);
+            int childIndex = index >= 0 ? index + 1 : -index - 1;
+            if (index >= 0) {
+                children[childIndex] = child;
+            } else {
+                childrenAdd(childIndex + 1, child);
+                keysAdd(childIndex, key);
+            }
+        }
+
+        private void deleteChild(long key) {
+            int index = binarySearch(key);
+            if (index >= 0) {
+                childrenRemove(index + 1);
+                keysRemove(index);
+            }
+        }
+    }
+
+    static final class LeafNode<V> extends Node<V> {
+        Object[] values;
+        LeafNode<V> next;
+        LeafNode<V> prev;
+
+        LeafNode(boolean longKeys, int fanout, int size) {
+            super(longKeys, fanout);
+            values = new Object[capacity()];
+            nodeSize = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) values[index];
+        }
+
+        @Override
+        boolean containsKey(long key) {
+            return binarySearch(key) >= 0;
+        }
+
+        @Override
+        V get(long key) {
+            int index = binarySearch(key);
+            if (index >= 0)
+                return valueAt(index);
+            throw new KeyNotExistException();
+        }
+
+        @Override
+        void put(long key, V value) {
+            int index = binarySearch(key);
+            if (index >= 0)
+                throw new DuplicateKeyException();
+            insert(-index - 1, key, value);
+        }
+
+        // inserts at a position found by binarySearch
+        void insert(int index, long key, V value) {
+            System.arraycopy(values, index, values, index + 1, nodeSize - index);
+            values[index] = value;
+            keysAdd(index, key);
+        }
+
+        @Override
+        void append(long key, V value) {
+            setKey(nodeSize, key);
+            values[nodeSize] = value;
+            nodeSize++;
+        }
+
+        @Override
+        void remove(long key) {
+            int index = binarySearch(key);
+            if (index < 0)
+                throw new KeyNotExistException();
+            System.arraycopy(values, index + 1, values, index, nodeSize - index - 1);
+            values[nodeSize - 1] = null;
+            keysRemove(index);
+        }
+
+        @Override
+        V compute(long key, Function<? super V, ? extends V> remapping) {
+            int index = binarySearch(key);
+            V previous = index >= 0 ? valueAt(index) : null;
+            V value = remapping.apply(previous);
+            if (index >= 0) {
+                if (value != null) {
+                    values[index] = value;
+                } else {
+                    System.arraycopy(values, index + 1, values, index, nodeSize - index - 1);
+                    values[nodeSize - 1] = null;
+                    keysRemove(index);
+                }
+            } else if (value != null) {
+                int valueIndex = -index - 1;
+                System.arraycopy(values, valueIndex, values, valueIndex + 1, nodeSize - valueIndex);
+                values[valueIndex] = value;
+                keysAdd(valueIndex, key);
+            }
+            return previous;
+        }
+
+        @Override
+        int count() {
+            return nodeSize;
+        }
+
+        @Override
+        long getFirstLeafKey() {
+            return key(0);
+        }
+
+        @Override
+        LeafNode<V> getLeaf(long key) {
+            return this;
+        }
+
+        @Override
+        LeafNode<V> getFirstLeaf() {
+            return this;
+        }
+
+        @Override
+        LeafNode<V> getLastLeaf() {
+            return this;
+        }
+
+        @Override
+        Node<V> split() {
+            return splitAt((nodeSize + 1) / 2);
+        }
+
+        @Override
+        Node<V> splitLast() {
+            return splitAt(nodeSize - 1);
+        }
+
+        private Node<V> splitAt(int from) {
+            int to = nodeSize;
+            LeafNode<V> newSiblingNode = new LeafNode<>(longKeys != null, fanout, to - from);
+            copyKeys(from, newSiblingNode, 0, to - from);
+            System.arraycopy(values, from, newSiblingNode.values, 0, to - from);
+            Arrays.fill(values, from, to, null);
+            nodeSize = from;
+            newSiblingNode.next = next;
+            newSiblingNode.prev = this;
+            if (next != null)
+                next.prev = newSiblingNode;
+            next = newSiblingNode;
+            return newSiblingNode;
+        }
+
+        @Override
+        void merge(Node<V> sibling) {
+            int index = nodeSize;
+            LeafNode<V> node = (LeafNode<V>) sibling;
+            int length = node.nodeSize;
+            node.copyKeys(0, this, index, length);
+            System.arraycopy(node.values, 0, values, index, length);
+            nodeSize = index + length;
+            next = node.next;
+            if (next != null)
+                next.prev = this;
+        }
+    }
+
+    final class TreeIterator implements Iterator<Pair<K, V>> {
+        private LeafNode<V> leaf;
+        private int index;
+        private final boolean bounded;
+        private final long bound;
+        private final boolean boundInclusive;
+        private final boolean descending;
+
+        TreeIterator(LeafNode<V> leaf, int index, boolean bounded, long bound, boolean boundInclusive, boolean descending) {
+            this.leaf = leaf;
+            this.index = index;
+            this.bounded = bounded;
+            this.bound = bound;
+            this.boundInclusive = boundInclusive;
+            this.descending = descending;
+            seek();
+        }
+
+        private void seek() {
+            while (leaf != null && (index < 0 || index >= leaf.nodeSize)) {
+                if (descending) {
+                    leaf = leaf.prev;
+                    index = leaf == null ? -1 : leaf.nodeSize - 1;
+                } else {
+                    leaf = leaf.next;
+                    index = 0;
+                }
+            }
+            if (leaf == null || !bounded)
+                return;
+            int cmp = Long.compare(leaf.key(index), bound);
+            if (descending ? cmp < 0 || (cmp == 0 && !boundInclusive) : cmp > 0 || (cmp == 0 && !boundInclusive))
+                leaf = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (leaf == null)
+                throw new NoSuchElementException();
+            Pair<K, V> pair = new Pair<>(box(leaf.key(index)), leaf.valueAt(index));
+            index += descending ? -1 : 1;
+            seek();
+            return pair;
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Copy-on-write B+ tree whose nodes are never modified once they are reachable from a root.
+ * <p>
+ * A write copies the nodes on the path from the root to the leaf it changes, splitting or
+ * merging the copies where needed, and publishes the new root with one volatile write.
+ * Writers are serialized by a lock, readers take no lock at all. Every read starts from the
+ * version that is current at that moment, and {@link #snapshot()} pins one version for any
+ * number of reads, so a long scan sees the tree as it was when the scan started.
+ * <p>
+ * Nothing else refers to an old version, so it is reclaimed by the garbage collector as
+ * soon as the last snapshot or iterator reading it is dropped.
+ */
+
+public final class VersionedBPlusTree<K extends Comparable<K>, V> implements Index<K, V> {
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot<K, V> current;
+
+    public VersionedBPlusTree() {
+        current = new Snapshot<>(new LeafNode<K, V>(new Object[0], new Object[0]), 0, 0);
+    }
+
+    /**
+     * The current version, unaffected by later writes.
+     */
+    public Snapshot<K, V> snapshot() {
+        return current;
+    }
+
+    @Override
+    public int size() {
+        return current.size();
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to get() is null");
+        return current.get(key);
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to contains() is null");
+        return current.contains(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to put() is null");
+        apply(key, (k, old) -> {
+            if (old != null)
+                throw new DuplicateKeyException();
+            return value;
+        });
+    }
+
+    @Override
+    public void update(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to update() is null");
+        apply(key, (k, old) -> {
+            if (old == null)
+                throw new KeyNotExistException();
+            return value;
+        });
+    }
+
+    @Override
+    public void remove(K key) {
+        if (key == null) throw new IllegalArgumentException("argument key to remove() is null");
+        apply(key, (k, old) -> {
+            if (old == null)
+                throw new KeyNotExistException();
+            return null;
+        });
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to putIfAbsent() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to putIfAbsent() is null");
+        return apply(key, (k, old) -> old == null ? value : old);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        if (key == null) throw new IllegalArgumentException("argument key to replace() is null");
+        if (value == null) throw new IllegalArgumentException("argument value to replace() is null");
+        return apply(key, (k, old) -> old == null ? null : value);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (key == null) throw new IllegalArgumentException("argument key to compute() is null");
+        ArrayList<V> computed = new ArrayList<>(1);
+        apply(key, (k, old) -> {
+            V value = remapping.apply(k, old);
+            computed.add(value);
+            return value;
+        });
+        return computed.get(0);
+    }
+
+    @Override
+    public void bulkLoad(Iterator<Pair<K, V>> sortedEntries) {
+        BPlusTree<K, V> packed = new BPlusTree<>();
+        packed.bulkLoad(sortedEntries);
+        int height = 0;
+        for (BPlusTreeNode<K, V> node = packed.root; node instanceof BPlusTreeInternalNode; height++)
+            node = ((BPlusTreeInternalNode<K, V>) node).children[0];
+        try {
+            writeLock.lock();
+            if (current.size() != 0) throw new IllegalStateException("bulkLoad() needs an empty tree");
+            current = new Snapshot<>(copyOf(packed.root), packed.size(), height);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Node<K, V> copyOf(BPlusTreeNode<K, V> node) {
+        if (node instanceof BPlusTreeLeafNode) {
+            BPlusTreeLeafNode<K, V> leaf = (BPlusTreeLeafNode<K, V>) node;
+            return new LeafNode<>(Arrays.copyOf(leaf.keys, leaf.size(), Object[].class),
+                    Arrays.copyOf(leaf.values, leaf.size(), Object[].class));
+        }
+        BPlusTreeInternalNode<K, V> internal = (BPlusTreeInternalNode<K, V>) node;
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] children = (Node<K, V>[]) new Node[internal.size() + 1];
+        for (int i = 0; i <= internal.size(); i++)
+            children[i] = copyOf(internal.children[i]);
+        return new InternalNode<>(Arrays.copyOf(internal.keys, internal.size(), Object[].class), children);
+    }
+
+    // builds and publishes the version with remapping(key, current value) applied, returns the previous value
+    private V apply(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        try {
+            writeLock.lock();
+            Snapshot<K, V> version = current;
+            Change<V> change = new Change<>();
+            Node<K, V> root = version.root.compute(key, remapping, change);
+            if (root == version.root)
+                return change.previous;
+            int height = version.height;
+            if (root.isOverFlow()) {
+                int middle = root.size() / 2;
+                @SuppressWarnings("unchecked")
+                Node<K, V>[] children = (Node<K, V>[]) new Node[]{root.lower(middle), root.upper(middle)};
+                root = new InternalNode<>(new Object[]{root.keyAt(middle)}, children);
+                height++;
+            } else if (root instanceof InternalNode && root.size() == 0) {
+                root = ((InternalNode<K, V>) root).children[0];
+                height--;
+            }
+            current = new Snapshot<>(root, version.size + change.sizeChange, height);
+            return change.previous;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return current.iterator();
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> seek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return current.seek(from, fromInclusive, to, toInclusive);
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return current.descendingSeek(from, fromInclusive, to, toInclusive);
+    }
+
+    // copy of the array with the element inserted at the index
+    private static <T> T[] with(T[] array, int index, T element) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, copy, index + 1, array.length - index);
+        copy[index] = element;
+        return copy;
+    }
+
+    // copy of the array without the element at the index
+    private static <T> T[] without(T[] array, int index) {
+        T[] copy = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+        return copy;
+    }
+
+    private static <T> T[] concat(T[] left, T[] right) {
+        T[] copy = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, copy, left.length, right.length);
+        return copy;
+    }
+
+    /**
+     * One version of the tree: a root, never modified, and the number of keys below it.
+     */
+    public static final class Snapshot<K extends Comparable<K>, V> implements Iterable<Pair<K, V>> {
+        private final Node<K, V> root;
+        private final int size;
+        private final int height;
+
+        Snapshot(Node<K, V> root, int size, int height) {
+            this.root = root;
+            this.size = size;
+            this.height = height;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public V get(K key) {
+            LeafNode<K, V> leaf = root.getLeaf(key);
+            int index = leaf.binarySearch(key);
+            if (index < 0)
+                throw new KeyNotExistException();
+            return leaf.valueAt(index);
+        }
+
+        public boolean contains(K key) {
+            return root.getLeaf(key).binarySearch(key) >= 0;
+        }
+
+        @Override
+        public Iterator<Pair<K, V>> iterator() {
+            return new TreeIterator<>(this, null, true, null, false, false);
+        }
+
+        public Iterator<Pair<K, V>> seek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+            return new TreeIterator<>(this, from, fromInclusive, to, toInclusive, false);
+        }
+
+        public Iterator<Pair<K, V>> descendingSeek(K from, boolean fromInclusive, K to, boolean toInclusive) {
+            return new TreeIterator<>(this, to, toInclusive, from, fromInclusive, true);
+        }
+    }
+
+    // what a write did at the leaf, collected on the way down
+    private static final class Change<V> {
+        V previous;
+        int sizeChange;
+    }
+
+    abstract static class Node<K extends Comparable<K>, V> {
+        final Object[] keys;
+
+        Node(Object[] keys) {
+            this.keys = keys;
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        int binarySearch(K key) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = ((K) keys[mid]).compareTo(key);
+                if (cmp < 0)
+                    low = mid + 1;
+                else if (cmp > 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        boolean isOverFlow() {
+            return keys.length > Global.fanout - 1;
+        }
+
+        boolean isUnderFlow() {
+            return keys.length < (Global.fanout + 1) / 2 - 1;
+        }
+
+        abstract LeafNode<K, V> getLeaf(K key);
+
+        // returns this if nothing changed, otherwise a new node that may be over- or under-full
+        abstract Node<K, V> compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping, Change<V> change);
+
+        // the entries before keyAt(index), which becomes the separator of a split
+        abstract Node<K, V> lower(int index);
+
+        // the entries after the separator keyAt(index)
+        abstract Node<K, V> upper(int index);
+
+        // this node followed by its right sibling, the separator comes from their parent
+        abstract Node<K, V> join(K separator, Node<K, V> right);
+    }
+
+    static final class InternalNode<K extends Comparable<K>, V> extends Node<K, V> {
+        final Node<K, V>[] children;
+
+        InternalNode(Object[] keys, Node<K, V>[] children) {
+            super(keys);
+            this.children = children;
+        }
+
+        int childIndex(K key) {
+            int index = binarySearch(key);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        @Override
+        LeafNode<K, V> getLeaf(K key) {
+            return children[childIndex(key)].getLeaf(key);
+        }
+
+        @Override
+        Node<K, V> compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping, Change<V> change) {
+            int childIndex = childIndex(key);
+            Node<K, V> child = children[childIndex];
+            Node<K, V> newChild = child.compute(key, remapping, change);
+            if (newChild == child)
+                return this;
+            if (newChild.isOverFlow()) {
+                int middle = newChild.size() / 2;
+                Node<K, V>[] newChildren = children.clone();
+                newChildren[childIndex] = newChild.lower(middle);
+                return new InternalNode<>(with(keys, childIndex, newChild.keyAt(middle)),
+                        with(newChildren, childIndex + 1, newChild.upper(middle)));
+            }
+            if (newChild.isUnderFlow() && children.length > 1)
+                return rebalance(childIndex, newChild);
+            Node<K, V>[] newChildren = children.clone();
+            newChildren[childIndex] = newChild;
+            return new InternalNode<>(keys, newChildren);
+        }
+
+        // merges an under-full child with a sibling, and splits the result again if it is too large
+        private Node<K, V> rebalance(int childIndex, Node<K, V> child) {
+            int left = childIndex > 0 ? childIndex - 1 : childIndex;
+            Node<K, V> merged = childIndex > 0
+                    ? children[left].join(keyAt(left), child)
+                    : child.join(keyAt(left), children[left + 1]);
+            if (merged.isOverFlow()) {
+                int middle = merged.size() / 2;
+                Object[] newKeys = keys.clone();
+                Node<K, V>[] newChildren = children.clone();
+                newKeys[left] = merged.keyAt(middle);
+                newChildren[left] = merged.lower(middle);
+                newChildren[left + 1] = merged.upper(middle);
+                return new InternalNode<>(newKeys, newChildren);
+            }
+            Node<K, V>[] newChildren = without(children, left + 1);
+            newChildren[left] = merged;
+            return new InternalNode<>(without(keys, left), newChildren);
+        }
+
+        @Override
+        Node<K, V> lower(int index) {
+            return new InternalNode<>(Arrays.copyOfRange(keys, 0, index), Arrays.copyOfRange(children, 0, index + 1));
+        }
+
+        @Override
+        Node<K, V> upper(int index) {
+            return new InternalNode<>(Arrays.copyOfRange(keys, index + 1, keys.length),
+                    Arrays.copyOfRange(children, index + 1, children.length));
+        }
+
+        @Override
+        Node<K, V> join(K separator, Node<K, V> right) {
+            InternalNode<K, V> node = (InternalNode<K, V>) right;
+            return new InternalNode<>(concat(with(keys, keys.length, separator), node.keys),
+                    concat(children, node.children));
+        }
+    }
+
+    static final class LeafNode<K extends Comparable<K>, V> extends Node<K, V> {
+        final Object[] values;
+
+        LeafNode(Object[] keys, Object[] values) {
+            super(keys);
+            this.values = values;
+        }
+
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) values[index];
+        }
+
+        @Override
+        LeafNode<K, V> getLeaf(K key) {
+            return this;
+        }
+
+        @Override
+        Node<K, V> compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping, Change<V> change) {
+            int index = binarySearch(key);
+            V previous = index >= 0 ? valueAt(index) : null;
+            V value = remapping.apply(key, previous);
+            change.previous = previous;
+            if (value == previous)
+                return this;
+            if (index >= 0 && value != null) {
+                // the keys are unchanged and can be shared with this version
+                Object[] newValues = values.clone();
+                newValues[index] = value;
+                return new LeafNode<>(keys, newValues);
+            }
+            if (index >= 0) {
+                change.sizeChange = -1;
+                return new LeafNode<>(without(keys, index), without(values, index));
+            }
+            change.sizeChange = 1;
+            return new LeafNode<>(with(keys, -index - 1, key), with(values, -index - 1, value));
+        }
+
+        @Override
+        Node<K, V> lower(int index) {
+            return new LeafNode<>(Arrays.copyOfRange(keys, 0, index), Arrays.copyOfRange(values, 0, index));
+        }
+
+        @Override
+        Node<K, V> upper(int index) {
+            return new LeafNode<>(Arrays.copyOfRange(keys, index, keys.length),
+                    Arrays.copyOfRange(values, index, values.length));
+        }
+
+        @Override
+        Node<K, V> join(K separator, Node<K, V> right) {
+            LeafNode<K, V> node = (LeafNode<K, V>) right;
+            return new LeafNode<>(concat(keys, node.keys), concat(values, node.values));
+        }
+    }
+
+    /**
+     * Walks the leaves of one version with the path from the root kept on a stack, since
+     * copied leaves cannot be chained to their neighbours.
+     */
+    static final class TreeIterator<K extends Comparable<K>, V> implements Iterator<Pair<K, V>> {
+        private final InternalNode<K, V>[] path;
+        private final int[] positions;
+        private final K end;
+        private final boolean endInclusive;
+        private final boolean descending;
+        private LeafNode<K, V> leaf;
+        private int index;
+        private Pair<K, V> next;
+
+        @SuppressWarnings("unchecked")
+        TreeIterator(Snapshot<K, V> snapshot, K start, boolean startInclusive, K end, boolean endInclusive,
+                     boolean descending) {
+            this.path = (InternalNode<K, V>[]) new InternalNode[snapshot.height];
+            this.positions = new int[snapshot.height];
+            this.end = end;
+            this.endInclusive = endInclusive;
+            this.descending = descending;
+            Node<K, V> node = snapshot.root;
+            for (int depth = 0; depth < path.length; depth++) {
+                InternalNode<K, V> internal = (InternalNode<K, V>) node;
+                int childIndex = start != null ? internal.childIndex(start) : descending ? internal.size() : 0;
+                path[depth] = internal;
+                positions[depth] = childIndex;
+                node = internal.children[childIndex];
+            }
+            leaf = (LeafNode<K, V>) node;
+            if (start == null) {
+                index = descending ? leaf.size() - 1 : 0;
+            } else {
+                int found = leaf.binarySearch(start);
+                if (found >= 0)
+                    index = startInclusive ? found : descending ? found - 1 : found + 1;
+                else
+                    index = descending ? -found - 2 : -found - 1;
+            }
+            advance();
+        }
+
+        private boolean beforeEnd(K key) {
+            if (end == null) return true;
+            int cmp = key.compareTo(end);
+            return descending ? cmp > 0 || (cmp == 0 && endInclusive) : cmp < 0 || (cmp == 0 && endInclusive);
+        }
+
+        // finds the entry at the current position, or the end of the scan
+        private void advance() {
+            while (index < 0 || index >= leaf.size()) {
+                if (!moveLeaf()) {
+                    next = null;
+                    return;
+                }
+            }
+            K key = leaf.keyAt(index);
+            next = beforeEnd(key) ? new Pair<>(key, leaf.valueAt(index)) : null;
+        }
+
+        // moves to the neighbouring leaf in scan direction, returns false after the last one
+        private boolean moveLeaf() {
+            int depth = path.length - 1;
+            while (depth >= 0 && positions[depth] == (descending ? 0 : path[depth].size()))
+                depth--;
+            if (depth < 0)
+                return false;
+            positions[depth] += descending ? -1 : 1;
+            Node<K, V> node = path[depth].children[positions[depth]];
+            for (depth++; depth < path.length; depth++) {
+                InternalNode<K, V> internal = (InternalNode<K, V>) node;
+                path[depth] = internal;
+                positions[depth] = descending ? internal.size() : 0;
+                node = internal.children[positions[depth]];
+            }
+            leaf = (LeafNode<K, V>) node;
+            index = descending ? leaf.size() - 1 : 0;
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            Pair<K, V> pair = next;
+            index += descending ? -1 : 1;
+            advance();
+            return pair;
+        }
+    }
+}
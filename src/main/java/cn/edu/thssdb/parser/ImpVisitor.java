@@ -2,18 +2,20 @@ package cn.edu.thssdb.parser;
 
 // TODO: add logic for some important cases, refer to given implementations and SQLBaseVisitor.java for structures
 
-import cn.edu.thssdb.common.Pair;
 import cn.edu.thssdb.exception.DatabaseNotExistException;
 import cn.edu.thssdb.exception.ValueFormatInvalidException;
+import cn.edu.thssdb.query.KeyRange;
 import cn.edu.thssdb.query.QueryResult;
 import cn.edu.thssdb.query.QueryTable;
 import cn.edu.thssdb.schema.*;
 import cn.edu.thssdb.type.ColumnType;
+import cn.edu.thssdb.type.TableStorage;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 
 /**
  * When use SQL sentence, e.g., "SELECT avg(A) FROM TableX;"
@@ -54,6 +56,8 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
         if (ctx.use_db_stmt() != null) return new QueryResult(visitUse_db_stmt(ctx.use_db_stmt()));
         if (ctx.create_table_stmt() != null) return new QueryResult(visitCreate_table_stmt(ctx.create_table_stmt()));
         if (ctx.drop_table_stmt() != null) return new QueryResult(visitDrop_table_stmt(ctx.drop_table_stmt()));
+        if (ctx.create_index_stmt() != null) return new QueryResult(visitCreate_index_stmt(ctx.create_index_stmt()));
+        if (ctx.drop_index_stmt() != null) return new QueryResult(visitDrop_index_stmt(ctx.drop_index_stmt()));
         if (ctx.insert_stmt() != null) return new QueryResult(visitInsert_stmt(ctx.insert_stmt()));
         if (ctx.delete_stmt() != null) return new QueryResult(visitDelete_stmt(ctx.delete_stmt()));
         if (ctx.update_stmt() != null) return new QueryResult(visitUpdate_stmt(ctx.update_stmt()));
@@ -124,11 +128,14 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
      * 创建表格 create
      * supports create table table_name ( attr1 type1, attr2 type2, attr3 type3 not null primary key)
      *          create table table_name ( attr1 type1, attr2 type2, attr3 type3 not null, PRIMARY KEY (attr1) )
+     *          create columnar table table_name ( ... ), whose rows are kept column by column
+     *          create compressed table table_name ( ... ), whose row files are written in deflated blocks
+     *          create offheap table table_name ( ... ), whose keys and rows are kept in direct memory
      */
     @Override
     public String visitCreate_table_stmt(SQLParser.Create_table_stmtContext ctx) {
         try {
-            Set<String> primaryKeys = new HashSet<>();
+            List<String> primaryKeys = new ArrayList<>();
             if (ctx.table_constraint() != null && ctx.table_constraint().K_PRIMARY() != null && ctx.table_constraint().K_KEY() != null) {
                 // PRIMARY KEY (a,b)
                 for (SQLParser.Column_nameContext nameContext : ctx.table_constraint().column_name()) {
@@ -155,9 +162,8 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
                 } else if (typeName.T_DOUBLE() != null) {
                     columnType = ColumnType.DOUBLE;
                 }
-                if (primaryKeys.contains(ctx.column_def(i).column_name().getText())) {
-                    isPrimary = 1;
-                }
+                // a column of PRIMARY KEY (a, b) records its position in the key
+                isPrimary = primaryKeys.indexOf(ctx.column_def(i).column_name().getText()) + 1;
 
                 for (SQLParser.Column_constraintContext columnConstraint : ctx.column_def(i).column_constraint()) {
                     if (columnConstraint.K_NOT() != null && columnConstraint.K_NULL() != null) {
@@ -170,13 +176,60 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
                 Column column = new Column(ctx.column_def(i).column_name().getText(), columnType, isPrimary, notNull, maxLen);
                 columnList.add(column);
             }
-            GetCurrentDB().create(ctx.table_name().getText(), columnList.toArray(new Column[0]));
+            if (ctx.K_OFFHEAP() != null)
+                GetCurrentDB().create(ctx.table_name().getText(), columnList.toArray(new Column[0]), TableStorage.OFF_HEAP,
+                        false);
+            else
+                GetCurrentDB().create(ctx.table_name().getText(), columnList.toArray(new Column[0]), ctx.K_COLUMNAR() != null,
+                        ctx.K_COMPRESSED() != null);
         } catch (Exception e) {
             return e.getMessage();
         }
         return "Create table " + ctx.table_name().getText() + ".";
     }
 
+    /**
+     * 创建索引
+     * CREATE INDEX indexName ON tableName (columnName)
+     */
+    @Override
+    public String visitCreate_index_stmt(SQLParser.Create_index_stmtContext ctx) {
+        String tableName = ctx.table_name().getText();
+        try {
+            Table table = GetCurrentDB().get(tableName);
+            if (!table.testXLock(session)) {
+                return RETRIEVE_LOCK_FAILED_MSG;
+            }
+            manager.x_lockDict.get(session).add(tableName);
+            table.takeXLock(session);
+            GetCurrentDB().createIndex(tableName, ctx.index_name().getText(), ctx.column_name().getText());
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+        return "Create index " + ctx.index_name().getText() + " on " + tableName + ".";
+    }
+
+    /**
+     * 删除索引
+     * DROP INDEX indexName ON tableName
+     */
+    @Override
+    public String visitDrop_index_stmt(SQLParser.Drop_index_stmtContext ctx) {
+        String tableName = ctx.table_name().getText();
+        try {
+            Table table = GetCurrentDB().get(tableName);
+            if (!table.testXLock(session)) {
+                return RETRIEVE_LOCK_FAILED_MSG;
+            }
+            manager.x_lockDict.get(session).add(tableName);
+            table.takeXLock(session);
+            GetCurrentDB().dropIndex(tableName, ctx.index_name().getText());
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+        return "Drop index " + ctx.index_name().getText() + " on " + tableName + ".";
+    }
+
     private Cell getCellFromType(String literalValue, Column currentCol) {
         Cell retCell = null;
         switch (currentCol.getColumnType()) {
@@ -218,32 +271,68 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
         table.takeXLock(session);
 
         List<Column> column = manager.currentDatabase.get(ctx.table_name().getText()).columns;
+        List<Row> rows = new ArrayList<>();
         for (int i = 0; i < ctx.value_entry().size(); i++) {
             SQLParser.Value_entryContext valueEntry = ctx.value_entry(i);
 
             List<Cell> cells = new ArrayList<>();
             for (int j = 0; j < valueEntry.literal_value().size(); j++) {
-                SQLParser.Literal_valueContext value = valueEntry.literal_value(j);
-                Column currentCol = column.get(j);
-                if (value.STRING_LITERAL() != null) {
-                    String v = value.STRING_LITERAL().getText().replaceAll("'", "");
-                    cells.add(new Cell(v));
-                } else if (value.NUMERIC_LITERAL() != null) {
-                    String numericStr = value.NUMERIC_LITERAL().getText();
-                    cells.add(getCellFromType(numericStr, currentCol));
-                } else if (value.K_NULL() != null) {
-                    cells.add(new Cell(null));
-                } else {
-                    throw new ValueFormatInvalidException("Type not found");
-                }
-
+                cells.add(getInsertedCell(valueEntry.literal_value(j), column.get(j)));
             }
-            Row row = new Row(cells.toArray(new Cell[0]));
-            GetCurrentDB().get(ctx.table_name().getText()).insert(row);
+            rows.add(new Row(cells.toArray(new Cell[0])));
+        }
+        if (ctx.K_DUPLICATE() != null) {
+            return upsert(table, rows, ctx.set_clause());
+        }
+        if (rows.size() == 1) {
+            table.insert(rows.get(0));
+        } else {
+            table.insertBatch(rows);
         }
         return "Inserted into " + ctx.table_name().getText() + " " + ctx.value_entry().size() + " rows.";
     }
 
+    private Cell getInsertedCell(SQLParser.Literal_valueContext value, Column column) {
+        if (value.STRING_LITERAL() != null) {
+            return new Cell(value.STRING_LITERAL().getText().replaceAll("'", ""));
+        } else if (value.NUMERIC_LITERAL() != null) {
+            return getCellFromType(value.NUMERIC_LITERAL().getText(), column);
+        } else if (value.K_NULL() != null) {
+            return new Cell((Comparable) null);
+        }
+        throw new ValueFormatInvalidException("Type not found");
+    }
+
+    /**
+     * INSERT INTO tableName VALUES (...), ... ON DUPLICATE KEY UPDATE attr1=value1, attr2=VALUES(attr2);
+     * A row whose primary key is taken updates the stored row instead, VALUES(attr) is the value
+     * the row tried to insert.
+     */
+    private String upsert(Table table, List<Row> rows, List<SQLParser.Set_clauseContext> setClauses) {
+        int[] targets = new int[setClauses.size()];
+        for (int i = 0; i < setClauses.size(); i++) {
+            targets[i] = table.getColumnIndex(setClauses.get(i).column_name(0).getText());
+            if (table.columns.get(targets[i]).isPrimary())
+                return "Exception: cannot update primary key " + table.columns.get(targets[i]).getColumnName() + " on duplicate key!";
+        }
+        int inserted = 0;
+        for (Row row : rows) {
+            boolean isInsert = table.upsert(row, oldRow -> {
+                Row newRow = new Row(oldRow);
+                for (int i = 0; i < setClauses.size(); i++) {
+                    SQLParser.Set_clauseContext setClause = setClauses.get(i);
+                    Cell cell = setClause.literal_value() != null
+                            ? getInsertedCell(setClause.literal_value(), table.columns.get(targets[i]))
+                            : row.get(table.getColumnIndex(setClause.column_name(1).getText()));
+                    newRow.getEntries().set(targets[i], cell);
+                }
+                return newRow;
+            });
+            if (isInsert) inserted++;
+        }
+        return "Inserted into " + table.tableName + " " + inserted + " rows, updated " + (rows.size() - inserted) + " rows.";
+    }
+
     /**
      * TODO finished
      * 表格项删除 delete
@@ -260,9 +349,23 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
         manager.x_lockDict.get(session).add(tableName);
         table.takeXLock(session);
 
+        // collect the rows first, the index iterator must not see its own deletions
+        List<Row> targets = new ArrayList<>();
         if (ctx.multiple_condition() == null) {
-            for (Pair<Cell, Row> cellRowPair : table.index) {
-                table.delete(cellRowPair.right);
+            for (Row row : table) {
+                targets.add(row);
+            }
+            for (Row row : targets) {
+                table.delete(row);
+            }
+            return "Delete from " + ctx.table_name().getText() + " successfully.";
+        }
+
+        Iterator<Row> indexedRows = getIndexedRows(table, ctx.multiple_condition());
+        if (indexedRows != null) {
+            indexedRows.forEachRemaining(targets::add);
+            for (Row row : targets) {
+                table.delete(row);
             }
             return "Delete from " + ctx.table_name().getText() + " successfully.";
         }
@@ -271,7 +374,7 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
 
         if (ctx.K_WHERE() == null) {
             for (Row row : table) {
-                table.delete(row);
+                targets.add(row);
             }
         } else {
             int cnt = 0;
@@ -281,10 +384,13 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
             }
             for (Row row : table) {
                 if (condition[1].equals(row.toStringList().get(cnt))) {
-                    table.delete(row);
+                    targets.add(row);
                 }
             }
         }
+        for (Row row : targets) {
+            table.delete(row);
+        }
         return "Delete from " + ctx.table_name().getText() + " successfully.";
     }
 
@@ -325,15 +431,23 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
         }
         assert attrColumn != null;
 
-        for (Pair<Cell, Row> index : table.index) {
-            if (condition[1].equals(index.right.toStringList().get(queryIndex))) {
-                Row newRow = new Row(index.right);
-                newRow.getEntries().set(attrIndex, getCellFromType(val1, attrColumn));
-
-                GetCurrentDB().get(tableName).delete(index.right);
-                GetCurrentDB().get(tableName).insert(newRow);
+        List<Row> targets = new ArrayList<>();
+        Iterator<Row> indexedRows = getIndexedRows(table, ctx.multiple_condition());
+        if (indexedRows != null) {
+            indexedRows.forEachRemaining(targets::add);
+        } else {
+            for (Row row : table) {
+                if (condition[1].equals(row.toStringList().get(queryIndex))) {
+                    targets.add(row);
+                }
             }
         }
+        for (Row oldRow : targets) {
+            Row newRow = new Row(oldRow);
+            newRow.getEntries().set(attrIndex, getCellFromType(val1, attrColumn));
+
+            table.update(table.getPrimaryKey(oldRow), newRow);
+        }
         return "Updated table.";
     }
 
@@ -362,9 +476,21 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
             queryTable.takeSLock(session);
         }
 
-        List<QueryTable> queryTables = new ArrayList<>();
-        for (int i = 0; i < ctx.table_query(0).table_name().size(); i++) {
-            queryTables.add(new QueryTable(GetCurrentDB().get(ctx.table_query(0).table_name(i).getText())));
+        boolean singleTable = ctx.table_query().size() == 1 && tables.size() == 1;
+        boolean columnar = singleTable && tables.get(0).isColumnar();
+        Iterator<Row> indexedRows = null;
+        if (singleTable && !columnar && ctx.multiple_condition() != null) {
+            indexedRows = getIndexedRows(tables.get(0), ctx.multiple_condition());
+        }
+
+        // a columnar table skips the blocks a WHERE clause on one of its columns rules out
+        int filterColumn = -1;
+        KeyRange filterRange = null;
+        if (columnar && ctx.multiple_condition() != null) {
+            for (int i = 0; i < tables.get(0).columns.size() && filterRange == null; i++) {
+                filterRange = getKeyRange(tables.get(0), tables.get(0).columns.get(i), ctx.multiple_condition());
+                if (filterRange != null) filterColumn = i;
+            }
         }
 
         String onStatement = null;
@@ -376,7 +502,7 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
 
         String whereStatement = null;
         List<String> whereEqualStatement = null;
-        if (ctx.multiple_condition() != null) {
+        if (ctx.multiple_condition() != null && indexedRows == null && filterColumn < 0) {
             whereStatement = ctx.multiple_condition().getText();
             whereEqualStatement = new ArrayList<>(List.of(whereStatement.split("=")));
         }
@@ -387,6 +513,19 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
             resultColumns.add(res.getText());
         }
 
+        List<QueryTable> queryTables = new ArrayList<>();
+        if (columnar) {
+            List<String> usedColumns = new ArrayList<>(resultColumns);
+            if (whereEqualStatement != null) usedColumns.add(whereEqualStatement.get(0));
+            queryTables.add(getColumnarQueryTable(tables.get(0), usedColumns, filterColumn, filterRange));
+        } else if (indexedRows != null) {
+            queryTables.add(new QueryTable(tables.get(0), indexedRows));
+        } else {
+            for (int i = 0; i < ctx.table_query(0).table_name().size(); i++) {
+                queryTables.add(new QueryTable(GetCurrentDB().get(ctx.table_query(0).table_name(i).getText())));
+            }
+        }
+
         for (Table queryTable : tables) {
             queryTable.releaseSLock(session);
         }
@@ -394,6 +533,158 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
         return GetCurrentDB().select(queryTables.toArray(new QueryTable[0]), resultColumns, onEqualStatement, whereEqualStatement);
     }
 
+    /**
+     * Reads from a columnar table the columns the query names, in table order, or every column
+     * if a name is not one of its columns, and if filterColumn is not negative only the rows
+     * whose cell in it lies in the range.
+     */
+    private QueryTable getColumnarQueryTable(Table table, List<String> usedColumns, int filterColumn,
+                                             KeyRange filterRange) {
+        boolean[] used = new boolean[table.columns.size()];
+        for (String name : usedColumns) {
+            int column = -1;
+            for (int i = 0; i < used.length; i++)
+                if (name.equals(table.tableName + "." + table.columns.get(i).getColumnName()))
+                    column = i;
+            if (column < 0) {
+                Arrays.fill(used, true);
+                break;
+            }
+            used[column] = true;
+        }
+        List<Integer> projection = new ArrayList<>();
+        List<String> columnNames = new ArrayList<>();
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                projection.add(i);
+                columnNames.add(table.columns.get(i).getColumnName());
+            }
+        }
+        List<Row> rows = table.scan(projection.stream().mapToInt(Integer::intValue).toArray(), filterColumn, filterRange);
+        return new QueryTable(rows, columnNames, table.tableName);
+    }
+
+    /**
+     * Rows selected by a WHERE clause that the primary key or a secondary index can answer
+     * on its own, or null if the clause has to be evaluated against every row.
+     */
+    private Iterator<Row> getIndexedRows(Table table, SQLParser.Multiple_conditionContext ctx) {
+        if (ctx == null) return null;
+        List<Column> primaryColumns = table.getPrimaryColumns();
+        KeyRange keyRange = primaryColumns.size() == 1 ? getKeyRange(table, primaryColumns.get(0), ctx)
+                : getCompositeKeyRange(table, primaryColumns, ctx);
+        if (keyRange != null)
+            return table.range(keyRange.lower, keyRange.lowerInclusive, keyRange.upper, keyRange.upperInclusive);
+        for (SecondaryIndex secondaryIndex : table.getSecondaryIndexes()) {
+            keyRange = getKeyRange(table, table.columns.get(secondaryIndex.getColumnIndex()), ctx);
+            if (keyRange != null)
+                return table.range(secondaryIndex, keyRange.lower, keyRange.lowerInclusive, keyRange.upper,
+                        keyRange.upperInclusive);
+        }
+        return null;
+    }
+
+    /**
+     * Folds a WHERE clause made only of AND-ed comparisons between the column and literals
+     * into a key range, so that the query seeks an index instead of scanning the whole table.
+     * Returns null for any other clause, which then goes through the usual filter.
+     */
+    private KeyRange getKeyRange(Table table, Column column, SQLParser.Multiple_conditionContext ctx) {
+        KeyRange[] keyRanges = {new KeyRange()};
+        return foldKeyRanges(table, Collections.singletonList(column), ctx, keyRanges) ? keyRanges[0] : null;
+    }
+
+    /**
+     * Folds a WHERE clause over the columns of a composite primary key into a range of
+     * CompositeKeys. Columns fixed by equality from the first one on form a key prefix, and the
+     * column after them may be bounded on either side. Returns null if the clause constrains a
+     * later column or any column outside the key.
+     */
+    private KeyRange getCompositeKeyRange(Table table, List<Column> primaryColumns,
+                                          SQLParser.Multiple_conditionContext ctx) {
+        KeyRange[] columnRanges = new KeyRange[primaryColumns.size()];
+        for (int i = 0; i < columnRanges.length; i++)
+            columnRanges[i] = new KeyRange();
+        if (!foldKeyRanges(table, primaryColumns, ctx, columnRanges)) return null;
+        ArrayList<Cell> prefix = new ArrayList<>();
+        int fixed = 0;
+        while (fixed < columnRanges.length && columnRanges[fixed].isPoint())
+            prefix.add(columnRanges[fixed++].lower);
+        for (int i = fixed + 1; i < columnRanges.length; i++)
+            if (!columnRanges[i].isUnbounded()) return null;
+        // each bound sorts before or after every key starting with its cells, a full key for the
+        // lower bound is the key itself, so it is inclusive and the upper one exclusive
+        KeyRange keyRange = new KeyRange();
+        KeyRange next = fixed < columnRanges.length ? columnRanges[fixed] : new KeyRange();
+        ArrayList<Cell> lower = new ArrayList<>(prefix);
+        if (next.lower != null) lower.add(next.lower);
+        keyRange.intersectLower(new Cell(CompositeKey.prefix(lower, next.lower != null && !next.lowerInclusive)), true);
+        ArrayList<Cell> upper = new ArrayList<>(prefix);
+        if (next.upper != null) upper.add(next.upper);
+        keyRange.intersectUpper(new Cell(CompositeKey.prefix(upper, next.upper == null || next.upperInclusive)), false);
+        return keyRange;
+    }
+
+    // every comparison has to be on one of the columns, and narrows the range at its position
+    private boolean foldKeyRanges(Table table, List<Column> columns, SQLParser.Multiple_conditionContext ctx,
+                                  KeyRange[] keyRanges) {
+        if (ctx.OR() != null) return false;
+        if (ctx.AND() != null) {
+            return foldKeyRanges(table, columns, ctx.multiple_condition(0), keyRanges)
+                    && foldKeyRanges(table, columns, ctx.multiple_condition(1), keyRanges);
+        }
+        SQLParser.ConditionContext condition = ctx.condition();
+        SQLParser.ComparerContext columnSide = condition.expression(0).comparer();
+        SQLParser.ComparerContext valueSide = condition.expression(1).comparer();
+        if (columnSide == null || valueSide == null) return false;
+        boolean flipped = columnSide.column_full_name() == null;
+        if (flipped) {
+            SQLParser.ComparerContext tmp = columnSide;
+            columnSide = valueSide;
+            valueSide = tmp;
+        }
+        if (columnSide.column_full_name() == null || valueSide.literal_value() == null) return false;
+        SQLParser.Column_full_nameContext columnName = columnSide.column_full_name();
+        if (columnName.table_name() != null && !columnName.table_name().getText().equals(table.tableName)) return false;
+        int position = 0;
+        while (position < columns.size()
+                && !columns.get(position).getColumnName().equals(columnName.column_name().getText()))
+            position++;
+        if (position == columns.size()) return false;
+        Cell key = getCellFromLiteral(valueSide.literal_value(), columns.get(position));
+        if (key == null) return false;
+        KeyRange keyRange = keyRanges[position];
+
+        SQLParser.ComparatorContext comparator = condition.comparator();
+        if (comparator.EQ() != null) {
+            keyRange.intersectLower(key, true);
+            keyRange.intersectUpper(key, true);
+        } else if (comparator.NE() != null) {
+            return false;
+        } else {
+            boolean inclusive = comparator.LE() != null || comparator.GE() != null;
+            boolean isLower = comparator.GT() != null || comparator.GE() != null;
+            if (isLower != flipped) keyRange.intersectLower(key, inclusive);
+            else keyRange.intersectUpper(key, inclusive);
+        }
+        return true;
+    }
+
+    private Cell getCellFromLiteral(SQLParser.Literal_valueContext value, Column column) {
+        if (value.STRING_LITERAL() != null) {
+            if (column.getColumnType() != ColumnType.STRING) return null;
+            return new Cell(value.STRING_LITERAL().getText().replaceAll("'", ""));
+        }
+        if (value.NUMERIC_LITERAL() != null && column.getColumnType() != ColumnType.STRING) {
+            try {
+                return getCellFromType(value.NUMERIC_LITERAL().getText(), column);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
     /**
      * 展示表格
      * SHOW TABLE tableName;
@@ -407,7 +698,12 @@ public class ImpVisitor extends SQLBaseVisitor<Object> {
         }
         table.takeSLock(session);
 
-        String returnText = "Table name : " + tableName + "\nRow Count : " + table.index.size() + "\n";
+        String returnText = "Table name : " + tableName + "\nRow Count : " + table.size() + "\n";
+        if (table.isColumnar()) {
+            returnText += "Storage : COLUMNAR\n";
+        } else if (table.isCompressed()) {
+            returnText += "Storage : COMPRESSED\n";
+        }
 
         for (Column column : table.columns) {
             returnText += "\t" + column.getColumnName() + " : " + column.getColumnType().name();
@@ -14,6 +14,8 @@ sql_stmt :
     | drop_user_stmt
     | delete_stmt
     | drop_table_stmt
+    | create_index_stmt
+    | drop_index_stmt
     | insert_stmt
     | select_stmt
     | create_view_stmt
@@ -40,9 +42,15 @@ drop_user_stmt :
     K_DROP K_USER ( K_IF K_EXISTS )? user_name ;
 
 create_table_stmt :
-    K_CREATE K_TABLE table_name
+    K_CREATE ( K_COLUMNAR | K_COMPRESSED | K_OFFHEAP )? K_TABLE table_name
         '(' column_def ( ',' column_def )* ( ',' table_constraint )? ')' ;
 
+create_index_stmt :
+    K_CREATE K_INDEX index_name K_ON table_name '(' column_name ')' ;
+
+drop_index_stmt :
+    K_DROP K_INDEX index_name K_ON table_name ;
+
 show_meta_stmt :
     K_SHOW K_TABLE table_name ;
 
@@ -72,7 +80,11 @@ show_table_stmt :
 
 insert_stmt :
     K_INSERT K_INTO table_name ( '(' column_name ( ',' column_name )* ')' )?
-        K_VALUES value_entry ( ',' value_entry )* ;
+        K_VALUES value_entry ( ',' value_entry )*
+        ( K_ON K_DUPLICATE K_KEY K_UPDATE set_clause ( ',' set_clause )* )? ;
+
+set_clause :
+    column_name '=' ( literal_value | K_VALUES '(' column_name ')' ) ;
 
 value_entry :
     '(' literal_value ( ',' literal_value )* ')' ;
@@ -164,6 +176,9 @@ column_name :
 view_name :
     IDENTIFIER;
 
+index_name :
+    IDENTIFIER ;
+
 password :
     STRING_LITERAL ;
 
@@ -193,17 +208,22 @@ K_ALL : A L L;
 K_AS : A S;
 K_BY : B Y;
 K_COLUMN : C O L U M N;
+K_COLUMNAR : C O L U M N A R;
+K_COMPRESSED : C O M P R E S S E D;
+K_OFFHEAP : O F F H E A P;
 K_CREATE : C R E A T E;
 K_DATABASE : D A T A B A S E;
 K_DATABASES : D A T A B A S E S;
 K_DELETE : D E L E T E;
 K_DISTINCT : D I S T I N C T;
 K_DROP : D R O P;
+K_DUPLICATE : D U P L I C A T E;
 K_EXISTS : E X I S T S;
 K_FROM : F R O M;
 K_GRANT : G R A N T;
 K_IF : I F;
 K_IDENTIFIED : I D E N T I F I E D;
+K_INDEX : I N D E X;
 K_INSERT : I N S E R T;
 K_INTO : I N T O;
 K_JOIN : J O I N;
@@ -1,4001 +1,3750 @@
-// Generated from C:/Users/75987/Desktop/Database/ThssDB/src/main/java/cn/edu/thssdb/parser\SQL.g4 by ANTLR 4.9.1
+// Generated from SQL.g4 by ANTLR 4.9.1
 package cn.edu.thssdb.parser;
-
 import org.antlr.v4.runtime.atn.*;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.*;
 import org.antlr.v4.runtime.tree.*;
-
 import java.util.List;
 import java.util.Iterator;
 import java.util.ArrayList;
 
 @SuppressWarnings({"all", "warnings", "unchecked", "unused", "cast"})
 public class SQLParser extends Parser {
-    static {
-        RuntimeMetaData.checkVersion("4.9.1", RuntimeMetaData.VERSION);
-    }
-
-    protected static final DFA[] _decisionToDFA;
-    protected static final PredictionContextCache _sharedContextCache =
-            new PredictionContextCache();
-    public static final int
-            T__0 = 1, T__1 = 2, T__2 = 3, T__3 = 4, T__4 = 5, EQ = 6, NE = 7, LT = 8, GT = 9, LE = 10,
-            GE = 11, ADD = 12, SUB = 13, MUL = 14, DIV = 15, AND = 16, OR = 17, T_INT = 18, T_LONG = 19,
-            T_FLOAT = 20, T_DOUBLE = 21, T_STRING = 22, K_ADD = 23, K_ALL = 24, K_AS = 25, K_BY = 26,
-            K_COLUMN = 27, K_CREATE = 28, K_DATABASE = 29, K_DATABASES = 30, K_DELETE = 31,
-            K_DISTINCT = 32, K_DROP = 33, K_EXISTS = 34, K_FROM = 35, K_GRANT = 36, K_IF = 37,
-            K_IDENTIFIED = 38, K_INSERT = 39, K_INTO = 40, K_JOIN = 41, K_KEY = 42, K_NOT = 43,
-            K_NULL = 44, K_ON = 45, K_PRIMARY = 46, K_QUIT = 47, K_REVOKE = 48, K_SELECT = 49,
-            K_SET = 50, K_SHOW = 51, K_TABLE = 52, K_TO = 53, K_UPDATE = 54, K_USE = 55, K_USER = 56,
-            K_VALUES = 57, K_VIEW = 58, K_WHERE = 59, IDENTIFIER = 60, NUMERIC_LITERAL = 61,
-            EXPONENT = 62, STRING_LITERAL = 63, SINGLE_LINE_COMMENT = 64, MULTILINE_COMMENT = 65,
-            SPACES = 66;
-    public static final int
-            RULE_parse = 0, RULE_sql_stmt_list = 1, RULE_sql_stmt = 2, RULE_create_db_stmt = 3,
-            RULE_drop_db_stmt = 4, RULE_create_user_stmt = 5, RULE_drop_user_stmt = 6,
-            RULE_create_table_stmt = 7, RULE_show_meta_stmt = 8, RULE_grant_stmt = 9,
-            RULE_revoke_stmt = 10, RULE_use_db_stmt = 11, RULE_delete_stmt = 12, RULE_drop_table_stmt = 13,
-            RULE_show_db_stmt = 14, RULE_quit_stmt = 15, RULE_show_table_stmt = 16,
-            RULE_insert_stmt = 17, RULE_value_entry = 18, RULE_select_stmt = 19, RULE_create_view_stmt = 20,
-            RULE_drop_view_stmt = 21, RULE_update_stmt = 22, RULE_column_def = 23,
-            RULE_type_name = 24, RULE_column_constraint = 25, RULE_multiple_condition = 26,
-            RULE_condition = 27, RULE_comparer = 28, RULE_comparator = 29, RULE_expression = 30,
-            RULE_table_constraint = 31, RULE_result_column = 32, RULE_table_query = 33,
-            RULE_auth_level = 34, RULE_literal_value = 35, RULE_column_full_name = 36,
-            RULE_database_name = 37, RULE_table_name = 38, RULE_user_name = 39, RULE_column_name = 40,
-            RULE_view_name = 41, RULE_password = 42;
-
-    private static String[] makeRuleNames() {
-        return new String[]{
-                "parse", "sql_stmt_list", "sql_stmt", "create_db_stmt", "drop_db_stmt",
-                "create_user_stmt", "drop_user_stmt", "create_table_stmt", "show_meta_stmt",
-                "grant_stmt", "revoke_stmt", "use_db_stmt", "delete_stmt", "drop_table_stmt",
-                "show_db_stmt", "quit_stmt", "show_table_stmt", "insert_stmt", "value_entry",
-                "select_stmt", "create_view_stmt", "drop_view_stmt", "update_stmt", "column_def",
-                "type_name", "column_constraint", "multiple_condition", "condition",
-                "comparer", "comparator", "expression", "table_constraint", "result_column",
-                "table_query", "auth_level", "literal_value", "column_full_name", "database_name",
-                "table_name", "user_name", "column_name", "view_name", "password"
-        };
-    }
-
-    public static final String[] ruleNames = makeRuleNames();
-
-    private static String[] makeLiteralNames() {
-        return new String[]{
-                null, "';'", "'('", "','", "')'", "'.'", "'='", "'<>'", "'<'", "'>'",
-                "'<='", "'>='", "'+'", "'-'", "'*'", "'/'", "'and'", "'or'"
-        };
-    }
-
-    private static final String[] _LITERAL_NAMES = makeLiteralNames();
-
-    private static String[] makeSymbolicNames() {
-        return new String[]{
-                null, null, null, null, null, null, "EQ", "NE", "LT", "GT", "LE", "GE",
-                "ADD", "SUB", "MUL", "DIV", "AND", "OR", "T_INT", "T_LONG", "T_FLOAT",
-                "T_DOUBLE", "T_STRING", "K_ADD", "K_ALL", "K_AS", "K_BY", "K_COLUMN",
-                "K_CREATE", "K_DATABASE", "K_DATABASES", "K_DELETE", "K_DISTINCT", "K_DROP",
-                "K_EXISTS", "K_FROM", "K_GRANT", "K_IF", "K_IDENTIFIED", "K_INSERT",
-                "K_INTO", "K_JOIN", "K_KEY", "K_NOT", "K_NULL", "K_ON", "K_PRIMARY",
-                "K_QUIT", "K_REVOKE", "K_SELECT", "K_SET", "K_SHOW", "K_TABLE", "K_TO",
-                "K_UPDATE", "K_USE", "K_USER", "K_VALUES", "K_VIEW", "K_WHERE", "IDENTIFIER",
-                "NUMERIC_LITERAL", "EXPONENT", "STRING_LITERAL", "SINGLE_LINE_COMMENT",
-                "MULTILINE_COMMENT", "SPACES"
-        };
-    }
-
-    private static final String[] _SYMBOLIC_NAMES = makeSymbolicNames();
-    public static final Vocabulary VOCABULARY = new VocabularyImpl(_LITERAL_NAMES, _SYMBOLIC_NAMES);
-
-    /**
-     * @deprecated Use {@link #VOCABULARY} instead.
-     */
-    @Deprecated
-    public static final String[] tokenNames;
-
-    static {
-        tokenNames = new String[_SYMBOLIC_NAMES.length];
-        for (int i = 0; i < tokenNames.length; i++) {
-            tokenNames[i] = VOCABULARY.getLiteralName(i);
-            if (tokenNames[i] == null) {
-                tokenNames[i] = VOCABULARY.getSymbolicName(i);
-            }
-
-            if (tokenNames[i] == null) {
-                tokenNames[i] = "<INVALID>";
-            }
-        }
-    }
-
-    @Override
-    @Deprecated
-    public String[] getTokenNames() {
-        return tokenNames;
-    }
-
-    @Override
-
-    public Vocabulary getVocabulary() {
-        return VOCABULARY;
-    }
-
-    @Override
-    public String getGrammarFileName() {
-        return "SQL.g4";
-    }
-
-    @Override
-    public String[] getRuleNames() {
-        return ruleNames;
-    }
-
-    @Override
-    public String getSerializedATN() {
-        return _serializedATN;
-    }
-
-    @Override
-    public ATN getATN() {
-        return _ATN;
-    }
-
-    public SQLParser(TokenStream input) {
-        super(input);
-        _interp = new ParserATNSimulator(this, _ATN, _decisionToDFA, _sharedContextCache);
-    }
-
-    public static class ParseContext extends ParserRuleContext {
-        public Sql_stmt_listContext sql_stmt_list() {
-            return getRuleContext(Sql_stmt_listContext.class, 0);
-        }
-
-        public ParseContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_parse;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterParse(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitParse(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitParse(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final ParseContext parse() throws RecognitionException {
-        ParseContext _localctx = new ParseContext(_ctx, getState());
-        enterRule(_localctx, 0, RULE_parse);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(86);
-                sql_stmt_list();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Sql_stmt_listContext extends ParserRuleContext {
-        public List<Sql_stmtContext> sql_stmt() {
-            return getRuleContexts(Sql_stmtContext.class);
-        }
-
-        public Sql_stmtContext sql_stmt(int i) {
-            return getRuleContext(Sql_stmtContext.class, i);
-        }
-
-        public Sql_stmt_listContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_sql_stmt_list;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterSql_stmt_list(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitSql_stmt_list(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitSql_stmt_list(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Sql_stmt_listContext sql_stmt_list() throws RecognitionException {
-        Sql_stmt_listContext _localctx = new Sql_stmt_listContext(_ctx, getState());
-        enterRule(_localctx, 2, RULE_sql_stmt_list);
-        int _la;
-        try {
-            int _alt;
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(91);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__0) {
-                    {
-                        {
-                            setState(88);
-                            match(T__0);
-                        }
-                    }
-                    setState(93);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-                setState(94);
-                sql_stmt();
-                setState(103);
-                _errHandler.sync(this);
-                _alt = getInterpreter().adaptivePredict(_input, 2, _ctx);
-                while (_alt != 2 && _alt != org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER) {
-                    if (_alt == 1) {
-                        {
-                            {
-                                setState(96);
-                                _errHandler.sync(this);
-                                _la = _input.LA(1);
-                                do {
-                                    {
-                                        {
-                                            setState(95);
-                                            match(T__0);
-                                        }
-                                    }
-                                    setState(98);
-                                    _errHandler.sync(this);
-                                    _la = _input.LA(1);
-                                } while (_la == T__0);
-                                setState(100);
-                                sql_stmt();
-                            }
-                        }
-                    }
-                    setState(105);
-                    _errHandler.sync(this);
-                    _alt = getInterpreter().adaptivePredict(_input, 2, _ctx);
-                }
-                setState(109);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__0) {
-                    {
-                        {
-                            setState(106);
-                            match(T__0);
-                        }
-                    }
-                    setState(111);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Sql_stmtContext extends ParserRuleContext {
-        public Create_table_stmtContext create_table_stmt() {
-            return getRuleContext(Create_table_stmtContext.class, 0);
-        }
-
-        public Create_db_stmtContext create_db_stmt() {
-            return getRuleContext(Create_db_stmtContext.class, 0);
-        }
-
-        public Create_user_stmtContext create_user_stmt() {
-            return getRuleContext(Create_user_stmtContext.class, 0);
-        }
-
-        public Drop_db_stmtContext drop_db_stmt() {
-            return getRuleContext(Drop_db_stmtContext.class, 0);
-        }
-
-        public Drop_user_stmtContext drop_user_stmt() {
-            return getRuleContext(Drop_user_stmtContext.class, 0);
-        }
-
-        public Delete_stmtContext delete_stmt() {
-            return getRuleContext(Delete_stmtContext.class, 0);
-        }
-
-        public Drop_table_stmtContext drop_table_stmt() {
-            return getRuleContext(Drop_table_stmtContext.class, 0);
-        }
-
-        public Insert_stmtContext insert_stmt() {
-            return getRuleContext(Insert_stmtContext.class, 0);
-        }
-
-        public Select_stmtContext select_stmt() {
-            return getRuleContext(Select_stmtContext.class, 0);
-        }
-
-        public Create_view_stmtContext create_view_stmt() {
-            return getRuleContext(Create_view_stmtContext.class, 0);
-        }
-
-        public Drop_view_stmtContext drop_view_stmt() {
-            return getRuleContext(Drop_view_stmtContext.class, 0);
-        }
-
-        public Grant_stmtContext grant_stmt() {
-            return getRuleContext(Grant_stmtContext.class, 0);
-        }
-
-        public Revoke_stmtContext revoke_stmt() {
-            return getRuleContext(Revoke_stmtContext.class, 0);
-        }
-
-        public Use_db_stmtContext use_db_stmt() {
-            return getRuleContext(Use_db_stmtContext.class, 0);
-        }
-
-        public Show_db_stmtContext show_db_stmt() {
-            return getRuleContext(Show_db_stmtContext.class, 0);
-        }
-
-        public Show_table_stmtContext show_table_stmt() {
-            return getRuleContext(Show_table_stmtContext.class, 0);
-        }
-
-        public Show_meta_stmtContext show_meta_stmt() {
-            return getRuleContext(Show_meta_stmtContext.class, 0);
-        }
-
-        public Quit_stmtContext quit_stmt() {
-            return getRuleContext(Quit_stmtContext.class, 0);
-        }
-
-        public Update_stmtContext update_stmt() {
-            return getRuleContext(Update_stmtContext.class, 0);
-        }
-
-        public Sql_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_sql_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterSql_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitSql_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitSql_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Sql_stmtContext sql_stmt() throws RecognitionException {
-        Sql_stmtContext _localctx = new Sql_stmtContext(_ctx, getState());
-        enterRule(_localctx, 4, RULE_sql_stmt);
-        try {
-            setState(131);
-            _errHandler.sync(this);
-            switch (getInterpreter().adaptivePredict(_input, 4, _ctx)) {
-                case 1:
-                    enterOuterAlt(_localctx, 1);
-                {
-                    setState(112);
-                    create_table_stmt();
-                }
-                break;
-                case 2:
-                    enterOuterAlt(_localctx, 2);
-                {
-                    setState(113);
-                    create_db_stmt();
-                }
-                break;
-                case 3:
-                    enterOuterAlt(_localctx, 3);
-                {
-                    setState(114);
-                    create_user_stmt();
-                }
-                break;
-                case 4:
-                    enterOuterAlt(_localctx, 4);
-                {
-                    setState(115);
-                    drop_db_stmt();
-                }
-                break;
-                case 5:
-                    enterOuterAlt(_localctx, 5);
-                {
-                    setState(116);
-                    drop_user_stmt();
-                }
-                break;
-                case 6:
-                    enterOuterAlt(_localctx, 6);
-                {
-                    setState(117);
-                    delete_stmt();
-                }
-                break;
-                case 7:
-                    enterOuterAlt(_localctx, 7);
-                {
-                    setState(118);
-                    drop_table_stmt();
-                }
-                break;
-                case 8:
-                    enterOuterAlt(_localctx, 8);
-                {
-                    setState(119);
-                    insert_stmt();
-                }
-                break;
-                case 9:
-                    enterOuterAlt(_localctx, 9);
-                {
-                    setState(120);
-                    select_stmt();
-                }
-                break;
-                case 10:
-                    enterOuterAlt(_localctx, 10);
-                {
-                    setState(121);
-                    create_view_stmt();
-                }
-                break;
-                case 11:
-                    enterOuterAlt(_localctx, 11);
-                {
-                    setState(122);
-                    drop_view_stmt();
-                }
-                break;
-                case 12:
-                    enterOuterAlt(_localctx, 12);
-                {
-                    setState(123);
-                    grant_stmt();
-                }
-                break;
-                case 13:
-                    enterOuterAlt(_localctx, 13);
-                {
-                    setState(124);
-                    revoke_stmt();
-                }
-                break;
-                case 14:
-                    enterOuterAlt(_localctx, 14);
-                {
-                    setState(125);
-                    use_db_stmt();
-                }
-                break;
-                case 15:
-                    enterOuterAlt(_localctx, 15);
-                {
-                    setState(126);
-                    show_db_stmt();
-                }
-                break;
-                case 16:
-                    enterOuterAlt(_localctx, 16);
-                {
-                    setState(127);
-                    show_table_stmt();
-                }
-                break;
-                case 17:
-                    enterOuterAlt(_localctx, 17);
-                {
-                    setState(128);
-                    show_meta_stmt();
-                }
-                break;
-                case 18:
-                    enterOuterAlt(_localctx, 18);
-                {
-                    setState(129);
-                    quit_stmt();
-                }
-                break;
-                case 19:
-                    enterOuterAlt(_localctx, 19);
-                {
-                    setState(130);
-                    update_stmt();
-                }
-                break;
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Create_db_stmtContext extends ParserRuleContext {
-        public TerminalNode K_CREATE() {
-            return getToken(SQLParser.K_CREATE, 0);
-        }
-
-        public TerminalNode K_DATABASE() {
-            return getToken(SQLParser.K_DATABASE, 0);
-        }
-
-        public Database_nameContext database_name() {
-            return getRuleContext(Database_nameContext.class, 0);
-        }
-
-        public Create_db_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_create_db_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterCreate_db_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitCreate_db_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitCreate_db_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Create_db_stmtContext create_db_stmt() throws RecognitionException {
-        Create_db_stmtContext _localctx = new Create_db_stmtContext(_ctx, getState());
-        enterRule(_localctx, 6, RULE_create_db_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(133);
-                match(K_CREATE);
-                setState(134);
-                match(K_DATABASE);
-                setState(135);
-                database_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Drop_db_stmtContext extends ParserRuleContext {
-        public TerminalNode K_DROP() {
-            return getToken(SQLParser.K_DROP, 0);
-        }
-
-        public TerminalNode K_DATABASE() {
-            return getToken(SQLParser.K_DATABASE, 0);
-        }
-
-        public Database_nameContext database_name() {
-            return getRuleContext(Database_nameContext.class, 0);
-        }
-
-        public TerminalNode K_IF() {
-            return getToken(SQLParser.K_IF, 0);
-        }
-
-        public TerminalNode K_EXISTS() {
-            return getToken(SQLParser.K_EXISTS, 0);
-        }
-
-        public Drop_db_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_drop_db_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterDrop_db_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitDrop_db_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitDrop_db_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Drop_db_stmtContext drop_db_stmt() throws RecognitionException {
-        Drop_db_stmtContext _localctx = new Drop_db_stmtContext(_ctx, getState());
-        enterRule(_localctx, 8, RULE_drop_db_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(137);
-                match(K_DROP);
-                setState(138);
-                match(K_DATABASE);
-                setState(141);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_IF) {
-                    {
-                        setState(139);
-                        match(K_IF);
-                        setState(140);
-                        match(K_EXISTS);
-                    }
-                }
-
-                setState(143);
-                database_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Create_user_stmtContext extends ParserRuleContext {
-        public TerminalNode K_CREATE() {
-            return getToken(SQLParser.K_CREATE, 0);
-        }
-
-        public TerminalNode K_USER() {
-            return getToken(SQLParser.K_USER, 0);
-        }
-
-        public User_nameContext user_name() {
-            return getRuleContext(User_nameContext.class, 0);
-        }
-
-        public TerminalNode K_IDENTIFIED() {
-            return getToken(SQLParser.K_IDENTIFIED, 0);
-        }
-
-        public TerminalNode K_BY() {
-            return getToken(SQLParser.K_BY, 0);
-        }
-
-        public PasswordContext password() {
-            return getRuleContext(PasswordContext.class, 0);
-        }
-
-        public Create_user_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_create_user_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterCreate_user_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitCreate_user_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitCreate_user_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Create_user_stmtContext create_user_stmt() throws RecognitionException {
-        Create_user_stmtContext _localctx = new Create_user_stmtContext(_ctx, getState());
-        enterRule(_localctx, 10, RULE_create_user_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(145);
-                match(K_CREATE);
-                setState(146);
-                match(K_USER);
-                setState(147);
-                user_name();
-                setState(148);
-                match(K_IDENTIFIED);
-                setState(149);
-                match(K_BY);
-                setState(150);
-                password();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Drop_user_stmtContext extends ParserRuleContext {
-        public TerminalNode K_DROP() {
-            return getToken(SQLParser.K_DROP, 0);
-        }
-
-        public TerminalNode K_USER() {
-            return getToken(SQLParser.K_USER, 0);
-        }
-
-        public User_nameContext user_name() {
-            return getRuleContext(User_nameContext.class, 0);
-        }
-
-        public TerminalNode K_IF() {
-            return getToken(SQLParser.K_IF, 0);
-        }
-
-        public TerminalNode K_EXISTS() {
-            return getToken(SQLParser.K_EXISTS, 0);
-        }
-
-        public Drop_user_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_drop_user_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterDrop_user_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitDrop_user_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitDrop_user_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Drop_user_stmtContext drop_user_stmt() throws RecognitionException {
-        Drop_user_stmtContext _localctx = new Drop_user_stmtContext(_ctx, getState());
-        enterRule(_localctx, 12, RULE_drop_user_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(152);
-                match(K_DROP);
-                setState(153);
-                match(K_USER);
-                setState(156);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_IF) {
-                    {
-                        setState(154);
-                        match(K_IF);
-                        setState(155);
-                        match(K_EXISTS);
-                    }
-                }
-
-                setState(158);
-                user_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Create_table_stmtContext extends ParserRuleContext {
-        public TerminalNode K_CREATE() {
-            return getToken(SQLParser.K_CREATE, 0);
-        }
-
-        public TerminalNode K_TABLE() {
-            return getToken(SQLParser.K_TABLE, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public List<Column_defContext> column_def() {
-            return getRuleContexts(Column_defContext.class);
-        }
-
-        public Column_defContext column_def(int i) {
-            return getRuleContext(Column_defContext.class, i);
-        }
-
-        public Table_constraintContext table_constraint() {
-            return getRuleContext(Table_constraintContext.class, 0);
-        }
-
-        public Create_table_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_create_table_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterCreate_table_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitCreate_table_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitCreate_table_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Create_table_stmtContext create_table_stmt() throws RecognitionException {
-        Create_table_stmtContext _localctx = new Create_table_stmtContext(_ctx, getState());
-        enterRule(_localctx, 14, RULE_create_table_stmt);
-        int _la;
-        try {
-            int _alt;
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(160);
-                match(K_CREATE);
-                setState(161);
-                match(K_TABLE);
-                setState(162);
-                table_name();
-                setState(163);
-                match(T__1);
-                setState(164);
-                column_def();
-                setState(169);
-                _errHandler.sync(this);
-                _alt = getInterpreter().adaptivePredict(_input, 7, _ctx);
-                while (_alt != 2 && _alt != org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER) {
-                    if (_alt == 1) {
-                        {
-                            {
-                                setState(165);
-                                match(T__2);
-                                setState(166);
-                                column_def();
-                            }
-                        }
-                    }
-                    setState(171);
-                    _errHandler.sync(this);
-                    _alt = getInterpreter().adaptivePredict(_input, 7, _ctx);
-                }
-                setState(174);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == T__2) {
-                    {
-                        setState(172);
-                        match(T__2);
-                        setState(173);
-                        table_constraint();
-                    }
-                }
-
-                setState(176);
-                match(T__3);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Show_meta_stmtContext extends ParserRuleContext {
-        public TerminalNode K_SHOW() {
-            return getToken(SQLParser.K_SHOW, 0);
-        }
-
-        public TerminalNode K_TABLE() {
-            return getToken(SQLParser.K_TABLE, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public Show_meta_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_show_meta_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterShow_meta_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitShow_meta_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitShow_meta_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Show_meta_stmtContext show_meta_stmt() throws RecognitionException {
-        Show_meta_stmtContext _localctx = new Show_meta_stmtContext(_ctx, getState());
-        enterRule(_localctx, 16, RULE_show_meta_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(178);
-                match(K_SHOW);
-                setState(179);
-                match(K_TABLE);
-                setState(180);
-                table_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Grant_stmtContext extends ParserRuleContext {
-        public TerminalNode K_GRANT() {
-            return getToken(SQLParser.K_GRANT, 0);
-        }
-
-        public List<Auth_levelContext> auth_level() {
-            return getRuleContexts(Auth_levelContext.class);
-        }
-
-        public Auth_levelContext auth_level(int i) {
-            return getRuleContext(Auth_levelContext.class, i);
-        }
-
-        public TerminalNode K_ON() {
-            return getToken(SQLParser.K_ON, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public TerminalNode K_TO() {
-            return getToken(SQLParser.K_TO, 0);
-        }
-
-        public User_nameContext user_name() {
-            return getRuleContext(User_nameContext.class, 0);
-        }
-
-        public Grant_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_grant_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterGrant_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitGrant_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitGrant_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Grant_stmtContext grant_stmt() throws RecognitionException {
-        Grant_stmtContext _localctx = new Grant_stmtContext(_ctx, getState());
-        enterRule(_localctx, 18, RULE_grant_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(182);
-                match(K_GRANT);
-                setState(183);
-                auth_level();
-                setState(188);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__2) {
-                    {
-                        {
-                            setState(184);
-                            match(T__2);
-                            setState(185);
-                            auth_level();
-                        }
-                    }
-                    setState(190);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-                setState(191);
-                match(K_ON);
-                setState(192);
-                table_name();
-                setState(193);
-                match(K_TO);
-                setState(194);
-                user_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Revoke_stmtContext extends ParserRuleContext {
-        public TerminalNode K_REVOKE() {
-            return getToken(SQLParser.K_REVOKE, 0);
-        }
-
-        public List<Auth_levelContext> auth_level() {
-            return getRuleContexts(Auth_levelContext.class);
-        }
-
-        public Auth_levelContext auth_level(int i) {
-            return getRuleContext(Auth_levelContext.class, i);
-        }
-
-        public TerminalNode K_ON() {
-            return getToken(SQLParser.K_ON, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public TerminalNode K_FROM() {
-            return getToken(SQLParser.K_FROM, 0);
-        }
-
-        public User_nameContext user_name() {
-            return getRuleContext(User_nameContext.class, 0);
-        }
-
-        public Revoke_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_revoke_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterRevoke_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitRevoke_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitRevoke_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Revoke_stmtContext revoke_stmt() throws RecognitionException {
-        Revoke_stmtContext _localctx = new Revoke_stmtContext(_ctx, getState());
-        enterRule(_localctx, 20, RULE_revoke_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(196);
-                match(K_REVOKE);
-                setState(197);
-                auth_level();
-                setState(202);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__2) {
-                    {
-                        {
-                            setState(198);
-                            match(T__2);
-                            setState(199);
-                            auth_level();
-                        }
-                    }
-                    setState(204);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-                setState(205);
-                match(K_ON);
-                setState(206);
-                table_name();
-                setState(207);
-                match(K_FROM);
-                setState(208);
-                user_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Use_db_stmtContext extends ParserRuleContext {
-        public TerminalNode K_USE() {
-            return getToken(SQLParser.K_USE, 0);
-        }
-
-        public Database_nameContext database_name() {
-            return getRuleContext(Database_nameContext.class, 0);
-        }
-
-        public Use_db_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_use_db_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterUse_db_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitUse_db_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitUse_db_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Use_db_stmtContext use_db_stmt() throws RecognitionException {
-        Use_db_stmtContext _localctx = new Use_db_stmtContext(_ctx, getState());
-        enterRule(_localctx, 22, RULE_use_db_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(210);
-                match(K_USE);
-                setState(211);
-                database_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Delete_stmtContext extends ParserRuleContext {
-        public TerminalNode K_DELETE() {
-            return getToken(SQLParser.K_DELETE, 0);
-        }
-
-        public TerminalNode K_FROM() {
-            return getToken(SQLParser.K_FROM, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public TerminalNode K_WHERE() {
-            return getToken(SQLParser.K_WHERE, 0);
-        }
-
-        public Multiple_conditionContext multiple_condition() {
-            return getRuleContext(Multiple_conditionContext.class, 0);
-        }
-
-        public Delete_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_delete_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterDelete_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitDelete_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitDelete_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Delete_stmtContext delete_stmt() throws RecognitionException {
-        Delete_stmtContext _localctx = new Delete_stmtContext(_ctx, getState());
-        enterRule(_localctx, 24, RULE_delete_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(213);
-                match(K_DELETE);
-                setState(214);
-                match(K_FROM);
-                setState(215);
-                table_name();
-                setState(218);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_WHERE) {
-                    {
-                        setState(216);
-                        match(K_WHERE);
-                        setState(217);
-                        multiple_condition(0);
-                    }
-                }
-
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Drop_table_stmtContext extends ParserRuleContext {
-        public TerminalNode K_DROP() {
-            return getToken(SQLParser.K_DROP, 0);
-        }
-
-        public TerminalNode K_TABLE() {
-            return getToken(SQLParser.K_TABLE, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public TerminalNode K_IF() {
-            return getToken(SQLParser.K_IF, 0);
-        }
-
-        public TerminalNode K_EXISTS() {
-            return getToken(SQLParser.K_EXISTS, 0);
-        }
-
-        public Drop_table_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_drop_table_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterDrop_table_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitDrop_table_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitDrop_table_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Drop_table_stmtContext drop_table_stmt() throws RecognitionException {
-        Drop_table_stmtContext _localctx = new Drop_table_stmtContext(_ctx, getState());
-        enterRule(_localctx, 26, RULE_drop_table_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(220);
-                match(K_DROP);
-                setState(221);
-                match(K_TABLE);
-                setState(224);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_IF) {
-                    {
-                        setState(222);
-                        match(K_IF);
-                        setState(223);
-                        match(K_EXISTS);
-                    }
-                }
-
-                setState(226);
-                table_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Show_db_stmtContext extends ParserRuleContext {
-        public TerminalNode K_SHOW() {
-            return getToken(SQLParser.K_SHOW, 0);
-        }
-
-        public TerminalNode K_DATABASES() {
-            return getToken(SQLParser.K_DATABASES, 0);
-        }
-
-        public Show_db_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_show_db_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterShow_db_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitShow_db_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitShow_db_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Show_db_stmtContext show_db_stmt() throws RecognitionException {
-        Show_db_stmtContext _localctx = new Show_db_stmtContext(_ctx, getState());
-        enterRule(_localctx, 28, RULE_show_db_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(228);
-                match(K_SHOW);
-                setState(229);
-                match(K_DATABASES);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Quit_stmtContext extends ParserRuleContext {
-        public TerminalNode K_QUIT() {
-            return getToken(SQLParser.K_QUIT, 0);
-        }
-
-        public Quit_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_quit_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterQuit_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitQuit_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitQuit_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Quit_stmtContext quit_stmt() throws RecognitionException {
-        Quit_stmtContext _localctx = new Quit_stmtContext(_ctx, getState());
-        enterRule(_localctx, 30, RULE_quit_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(231);
-                match(K_QUIT);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Show_table_stmtContext extends ParserRuleContext {
-        public TerminalNode K_SHOW() {
-            return getToken(SQLParser.K_SHOW, 0);
-        }
-
-        public TerminalNode K_DATABASE() {
-            return getToken(SQLParser.K_DATABASE, 0);
-        }
-
-        public Database_nameContext database_name() {
-            return getRuleContext(Database_nameContext.class, 0);
-        }
-
-        public Show_table_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_show_table_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterShow_table_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitShow_table_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitShow_table_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Show_table_stmtContext show_table_stmt() throws RecognitionException {
-        Show_table_stmtContext _localctx = new Show_table_stmtContext(_ctx, getState());
-        enterRule(_localctx, 32, RULE_show_table_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(233);
-                match(K_SHOW);
-                setState(234);
-                match(K_DATABASE);
-                setState(235);
-                database_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Insert_stmtContext extends ParserRuleContext {
-        public TerminalNode K_INSERT() {
-            return getToken(SQLParser.K_INSERT, 0);
-        }
-
-        public TerminalNode K_INTO() {
-            return getToken(SQLParser.K_INTO, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public TerminalNode K_VALUES() {
-            return getToken(SQLParser.K_VALUES, 0);
-        }
-
-        public List<Value_entryContext> value_entry() {
-            return getRuleContexts(Value_entryContext.class);
-        }
-
-        public Value_entryContext value_entry(int i) {
-            return getRuleContext(Value_entryContext.class, i);
-        }
-
-        public List<Column_nameContext> column_name() {
-            return getRuleContexts(Column_nameContext.class);
-        }
-
-        public Column_nameContext column_name(int i) {
-            return getRuleContext(Column_nameContext.class, i);
-        }
-
-        public Insert_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_insert_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterInsert_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitInsert_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitInsert_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Insert_stmtContext insert_stmt() throws RecognitionException {
-        Insert_stmtContext _localctx = new Insert_stmtContext(_ctx, getState());
-        enterRule(_localctx, 34, RULE_insert_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(237);
-                match(K_INSERT);
-                setState(238);
-                match(K_INTO);
-                setState(239);
-                table_name();
-                setState(251);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == T__1) {
-                    {
-                        setState(240);
-                        match(T__1);
-                        setState(241);
-                        column_name();
-                        setState(246);
-                        _errHandler.sync(this);
-                        _la = _input.LA(1);
-                        while (_la == T__2) {
-                            {
-                                {
-                                    setState(242);
-                                    match(T__2);
-                                    setState(243);
-                                    column_name();
-                                }
-                            }
-                            setState(248);
-                            _errHandler.sync(this);
-                            _la = _input.LA(1);
-                        }
-                        setState(249);
-                        match(T__3);
-                    }
-                }
-
-                setState(253);
-                match(K_VALUES);
-                setState(254);
-                value_entry();
-                setState(259);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__2) {
-                    {
-                        {
-                            setState(255);
-                            match(T__2);
-                            setState(256);
-                            value_entry();
-                        }
-                    }
-                    setState(261);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Value_entryContext extends ParserRuleContext {
-        public List<Literal_valueContext> literal_value() {
-            return getRuleContexts(Literal_valueContext.class);
-        }
-
-        public Literal_valueContext literal_value(int i) {
-            return getRuleContext(Literal_valueContext.class, i);
-        }
-
-        public Value_entryContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_value_entry;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterValue_entry(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitValue_entry(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitValue_entry(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Value_entryContext value_entry() throws RecognitionException {
-        Value_entryContext _localctx = new Value_entryContext(_ctx, getState());
-        enterRule(_localctx, 36, RULE_value_entry);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(262);
-                match(T__1);
-                setState(263);
-                literal_value();
-                setState(268);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__2) {
-                    {
-                        {
-                            setState(264);
-                            match(T__2);
-                            setState(265);
-                            literal_value();
-                        }
-                    }
-                    setState(270);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-                setState(271);
-                match(T__3);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Select_stmtContext extends ParserRuleContext {
-        public TerminalNode K_SELECT() {
-            return getToken(SQLParser.K_SELECT, 0);
-        }
-
-        public List<Result_columnContext> result_column() {
-            return getRuleContexts(Result_columnContext.class);
-        }
-
-        public Result_columnContext result_column(int i) {
-            return getRuleContext(Result_columnContext.class, i);
-        }
-
-        public TerminalNode K_FROM() {
-            return getToken(SQLParser.K_FROM, 0);
-        }
-
-        public List<Table_queryContext> table_query() {
-            return getRuleContexts(Table_queryContext.class);
-        }
-
-        public Table_queryContext table_query(int i) {
-            return getRuleContext(Table_queryContext.class, i);
-        }
-
-        public TerminalNode K_WHERE() {
-            return getToken(SQLParser.K_WHERE, 0);
-        }
-
-        public Multiple_conditionContext multiple_condition() {
-            return getRuleContext(Multiple_conditionContext.class, 0);
-        }
-
-        public TerminalNode K_DISTINCT() {
-            return getToken(SQLParser.K_DISTINCT, 0);
-        }
-
-        public TerminalNode K_ALL() {
-            return getToken(SQLParser.K_ALL, 0);
-        }
-
-        public Select_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_select_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterSelect_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitSelect_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitSelect_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Select_stmtContext select_stmt() throws RecognitionException {
-        Select_stmtContext _localctx = new Select_stmtContext(_ctx, getState());
-        enterRule(_localctx, 38, RULE_select_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(273);
-                match(K_SELECT);
-                setState(275);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_ALL || _la == K_DISTINCT) {
-                    {
-                        setState(274);
-                        _la = _input.LA(1);
-                        if (!(_la == K_ALL || _la == K_DISTINCT)) {
-                            _errHandler.recoverInline(this);
-                        } else {
-                            if (_input.LA(1) == Token.EOF) matchedEOF = true;
-                            _errHandler.reportMatch(this);
-                            consume();
-                        }
-                    }
-                }
-
-                setState(277);
-                result_column();
-                setState(282);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__2) {
-                    {
-                        {
-                            setState(278);
-                            match(T__2);
-                            setState(279);
-                            result_column();
-                        }
-                    }
-                    setState(284);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-                setState(285);
-                match(K_FROM);
-                setState(286);
-                table_query();
-                setState(291);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__2) {
-                    {
-                        {
-                            setState(287);
-                            match(T__2);
-                            setState(288);
-                            table_query();
-                        }
-                    }
-                    setState(293);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-                setState(296);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_WHERE) {
-                    {
-                        setState(294);
-                        match(K_WHERE);
-                        setState(295);
-                        multiple_condition(0);
-                    }
-                }
-
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Create_view_stmtContext extends ParserRuleContext {
-        public TerminalNode K_CREATE() {
-            return getToken(SQLParser.K_CREATE, 0);
-        }
-
-        public TerminalNode K_VIEW() {
-            return getToken(SQLParser.K_VIEW, 0);
-        }
-
-        public View_nameContext view_name() {
-            return getRuleContext(View_nameContext.class, 0);
-        }
-
-        public TerminalNode K_AS() {
-            return getToken(SQLParser.K_AS, 0);
-        }
-
-        public Select_stmtContext select_stmt() {
-            return getRuleContext(Select_stmtContext.class, 0);
-        }
-
-        public Create_view_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_create_view_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterCreate_view_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitCreate_view_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitCreate_view_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Create_view_stmtContext create_view_stmt() throws RecognitionException {
-        Create_view_stmtContext _localctx = new Create_view_stmtContext(_ctx, getState());
-        enterRule(_localctx, 40, RULE_create_view_stmt);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(298);
-                match(K_CREATE);
-                setState(299);
-                match(K_VIEW);
-                setState(300);
-                view_name();
-                setState(301);
-                match(K_AS);
-                setState(302);
-                select_stmt();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Drop_view_stmtContext extends ParserRuleContext {
-        public TerminalNode K_DROP() {
-            return getToken(SQLParser.K_DROP, 0);
-        }
-
-        public TerminalNode K_VIEW() {
-            return getToken(SQLParser.K_VIEW, 0);
-        }
-
-        public View_nameContext view_name() {
-            return getRuleContext(View_nameContext.class, 0);
-        }
-
-        public TerminalNode K_IF() {
-            return getToken(SQLParser.K_IF, 0);
-        }
-
-        public TerminalNode K_EXISTS() {
-            return getToken(SQLParser.K_EXISTS, 0);
-        }
-
-        public Drop_view_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_drop_view_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterDrop_view_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitDrop_view_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitDrop_view_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Drop_view_stmtContext drop_view_stmt() throws RecognitionException {
-        Drop_view_stmtContext _localctx = new Drop_view_stmtContext(_ctx, getState());
-        enterRule(_localctx, 42, RULE_drop_view_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(304);
-                match(K_DROP);
-                setState(305);
-                match(K_VIEW);
-                setState(308);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_IF) {
-                    {
-                        setState(306);
-                        match(K_IF);
-                        setState(307);
-                        match(K_EXISTS);
-                    }
-                }
-
-                setState(310);
-                view_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Update_stmtContext extends ParserRuleContext {
-        public TerminalNode K_UPDATE() {
-            return getToken(SQLParser.K_UPDATE, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public TerminalNode K_SET() {
-            return getToken(SQLParser.K_SET, 0);
-        }
-
-        public Column_nameContext column_name() {
-            return getRuleContext(Column_nameContext.class, 0);
-        }
-
-        public TerminalNode EQ() {
-            return getToken(SQLParser.EQ, 0);
-        }
-
-        public ExpressionContext expression() {
-            return getRuleContext(ExpressionContext.class, 0);
-        }
-
-        public TerminalNode K_WHERE() {
-            return getToken(SQLParser.K_WHERE, 0);
-        }
-
-        public Multiple_conditionContext multiple_condition() {
-            return getRuleContext(Multiple_conditionContext.class, 0);
-        }
-
-        public Update_stmtContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_update_stmt;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterUpdate_stmt(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitUpdate_stmt(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitUpdate_stmt(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Update_stmtContext update_stmt() throws RecognitionException {
-        Update_stmtContext _localctx = new Update_stmtContext(_ctx, getState());
-        enterRule(_localctx, 44, RULE_update_stmt);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(312);
-                match(K_UPDATE);
-                setState(313);
-                table_name();
-                setState(314);
-                match(K_SET);
-                setState(315);
-                column_name();
-                setState(316);
-                match(EQ);
-                setState(317);
-                expression(0);
-                setState(320);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                if (_la == K_WHERE) {
-                    {
-                        setState(318);
-                        match(K_WHERE);
-                        setState(319);
-                        multiple_condition(0);
-                    }
-                }
-
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Column_defContext extends ParserRuleContext {
-        public Column_nameContext column_name() {
-            return getRuleContext(Column_nameContext.class, 0);
-        }
-
-        public Type_nameContext type_name() {
-            return getRuleContext(Type_nameContext.class, 0);
-        }
-
-        public List<Column_constraintContext> column_constraint() {
-            return getRuleContexts(Column_constraintContext.class);
-        }
-
-        public Column_constraintContext column_constraint(int i) {
-            return getRuleContext(Column_constraintContext.class, i);
-        }
-
-        public Column_defContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_column_def;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterColumn_def(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitColumn_def(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitColumn_def(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Column_defContext column_def() throws RecognitionException {
-        Column_defContext _localctx = new Column_defContext(_ctx, getState());
-        enterRule(_localctx, 46, RULE_column_def);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(322);
-                column_name();
-                setState(323);
-                type_name();
-                setState(327);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == K_NOT || _la == K_PRIMARY) {
-                    {
-                        {
-                            setState(324);
-                            column_constraint();
-                        }
-                    }
-                    setState(329);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Type_nameContext extends ParserRuleContext {
-        public TerminalNode T_INT() {
-            return getToken(SQLParser.T_INT, 0);
-        }
-
-        public TerminalNode T_LONG() {
-            return getToken(SQLParser.T_LONG, 0);
-        }
-
-        public TerminalNode T_FLOAT() {
-            return getToken(SQLParser.T_FLOAT, 0);
-        }
-
-        public TerminalNode T_DOUBLE() {
-            return getToken(SQLParser.T_DOUBLE, 0);
-        }
-
-        public TerminalNode T_STRING() {
-            return getToken(SQLParser.T_STRING, 0);
-        }
-
-        public TerminalNode NUMERIC_LITERAL() {
-            return getToken(SQLParser.NUMERIC_LITERAL, 0);
-        }
-
-        public Type_nameContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_type_name;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterType_name(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitType_name(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitType_name(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Type_nameContext type_name() throws RecognitionException {
-        Type_nameContext _localctx = new Type_nameContext(_ctx, getState());
-        enterRule(_localctx, 48, RULE_type_name);
-        try {
-            setState(338);
-            _errHandler.sync(this);
-            switch (_input.LA(1)) {
-                case T_INT:
-                    enterOuterAlt(_localctx, 1);
-                {
-                    setState(330);
-                    match(T_INT);
-                }
-                break;
-                case T_LONG:
-                    enterOuterAlt(_localctx, 2);
-                {
-                    setState(331);
-                    match(T_LONG);
-                }
-                break;
-                case T_FLOAT:
-                    enterOuterAlt(_localctx, 3);
-                {
-                    setState(332);
-                    match(T_FLOAT);
-                }
-                break;
-                case T_DOUBLE:
-                    enterOuterAlt(_localctx, 4);
-                {
-                    setState(333);
-                    match(T_DOUBLE);
-                }
-                break;
-                case T_STRING:
-                    enterOuterAlt(_localctx, 5);
-                {
-                    setState(334);
-                    match(T_STRING);
-                    setState(335);
-                    match(T__1);
-                    setState(336);
-                    match(NUMERIC_LITERAL);
-                    setState(337);
-                    match(T__3);
-                }
-                break;
-                default:
-                    throw new NoViableAltException(this);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Column_constraintContext extends ParserRuleContext {
-        public TerminalNode K_PRIMARY() {
-            return getToken(SQLParser.K_PRIMARY, 0);
-        }
-
-        public TerminalNode K_KEY() {
-            return getToken(SQLParser.K_KEY, 0);
-        }
-
-        public TerminalNode K_NOT() {
-            return getToken(SQLParser.K_NOT, 0);
-        }
-
-        public TerminalNode K_NULL() {
-            return getToken(SQLParser.K_NULL, 0);
-        }
-
-        public Column_constraintContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_column_constraint;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterColumn_constraint(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitColumn_constraint(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitColumn_constraint(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Column_constraintContext column_constraint() throws RecognitionException {
-        Column_constraintContext _localctx = new Column_constraintContext(_ctx, getState());
-        enterRule(_localctx, 50, RULE_column_constraint);
-        try {
-            setState(344);
-            _errHandler.sync(this);
-            switch (_input.LA(1)) {
-                case K_PRIMARY:
-                    enterOuterAlt(_localctx, 1);
-                {
-                    setState(340);
-                    match(K_PRIMARY);
-                    setState(341);
-                    match(K_KEY);
-                }
-                break;
-                case K_NOT:
-                    enterOuterAlt(_localctx, 2);
-                {
-                    setState(342);
-                    match(K_NOT);
-                    setState(343);
-                    match(K_NULL);
-                }
-                break;
-                default:
-                    throw new NoViableAltException(this);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Multiple_conditionContext extends ParserRuleContext {
-        public ConditionContext condition() {
-            return getRuleContext(ConditionContext.class, 0);
-        }
-
-        public List<Multiple_conditionContext> multiple_condition() {
-            return getRuleContexts(Multiple_conditionContext.class);
-        }
-
-        public Multiple_conditionContext multiple_condition(int i) {
-            return getRuleContext(Multiple_conditionContext.class, i);
-        }
-
-        public TerminalNode AND() {
-            return getToken(SQLParser.AND, 0);
-        }
-
-        public TerminalNode OR() {
-            return getToken(SQLParser.OR, 0);
-        }
-
-        public Multiple_conditionContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_multiple_condition;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterMultiple_condition(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitMultiple_condition(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitMultiple_condition(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Multiple_conditionContext multiple_condition() throws RecognitionException {
-        return multiple_condition(0);
-    }
-
-    private Multiple_conditionContext multiple_condition(int _p) throws RecognitionException {
-        ParserRuleContext _parentctx = _ctx;
-        int _parentState = getState();
-        Multiple_conditionContext _localctx = new Multiple_conditionContext(_ctx, _parentState);
-        Multiple_conditionContext _prevctx = _localctx;
-        int _startState = 52;
-        enterRecursionRule(_localctx, 52, RULE_multiple_condition, _p);
-        try {
-            int _alt;
-            enterOuterAlt(_localctx, 1);
-            {
-                {
-                    setState(347);
-                    condition();
-                }
-                _ctx.stop = _input.LT(-1);
-                setState(357);
-                _errHandler.sync(this);
-                _alt = getInterpreter().adaptivePredict(_input, 27, _ctx);
-                while (_alt != 2 && _alt != org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER) {
-                    if (_alt == 1) {
-                        if (_parseListeners != null) triggerExitRuleEvent();
-                        _prevctx = _localctx;
-                        {
-                            setState(355);
-                            _errHandler.sync(this);
-                            switch (getInterpreter().adaptivePredict(_input, 26, _ctx)) {
-                                case 1: {
-                                    _localctx = new Multiple_conditionContext(_parentctx, _parentState);
-                                    pushNewRecursionContext(_localctx, _startState, RULE_multiple_condition);
-                                    setState(349);
-                                    if (!(precpred(_ctx, 2)))
-                                        throw new FailedPredicateException(this, "precpred(_ctx, 2)");
-                                    setState(350);
-                                    match(AND);
-                                    setState(351);
-                                    multiple_condition(3);
-                                }
-                                break;
-                                case 2: {
-                                    _localctx = new Multiple_conditionContext(_parentctx, _parentState);
-                                    pushNewRecursionContext(_localctx, _startState, RULE_multiple_condition);
-                                    setState(352);
-                                    if (!(precpred(_ctx, 1)))
-                                        throw new FailedPredicateException(this, "precpred(_ctx, 1)");
-                                    setState(353);
-                                    match(OR);
-                                    setState(354);
-                                    multiple_condition(2);
-                                }
-                                break;
-                            }
-                        }
-                    }
-                    setState(359);
-                    _errHandler.sync(this);
-                    _alt = getInterpreter().adaptivePredict(_input, 27, _ctx);
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            unrollRecursionContexts(_parentctx);
-        }
-        return _localctx;
-    }
-
-    public static class ConditionContext extends ParserRuleContext {
-        public List<ExpressionContext> expression() {
-            return getRuleContexts(ExpressionContext.class);
-        }
-
-        public ExpressionContext expression(int i) {
-            return getRuleContext(ExpressionContext.class, i);
-        }
-
-        public ComparatorContext comparator() {
-            return getRuleContext(ComparatorContext.class, 0);
-        }
-
-        public ConditionContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_condition;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterCondition(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitCondition(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitCondition(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final ConditionContext condition() throws RecognitionException {
-        ConditionContext _localctx = new ConditionContext(_ctx, getState());
-        enterRule(_localctx, 54, RULE_condition);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(360);
-                expression(0);
-                setState(361);
-                comparator();
-                setState(362);
-                expression(0);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class ComparerContext extends ParserRuleContext {
-        public Column_full_nameContext column_full_name() {
-            return getRuleContext(Column_full_nameContext.class, 0);
-        }
-
-        public Literal_valueContext literal_value() {
-            return getRuleContext(Literal_valueContext.class, 0);
-        }
-
-        public ComparerContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_comparer;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterComparer(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitComparer(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitComparer(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final ComparerContext comparer() throws RecognitionException {
-        ComparerContext _localctx = new ComparerContext(_ctx, getState());
-        enterRule(_localctx, 56, RULE_comparer);
-        try {
-            setState(366);
-            _errHandler.sync(this);
-            switch (_input.LA(1)) {
-                case IDENTIFIER:
-                    enterOuterAlt(_localctx, 1);
-                {
-                    setState(364);
-                    column_full_name();
-                }
-                break;
-                case K_NULL:
-                case NUMERIC_LITERAL:
-                case STRING_LITERAL:
-                    enterOuterAlt(_localctx, 2);
-                {
-                    setState(365);
-                    literal_value();
-                }
-                break;
-                default:
-                    throw new NoViableAltException(this);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class ComparatorContext extends ParserRuleContext {
-        public TerminalNode EQ() {
-            return getToken(SQLParser.EQ, 0);
-        }
-
-        public TerminalNode NE() {
-            return getToken(SQLParser.NE, 0);
-        }
-
-        public TerminalNode LE() {
-            return getToken(SQLParser.LE, 0);
-        }
-
-        public TerminalNode GE() {
-            return getToken(SQLParser.GE, 0);
-        }
-
-        public TerminalNode LT() {
-            return getToken(SQLParser.LT, 0);
-        }
-
-        public TerminalNode GT() {
-            return getToken(SQLParser.GT, 0);
-        }
-
-        public ComparatorContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_comparator;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterComparator(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitComparator(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitComparator(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final ComparatorContext comparator() throws RecognitionException {
-        ComparatorContext _localctx = new ComparatorContext(_ctx, getState());
-        enterRule(_localctx, 58, RULE_comparator);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(368);
-                _la = _input.LA(1);
-                if (!((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << EQ) | (1L << NE) | (1L << LT) | (1L << GT) | (1L << LE) | (1L << GE))) != 0))) {
-                    _errHandler.recoverInline(this);
-                } else {
-                    if (_input.LA(1) == Token.EOF) matchedEOF = true;
-                    _errHandler.reportMatch(this);
-                    consume();
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class ExpressionContext extends ParserRuleContext {
-        public ComparerContext comparer() {
-            return getRuleContext(ComparerContext.class, 0);
-        }
-
-        public List<ExpressionContext> expression() {
-            return getRuleContexts(ExpressionContext.class);
-        }
-
-        public ExpressionContext expression(int i) {
-            return getRuleContext(ExpressionContext.class, i);
-        }
-
-        public TerminalNode MUL() {
-            return getToken(SQLParser.MUL, 0);
-        }
-
-        public TerminalNode DIV() {
-            return getToken(SQLParser.DIV, 0);
-        }
-
-        public TerminalNode ADD() {
-            return getToken(SQLParser.ADD, 0);
-        }
-
-        public TerminalNode SUB() {
-            return getToken(SQLParser.SUB, 0);
-        }
-
-        public ExpressionContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_expression;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterExpression(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitExpression(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitExpression(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final ExpressionContext expression() throws RecognitionException {
-        return expression(0);
-    }
-
-    private ExpressionContext expression(int _p) throws RecognitionException {
-        ParserRuleContext _parentctx = _ctx;
-        int _parentState = getState();
-        ExpressionContext _localctx = new ExpressionContext(_ctx, _parentState);
-        ExpressionContext _prevctx = _localctx;
-        int _startState = 60;
-        enterRecursionRule(_localctx, 60, RULE_expression, _p);
-        int _la;
-        try {
-            int _alt;
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(376);
-                _errHandler.sync(this);
-                switch (_input.LA(1)) {
-                    case K_NULL:
-                    case IDENTIFIER:
-                    case NUMERIC_LITERAL:
-                    case STRING_LITERAL: {
-                        setState(371);
-                        comparer();
-                    }
-                    break;
-                    case T__1: {
-                        setState(372);
-                        match(T__1);
-                        setState(373);
-                        expression(0);
-                        setState(374);
-                        match(T__3);
-                    }
-                    break;
-                    default:
-                        throw new NoViableAltException(this);
-                }
-                _ctx.stop = _input.LT(-1);
-                setState(386);
-                _errHandler.sync(this);
-                _alt = getInterpreter().adaptivePredict(_input, 31, _ctx);
-                while (_alt != 2 && _alt != org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER) {
-                    if (_alt == 1) {
-                        if (_parseListeners != null) triggerExitRuleEvent();
-                        _prevctx = _localctx;
-                        {
-                            setState(384);
-                            _errHandler.sync(this);
-                            switch (getInterpreter().adaptivePredict(_input, 30, _ctx)) {
-                                case 1: {
-                                    _localctx = new ExpressionContext(_parentctx, _parentState);
-                                    pushNewRecursionContext(_localctx, _startState, RULE_expression);
-                                    setState(378);
-                                    if (!(precpred(_ctx, 3)))
-                                        throw new FailedPredicateException(this, "precpred(_ctx, 3)");
-                                    setState(379);
-                                    _la = _input.LA(1);
-                                    if (!(_la == MUL || _la == DIV)) {
-                                        _errHandler.recoverInline(this);
-                                    } else {
-                                        if (_input.LA(1) == Token.EOF) matchedEOF = true;
-                                        _errHandler.reportMatch(this);
-                                        consume();
-                                    }
-                                    setState(380);
-                                    expression(4);
-                                }
-                                break;
-                                case 2: {
-                                    _localctx = new ExpressionContext(_parentctx, _parentState);
-                                    pushNewRecursionContext(_localctx, _startState, RULE_expression);
-                                    setState(381);
-                                    if (!(precpred(_ctx, 2)))
-                                        throw new FailedPredicateException(this, "precpred(_ctx, 2)");
-                                    setState(382);
-                                    _la = _input.LA(1);
-                                    if (!(_la == ADD || _la == SUB)) {
-                                        _errHandler.recoverInline(this);
-                                    } else {
-                                        if (_input.LA(1) == Token.EOF) matchedEOF = true;
-                                        _errHandler.reportMatch(this);
-                                        consume();
-                                    }
-                                    setState(383);
-                                    expression(3);
-                                }
-                                break;
-                            }
-                        }
-                    }
-                    setState(388);
-                    _errHandler.sync(this);
-                    _alt = getInterpreter().adaptivePredict(_input, 31, _ctx);
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            unrollRecursionContexts(_parentctx);
-        }
-        return _localctx;
-    }
-
-    public static class Table_constraintContext extends ParserRuleContext {
-        public TerminalNode K_PRIMARY() {
-            return getToken(SQLParser.K_PRIMARY, 0);
-        }
-
-        public TerminalNode K_KEY() {
-            return getToken(SQLParser.K_KEY, 0);
-        }
-
-        public List<Column_nameContext> column_name() {
-            return getRuleContexts(Column_nameContext.class);
-        }
-
-        public Column_nameContext column_name(int i) {
-            return getRuleContext(Column_nameContext.class, i);
-        }
-
-        public Table_constraintContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_table_constraint;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterTable_constraint(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitTable_constraint(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitTable_constraint(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Table_constraintContext table_constraint() throws RecognitionException {
-        Table_constraintContext _localctx = new Table_constraintContext(_ctx, getState());
-        enterRule(_localctx, 62, RULE_table_constraint);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(389);
-                match(K_PRIMARY);
-                setState(390);
-                match(K_KEY);
-                setState(391);
-                match(T__1);
-                setState(392);
-                column_name();
-                setState(397);
-                _errHandler.sync(this);
-                _la = _input.LA(1);
-                while (_la == T__2) {
-                    {
-                        {
-                            setState(393);
-                            match(T__2);
-                            setState(394);
-                            column_name();
-                        }
-                    }
-                    setState(399);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                }
-                setState(400);
-                match(T__3);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Result_columnContext extends ParserRuleContext {
-        public TerminalNode MUL() {
-            return getToken(SQLParser.MUL, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public Column_full_nameContext column_full_name() {
-            return getRuleContext(Column_full_nameContext.class, 0);
-        }
-
-        public Result_columnContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_result_column;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterResult_column(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitResult_column(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitResult_column(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Result_columnContext result_column() throws RecognitionException {
-        Result_columnContext _localctx = new Result_columnContext(_ctx, getState());
-        enterRule(_localctx, 64, RULE_result_column);
-        try {
-            setState(408);
-            _errHandler.sync(this);
-            switch (getInterpreter().adaptivePredict(_input, 33, _ctx)) {
-                case 1:
-                    enterOuterAlt(_localctx, 1);
-                {
-                    setState(402);
-                    match(MUL);
-                }
-                break;
-                case 2:
-                    enterOuterAlt(_localctx, 2);
-                {
-                    setState(403);
-                    table_name();
-                    setState(404);
-                    match(T__4);
-                    setState(405);
-                    match(MUL);
-                }
-                break;
-                case 3:
-                    enterOuterAlt(_localctx, 3);
-                {
-                    setState(407);
-                    column_full_name();
-                }
-                break;
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Table_queryContext extends ParserRuleContext {
-        public List<Table_nameContext> table_name() {
-            return getRuleContexts(Table_nameContext.class);
-        }
-
-        public Table_nameContext table_name(int i) {
-            return getRuleContext(Table_nameContext.class, i);
-        }
-
-        public TerminalNode K_ON() {
-            return getToken(SQLParser.K_ON, 0);
-        }
-
-        public Multiple_conditionContext multiple_condition() {
-            return getRuleContext(Multiple_conditionContext.class, 0);
-        }
-
-        public List<TerminalNode> K_JOIN() {
-            return getTokens(SQLParser.K_JOIN);
-        }
-
-        public TerminalNode K_JOIN(int i) {
-            return getToken(SQLParser.K_JOIN, i);
-        }
-
-        public Table_queryContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_table_query;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterTable_query(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitTable_query(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitTable_query(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Table_queryContext table_query() throws RecognitionException {
-        Table_queryContext _localctx = new Table_queryContext(_ctx, getState());
-        enterRule(_localctx, 66, RULE_table_query);
-        int _la;
-        try {
-            setState(421);
-            _errHandler.sync(this);
-            switch (getInterpreter().adaptivePredict(_input, 35, _ctx)) {
-                case 1:
-                    enterOuterAlt(_localctx, 1);
-                {
-                    setState(410);
-                    table_name();
-                }
-                break;
-                case 2:
-                    enterOuterAlt(_localctx, 2);
-                {
-                    setState(411);
-                    table_name();
-                    setState(414);
-                    _errHandler.sync(this);
-                    _la = _input.LA(1);
-                    do {
-                        {
-                            {
-                                setState(412);
-                                match(K_JOIN);
-                                setState(413);
-                                table_name();
-                            }
-                        }
-                        setState(416);
-                        _errHandler.sync(this);
-                        _la = _input.LA(1);
-                    } while (_la == K_JOIN);
-                    setState(418);
-                    match(K_ON);
-                    setState(419);
-                    multiple_condition(0);
-                }
-                break;
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Auth_levelContext extends ParserRuleContext {
-        public TerminalNode K_SELECT() {
-            return getToken(SQLParser.K_SELECT, 0);
-        }
-
-        public TerminalNode K_INSERT() {
-            return getToken(SQLParser.K_INSERT, 0);
-        }
-
-        public TerminalNode K_UPDATE() {
-            return getToken(SQLParser.K_UPDATE, 0);
-        }
-
-        public TerminalNode K_DELETE() {
-            return getToken(SQLParser.K_DELETE, 0);
-        }
-
-        public TerminalNode K_DROP() {
-            return getToken(SQLParser.K_DROP, 0);
-        }
-
-        public Auth_levelContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_auth_level;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterAuth_level(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitAuth_level(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitAuth_level(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Auth_levelContext auth_level() throws RecognitionException {
-        Auth_levelContext _localctx = new Auth_levelContext(_ctx, getState());
-        enterRule(_localctx, 68, RULE_auth_level);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(423);
-                _la = _input.LA(1);
-                if (!((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << K_DELETE) | (1L << K_DROP) | (1L << K_INSERT) | (1L << K_SELECT) | (1L << K_UPDATE))) != 0))) {
-                    _errHandler.recoverInline(this);
-                } else {
-                    if (_input.LA(1) == Token.EOF) matchedEOF = true;
-                    _errHandler.reportMatch(this);
-                    consume();
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Literal_valueContext extends ParserRuleContext {
-        public TerminalNode NUMERIC_LITERAL() {
-            return getToken(SQLParser.NUMERIC_LITERAL, 0);
-        }
-
-        public TerminalNode STRING_LITERAL() {
-            return getToken(SQLParser.STRING_LITERAL, 0);
-        }
-
-        public TerminalNode K_NULL() {
-            return getToken(SQLParser.K_NULL, 0);
-        }
-
-        public Literal_valueContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_literal_value;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterLiteral_value(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitLiteral_value(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitLiteral_value(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Literal_valueContext literal_value() throws RecognitionException {
-        Literal_valueContext _localctx = new Literal_valueContext(_ctx, getState());
-        enterRule(_localctx, 70, RULE_literal_value);
-        int _la;
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(425);
-                _la = _input.LA(1);
-                if (!((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << K_NULL) | (1L << NUMERIC_LITERAL) | (1L << STRING_LITERAL))) != 0))) {
-                    _errHandler.recoverInline(this);
-                } else {
-                    if (_input.LA(1) == Token.EOF) matchedEOF = true;
-                    _errHandler.reportMatch(this);
-                    consume();
-                }
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Column_full_nameContext extends ParserRuleContext {
-        public Column_nameContext column_name() {
-            return getRuleContext(Column_nameContext.class, 0);
-        }
-
-        public Table_nameContext table_name() {
-            return getRuleContext(Table_nameContext.class, 0);
-        }
-
-        public Column_full_nameContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_column_full_name;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterColumn_full_name(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitColumn_full_name(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitColumn_full_name(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Column_full_nameContext column_full_name() throws RecognitionException {
-        Column_full_nameContext _localctx = new Column_full_nameContext(_ctx, getState());
-        enterRule(_localctx, 72, RULE_column_full_name);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(430);
-                _errHandler.sync(this);
-                switch (getInterpreter().adaptivePredict(_input, 36, _ctx)) {
-                    case 1: {
-                        setState(427);
-                        table_name();
-                        setState(428);
-                        match(T__4);
-                    }
-                    break;
-                }
-                setState(432);
-                column_name();
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Database_nameContext extends ParserRuleContext {
-        public TerminalNode IDENTIFIER() {
-            return getToken(SQLParser.IDENTIFIER, 0);
-        }
-
-        public Database_nameContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_database_name;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterDatabase_name(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitDatabase_name(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitDatabase_name(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Database_nameContext database_name() throws RecognitionException {
-        Database_nameContext _localctx = new Database_nameContext(_ctx, getState());
-        enterRule(_localctx, 74, RULE_database_name);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(434);
-                match(IDENTIFIER);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Table_nameContext extends ParserRuleContext {
-        public TerminalNode IDENTIFIER() {
-            return getToken(SQLParser.IDENTIFIER, 0);
-        }
-
-        public Table_nameContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_table_name;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterTable_name(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitTable_name(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitTable_name(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Table_nameContext table_name() throws RecognitionException {
-        Table_nameContext _localctx = new Table_nameContext(_ctx, getState());
-        enterRule(_localctx, 76, RULE_table_name);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(436);
-                match(IDENTIFIER);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class User_nameContext extends ParserRuleContext {
-        public TerminalNode IDENTIFIER() {
-            return getToken(SQLParser.IDENTIFIER, 0);
-        }
-
-        public User_nameContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_user_name;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterUser_name(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitUser_name(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitUser_name(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final User_nameContext user_name() throws RecognitionException {
-        User_nameContext _localctx = new User_nameContext(_ctx, getState());
-        enterRule(_localctx, 78, RULE_user_name);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(438);
-                match(IDENTIFIER);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class Column_nameContext extends ParserRuleContext {
-        public TerminalNode IDENTIFIER() {
-            return getToken(SQLParser.IDENTIFIER, 0);
-        }
-
-        public Column_nameContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_column_name;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterColumn_name(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitColumn_name(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitColumn_name(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final Column_nameContext column_name() throws RecognitionException {
-        Column_nameContext _localctx = new Column_nameContext(_ctx, getState());
-        enterRule(_localctx, 80, RULE_column_name);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(440);
-                match(IDENTIFIER);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class View_nameContext extends ParserRuleContext {
-        public TerminalNode IDENTIFIER() {
-            return getToken(SQLParser.IDENTIFIER, 0);
-        }
-
-        public View_nameContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_view_name;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterView_name(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitView_name(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitView_name(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final View_nameContext view_name() throws RecognitionException {
-        View_nameContext _localctx = new View_nameContext(_ctx, getState());
-        enterRule(_localctx, 82, RULE_view_name);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(442);
-                match(IDENTIFIER);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public static class PasswordContext extends ParserRuleContext {
-        public TerminalNode STRING_LITERAL() {
-            return getToken(SQLParser.STRING_LITERAL, 0);
-        }
-
-        public PasswordContext(ParserRuleContext parent, int invokingState) {
-            super(parent, invokingState);
-        }
-
-        @Override
-        public int getRuleIndex() {
-            return RULE_password;
-        }
-
-        @Override
-        public void enterRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).enterPassword(this);
-        }
-
-        @Override
-        public void exitRule(ParseTreeListener listener) {
-            if (listener instanceof SQLListener) ((SQLListener) listener).exitPassword(this);
-        }
-
-        @Override
-        public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
-            if (visitor instanceof SQLVisitor) return ((SQLVisitor<? extends T>) visitor).visitPassword(this);
-            else return visitor.visitChildren(this);
-        }
-    }
-
-    public final PasswordContext password() throws RecognitionException {
-        PasswordContext _localctx = new PasswordContext(_ctx, getState());
-        enterRule(_localctx, 84, RULE_password);
-        try {
-            enterOuterAlt(_localctx, 1);
-            {
-                setState(444);
-                match(STRING_LITERAL);
-            }
-        } catch (RecognitionException re) {
-            _localctx.exception = re;
-            _errHandler.reportError(this, re);
-            _errHandler.recover(this, re);
-        } finally {
-            exitRule();
-        }
-        return _localctx;
-    }
-
-    public boolean sempred(RuleContext _localctx, int ruleIndex, int predIndex) {
-        switch (ruleIndex) {
-            case 26:
-                return multiple_condition_sempred((Multiple_conditionContext) _localctx, predIndex);
-            case 30:
-                return expression_sempred((ExpressionContext) _localctx, predIndex);
-        }
-        return true;
-    }
-
-    private boolean multiple_condition_sempred(Multiple_conditionContext _localctx, int predIndex) {
-        switch (predIndex) {
-            case 0:
-                return precpred(_ctx, 2);
-            case 1:
-                return precpred(_ctx, 1);
-        }
-        return true;
-    }
-
-    private boolean expression_sempred(ExpressionContext _localctx, int predIndex) {
-        switch (predIndex) {
-            case 2:
-                return precpred(_ctx, 3);
-            case 3:
-                return precpred(_ctx, 2);
-        }
-        return true;
-    }
-
-    public static final String _serializedATN =
-            "\3\u608b\ua72a\u8133\ub9ed\u417c\u3be7\u7786\u5964\3D\u01c1\4\2\t\2\4" +
-                    "\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4\13\t" +
-                    "\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22\t\22" +
-                    "\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31\t\31" +
-                    "\4\32\t\32\4\33\t\33\4\34\t\34\4\35\t\35\4\36\t\36\4\37\t\37\4 \t \4!" +
-                    "\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\4\'\t\'\4(\t(\4)\t)\4*\t*\4+\t+\4" +
-                    ",\t,\3\2\3\2\3\3\7\3\\\n\3\f\3\16\3_\13\3\3\3\3\3\6\3c\n\3\r\3\16\3d\3" +
-                    "\3\7\3h\n\3\f\3\16\3k\13\3\3\3\7\3n\n\3\f\3\16\3q\13\3\3\4\3\4\3\4\3\4" +
-                    "\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\5\4\u0086" +
-                    "\n\4\3\5\3\5\3\5\3\5\3\6\3\6\3\6\3\6\5\6\u0090\n\6\3\6\3\6\3\7\3\7\3\7" +
-                    "\3\7\3\7\3\7\3\7\3\b\3\b\3\b\3\b\5\b\u009f\n\b\3\b\3\b\3\t\3\t\3\t\3\t" +
-                    "\3\t\3\t\3\t\7\t\u00aa\n\t\f\t\16\t\u00ad\13\t\3\t\3\t\5\t\u00b1\n\t\3" +
-                    "\t\3\t\3\n\3\n\3\n\3\n\3\13\3\13\3\13\3\13\7\13\u00bd\n\13\f\13\16\13" +
-                    "\u00c0\13\13\3\13\3\13\3\13\3\13\3\13\3\f\3\f\3\f\3\f\7\f\u00cb\n\f\f" +
-                    "\f\16\f\u00ce\13\f\3\f\3\f\3\f\3\f\3\f\3\r\3\r\3\r\3\16\3\16\3\16\3\16" +
-                    "\3\16\5\16\u00dd\n\16\3\17\3\17\3\17\3\17\5\17\u00e3\n\17\3\17\3\17\3" +
-                    "\20\3\20\3\20\3\21\3\21\3\22\3\22\3\22\3\22\3\23\3\23\3\23\3\23\3\23\3" +
-                    "\23\3\23\7\23\u00f7\n\23\f\23\16\23\u00fa\13\23\3\23\3\23\5\23\u00fe\n" +
-                    "\23\3\23\3\23\3\23\3\23\7\23\u0104\n\23\f\23\16\23\u0107\13\23\3\24\3" +
-                    "\24\3\24\3\24\7\24\u010d\n\24\f\24\16\24\u0110\13\24\3\24\3\24\3\25\3" +
-                    "\25\5\25\u0116\n\25\3\25\3\25\3\25\7\25\u011b\n\25\f\25\16\25\u011e\13" +
-                    "\25\3\25\3\25\3\25\3\25\7\25\u0124\n\25\f\25\16\25\u0127\13\25\3\25\3" +
-                    "\25\5\25\u012b\n\25\3\26\3\26\3\26\3\26\3\26\3\26\3\27\3\27\3\27\3\27" +
-                    "\5\27\u0137\n\27\3\27\3\27\3\30\3\30\3\30\3\30\3\30\3\30\3\30\3\30\5\30" +
-                    "\u0143\n\30\3\31\3\31\3\31\7\31\u0148\n\31\f\31\16\31\u014b\13\31\3\32" +
-                    "\3\32\3\32\3\32\3\32\3\32\3\32\3\32\5\32\u0155\n\32\3\33\3\33\3\33\3\33" +
-                    "\5\33\u015b\n\33\3\34\3\34\3\34\3\34\3\34\3\34\3\34\3\34\3\34\7\34\u0166" +
-                    "\n\34\f\34\16\34\u0169\13\34\3\35\3\35\3\35\3\35\3\36\3\36\5\36\u0171" +
-                    "\n\36\3\37\3\37\3 \3 \3 \3 \3 \3 \5 \u017b\n \3 \3 \3 \3 \3 \3 \7 \u0183" +
-                    "\n \f \16 \u0186\13 \3!\3!\3!\3!\3!\3!\7!\u018e\n!\f!\16!\u0191\13!\3" +
-                    "!\3!\3\"\3\"\3\"\3\"\3\"\3\"\5\"\u019b\n\"\3#\3#\3#\3#\6#\u01a1\n#\r#" +
-                    "\16#\u01a2\3#\3#\3#\5#\u01a8\n#\3$\3$\3%\3%\3&\3&\3&\5&\u01b1\n&\3&\3" +
-                    "&\3\'\3\'\3(\3(\3)\3)\3*\3*\3+\3+\3,\3,\3,\2\4\66>-\2\4\6\b\n\f\16\20" +
-                    "\22\24\26\30\32\34\36 \"$&(*,.\60\62\64\668:<>@BDFHJLNPRTV\2\b\4\2\32" +
-                    "\32\"\"\3\2\b\r\3\2\20\21\3\2\16\17\7\2!!##))\63\6388\5\2..??AA\2\u01cf" +
-                    "\2X\3\2\2\2\4]\3\2\2\2\6\u0085\3\2\2\2\b\u0087\3\2\2\2\n\u008b\3\2\2\2" +
-                    "\f\u0093\3\2\2\2\16\u009a\3\2\2\2\20\u00a2\3\2\2\2\22\u00b4\3\2\2\2\24" +
-                    "\u00b8\3\2\2\2\26\u00c6\3\2\2\2\30\u00d4\3\2\2\2\32\u00d7\3\2\2\2\34\u00de" +
-                    "\3\2\2\2\36\u00e6\3\2\2\2 \u00e9\3\2\2\2\"\u00eb\3\2\2\2$\u00ef\3\2\2" +
-                    "\2&\u0108\3\2\2\2(\u0113\3\2\2\2*\u012c\3\2\2\2,\u0132\3\2\2\2.\u013a" +
-                    "\3\2\2\2\60\u0144\3\2\2\2\62\u0154\3\2\2\2\64\u015a\3\2\2\2\66\u015c\3" +
-                    "\2\2\28\u016a\3\2\2\2:\u0170\3\2\2\2<\u0172\3\2\2\2>\u017a\3\2\2\2@\u0187" +
-                    "\3\2\2\2B\u019a\3\2\2\2D\u01a7\3\2\2\2F\u01a9\3\2\2\2H\u01ab\3\2\2\2J" +
-                    "\u01b0\3\2\2\2L\u01b4\3\2\2\2N\u01b6\3\2\2\2P\u01b8\3\2\2\2R\u01ba\3\2" +
-                    "\2\2T\u01bc\3\2\2\2V\u01be\3\2\2\2XY\5\4\3\2Y\3\3\2\2\2Z\\\7\3\2\2[Z\3" +
-                    "\2\2\2\\_\3\2\2\2][\3\2\2\2]^\3\2\2\2^`\3\2\2\2_]\3\2\2\2`i\5\6\4\2ac" +
-                    "\7\3\2\2ba\3\2\2\2cd\3\2\2\2db\3\2\2\2de\3\2\2\2ef\3\2\2\2fh\5\6\4\2g" +
-                    "b\3\2\2\2hk\3\2\2\2ig\3\2\2\2ij\3\2\2\2jo\3\2\2\2ki\3\2\2\2ln\7\3\2\2" +
-                    "ml\3\2\2\2nq\3\2\2\2om\3\2\2\2op\3\2\2\2p\5\3\2\2\2qo\3\2\2\2r\u0086\5" +
-                    "\20\t\2s\u0086\5\b\5\2t\u0086\5\f\7\2u\u0086\5\n\6\2v\u0086\5\16\b\2w" +
-                    "\u0086\5\32\16\2x\u0086\5\34\17\2y\u0086\5$\23\2z\u0086\5(\25\2{\u0086" +
-                    "\5*\26\2|\u0086\5,\27\2}\u0086\5\24\13\2~\u0086\5\26\f\2\177\u0086\5\30" +
-                    "\r\2\u0080\u0086\5\36\20\2\u0081\u0086\5\"\22\2\u0082\u0086\5\22\n\2\u0083" +
-                    "\u0086\5 \21\2\u0084\u0086\5.\30\2\u0085r\3\2\2\2\u0085s\3\2\2\2\u0085" +
-                    "t\3\2\2\2\u0085u\3\2\2\2\u0085v\3\2\2\2\u0085w\3\2\2\2\u0085x\3\2\2\2" +
-                    "\u0085y\3\2\2\2\u0085z\3\2\2\2\u0085{\3\2\2\2\u0085|\3\2\2\2\u0085}\3" +
-                    "\2\2\2\u0085~\3\2\2\2\u0085\177\3\2\2\2\u0085\u0080\3\2\2\2\u0085\u0081" +
-                    "\3\2\2\2\u0085\u0082\3\2\2\2\u0085\u0083\3\2\2\2\u0085\u0084\3\2\2\2\u0086" +
-                    "\7\3\2\2\2\u0087\u0088\7\36\2\2\u0088\u0089\7\37\2\2\u0089\u008a\5L\'" +
-                    "\2\u008a\t\3\2\2\2\u008b\u008c\7#\2\2\u008c\u008f\7\37\2\2\u008d\u008e" +
-                    "\7\'\2\2\u008e\u0090\7$\2\2\u008f\u008d\3\2\2\2\u008f\u0090\3\2\2\2\u0090" +
-                    "\u0091\3\2\2\2\u0091\u0092\5L\'\2\u0092\13\3\2\2\2\u0093\u0094\7\36\2" +
-                    "\2\u0094\u0095\7:\2\2\u0095\u0096\5P)\2\u0096\u0097\7(\2\2\u0097\u0098" +
-                    "\7\34\2\2\u0098\u0099\5V,\2\u0099\r\3\2\2\2\u009a\u009b\7#\2\2\u009b\u009e" +
-                    "\7:\2\2\u009c\u009d\7\'\2\2\u009d\u009f\7$\2\2\u009e\u009c\3\2\2\2\u009e" +
-                    "\u009f\3\2\2\2\u009f\u00a0\3\2\2\2\u00a0\u00a1\5P)\2\u00a1\17\3\2\2\2" +
-                    "\u00a2\u00a3\7\36\2\2\u00a3\u00a4\7\66\2\2\u00a4\u00a5\5N(\2\u00a5\u00a6" +
-                    "\7\4\2\2\u00a6\u00ab\5\60\31\2\u00a7\u00a8\7\5\2\2\u00a8\u00aa\5\60\31" +
-                    "\2\u00a9\u00a7\3\2\2\2\u00aa\u00ad\3\2\2\2\u00ab\u00a9\3\2\2\2\u00ab\u00ac" +
-                    "\3\2\2\2\u00ac\u00b0\3\2\2\2\u00ad\u00ab\3\2\2\2\u00ae\u00af\7\5\2\2\u00af" +
-                    "\u00b1\5@!\2\u00b0\u00ae\3\2\2\2\u00b0\u00b1\3\2\2\2\u00b1\u00b2\3\2\2" +
-                    "\2\u00b2\u00b3\7\6\2\2\u00b3\21\3\2\2\2\u00b4\u00b5\7\65\2\2\u00b5\u00b6" +
-                    "\7\66\2\2\u00b6\u00b7\5N(\2\u00b7\23\3\2\2\2\u00b8\u00b9\7&\2\2\u00b9" +
-                    "\u00be\5F$\2\u00ba\u00bb\7\5\2\2\u00bb\u00bd\5F$\2\u00bc\u00ba\3\2\2\2" +
-                    "\u00bd\u00c0\3\2\2\2\u00be\u00bc\3\2\2\2\u00be\u00bf\3\2\2\2\u00bf\u00c1" +
-                    "\3\2\2\2\u00c0\u00be\3\2\2\2\u00c1\u00c2\7/\2\2\u00c2\u00c3\5N(\2\u00c3" +
-                    "\u00c4\7\67\2\2\u00c4\u00c5\5P)\2\u00c5\25\3\2\2\2\u00c6\u00c7\7\62\2" +
-                    "\2\u00c7\u00cc\5F$\2\u00c8\u00c9\7\5\2\2\u00c9\u00cb\5F$\2\u00ca\u00c8" +
-                    "\3\2\2\2\u00cb\u00ce\3\2\2\2\u00cc\u00ca\3\2\2\2\u00cc\u00cd\3\2\2\2\u00cd" +
-                    "\u00cf\3\2\2\2\u00ce\u00cc\3\2\2\2\u00cf\u00d0\7/\2\2\u00d0\u00d1\5N(" +
-                    "\2\u00d1\u00d2\7%\2\2\u00d2\u00d3\5P)\2\u00d3\27\3\2\2\2\u00d4\u00d5\7" +
-                    "9\2\2\u00d5\u00d6\5L\'\2\u00d6\31\3\2\2\2\u00d7\u00d8\7!\2\2\u00d8\u00d9" +
-                    "\7%\2\2\u00d9\u00dc\5N(\2\u00da\u00db\7=\2\2\u00db\u00dd\5\66\34\2\u00dc" +
-                    "\u00da\3\2\2\2\u00dc\u00dd\3\2\2\2\u00dd\33\3\2\2\2\u00de\u00df\7#\2\2" +
-                    "\u00df\u00e2\7\66\2\2\u00e0\u00e1\7\'\2\2\u00e1\u00e3\7$\2\2\u00e2\u00e0" +
-                    "\3\2\2\2\u00e2\u00e3\3\2\2\2\u00e3\u00e4\3\2\2\2\u00e4\u00e5\5N(\2\u00e5" +
-                    "\35\3\2\2\2\u00e6\u00e7\7\65\2\2\u00e7\u00e8\7 \2\2\u00e8\37\3\2\2\2\u00e9" +
-                    "\u00ea\7\61\2\2\u00ea!\3\2\2\2\u00eb\u00ec\7\65\2\2\u00ec\u00ed\7\37\2" +
-                    "\2\u00ed\u00ee\5L\'\2\u00ee#\3\2\2\2\u00ef\u00f0\7)\2\2\u00f0\u00f1\7" +
-                    "*\2\2\u00f1\u00fd\5N(\2\u00f2\u00f3\7\4\2\2\u00f3\u00f8\5R*\2\u00f4\u00f5" +
-                    "\7\5\2\2\u00f5\u00f7\5R*\2\u00f6\u00f4\3\2\2\2\u00f7\u00fa\3\2\2\2\u00f8" +
-                    "\u00f6\3\2\2\2\u00f8\u00f9\3\2\2\2\u00f9\u00fb\3\2\2\2\u00fa\u00f8\3\2" +
-                    "\2\2\u00fb\u00fc\7\6\2\2\u00fc\u00fe\3\2\2\2\u00fd\u00f2\3\2\2\2\u00fd" +
-                    "\u00fe\3\2\2\2\u00fe\u00ff\3\2\2\2\u00ff\u0100\7;\2\2\u0100\u0105\5&\24" +
-                    "\2\u0101\u0102\7\5\2\2\u0102\u0104\5&\24\2\u0103\u0101\3\2\2\2\u0104\u0107" +
-                    "\3\2\2\2\u0105\u0103\3\2\2\2\u0105\u0106\3\2\2\2\u0106%\3\2\2\2\u0107" +
-                    "\u0105\3\2\2\2\u0108\u0109\7\4\2\2\u0109\u010e\5H%\2\u010a\u010b\7\5\2" +
-                    "\2\u010b\u010d\5H%\2\u010c\u010a\3\2\2\2\u010d\u0110\3\2\2\2\u010e\u010c" +
-                    "\3\2\2\2\u010e\u010f\3\2\2\2\u010f\u0111\3\2\2\2\u0110\u010e\3\2\2\2\u0111" +
-                    "\u0112\7\6\2\2\u0112\'\3\2\2\2\u0113\u0115\7\63\2\2\u0114\u0116\t\2\2" +
-                    "\2\u0115\u0114\3\2\2\2\u0115\u0116\3\2\2\2\u0116\u0117\3\2\2\2\u0117\u011c" +
-                    "\5B\"\2\u0118\u0119\7\5\2\2\u0119\u011b\5B\"\2\u011a\u0118\3\2\2\2\u011b" +
-                    "\u011e\3\2\2\2\u011c\u011a\3\2\2\2\u011c\u011d\3\2\2\2\u011d\u011f\3\2" +
-                    "\2\2\u011e\u011c\3\2\2\2\u011f\u0120\7%\2\2\u0120\u0125\5D#\2\u0121\u0122" +
-                    "\7\5\2\2\u0122\u0124\5D#\2\u0123\u0121\3\2\2\2\u0124\u0127\3\2\2\2\u0125" +
-                    "\u0123\3\2\2\2\u0125\u0126\3\2\2\2\u0126\u012a\3\2\2\2\u0127\u0125\3\2" +
-                    "\2\2\u0128\u0129\7=\2\2\u0129\u012b\5\66\34\2\u012a\u0128\3\2\2\2\u012a" +
-                    "\u012b\3\2\2\2\u012b)\3\2\2\2\u012c\u012d\7\36\2\2\u012d\u012e\7<\2\2" +
-                    "\u012e\u012f\5T+\2\u012f\u0130\7\33\2\2\u0130\u0131\5(\25\2\u0131+\3\2" +
-                    "\2\2\u0132\u0133\7#\2\2\u0133\u0136\7<\2\2\u0134\u0135\7\'\2\2\u0135\u0137" +
-                    "\7$\2\2\u0136\u0134\3\2\2\2\u0136\u0137\3\2\2\2\u0137\u0138\3\2\2\2\u0138" +
-                    "\u0139\5T+\2\u0139-\3\2\2\2\u013a\u013b\78\2\2\u013b\u013c\5N(\2\u013c" +
-                    "\u013d\7\64\2\2\u013d\u013e\5R*\2\u013e\u013f\7\b\2\2\u013f\u0142\5> " +
-                    "\2\u0140\u0141\7=\2\2\u0141\u0143\5\66\34\2\u0142\u0140\3\2\2\2\u0142" +
-                    "\u0143\3\2\2\2\u0143/\3\2\2\2\u0144\u0145\5R*\2\u0145\u0149\5\62\32\2" +
-                    "\u0146\u0148\5\64\33\2\u0147\u0146\3\2\2\2\u0148\u014b\3\2\2\2\u0149\u0147" +
-                    "\3\2\2\2\u0149\u014a\3\2\2\2\u014a\61\3\2\2\2\u014b\u0149\3\2\2\2\u014c" +
-                    "\u0155\7\24\2\2\u014d\u0155\7\25\2\2\u014e\u0155\7\26\2\2\u014f\u0155" +
-                    "\7\27\2\2\u0150\u0151\7\30\2\2\u0151\u0152\7\4\2\2\u0152\u0153\7?\2\2" +
-                    "\u0153\u0155\7\6\2\2\u0154\u014c\3\2\2\2\u0154\u014d\3\2\2\2\u0154\u014e" +
-                    "\3\2\2\2\u0154\u014f\3\2\2\2\u0154\u0150\3\2\2\2\u0155\63\3\2\2\2\u0156" +
-                    "\u0157\7\60\2\2\u0157\u015b\7,\2\2\u0158\u0159\7-\2\2\u0159\u015b\7.\2" +
-                    "\2\u015a\u0156\3\2\2\2\u015a\u0158\3\2\2\2\u015b\65\3\2\2\2\u015c\u015d" +
-                    "\b\34\1\2\u015d\u015e\58\35\2\u015e\u0167\3\2\2\2\u015f\u0160\f\4\2\2" +
-                    "\u0160\u0161\7\22\2\2\u0161\u0166\5\66\34\5\u0162\u0163\f\3\2\2\u0163" +
-                    "\u0164\7\23\2\2\u0164\u0166\5\66\34\4\u0165\u015f\3\2\2\2\u0165\u0162" +
-                    "\3\2\2\2\u0166\u0169\3\2\2\2\u0167\u0165\3\2\2\2\u0167\u0168\3\2\2\2\u0168" +
-                    "\67\3\2\2\2\u0169\u0167\3\2\2\2\u016a\u016b\5> \2\u016b\u016c\5<\37\2" +
-                    "\u016c\u016d\5> \2\u016d9\3\2\2\2\u016e\u0171\5J&\2\u016f\u0171\5H%\2" +
-                    "\u0170\u016e\3\2\2\2\u0170\u016f\3\2\2\2\u0171;\3\2\2\2\u0172\u0173\t" +
-                    "\3\2\2\u0173=\3\2\2\2\u0174\u0175\b \1\2\u0175\u017b\5:\36\2\u0176\u0177" +
-                    "\7\4\2\2\u0177\u0178\5> \2\u0178\u0179\7\6\2\2\u0179\u017b\3\2\2\2\u017a" +
-                    "\u0174\3\2\2\2\u017a\u0176\3\2\2\2\u017b\u0184\3\2\2\2\u017c\u017d\f\5" +
-                    "\2\2\u017d\u017e\t\4\2\2\u017e\u0183\5> \6\u017f\u0180\f\4\2\2\u0180\u0181" +
-                    "\t\5\2\2\u0181\u0183\5> \5\u0182\u017c\3\2\2\2\u0182\u017f\3\2\2\2\u0183" +
-                    "\u0186\3\2\2\2\u0184\u0182\3\2\2\2\u0184\u0185\3\2\2\2\u0185?\3\2\2\2" +
-                    "\u0186\u0184\3\2\2\2\u0187\u0188\7\60\2\2\u0188\u0189\7,\2\2\u0189\u018a" +
-                    "\7\4\2\2\u018a\u018f\5R*\2\u018b\u018c\7\5\2\2\u018c\u018e\5R*\2\u018d" +
-                    "\u018b\3\2\2\2\u018e\u0191\3\2\2\2\u018f\u018d\3\2\2\2\u018f\u0190\3\2" +
-                    "\2\2\u0190\u0192\3\2\2\2\u0191\u018f\3\2\2\2\u0192\u0193\7\6\2\2\u0193" +
-                    "A\3\2\2\2\u0194\u019b\7\20\2\2\u0195\u0196\5N(\2\u0196\u0197\7\7\2\2\u0197" +
-                    "\u0198\7\20\2\2\u0198\u019b\3\2\2\2\u0199\u019b\5J&\2\u019a\u0194\3\2" +
-                    "\2\2\u019a\u0195\3\2\2\2\u019a\u0199\3\2\2\2\u019bC\3\2\2\2\u019c\u01a8" +
-                    "\5N(\2\u019d\u01a0\5N(\2\u019e\u019f\7+\2\2\u019f\u01a1\5N(\2\u01a0\u019e" +
-                    "\3\2\2\2\u01a1\u01a2\3\2\2\2\u01a2\u01a0\3\2\2\2\u01a2\u01a3\3\2\2\2\u01a3" +
-                    "\u01a4\3\2\2\2\u01a4\u01a5\7/\2\2\u01a5\u01a6\5\66\34\2\u01a6\u01a8\3" +
-                    "\2\2\2\u01a7\u019c\3\2\2\2\u01a7\u019d\3\2\2\2\u01a8E\3\2\2\2\u01a9\u01aa" +
-                    "\t\6\2\2\u01aaG\3\2\2\2\u01ab\u01ac\t\7\2\2\u01acI\3\2\2\2\u01ad\u01ae" +
-                    "\5N(\2\u01ae\u01af\7\7\2\2\u01af\u01b1\3\2\2\2\u01b0\u01ad\3\2\2\2\u01b0" +
-                    "\u01b1\3\2\2\2\u01b1\u01b2\3\2\2\2\u01b2\u01b3\5R*\2\u01b3K\3\2\2\2\u01b4" +
-                    "\u01b5\7>\2\2\u01b5M\3\2\2\2\u01b6\u01b7\7>\2\2\u01b7O\3\2\2\2\u01b8\u01b9" +
-                    "\7>\2\2\u01b9Q\3\2\2\2\u01ba\u01bb\7>\2\2\u01bbS\3\2\2\2\u01bc\u01bd\7" +
-                    ">\2\2\u01bdU\3\2\2\2\u01be\u01bf\7A\2\2\u01bfW\3\2\2\2\']dio\u0085\u008f" +
-                    "\u009e\u00ab\u00b0\u00be\u00cc\u00dc\u00e2\u00f8\u00fd\u0105\u010e\u0115" +
-                    "\u011c\u0125\u012a\u0136\u0142\u0149\u0154\u015a\u0165\u0167\u0170\u017a" +
-                    "\u0182\u0184\u018f\u019a\u01a2\u01a7\u01b0";
-    public static final ATN _ATN =
-            new ATNDeserializer().deserialize(_serializedATN.toCharArray());
-
-    static {
-        _decisionToDFA = new DFA[_ATN.getNumberOfDecisions()];
-        for (int i = 0; i < _ATN.getNumberOfDecisions(); i++) {
-            _decisionToDFA[i] = new DFA(_ATN.getDecisionState(i), i);
-        }
-    }
+	static { RuntimeMetaData.checkVersion("4.9.1", RuntimeMetaData.VERSION); }
+
+	protected static final DFA[] _decisionToDFA;
+	protected static final PredictionContextCache _sharedContextCache =
+		new PredictionContextCache();
+	public static final int
+		T__0=1, T__1=2, T__2=3, T__3=4, T__4=5, EQ=6, NE=7, LT=8, GT=9, LE=10, 
+		GE=11, ADD=12, SUB=13, MUL=14, DIV=15, AND=16, OR=17, T_INT=18, T_LONG=19, 
+		T_FLOAT=20, T_DOUBLE=21, T_STRING=22, K_ADD=23, K_ALL=24, K_AS=25, K_BY=26, 
+		K_COLUMN=27, K_COLUMNAR=28, K_COMPRESSED=29, K_OFFHEAP=30, K_CREATE=31, 
+		K_DATABASE=32, K_DATABASES=33, K_DELETE=34, K_DISTINCT=35, K_DROP=36, 
+		K_DUPLICATE=37, K_EXISTS=38, K_FROM=39, K_GRANT=40, K_IF=41, K_IDENTIFIED=42, 
+		K_INDEX=43, K_INSERT=44, K_INTO=45, K_JOIN=46, K_KEY=47, K_NOT=48, K_NULL=49, 
+		K_ON=50, K_PRIMARY=51, K_QUIT=52, K_REVOKE=53, K_SELECT=54, K_SET=55, 
+		K_SHOW=56, K_TABLE=57, K_TO=58, K_UPDATE=59, K_USE=60, K_USER=61, K_VALUES=62, 
+		K_VIEW=63, K_WHERE=64, IDENTIFIER=65, NUMERIC_LITERAL=66, EXPONENT=67, 
+		STRING_LITERAL=68, SINGLE_LINE_COMMENT=69, MULTILINE_COMMENT=70, SPACES=71;
+	public static final int
+		RULE_parse = 0, RULE_sql_stmt_list = 1, RULE_sql_stmt = 2, RULE_create_db_stmt = 3, 
+		RULE_drop_db_stmt = 4, RULE_create_user_stmt = 5, RULE_drop_user_stmt = 6, 
+		RULE_create_table_stmt = 7, RULE_create_index_stmt = 8, RULE_drop_index_stmt = 9, 
+		RULE_show_meta_stmt = 10, RULE_grant_stmt = 11, RULE_revoke_stmt = 12, 
+		RULE_use_db_stmt = 13, RULE_delete_stmt = 14, RULE_drop_table_stmt = 15, 
+		RULE_show_db_stmt = 16, RULE_quit_stmt = 17, RULE_show_table_stmt = 18, 
+		RULE_insert_stmt = 19, RULE_set_clause = 20, RULE_value_entry = 21, RULE_select_stmt = 22, 
+		RULE_create_view_stmt = 23, RULE_drop_view_stmt = 24, RULE_update_stmt = 25, 
+		RULE_column_def = 26, RULE_type_name = 27, RULE_column_constraint = 28, 
+		RULE_multiple_condition = 29, RULE_condition = 30, RULE_comparer = 31, 
+		RULE_comparator = 32, RULE_expression = 33, RULE_table_constraint = 34, 
+		RULE_result_column = 35, RULE_table_query = 36, RULE_auth_level = 37, 
+		RULE_literal_value = 38, RULE_column_full_name = 39, RULE_database_name = 40, 
+		RULE_table_name = 41, RULE_user_name = 42, RULE_column_name = 43, RULE_view_name = 44, 
+		RULE_index_name = 45, RULE_password = 46;
+	private static String[] makeRuleNames() {
+		return new String[] {
+			"parse", "sql_stmt_list", "sql_stmt", "create_db_stmt", "drop_db_stmt", 
+			"create_user_stmt", "drop_user_stmt", "create_table_stmt", "create_index_stmt", 
+			"drop_index_stmt", "show_meta_stmt", "grant_stmt", "revoke_stmt", "use_db_stmt", 
+			"delete_stmt", "drop_table_stmt", "show_db_stmt", "quit_stmt", "show_table_stmt", 
+			"insert_stmt", "set_clause", "value_entry", "select_stmt", "create_view_stmt", 
+			"drop_view_stmt", "update_stmt", "column_def", "type_name", "column_constraint", 
+			"multiple_condition", "condition", "comparer", "comparator", "expression", 
+			"table_constraint", "result_column", "table_query", "auth_level", "literal_value", 
+			"column_full_name", "database_name", "table_name", "user_name", "column_name", 
+			"view_name", "index_name", "password"
+		};
+	}
+	public static final String[] ruleNames = makeRuleNames();
+
+	private static String[] makeLiteralNames() {
+		return new String[] {
+			null, "';'", "'('", "','", "')'", "'.'", "'='", "'<>'", "'<'", "'>'", 
+			"'<='", "'>='", "'+'", "'-'", "'*'", "'/'", "'and'", "'or'"
+		};
+	}
+	private static final String[] _LITERAL_NAMES = makeLiteralNames();
+	private static String[] makeSymbolicNames() {
+		return new String[] {
+			null, null, null, null, null, null, "EQ", "NE", "LT", "GT", "LE", "GE", 
+			"ADD", "SUB", "MUL", "DIV", "AND", "OR", "T_INT", "T_LONG", "T_FLOAT", 
+			"T_DOUBLE", "T_STRING", "K_ADD", "K_ALL", "K_AS", "K_BY", "K_COLUMN", 
+			"K_COLUMNAR", "K_COMPRESSED", "K_OFFHEAP", "K_CREATE", "K_DATABASE", 
+			"K_DATABASES", "K_DELETE", "K_DISTINCT", "K_DROP", "K_DUPLICATE", "K_EXISTS", 
+			"K_FROM", "K_GRANT", "K_IF", "K_IDENTIFIED", "K_INDEX", "K_INSERT", "K_INTO", 
+			"K_JOIN", "K_KEY", "K_NOT", "K_NULL", "K_ON", "K_PRIMARY", "K_QUIT", 
+			"K_REVOKE", "K_SELECT", "K_SET", "K_SHOW", "K_TABLE", "K_TO", "K_UPDATE", 
+			"K_USE", "K_USER", "K_VALUES", "K_VIEW", "K_WHERE", "IDENTIFIER", "NUMERIC_LITERAL", 
+			"EXPONENT", "STRING_LITERAL", "SINGLE_LINE_COMMENT", "MULTILINE_COMMENT", 
+			"SPACES"
+		};
+	}
+	private static final String[] _SYMBOLIC_NAMES = makeSymbolicNames();
+	public static final Vocabulary VOCABULARY = new VocabularyImpl(_LITERAL_NAMES, _SYMBOLIC_NAMES);
+
+	/**
+	 * @deprecated Use {@link #VOCABULARY} instead.
+	 */
+	@Deprecated
+	public static final String[] tokenNames;
+	static {
+		tokenNames = new String[_SYMBOLIC_NAMES.length];
+		for (int i = 0; i < tokenNames.length; i++) {
+			tokenNames[i] = VOCABULARY.getLiteralName(i);
+			if (tokenNames[i] == null) {
+				tokenNames[i] = VOCABULARY.getSymbolicName(i);
+			}
+
+			if (tokenNames[i] == null) {
+				tokenNames[i] = "<INVALID>";
+			}
+		}
+	}
+
+	@Override
+	@Deprecated
+	public String[] getTokenNames() {
+		return tokenNames;
+	}
+
+	@Override
+
+	public Vocabulary getVocabulary() {
+		return VOCABULARY;
+	}
+
+	@Override
+	public String getGrammarFileName() { return "SQL.g4"; }
+
+	@Override
+	public String[] getRuleNames() { return ruleNames; }
+
+	@Override
+	public String getSerializedATN() { return _serializedATN; }
+
+	@Override
+	public ATN getATN() { return _ATN; }
+
+	public SQLParser(TokenStream input) {
+		super(input);
+		_interp = new ParserATNSimulator(this,_ATN,_decisionToDFA,_sharedContextCache);
+	}
+
+	public static class ParseContext extends ParserRuleContext {
+		public Sql_stmt_listContext sql_stmt_list() {
+			return getRuleContext(Sql_stmt_listContext.class,0);
+		}
+		public ParseContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_parse; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterParse(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitParse(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitParse(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ParseContext parse() throws RecognitionException {
+		ParseContext _localctx = new ParseContext(_ctx, getState());
+		enterRule(_localctx, 0, RULE_parse);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(94);
+			sql_stmt_list();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Sql_stmt_listContext extends ParserRuleContext {
+		public List<Sql_stmtContext> sql_stmt() {
+			return getRuleContexts(Sql_stmtContext.class);
+		}
+		public Sql_stmtContext sql_stmt(int i) {
+			return getRuleContext(Sql_stmtContext.class,i);
+		}
+		public Sql_stmt_listContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_sql_stmt_list; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterSql_stmt_list(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitSql_stmt_list(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitSql_stmt_list(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Sql_stmt_listContext sql_stmt_list() throws RecognitionException {
+		Sql_stmt_listContext _localctx = new Sql_stmt_listContext(_ctx, getState());
+		enterRule(_localctx, 2, RULE_sql_stmt_list);
+		int _la;
+		try {
+			int _alt;
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(99);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__0) {
+				{
+				{
+				setState(96);
+				match(T__0);
+				}
+				}
+				setState(101);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(102);
+			sql_stmt();
+			setState(111);
+			_errHandler.sync(this);
+			_alt = getInterpreter().adaptivePredict(_input,2,_ctx);
+			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
+				if ( _alt==1 ) {
+					{
+					{
+					setState(104); 
+					_errHandler.sync(this);
+					_la = _input.LA(1);
+					do {
+						{
+						{
+						setState(103);
+						match(T__0);
+						}
+						}
+						setState(106); 
+						_errHandler.sync(this);
+						_la = _input.LA(1);
+					} while ( _la==T__0 );
+					setState(108);
+					sql_stmt();
+					}
+					} 
+				}
+				setState(113);
+				_errHandler.sync(this);
+				_alt = getInterpreter().adaptivePredict(_input,2,_ctx);
+			}
+			setState(117);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__0) {
+				{
+				{
+				setState(114);
+				match(T__0);
+				}
+				}
+				setState(119);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Sql_stmtContext extends ParserRuleContext {
+		public Create_table_stmtContext create_table_stmt() {
+			return getRuleContext(Create_table_stmtContext.class,0);
+		}
+		public Create_db_stmtContext create_db_stmt() {
+			return getRuleContext(Create_db_stmtContext.class,0);
+		}
+		public Create_user_stmtContext create_user_stmt() {
+			return getRuleContext(Create_user_stmtContext.class,0);
+		}
+		public Drop_db_stmtContext drop_db_stmt() {
+			return getRuleContext(Drop_db_stmtContext.class,0);
+		}
+		public Drop_user_stmtContext drop_user_stmt() {
+			return getRuleContext(Drop_user_stmtContext.class,0);
+		}
+		public Delete_stmtContext delete_stmt() {
+			return getRuleContext(Delete_stmtContext.class,0);
+		}
+		public Drop_table_stmtContext drop_table_stmt() {
+			return getRuleContext(Drop_table_stmtContext.class,0);
+		}
+		public Create_index_stmtContext create_index_stmt() {
+			return getRuleContext(Create_index_stmtContext.class,0);
+		}
+		public Drop_index_stmtContext drop_index_stmt() {
+			return getRuleContext(Drop_index_stmtContext.class,0);
+		}
+		public Insert_stmtContext insert_stmt() {
+			return getRuleContext(Insert_stmtContext.class,0);
+		}
+		public Select_stmtContext select_stmt() {
+			return getRuleContext(Select_stmtContext.class,0);
+		}
+		public Create_view_stmtContext create_view_stmt() {
+			return getRuleContext(Create_view_stmtContext.class,0);
+		}
+		public Drop_view_stmtContext drop_view_stmt() {
+			return getRuleContext(Drop_view_stmtContext.class,0);
+		}
+		public Grant_stmtContext grant_stmt() {
+			return getRuleContext(Grant_stmtContext.class,0);
+		}
+		public Revoke_stmtContext revoke_stmt() {
+			return getRuleContext(Revoke_stmtContext.class,0);
+		}
+		public Use_db_stmtContext use_db_stmt() {
+			return getRuleContext(Use_db_stmtContext.class,0);
+		}
+		public Show_db_stmtContext show_db_stmt() {
+			return getRuleContext(Show_db_stmtContext.class,0);
+		}
+		public Show_table_stmtContext show_table_stmt() {
+			return getRuleContext(Show_table_stmtContext.class,0);
+		}
+		public Show_meta_stmtContext show_meta_stmt() {
+			return getRuleContext(Show_meta_stmtContext.class,0);
+		}
+		public Quit_stmtContext quit_stmt() {
+			return getRuleContext(Quit_stmtContext.class,0);
+		}
+		public Update_stmtContext update_stmt() {
+			return getRuleContext(Update_stmtContext.class,0);
+		}
+		public Sql_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_sql_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterSql_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitSql_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitSql_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Sql_stmtContext sql_stmt() throws RecognitionException {
+		Sql_stmtContext _localctx = new Sql_stmtContext(_ctx, getState());
+		enterRule(_localctx, 4, RULE_sql_stmt);
+		try {
+			setState(141);
+			_errHandler.sync(this);
+			switch ( getInterpreter().adaptivePredict(_input,4,_ctx) ) {
+			case 1:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(120);
+				create_table_stmt();
+				}
+				break;
+			case 2:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(121);
+				create_db_stmt();
+				}
+				break;
+			case 3:
+				enterOuterAlt(_localctx, 3);
+				{
+				setState(122);
+				create_user_stmt();
+				}
+				break;
+			case 4:
+				enterOuterAlt(_localctx, 4);
+				{
+				setState(123);
+				drop_db_stmt();
+				}
+				break;
+			case 5:
+				enterOuterAlt(_localctx, 5);
+				{
+				setState(124);
+				drop_user_stmt();
+				}
+				break;
+			case 6:
+				enterOuterAlt(_localctx, 6);
+				{
+				setState(125);
+				delete_stmt();
+				}
+				break;
+			case 7:
+				enterOuterAlt(_localctx, 7);
+				{
+				setState(126);
+				drop_table_stmt();
+				}
+				break;
+			case 8:
+				enterOuterAlt(_localctx, 8);
+				{
+				setState(127);
+				create_index_stmt();
+				}
+				break;
+			case 9:
+				enterOuterAlt(_localctx, 9);
+				{
+				setState(128);
+				drop_index_stmt();
+				}
+				break;
+			case 10:
+				enterOuterAlt(_localctx, 10);
+				{
+				setState(129);
+				insert_stmt();
+				}
+				break;
+			case 11:
+				enterOuterAlt(_localctx, 11);
+				{
+				setState(130);
+				select_stmt();
+				}
+				break;
+			case 12:
+				enterOuterAlt(_localctx, 12);
+				{
+				setState(131);
+				create_view_stmt();
+				}
+				break;
+			case 13:
+				enterOuterAlt(_localctx, 13);
+				{
+				setState(132);
+				drop_view_stmt();
+				}
+				break;
+			case 14:
+				enterOuterAlt(_localctx, 14);
+				{
+				setState(133);
+				grant_stmt();
+				}
+				break;
+			case 15:
+				enterOuterAlt(_localctx, 15);
+				{
+				setState(134);
+				revoke_stmt();
+				}
+				break;
+			case 16:
+				enterOuterAlt(_localctx, 16);
+				{
+				setState(135);
+				use_db_stmt();
+				}
+				break;
+			case 17:
+				enterOuterAlt(_localctx, 17);
+				{
+				setState(136);
+				show_db_stmt();
+				}
+				break;
+			case 18:
+				enterOuterAlt(_localctx, 18);
+				{
+				setState(137);
+				show_table_stmt();
+				}
+				break;
+			case 19:
+				enterOuterAlt(_localctx, 19);
+				{
+				setState(138);
+				show_meta_stmt();
+				}
+				break;
+			case 20:
+				enterOuterAlt(_localctx, 20);
+				{
+				setState(139);
+				quit_stmt();
+				}
+				break;
+			case 21:
+				enterOuterAlt(_localctx, 21);
+				{
+				setState(140);
+				update_stmt();
+				}
+				break;
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Create_db_stmtContext extends ParserRuleContext {
+		public TerminalNode K_CREATE() { return getToken(SQLParser.K_CREATE, 0); }
+		public TerminalNode K_DATABASE() { return getToken(SQLParser.K_DATABASE, 0); }
+		public Database_nameContext database_name() {
+			return getRuleContext(Database_nameContext.class,0);
+		}
+		public Create_db_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_create_db_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterCreate_db_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitCreate_db_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitCreate_db_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Create_db_stmtContext create_db_stmt() throws RecognitionException {
+		Create_db_stmtContext _localctx = new Create_db_stmtContext(_ctx, getState());
+		enterRule(_localctx, 6, RULE_create_db_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(143);
+			match(K_CREATE);
+			setState(144);
+			match(K_DATABASE);
+			setState(145);
+			database_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Drop_db_stmtContext extends ParserRuleContext {
+		public TerminalNode K_DROP() { return getToken(SQLParser.K_DROP, 0); }
+		public TerminalNode K_DATABASE() { return getToken(SQLParser.K_DATABASE, 0); }
+		public Database_nameContext database_name() {
+			return getRuleContext(Database_nameContext.class,0);
+		}
+		public TerminalNode K_IF() { return getToken(SQLParser.K_IF, 0); }
+		public TerminalNode K_EXISTS() { return getToken(SQLParser.K_EXISTS, 0); }
+		public Drop_db_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_drop_db_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterDrop_db_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitDrop_db_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitDrop_db_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Drop_db_stmtContext drop_db_stmt() throws RecognitionException {
+		Drop_db_stmtContext _localctx = new Drop_db_stmtContext(_ctx, getState());
+		enterRule(_localctx, 8, RULE_drop_db_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(147);
+			match(K_DROP);
+			setState(148);
+			match(K_DATABASE);
+			setState(151);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_IF) {
+				{
+				setState(149);
+				match(K_IF);
+				setState(150);
+				match(K_EXISTS);
+				}
+			}
+
+			setState(153);
+			database_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Create_user_stmtContext extends ParserRuleContext {
+		public TerminalNode K_CREATE() { return getToken(SQLParser.K_CREATE, 0); }
+		public TerminalNode K_USER() { return getToken(SQLParser.K_USER, 0); }
+		public User_nameContext user_name() {
+			return getRuleContext(User_nameContext.class,0);
+		}
+		public TerminalNode K_IDENTIFIED() { return getToken(SQLParser.K_IDENTIFIED, 0); }
+		public TerminalNode K_BY() { return getToken(SQLParser.K_BY, 0); }
+		public PasswordContext password() {
+			return getRuleContext(PasswordContext.class,0);
+		}
+		public Create_user_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_create_user_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterCreate_user_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitCreate_user_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitCreate_user_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Create_user_stmtContext create_user_stmt() throws RecognitionException {
+		Create_user_stmtContext _localctx = new Create_user_stmtContext(_ctx, getState());
+		enterRule(_localctx, 10, RULE_create_user_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(155);
+			match(K_CREATE);
+			setState(156);
+			match(K_USER);
+			setState(157);
+			user_name();
+			setState(158);
+			match(K_IDENTIFIED);
+			setState(159);
+			match(K_BY);
+			setState(160);
+			password();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Drop_user_stmtContext extends ParserRuleContext {
+		public TerminalNode K_DROP() { return getToken(SQLParser.K_DROP, 0); }
+		public TerminalNode K_USER() { return getToken(SQLParser.K_USER, 0); }
+		public User_nameContext user_name() {
+			return getRuleContext(User_nameContext.class,0);
+		}
+		public TerminalNode K_IF() { return getToken(SQLParser.K_IF, 0); }
+		public TerminalNode K_EXISTS() { return getToken(SQLParser.K_EXISTS, 0); }
+		public Drop_user_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_drop_user_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterDrop_user_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitDrop_user_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitDrop_user_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Drop_user_stmtContext drop_user_stmt() throws RecognitionException {
+		Drop_user_stmtContext _localctx = new Drop_user_stmtContext(_ctx, getState());
+		enterRule(_localctx, 12, RULE_drop_user_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(162);
+			match(K_DROP);
+			setState(163);
+			match(K_USER);
+			setState(166);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_IF) {
+				{
+				setState(164);
+				match(K_IF);
+				setState(165);
+				match(K_EXISTS);
+				}
+			}
+
+			setState(168);
+			user_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Create_table_stmtContext extends ParserRuleContext {
+		public TerminalNode K_CREATE() { return getToken(SQLParser.K_CREATE, 0); }
+		public TerminalNode K_TABLE() { return getToken(SQLParser.K_TABLE, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public List<Column_defContext> column_def() {
+			return getRuleContexts(Column_defContext.class);
+		}
+		public Column_defContext column_def(int i) {
+			return getRuleContext(Column_defContext.class,i);
+		}
+		public Table_constraintContext table_constraint() {
+			return getRuleContext(Table_constraintContext.class,0);
+		}
+		public TerminalNode K_COLUMNAR() { return getToken(SQLParser.K_COLUMNAR, 0); }
+		public TerminalNode K_COMPRESSED() { return getToken(SQLParser.K_COMPRESSED, 0); }
+		public TerminalNode K_OFFHEAP() { return getToken(SQLParser.K_OFFHEAP, 0); }
+		public Create_table_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_create_table_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterCreate_table_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitCreate_table_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitCreate_table_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Create_table_stmtContext create_table_stmt() throws RecognitionException {
+		Create_table_stmtContext _localctx = new Create_table_stmtContext(_ctx, getState());
+		enterRule(_localctx, 14, RULE_create_table_stmt);
+		int _la;
+		try {
+			int _alt;
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(170);
+			match(K_CREATE);
+			setState(172);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if ((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << K_COLUMNAR) | (1L << K_COMPRESSED) | (1L << K_OFFHEAP))) != 0)) {
+				{
+				setState(171);
+				_la = _input.LA(1);
+				if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << K_COLUMNAR) | (1L << K_COMPRESSED) | (1L << K_OFFHEAP))) != 0)) ) {
+				_errHandler.recoverInline(this);
+				}
+				else {
+					if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+					_errHandler.reportMatch(this);
+					consume();
+				}
+				}
+			}
+
+			setState(174);
+			match(K_TABLE);
+			setState(175);
+			table_name();
+			setState(176);
+			match(T__1);
+			setState(177);
+			column_def();
+			setState(182);
+			_errHandler.sync(this);
+			_alt = getInterpreter().adaptivePredict(_input,8,_ctx);
+			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
+				if ( _alt==1 ) {
+					{
+					{
+					setState(178);
+					match(T__2);
+					setState(179);
+					column_def();
+					}
+					} 
+				}
+				setState(184);
+				_errHandler.sync(this);
+				_alt = getInterpreter().adaptivePredict(_input,8,_ctx);
+			}
+			setState(187);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==T__2) {
+				{
+				setState(185);
+				match(T__2);
+				setState(186);
+				table_constraint();
+				}
+			}
+
+			setState(189);
+			match(T__3);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Create_index_stmtContext extends ParserRuleContext {
+		public TerminalNode K_CREATE() { return getToken(SQLParser.K_CREATE, 0); }
+		public TerminalNode K_INDEX() { return getToken(SQLParser.K_INDEX, 0); }
+		public Index_nameContext index_name() {
+			return getRuleContext(Index_nameContext.class,0);
+		}
+		public TerminalNode K_ON() { return getToken(SQLParser.K_ON, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public Column_nameContext column_name() {
+			return getRuleContext(Column_nameContext.class,0);
+		}
+		public Create_index_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_create_index_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterCreate_index_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitCreate_index_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitCreate_index_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Create_index_stmtContext create_index_stmt() throws RecognitionException {
+		Create_index_stmtContext _localctx = new Create_index_stmtContext(_ctx, getState());
+		enterRule(_localctx, 16, RULE_create_index_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(191);
+			match(K_CREATE);
+			setState(192);
+			match(K_INDEX);
+			setState(193);
+			index_name();
+			setState(194);
+			match(K_ON);
+			setState(195);
+			table_name();
+			setState(196);
+			match(T__1);
+			setState(197);
+			column_name();
+			setState(198);
+			match(T__3);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Drop_index_stmtContext extends ParserRuleContext {
+		public TerminalNode K_DROP() { return getToken(SQLParser.K_DROP, 0); }
+		public TerminalNode K_INDEX() { return getToken(SQLParser.K_INDEX, 0); }
+		public Index_nameContext index_name() {
+			return getRuleContext(Index_nameContext.class,0);
+		}
+		public TerminalNode K_ON() { return getToken(SQLParser.K_ON, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public Drop_index_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_drop_index_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterDrop_index_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitDrop_index_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitDrop_index_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Drop_index_stmtContext drop_index_stmt() throws RecognitionException {
+		Drop_index_stmtContext _localctx = new Drop_index_stmtContext(_ctx, getState());
+		enterRule(_localctx, 18, RULE_drop_index_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(200);
+			match(K_DROP);
+			setState(201);
+			match(K_INDEX);
+			setState(202);
+			index_name();
+			setState(203);
+			match(K_ON);
+			setState(204);
+			table_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Show_meta_stmtContext extends ParserRuleContext {
+		public TerminalNode K_SHOW() { return getToken(SQLParser.K_SHOW, 0); }
+		public TerminalNode K_TABLE() { return getToken(SQLParser.K_TABLE, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public Show_meta_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_show_meta_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterShow_meta_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitShow_meta_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitShow_meta_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Show_meta_stmtContext show_meta_stmt() throws RecognitionException {
+		Show_meta_stmtContext _localctx = new Show_meta_stmtContext(_ctx, getState());
+		enterRule(_localctx, 20, RULE_show_meta_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(206);
+			match(K_SHOW);
+			setState(207);
+			match(K_TABLE);
+			setState(208);
+			table_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Grant_stmtContext extends ParserRuleContext {
+		public TerminalNode K_GRANT() { return getToken(SQLParser.K_GRANT, 0); }
+		public List<Auth_levelContext> auth_level() {
+			return getRuleContexts(Auth_levelContext.class);
+		}
+		public Auth_levelContext auth_level(int i) {
+			return getRuleContext(Auth_levelContext.class,i);
+		}
+		public TerminalNode K_ON() { return getToken(SQLParser.K_ON, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public TerminalNode K_TO() { return getToken(SQLParser.K_TO, 0); }
+		public User_nameContext user_name() {
+			return getRuleContext(User_nameContext.class,0);
+		}
+		public Grant_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_grant_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterGrant_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitGrant_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitGrant_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Grant_stmtContext grant_stmt() throws RecognitionException {
+		Grant_stmtContext _localctx = new Grant_stmtContext(_ctx, getState());
+		enterRule(_localctx, 22, RULE_grant_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(210);
+			match(K_GRANT);
+			setState(211);
+			auth_level();
+			setState(216);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__2) {
+				{
+				{
+				setState(212);
+				match(T__2);
+				setState(213);
+				auth_level();
+				}
+				}
+				setState(218);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(219);
+			match(K_ON);
+			setState(220);
+			table_name();
+			setState(221);
+			match(K_TO);
+			setState(222);
+			user_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Revoke_stmtContext extends ParserRuleContext {
+		public TerminalNode K_REVOKE() { return getToken(SQLParser.K_REVOKE, 0); }
+		public List<Auth_levelContext> auth_level() {
+			return getRuleContexts(Auth_levelContext.class);
+		}
+		public Auth_levelContext auth_level(int i) {
+			return getRuleContext(Auth_levelContext.class,i);
+		}
+		public TerminalNode K_ON() { return getToken(SQLParser.K_ON, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public TerminalNode K_FROM() { return getToken(SQLParser.K_FROM, 0); }
+		public User_nameContext user_name() {
+			return getRuleContext(User_nameContext.class,0);
+		}
+		public Revoke_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_revoke_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterRevoke_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitRevoke_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitRevoke_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Revoke_stmtContext revoke_stmt() throws RecognitionException {
+		Revoke_stmtContext _localctx = new Revoke_stmtContext(_ctx, getState());
+		enterRule(_localctx, 24, RULE_revoke_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(224);
+			match(K_REVOKE);
+			setState(225);
+			auth_level();
+			setState(230);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__2) {
+				{
+				{
+				setState(226);
+				match(T__2);
+				setState(227);
+				auth_level();
+				}
+				}
+				setState(232);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(233);
+			match(K_ON);
+			setState(234);
+			table_name();
+			setState(235);
+			match(K_FROM);
+			setState(236);
+			user_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Use_db_stmtContext extends ParserRuleContext {
+		public TerminalNode K_USE() { return getToken(SQLParser.K_USE, 0); }
+		public Database_nameContext database_name() {
+			return getRuleContext(Database_nameContext.class,0);
+		}
+		public Use_db_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_use_db_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterUse_db_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitUse_db_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitUse_db_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Use_db_stmtContext use_db_stmt() throws RecognitionException {
+		Use_db_stmtContext _localctx = new Use_db_stmtContext(_ctx, getState());
+		enterRule(_localctx, 26, RULE_use_db_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(238);
+			match(K_USE);
+			setState(239);
+			database_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Delete_stmtContext extends ParserRuleContext {
+		public TerminalNode K_DELETE() { return getToken(SQLParser.K_DELETE, 0); }
+		public TerminalNode K_FROM() { return getToken(SQLParser.K_FROM, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public TerminalNode K_WHERE() { return getToken(SQLParser.K_WHERE, 0); }
+		public Multiple_conditionContext multiple_condition() {
+			return getRuleContext(Multiple_conditionContext.class,0);
+		}
+		public Delete_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_delete_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterDelete_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitDelete_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitDelete_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Delete_stmtContext delete_stmt() throws RecognitionException {
+		Delete_stmtContext _localctx = new Delete_stmtContext(_ctx, getState());
+		enterRule(_localctx, 28, RULE_delete_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(241);
+			match(K_DELETE);
+			setState(242);
+			match(K_FROM);
+			setState(243);
+			table_name();
+			setState(246);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_WHERE) {
+				{
+				setState(244);
+				match(K_WHERE);
+				setState(245);
+				multiple_condition(0);
+				}
+			}
+
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Drop_table_stmtContext extends ParserRuleContext {
+		public TerminalNode K_DROP() { return getToken(SQLParser.K_DROP, 0); }
+		public TerminalNode K_TABLE() { return getToken(SQLParser.K_TABLE, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public TerminalNode K_IF() { return getToken(SQLParser.K_IF, 0); }
+		public TerminalNode K_EXISTS() { return getToken(SQLParser.K_EXISTS, 0); }
+		public Drop_table_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_drop_table_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterDrop_table_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitDrop_table_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitDrop_table_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Drop_table_stmtContext drop_table_stmt() throws RecognitionException {
+		Drop_table_stmtContext _localctx = new Drop_table_stmtContext(_ctx, getState());
+		enterRule(_localctx, 30, RULE_drop_table_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(248);
+			match(K_DROP);
+			setState(249);
+			match(K_TABLE);
+			setState(252);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_IF) {
+				{
+				setState(250);
+				match(K_IF);
+				setState(251);
+				match(K_EXISTS);
+				}
+			}
+
+			setState(254);
+			table_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Show_db_stmtContext extends ParserRuleContext {
+		public TerminalNode K_SHOW() { return getToken(SQLParser.K_SHOW, 0); }
+		public TerminalNode K_DATABASES() { return getToken(SQLParser.K_DATABASES, 0); }
+		public Show_db_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_show_db_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterShow_db_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitShow_db_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitShow_db_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Show_db_stmtContext show_db_stmt() throws RecognitionException {
+		Show_db_stmtContext _localctx = new Show_db_stmtContext(_ctx, getState());
+		enterRule(_localctx, 32, RULE_show_db_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(256);
+			match(K_SHOW);
+			setState(257);
+			match(K_DATABASES);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Quit_stmtContext extends ParserRuleContext {
+		public TerminalNode K_QUIT() { return getToken(SQLParser.K_QUIT, 0); }
+		public Quit_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_quit_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterQuit_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitQuit_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitQuit_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Quit_stmtContext quit_stmt() throws RecognitionException {
+		Quit_stmtContext _localctx = new Quit_stmtContext(_ctx, getState());
+		enterRule(_localctx, 34, RULE_quit_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(259);
+			match(K_QUIT);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Show_table_stmtContext extends ParserRuleContext {
+		public TerminalNode K_SHOW() { return getToken(SQLParser.K_SHOW, 0); }
+		public TerminalNode K_DATABASE() { return getToken(SQLParser.K_DATABASE, 0); }
+		public Database_nameContext database_name() {
+			return getRuleContext(Database_nameContext.class,0);
+		}
+		public Show_table_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_show_table_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterShow_table_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitShow_table_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitShow_table_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Show_table_stmtContext show_table_stmt() throws RecognitionException {
+		Show_table_stmtContext _localctx = new Show_table_stmtContext(_ctx, getState());
+		enterRule(_localctx, 36, RULE_show_table_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(261);
+			match(K_SHOW);
+			setState(262);
+			match(K_DATABASE);
+			setState(263);
+			database_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Insert_stmtContext extends ParserRuleContext {
+		public TerminalNode K_INSERT() { return getToken(SQLParser.K_INSERT, 0); }
+		public TerminalNode K_INTO() { return getToken(SQLParser.K_INTO, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public TerminalNode K_VALUES() { return getToken(SQLParser.K_VALUES, 0); }
+		public List<Value_entryContext> value_entry() {
+			return getRuleContexts(Value_entryContext.class);
+		}
+		public Value_entryContext value_entry(int i) {
+			return getRuleContext(Value_entryContext.class,i);
+		}
+		public List<Column_nameContext> column_name() {
+			return getRuleContexts(Column_nameContext.class);
+		}
+		public Column_nameContext column_name(int i) {
+			return getRuleContext(Column_nameContext.class,i);
+		}
+		public TerminalNode K_ON() { return getToken(SQLParser.K_ON, 0); }
+		public TerminalNode K_DUPLICATE() { return getToken(SQLParser.K_DUPLICATE, 0); }
+		public TerminalNode K_KEY() { return getToken(SQLParser.K_KEY, 0); }
+		public TerminalNode K_UPDATE() { return getToken(SQLParser.K_UPDATE, 0); }
+		public List<Set_clauseContext> set_clause() {
+			return getRuleContexts(Set_clauseContext.class);
+		}
+		public Set_clauseContext set_clause(int i) {
+			return getRuleContext(Set_clauseContext.class,i);
+		}
+		public Insert_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_insert_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterInsert_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitInsert_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitInsert_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Insert_stmtContext insert_stmt() throws RecognitionException {
+		Insert_stmtContext _localctx = new Insert_stmtContext(_ctx, getState());
+		enterRule(_localctx, 38, RULE_insert_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(265);
+			match(K_INSERT);
+			setState(266);
+			match(K_INTO);
+			setState(267);
+			table_name();
+			setState(279);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==T__1) {
+				{
+				setState(268);
+				match(T__1);
+				setState(269);
+				column_name();
+				setState(274);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+				while (_la==T__2) {
+					{
+					{
+					setState(270);
+					match(T__2);
+					setState(271);
+					column_name();
+					}
+					}
+					setState(276);
+					_errHandler.sync(this);
+					_la = _input.LA(1);
+				}
+				setState(277);
+				match(T__3);
+				}
+			}
+
+			setState(281);
+			match(K_VALUES);
+			setState(282);
+			value_entry();
+			setState(287);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__2) {
+				{
+				{
+				setState(283);
+				match(T__2);
+				setState(284);
+				value_entry();
+				}
+				}
+				setState(289);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(302);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_ON) {
+				{
+				setState(290);
+				match(K_ON);
+				setState(291);
+				match(K_DUPLICATE);
+				setState(292);
+				match(K_KEY);
+				setState(293);
+				match(K_UPDATE);
+				setState(294);
+				set_clause();
+				setState(299);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+				while (_la==T__2) {
+					{
+					{
+					setState(295);
+					match(T__2);
+					setState(296);
+					set_clause();
+					}
+					}
+					setState(301);
+					_errHandler.sync(this);
+					_la = _input.LA(1);
+				}
+				}
+			}
+
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Set_clauseContext extends ParserRuleContext {
+		public List<Column_nameContext> column_name() {
+			return getRuleContexts(Column_nameContext.class);
+		}
+		public Column_nameContext column_name(int i) {
+			return getRuleContext(Column_nameContext.class,i);
+		}
+		public TerminalNode EQ() { return getToken(SQLParser.EQ, 0); }
+		public Literal_valueContext literal_value() {
+			return getRuleContext(Literal_valueContext.class,0);
+		}
+		public TerminalNode K_VALUES() { return getToken(SQLParser.K_VALUES, 0); }
+		public Set_clauseContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_set_clause; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterSet_clause(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitSet_clause(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitSet_clause(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Set_clauseContext set_clause() throws RecognitionException {
+		Set_clauseContext _localctx = new Set_clauseContext(_ctx, getState());
+		enterRule(_localctx, 40, RULE_set_clause);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(304);
+			column_name();
+			setState(305);
+			match(EQ);
+			setState(312);
+			_errHandler.sync(this);
+			switch (_input.LA(1)) {
+			case K_NULL:
+			case NUMERIC_LITERAL:
+			case STRING_LITERAL:
+				{
+				setState(306);
+				literal_value();
+				}
+				break;
+			case K_VALUES:
+				{
+				setState(307);
+				match(K_VALUES);
+				setState(308);
+				match(T__1);
+				setState(309);
+				column_name();
+				setState(310);
+				match(T__3);
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Value_entryContext extends ParserRuleContext {
+		public List<Literal_valueContext> literal_value() {
+			return getRuleContexts(Literal_valueContext.class);
+		}
+		public Literal_valueContext literal_value(int i) {
+			return getRuleContext(Literal_valueContext.class,i);
+		}
+		public Value_entryContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_value_entry; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterValue_entry(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitValue_entry(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitValue_entry(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Value_entryContext value_entry() throws RecognitionException {
+		Value_entryContext _localctx = new Value_entryContext(_ctx, getState());
+		enterRule(_localctx, 42, RULE_value_entry);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(314);
+			match(T__1);
+			setState(315);
+			literal_value();
+			setState(320);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__2) {
+				{
+				{
+				setState(316);
+				match(T__2);
+				setState(317);
+				literal_value();
+				}
+				}
+				setState(322);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(323);
+			match(T__3);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Select_stmtContext extends ParserRuleContext {
+		public TerminalNode K_SELECT() { return getToken(SQLParser.K_SELECT, 0); }
+		public List<Result_columnContext> result_column() {
+			return getRuleContexts(Result_columnContext.class);
+		}
+		public Result_columnContext result_column(int i) {
+			return getRuleContext(Result_columnContext.class,i);
+		}
+		public TerminalNode K_FROM() { return getToken(SQLParser.K_FROM, 0); }
+		public List<Table_queryContext> table_query() {
+			return getRuleContexts(Table_queryContext.class);
+		}
+		public Table_queryContext table_query(int i) {
+			return getRuleContext(Table_queryContext.class,i);
+		}
+		public TerminalNode K_WHERE() { return getToken(SQLParser.K_WHERE, 0); }
+		public Multiple_conditionContext multiple_condition() {
+			return getRuleContext(Multiple_conditionContext.class,0);
+		}
+		public TerminalNode K_DISTINCT() { return getToken(SQLParser.K_DISTINCT, 0); }
+		public TerminalNode K_ALL() { return getToken(SQLParser.K_ALL, 0); }
+		public Select_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_select_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterSelect_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitSelect_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitSelect_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Select_stmtContext select_stmt() throws RecognitionException {
+		Select_stmtContext _localctx = new Select_stmtContext(_ctx, getState());
+		enterRule(_localctx, 44, RULE_select_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(325);
+			match(K_SELECT);
+			setState(327);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_ALL || _la==K_DISTINCT) {
+				{
+				setState(326);
+				_la = _input.LA(1);
+				if ( !(_la==K_ALL || _la==K_DISTINCT) ) {
+				_errHandler.recoverInline(this);
+				}
+				else {
+					if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+					_errHandler.reportMatch(this);
+					consume();
+				}
+				}
+			}
+
+			setState(329);
+			result_column();
+			setState(334);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__2) {
+				{
+				{
+				setState(330);
+				match(T__2);
+				setState(331);
+				result_column();
+				}
+				}
+				setState(336);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(337);
+			match(K_FROM);
+			setState(338);
+			table_query();
+			setState(343);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__2) {
+				{
+				{
+				setState(339);
+				match(T__2);
+				setState(340);
+				table_query();
+				}
+				}
+				setState(345);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(348);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_WHERE) {
+				{
+				setState(346);
+				match(K_WHERE);
+				setState(347);
+				multiple_condition(0);
+				}
+			}
+
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Create_view_stmtContext extends ParserRuleContext {
+		public TerminalNode K_CREATE() { return getToken(SQLParser.K_CREATE, 0); }
+		public TerminalNode K_VIEW() { return getToken(SQLParser.K_VIEW, 0); }
+		public View_nameContext view_name() {
+			return getRuleContext(View_nameContext.class,0);
+		}
+		public TerminalNode K_AS() { return getToken(SQLParser.K_AS, 0); }
+		public Select_stmtContext select_stmt() {
+			return getRuleContext(Select_stmtContext.class,0);
+		}
+		public Create_view_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_create_view_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterCreate_view_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitCreate_view_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitCreate_view_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Create_view_stmtContext create_view_stmt() throws RecognitionException {
+		Create_view_stmtContext _localctx = new Create_view_stmtContext(_ctx, getState());
+		enterRule(_localctx, 46, RULE_create_view_stmt);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(350);
+			match(K_CREATE);
+			setState(351);
+			match(K_VIEW);
+			setState(352);
+			view_name();
+			setState(353);
+			match(K_AS);
+			setState(354);
+			select_stmt();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Drop_view_stmtContext extends ParserRuleContext {
+		public TerminalNode K_DROP() { return getToken(SQLParser.K_DROP, 0); }
+		public TerminalNode K_VIEW() { return getToken(SQLParser.K_VIEW, 0); }
+		public View_nameContext view_name() {
+			return getRuleContext(View_nameContext.class,0);
+		}
+		public TerminalNode K_IF() { return getToken(SQLParser.K_IF, 0); }
+		public TerminalNode K_EXISTS() { return getToken(SQLParser.K_EXISTS, 0); }
+		public Drop_view_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_drop_view_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterDrop_view_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitDrop_view_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitDrop_view_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Drop_view_stmtContext drop_view_stmt() throws RecognitionException {
+		Drop_view_stmtContext _localctx = new Drop_view_stmtContext(_ctx, getState());
+		enterRule(_localctx, 48, RULE_drop_view_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(356);
+			match(K_DROP);
+			setState(357);
+			match(K_VIEW);
+			setState(360);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_IF) {
+				{
+				setState(358);
+				match(K_IF);
+				setState(359);
+				match(K_EXISTS);
+				}
+			}
+
+			setState(362);
+			view_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Update_stmtContext extends ParserRuleContext {
+		public TerminalNode K_UPDATE() { return getToken(SQLParser.K_UPDATE, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public TerminalNode K_SET() { return getToken(SQLParser.K_SET, 0); }
+		public Column_nameContext column_name() {
+			return getRuleContext(Column_nameContext.class,0);
+		}
+		public TerminalNode EQ() { return getToken(SQLParser.EQ, 0); }
+		public ExpressionContext expression() {
+			return getRuleContext(ExpressionContext.class,0);
+		}
+		public TerminalNode K_WHERE() { return getToken(SQLParser.K_WHERE, 0); }
+		public Multiple_conditionContext multiple_condition() {
+			return getRuleContext(Multiple_conditionContext.class,0);
+		}
+		public Update_stmtContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_update_stmt; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterUpdate_stmt(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitUpdate_stmt(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitUpdate_stmt(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Update_stmtContext update_stmt() throws RecognitionException {
+		Update_stmtContext _localctx = new Update_stmtContext(_ctx, getState());
+		enterRule(_localctx, 50, RULE_update_stmt);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(364);
+			match(K_UPDATE);
+			setState(365);
+			table_name();
+			setState(366);
+			match(K_SET);
+			setState(367);
+			column_name();
+			setState(368);
+			match(EQ);
+			setState(369);
+			expression(0);
+			setState(372);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			if (_la==K_WHERE) {
+				{
+				setState(370);
+				match(K_WHERE);
+				setState(371);
+				multiple_condition(0);
+				}
+			}
+
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Column_defContext extends ParserRuleContext {
+		public Column_nameContext column_name() {
+			return getRuleContext(Column_nameContext.class,0);
+		}
+		public Type_nameContext type_name() {
+			return getRuleContext(Type_nameContext.class,0);
+		}
+		public List<Column_constraintContext> column_constraint() {
+			return getRuleContexts(Column_constraintContext.class);
+		}
+		public Column_constraintContext column_constraint(int i) {
+			return getRuleContext(Column_constraintContext.class,i);
+		}
+		public Column_defContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_column_def; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterColumn_def(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitColumn_def(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitColumn_def(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Column_defContext column_def() throws RecognitionException {
+		Column_defContext _localctx = new Column_defContext(_ctx, getState());
+		enterRule(_localctx, 52, RULE_column_def);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(374);
+			column_name();
+			setState(375);
+			type_name();
+			setState(379);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==K_NOT || _la==K_PRIMARY) {
+				{
+				{
+				setState(376);
+				column_constraint();
+				}
+				}
+				setState(381);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Type_nameContext extends ParserRuleContext {
+		public TerminalNode T_INT() { return getToken(SQLParser.T_INT, 0); }
+		public TerminalNode T_LONG() { return getToken(SQLParser.T_LONG, 0); }
+		public TerminalNode T_FLOAT() { return getToken(SQLParser.T_FLOAT, 0); }
+		public TerminalNode T_DOUBLE() { return getToken(SQLParser.T_DOUBLE, 0); }
+		public TerminalNode T_STRING() { return getToken(SQLParser.T_STRING, 0); }
+		public TerminalNode NUMERIC_LITERAL() { return getToken(SQLParser.NUMERIC_LITERAL, 0); }
+		public Type_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_type_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterType_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitType_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitType_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Type_nameContext type_name() throws RecognitionException {
+		Type_nameContext _localctx = new Type_nameContext(_ctx, getState());
+		enterRule(_localctx, 54, RULE_type_name);
+		try {
+			setState(390);
+			_errHandler.sync(this);
+			switch (_input.LA(1)) {
+			case T_INT:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(382);
+				match(T_INT);
+				}
+				break;
+			case T_LONG:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(383);
+				match(T_LONG);
+				}
+				break;
+			case T_FLOAT:
+				enterOuterAlt(_localctx, 3);
+				{
+				setState(384);
+				match(T_FLOAT);
+				}
+				break;
+			case T_DOUBLE:
+				enterOuterAlt(_localctx, 4);
+				{
+				setState(385);
+				match(T_DOUBLE);
+				}
+				break;
+			case T_STRING:
+				enterOuterAlt(_localctx, 5);
+				{
+				setState(386);
+				match(T_STRING);
+				setState(387);
+				match(T__1);
+				setState(388);
+				match(NUMERIC_LITERAL);
+				setState(389);
+				match(T__3);
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Column_constraintContext extends ParserRuleContext {
+		public TerminalNode K_PRIMARY() { return getToken(SQLParser.K_PRIMARY, 0); }
+		public TerminalNode K_KEY() { return getToken(SQLParser.K_KEY, 0); }
+		public TerminalNode K_NOT() { return getToken(SQLParser.K_NOT, 0); }
+		public TerminalNode K_NULL() { return getToken(SQLParser.K_NULL, 0); }
+		public Column_constraintContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_column_constraint; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterColumn_constraint(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitColumn_constraint(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitColumn_constraint(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Column_constraintContext column_constraint() throws RecognitionException {
+		Column_constraintContext _localctx = new Column_constraintContext(_ctx, getState());
+		enterRule(_localctx, 56, RULE_column_constraint);
+		try {
+			setState(396);
+			_errHandler.sync(this);
+			switch (_input.LA(1)) {
+			case K_PRIMARY:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(392);
+				match(K_PRIMARY);
+				setState(393);
+				match(K_KEY);
+				}
+				break;
+			case K_NOT:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(394);
+				match(K_NOT);
+				setState(395);
+				match(K_NULL);
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Multiple_conditionContext extends ParserRuleContext {
+		public ConditionContext condition() {
+			return getRuleContext(ConditionContext.class,0);
+		}
+		public List<Multiple_conditionContext> multiple_condition() {
+			return getRuleContexts(Multiple_conditionContext.class);
+		}
+		public Multiple_conditionContext multiple_condition(int i) {
+			return getRuleContext(Multiple_conditionContext.class,i);
+		}
+		public TerminalNode AND() { return getToken(SQLParser.AND, 0); }
+		public TerminalNode OR() { return getToken(SQLParser.OR, 0); }
+		public Multiple_conditionContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_multiple_condition; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterMultiple_condition(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitMultiple_condition(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitMultiple_condition(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Multiple_conditionContext multiple_condition() throws RecognitionException {
+		return multiple_condition(0);
+	}
+
+	private Multiple_conditionContext multiple_condition(int _p) throws RecognitionException {
+		ParserRuleContext _parentctx = _ctx;
+		int _parentState = getState();
+		Multiple_conditionContext _localctx = new Multiple_conditionContext(_ctx, _parentState);
+		Multiple_conditionContext _prevctx = _localctx;
+		int _startState = 58;
+		enterRecursionRule(_localctx, 58, RULE_multiple_condition, _p);
+		try {
+			int _alt;
+			enterOuterAlt(_localctx, 1);
+			{
+			{
+			setState(399);
+			condition();
+			}
+			_ctx.stop = _input.LT(-1);
+			setState(409);
+			_errHandler.sync(this);
+			_alt = getInterpreter().adaptivePredict(_input,31,_ctx);
+			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
+				if ( _alt==1 ) {
+					if ( _parseListeners!=null ) triggerExitRuleEvent();
+					_prevctx = _localctx;
+					{
+					setState(407);
+					_errHandler.sync(this);
+					switch ( getInterpreter().adaptivePredict(_input,30,_ctx) ) {
+					case 1:
+						{
+						_localctx = new Multiple_conditionContext(_parentctx, _parentState);
+						pushNewRecursionContext(_localctx, _startState, RULE_multiple_condition);
+						setState(401);
+						if (!(precpred(_ctx, 2))) throw new FailedPredicateException(this, "precpred(_ctx, 2)");
+						setState(402);
+						match(AND);
+						setState(403);
+						multiple_condition(3);
+						}
+						break;
+					case 2:
+						{
+						_localctx = new Multiple_conditionContext(_parentctx, _parentState);
+						pushNewRecursionContext(_localctx, _startState, RULE_multiple_condition);
+						setState(404);
+						if (!(precpred(_ctx, 1))) throw new FailedPredicateException(this, "precpred(_ctx, 1)");
+						setState(405);
+						match(OR);
+						setState(406);
+						multiple_condition(2);
+						}
+						break;
+					}
+					} 
+				}
+				setState(411);
+				_errHandler.sync(this);
+				_alt = getInterpreter().adaptivePredict(_input,31,_ctx);
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			unrollRecursionContexts(_parentctx);
+		}
+		return _localctx;
+	}
+
+	public static class ConditionContext extends ParserRuleContext {
+		public List<ExpressionContext> expression() {
+			return getRuleContexts(ExpressionContext.class);
+		}
+		public ExpressionContext expression(int i) {
+			return getRuleContext(ExpressionContext.class,i);
+		}
+		public ComparatorContext comparator() {
+			return getRuleContext(ComparatorContext.class,0);
+		}
+		public ConditionContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_condition; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterCondition(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitCondition(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitCondition(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ConditionContext condition() throws RecognitionException {
+		ConditionContext _localctx = new ConditionContext(_ctx, getState());
+		enterRule(_localctx, 60, RULE_condition);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(412);
+			expression(0);
+			setState(413);
+			comparator();
+			setState(414);
+			expression(0);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class ComparerContext extends ParserRuleContext {
+		public Column_full_nameContext column_full_name() {
+			return getRuleContext(Column_full_nameContext.class,0);
+		}
+		public Literal_valueContext literal_value() {
+			return getRuleContext(Literal_valueContext.class,0);
+		}
+		public ComparerContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_comparer; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterComparer(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitComparer(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitComparer(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ComparerContext comparer() throws RecognitionException {
+		ComparerContext _localctx = new ComparerContext(_ctx, getState());
+		enterRule(_localctx, 62, RULE_comparer);
+		try {
+			setState(418);
+			_errHandler.sync(this);
+			switch (_input.LA(1)) {
+			case IDENTIFIER:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(416);
+				column_full_name();
+				}
+				break;
+			case K_NULL:
+			case NUMERIC_LITERAL:
+			case STRING_LITERAL:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(417);
+				literal_value();
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class ComparatorContext extends ParserRuleContext {
+		public TerminalNode EQ() { return getToken(SQLParser.EQ, 0); }
+		public TerminalNode NE() { return getToken(SQLParser.NE, 0); }
+		public TerminalNode LE() { return getToken(SQLParser.LE, 0); }
+		public TerminalNode GE() { return getToken(SQLParser.GE, 0); }
+		public TerminalNode LT() { return getToken(SQLParser.LT, 0); }
+		public TerminalNode GT() { return getToken(SQLParser.GT, 0); }
+		public ComparatorContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_comparator; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterComparator(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitComparator(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitComparator(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ComparatorContext comparator() throws RecognitionException {
+		ComparatorContext _localctx = new ComparatorContext(_ctx, getState());
+		enterRule(_localctx, 64, RULE_comparator);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(420);
+			_la = _input.LA(1);
+			if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << EQ) | (1L << NE) | (1L << LT) | (1L << GT) | (1L << LE) | (1L << GE))) != 0)) ) {
+			_errHandler.recoverInline(this);
+			}
+			else {
+				if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+				_errHandler.reportMatch(this);
+				consume();
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class ExpressionContext extends ParserRuleContext {
+		public ComparerContext comparer() {
+			return getRuleContext(ComparerContext.class,0);
+		}
+		public List<ExpressionContext> expression() {
+			return getRuleContexts(ExpressionContext.class);
+		}
+		public ExpressionContext expression(int i) {
+			return getRuleContext(ExpressionContext.class,i);
+		}
+		public TerminalNode MUL() { return getToken(SQLParser.MUL, 0); }
+		public TerminalNode DIV() { return getToken(SQLParser.DIV, 0); }
+		public TerminalNode ADD() { return getToken(SQLParser.ADD, 0); }
+		public TerminalNode SUB() { return getToken(SQLParser.SUB, 0); }
+		public ExpressionContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_expression; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterExpression(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitExpression(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitExpression(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final ExpressionContext expression() throws RecognitionException {
+		return expression(0);
+	}
+
+	private ExpressionContext expression(int _p) throws RecognitionException {
+		ParserRuleContext _parentctx = _ctx;
+		int _parentState = getState();
+		ExpressionContext _localctx = new ExpressionContext(_ctx, _parentState);
+		ExpressionContext _prevctx = _localctx;
+		int _startState = 66;
+		enterRecursionRule(_localctx, 66, RULE_expression, _p);
+		int _la;
+		try {
+			int _alt;
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(428);
+			_errHandler.sync(this);
+			switch (_input.LA(1)) {
+			case K_NULL:
+			case IDENTIFIER:
+			case NUMERIC_LITERAL:
+			case STRING_LITERAL:
+				{
+				setState(423);
+				comparer();
+				}
+				break;
+			case T__1:
+				{
+				setState(424);
+				match(T__1);
+				setState(425);
+				expression(0);
+				setState(426);
+				match(T__3);
+				}
+				break;
+			default:
+				throw new NoViableAltException(this);
+			}
+			_ctx.stop = _input.LT(-1);
+			setState(438);
+			_errHandler.sync(this);
+			_alt = getInterpreter().adaptivePredict(_input,35,_ctx);
+			while ( _alt!=2 && _alt!=org.antlr.v4.runtime.atn.ATN.INVALID_ALT_NUMBER ) {
+				if ( _alt==1 ) {
+					if ( _parseListeners!=null ) triggerExitRuleEvent();
+					_prevctx = _localctx;
+					{
+					setState(436);
+					_errHandler.sync(this);
+					switch ( getInterpreter().adaptivePredict(_input,34,_ctx) ) {
+					case 1:
+						{
+						_localctx = new ExpressionContext(_parentctx, _parentState);
+						pushNewRecursionContext(_localctx, _startState, RULE_expression);
+						setState(430);
+						if (!(precpred(_ctx, 3))) throw new FailedPredicateException(this, "precpred(_ctx, 3)");
+						setState(431);
+						_la = _input.LA(1);
+						if ( !(_la==MUL || _la==DIV) ) {
+						_errHandler.recoverInline(this);
+						}
+						else {
+							if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+							_errHandler.reportMatch(this);
+							consume();
+						}
+						setState(432);
+						expression(4);
+						}
+						break;
+					case 2:
+						{
+						_localctx = new ExpressionContext(_parentctx, _parentState);
+						pushNewRecursionContext(_localctx, _startState, RULE_expression);
+						setState(433);
+						if (!(precpred(_ctx, 2))) throw new FailedPredicateException(this, "precpred(_ctx, 2)");
+						setState(434);
+						_la = _input.LA(1);
+						if ( !(_la==ADD || _la==SUB) ) {
+						_errHandler.recoverInline(this);
+						}
+						else {
+							if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+							_errHandler.reportMatch(this);
+							consume();
+						}
+						setState(435);
+						expression(3);
+						}
+						break;
+					}
+					} 
+				}
+				setState(440);
+				_errHandler.sync(this);
+				_alt = getInterpreter().adaptivePredict(_input,35,_ctx);
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			unrollRecursionContexts(_parentctx);
+		}
+		return _localctx;
+	}
+
+	public static class Table_constraintContext extends ParserRuleContext {
+		public TerminalNode K_PRIMARY() { return getToken(SQLParser.K_PRIMARY, 0); }
+		public TerminalNode K_KEY() { return getToken(SQLParser.K_KEY, 0); }
+		public List<Column_nameContext> column_name() {
+			return getRuleContexts(Column_nameContext.class);
+		}
+		public Column_nameContext column_name(int i) {
+			return getRuleContext(Column_nameContext.class,i);
+		}
+		public Table_constraintContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_table_constraint; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterTable_constraint(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitTable_constraint(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitTable_constraint(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Table_constraintContext table_constraint() throws RecognitionException {
+		Table_constraintContext _localctx = new Table_constraintContext(_ctx, getState());
+		enterRule(_localctx, 68, RULE_table_constraint);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(441);
+			match(K_PRIMARY);
+			setState(442);
+			match(K_KEY);
+			setState(443);
+			match(T__1);
+			setState(444);
+			column_name();
+			setState(449);
+			_errHandler.sync(this);
+			_la = _input.LA(1);
+			while (_la==T__2) {
+				{
+				{
+				setState(445);
+				match(T__2);
+				setState(446);
+				column_name();
+				}
+				}
+				setState(451);
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+			}
+			setState(452);
+			match(T__3);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Result_columnContext extends ParserRuleContext {
+		public TerminalNode MUL() { return getToken(SQLParser.MUL, 0); }
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public Column_full_nameContext column_full_name() {
+			return getRuleContext(Column_full_nameContext.class,0);
+		}
+		public Result_columnContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_result_column; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterResult_column(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitResult_column(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitResult_column(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Result_columnContext result_column() throws RecognitionException {
+		Result_columnContext _localctx = new Result_columnContext(_ctx, getState());
+		enterRule(_localctx, 70, RULE_result_column);
+		try {
+			setState(460);
+			_errHandler.sync(this);
+			switch ( getInterpreter().adaptivePredict(_input,37,_ctx) ) {
+			case 1:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(454);
+				match(MUL);
+				}
+				break;
+			case 2:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(455);
+				table_name();
+				setState(456);
+				match(T__4);
+				setState(457);
+				match(MUL);
+				}
+				break;
+			case 3:
+				enterOuterAlt(_localctx, 3);
+				{
+				setState(459);
+				column_full_name();
+				}
+				break;
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Table_queryContext extends ParserRuleContext {
+		public List<Table_nameContext> table_name() {
+			return getRuleContexts(Table_nameContext.class);
+		}
+		public Table_nameContext table_name(int i) {
+			return getRuleContext(Table_nameContext.class,i);
+		}
+		public TerminalNode K_ON() { return getToken(SQLParser.K_ON, 0); }
+		public Multiple_conditionContext multiple_condition() {
+			return getRuleContext(Multiple_conditionContext.class,0);
+		}
+		public List<TerminalNode> K_JOIN() { return getTokens(SQLParser.K_JOIN); }
+		public TerminalNode K_JOIN(int i) {
+			return getToken(SQLParser.K_JOIN, i);
+		}
+		public Table_queryContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_table_query; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterTable_query(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitTable_query(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitTable_query(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Table_queryContext table_query() throws RecognitionException {
+		Table_queryContext _localctx = new Table_queryContext(_ctx, getState());
+		enterRule(_localctx, 72, RULE_table_query);
+		int _la;
+		try {
+			setState(473);
+			_errHandler.sync(this);
+			switch ( getInterpreter().adaptivePredict(_input,39,_ctx) ) {
+			case 1:
+				enterOuterAlt(_localctx, 1);
+				{
+				setState(462);
+				table_name();
+				}
+				break;
+			case 2:
+				enterOuterAlt(_localctx, 2);
+				{
+				setState(463);
+				table_name();
+				setState(466); 
+				_errHandler.sync(this);
+				_la = _input.LA(1);
+				do {
+					{
+					{
+					setState(464);
+					match(K_JOIN);
+					setState(465);
+					table_name();
+					}
+					}
+					setState(468); 
+					_errHandler.sync(this);
+					_la = _input.LA(1);
+				} while ( _la==K_JOIN );
+				setState(470);
+				match(K_ON);
+				setState(471);
+				multiple_condition(0);
+				}
+				break;
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Auth_levelContext extends ParserRuleContext {
+		public TerminalNode K_SELECT() { return getToken(SQLParser.K_SELECT, 0); }
+		public TerminalNode K_INSERT() { return getToken(SQLParser.K_INSERT, 0); }
+		public TerminalNode K_UPDATE() { return getToken(SQLParser.K_UPDATE, 0); }
+		public TerminalNode K_DELETE() { return getToken(SQLParser.K_DELETE, 0); }
+		public TerminalNode K_DROP() { return getToken(SQLParser.K_DROP, 0); }
+		public Auth_levelContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_auth_level; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterAuth_level(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitAuth_level(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitAuth_level(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Auth_levelContext auth_level() throws RecognitionException {
+		Auth_levelContext _localctx = new Auth_levelContext(_ctx, getState());
+		enterRule(_localctx, 74, RULE_auth_level);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(475);
+			_la = _input.LA(1);
+			if ( !((((_la) & ~0x3f) == 0 && ((1L << _la) & ((1L << K_DELETE) | (1L << K_DROP) | (1L << K_INSERT) | (1L << K_SELECT) | (1L << K_UPDATE))) != 0)) ) {
+			_errHandler.recoverInline(this);
+			}
+			else {
+				if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+				_errHandler.reportMatch(this);
+				consume();
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Literal_valueContext extends ParserRuleContext {
+		public TerminalNode NUMERIC_LITERAL() { return getToken(SQLParser.NUMERIC_LITERAL, 0); }
+		public TerminalNode STRING_LITERAL() { return getToken(SQLParser.STRING_LITERAL, 0); }
+		public TerminalNode K_NULL() { return getToken(SQLParser.K_NULL, 0); }
+		public Literal_valueContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_literal_value; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterLiteral_value(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitLiteral_value(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitLiteral_value(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Literal_valueContext literal_value() throws RecognitionException {
+		Literal_valueContext _localctx = new Literal_valueContext(_ctx, getState());
+		enterRule(_localctx, 76, RULE_literal_value);
+		int _la;
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(477);
+			_la = _input.LA(1);
+			if ( !(((((_la - 49)) & ~0x3f) == 0 && ((1L << (_la - 49)) & ((1L << (K_NULL - 49)) | (1L << (NUMERIC_LITERAL - 49)) | (1L << (STRING_LITERAL - 49)))) != 0)) ) {
+			_errHandler.recoverInline(this);
+			}
+			else {
+				if ( _input.LA(1)==Token.EOF ) matchedEOF = true;
+				_errHandler.reportMatch(this);
+				consume();
+			}
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Column_full_nameContext extends ParserRuleContext {
+		public Column_nameContext column_name() {
+			return getRuleContext(Column_nameContext.class,0);
+		}
+		public Table_nameContext table_name() {
+			return getRuleContext(Table_nameContext.class,0);
+		}
+		public Column_full_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_column_full_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterColumn_full_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitColumn_full_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitColumn_full_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Column_full_nameContext column_full_name() throws RecognitionException {
+		Column_full_nameContext _localctx = new Column_full_nameContext(_ctx, getState());
+		enterRule(_localctx, 78, RULE_column_full_name);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(482);
+			_errHandler.sync(this);
+			switch ( getInterpreter().adaptivePredict(_input,40,_ctx) ) {
+			case 1:
+				{
+				setState(479);
+				table_name();
+				setState(480);
+				match(T__4);
+				}
+				break;
+			}
+			setState(484);
+			column_name();
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Database_nameContext extends ParserRuleContext {
+		public TerminalNode IDENTIFIER() { return getToken(SQLParser.IDENTIFIER, 0); }
+		public Database_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_database_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterDatabase_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitDatabase_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitDatabase_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Database_nameContext database_name() throws RecognitionException {
+		Database_nameContext _localctx = new Database_nameContext(_ctx, getState());
+		enterRule(_localctx, 80, RULE_database_name);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(486);
+			match(IDENTIFIER);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Table_nameContext extends ParserRuleContext {
+		public TerminalNode IDENTIFIER() { return getToken(SQLParser.IDENTIFIER, 0); }
+		public Table_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_table_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterTable_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitTable_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitTable_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Table_nameContext table_name() throws RecognitionException {
+		Table_nameContext _localctx = new Table_nameContext(_ctx, getState());
+		enterRule(_localctx, 82, RULE_table_name);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(488);
+			match(IDENTIFIER);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class User_nameContext extends ParserRuleContext {
+		public TerminalNode IDENTIFIER() { return getToken(SQLParser.IDENTIFIER, 0); }
+		public User_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_user_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterUser_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitUser_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitUser_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final User_nameContext user_name() throws RecognitionException {
+		User_nameContext _localctx = new User_nameContext(_ctx, getState());
+		enterRule(_localctx, 84, RULE_user_name);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(490);
+			match(IDENTIFIER);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Column_nameContext extends ParserRuleContext {
+		public TerminalNode IDENTIFIER() { return getToken(SQLParser.IDENTIFIER, 0); }
+		public Column_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_column_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterColumn_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitColumn_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitColumn_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Column_nameContext column_name() throws RecognitionException {
+		Column_nameContext _localctx = new Column_nameContext(_ctx, getState());
+		enterRule(_localctx, 86, RULE_column_name);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(492);
+			match(IDENTIFIER);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class View_nameContext extends ParserRuleContext {
+		public TerminalNode IDENTIFIER() { return getToken(SQLParser.IDENTIFIER, 0); }
+		public View_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_view_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterView_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitView_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitView_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final View_nameContext view_name() throws RecognitionException {
+		View_nameContext _localctx = new View_nameContext(_ctx, getState());
+		enterRule(_localctx, 88, RULE_view_name);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(494);
+			match(IDENTIFIER);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class Index_nameContext extends ParserRuleContext {
+		public TerminalNode IDENTIFIER() { return getToken(SQLParser.IDENTIFIER, 0); }
+		public Index_nameContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_index_name; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterIndex_name(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitIndex_name(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitIndex_name(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final Index_nameContext index_name() throws RecognitionException {
+		Index_nameContext _localctx = new Index_nameContext(_ctx, getState());
+		enterRule(_localctx, 90, RULE_index_name);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(496);
+			match(IDENTIFIER);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public static class PasswordContext extends ParserRuleContext {
+		public TerminalNode STRING_LITERAL() { return getToken(SQLParser.STRING_LITERAL, 0); }
+		public PasswordContext(ParserRuleContext parent, int invokingState) {
+			super(parent, invokingState);
+		}
+		@Override public int getRuleIndex() { return RULE_password; }
+		@Override
+		public void enterRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).enterPassword(this);
+		}
+		@Override
+		public void exitRule(ParseTreeListener listener) {
+			if ( listener instanceof SQLListener ) ((SQLListener)listener).exitPassword(this);
+		}
+		@Override
+		public <T> T accept(ParseTreeVisitor<? extends T> visitor) {
+			if ( visitor instanceof SQLVisitor ) return ((SQLVisitor<? extends T>)visitor).visitPassword(this);
+			else return visitor.visitChildren(this);
+		}
+	}
+
+	public final PasswordContext password() throws RecognitionException {
+		PasswordContext _localctx = new PasswordContext(_ctx, getState());
+		enterRule(_localctx, 92, RULE_password);
+		try {
+			enterOuterAlt(_localctx, 1);
+			{
+			setState(498);
+			match(STRING_LITERAL);
+			}
+		}
+		catch (RecognitionException re) {
+			_localctx.exception = re;
+			_errHandler.reportError(this, re);
+			_errHandler.recover(this, re);
+		}
+		finally {
+			exitRule();
+		}
+		return _localctx;
+	}
+
+	public boolean sempred(RuleContext _localctx, int ruleIndex, int predIndex) {
+		switch (ruleIndex) {
+		case 29:
+			return multiple_condition_sempred((Multiple_conditionContext)_localctx, predIndex);
+		case 33:
+			return expression_sempred((ExpressionContext)_localctx, predIndex);
+		}
+		return true;
+	}
+	private boolean multiple_condition_sempred(Multiple_conditionContext _localctx, int predIndex) {
+		switch (predIndex) {
+		case 0:
+			return precpred(_ctx, 2);
+		case 1:
+			return precpred(_ctx, 1);
+		}
+		return true;
+	}
+	private boolean expression_sempred(ExpressionContext _localctx, int predIndex) {
+		switch (predIndex) {
+		case 2:
+			return precpred(_ctx, 3);
+		case 3:
+			return precpred(_ctx, 2);
+		}
+		return true;
+	}
+
+	public static final String _serializedATN =
+		"\3\u608b\ua72a\u8133\ub9ed\u417c\u3be7\u7786\u5964\3I\u01f7\4\2\t\2\4"+
+		"\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4\13\t"+
+		"\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22\t\22"+
+		"\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31\t\31"+
+		"\4\32\t\32\4\33\t\33\4\34\t\34\4\35\t\35\4\36\t\36\4\37\t\37\4 \t \4!"+
+		"\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\4\'\t\'\4(\t(\4)\t)\4*\t*\4+\t+\4"+
+		",\t,\4-\t-\4.\t.\4/\t/\4\60\t\60\3\2\3\2\3\3\7\3d\n\3\f\3\16\3g\13\3\3"+
+		"\3\3\3\6\3k\n\3\r\3\16\3l\3\3\7\3p\n\3\f\3\16\3s\13\3\3\3\7\3v\n\3\f\3"+
+		"\16\3y\13\3\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3\4\3"+
+		"\4\3\4\3\4\3\4\3\4\3\4\3\4\5\4\u0090\n\4\3\5\3\5\3\5\3\5\3\6\3\6\3\6\3"+
+		"\6\5\6\u009a\n\6\3\6\3\6\3\7\3\7\3\7\3\7\3\7\3\7\3\7\3\b\3\b\3\b\3\b\5"+
+		"\b\u00a9\n\b\3\b\3\b\3\t\3\t\5\t\u00af\n\t\3\t\3\t\3\t\3\t\3\t\3\t\7\t"+
+		"\u00b7\n\t\f\t\16\t\u00ba\13\t\3\t\3\t\5\t\u00be\n\t\3\t\3\t\3\n\3\n\3"+
+		"\n\3\n\3\n\3\n\3\n\3\n\3\n\3\13\3\13\3\13\3\13\3\13\3\13\3\f\3\f\3\f\3"+
+		"\f\3\r\3\r\3\r\3\r\7\r\u00d9\n\r\f\r\16\r\u00dc\13\r\3\r\3\r\3\r\3\r\3"+
+		"\r\3\16\3\16\3\16\3\16\7\16\u00e7\n\16\f\16\16\16\u00ea\13\16\3\16\3\16"+
+		"\3\16\3\16\3\16\3\17\3\17\3\17\3\20\3\20\3\20\3\20\3\20\5\20\u00f9\n\20"+
+		"\3\21\3\21\3\21\3\21\5\21\u00ff\n\21\3\21\3\21\3\22\3\22\3\22\3\23\3\23"+
+		"\3\24\3\24\3\24\3\24\3\25\3\25\3\25\3\25\3\25\3\25\3\25\7\25\u0113\n\25"+
+		"\f\25\16\25\u0116\13\25\3\25\3\25\5\25\u011a\n\25\3\25\3\25\3\25\3\25"+
+		"\7\25\u0120\n\25\f\25\16\25\u0123\13\25\3\25\3\25\3\25\3\25\3\25\3\25"+
+		"\3\25\7\25\u012c\n\25\f\25\16\25\u012f\13\25\5\25\u0131\n\25\3\26\3\26"+
+		"\3\26\3\26\3\26\3\26\3\26\3\26\5\26\u013b\n\26\3\27\3\27\3\27\3\27\7\27"+
+		"\u0141\n\27\f\27\16\27\u0144\13\27\3\27\3\27\3\30\3\30\5\30\u014a\n\30"+
+		"\3\30\3\30\3\30\7\30\u014f\n\30\f\30\16\30\u0152\13\30\3\30\3\30\3\30"+
+		"\3\30\7\30\u0158\n\30\f\30\16\30\u015b\13\30\3\30\3\30\5\30\u015f\n\30"+
+		"\3\31\3\31\3\31\3\31\3\31\3\31\3\32\3\32\3\32\3\32\5\32\u016b\n\32\3\32"+
+		"\3\32\3\33\3\33\3\33\3\33\3\33\3\33\3\33\3\33\5\33\u0177\n\33\3\34\3\34"+
+		"\3\34\7\34\u017c\n\34\f\34\16\34\u017f\13\34\3\35\3\35\3\35\3\35\3\35"+
+		"\3\35\3\35\3\35\5\35\u0189\n\35\3\36\3\36\3\36\3\36\5\36\u018f\n\36\3"+
+		"\37\3\37\3\37\3\37\3\37\3\37\3\37\3\37\3\37\7\37\u019a\n\37\f\37\16\37"+
+		"\u019d\13\37\3 \3 \3 \3 \3!\3!\5!\u01a5\n!\3\"\3\"\3#\3#\3#\3#\3#\3#\5"+
+		"#\u01af\n#\3#\3#\3#\3#\3#\3#\7#\u01b7\n#\f#\16#\u01ba\13#\3$\3$\3$\3$"+
+		"\3$\3$\7$\u01c2\n$\f$\16$\u01c5\13$\3$\3$\3%\3%\3%\3%\3%\3%\5%\u01cf\n"+
+		"%\3&\3&\3&\3&\6&\u01d5\n&\r&\16&\u01d6\3&\3&\3&\5&\u01dc\n&\3\'\3\'\3"+
+		"(\3(\3)\3)\3)\5)\u01e5\n)\3)\3)\3*\3*\3+\3+\3,\3,\3-\3-\3.\3.\3/\3/\3"+
+		"\60\3\60\3\60\2\4<D\61\2\4\6\b\n\f\16\20\22\24\26\30\32\34\36 \"$&(*,"+
+		".\60\62\64\668:<>@BDFHJLNPRTVXZ\\^\2\t\3\2\36 \4\2\32\32%%\3\2\b\r\3\2"+
+		"\20\21\3\2\16\17\7\2$$&&..88==\5\2\63\63DDFF\2\u0207\2`\3\2\2\2\4e\3\2"+
+		"\2\2\6\u008f\3\2\2\2\b\u0091\3\2\2\2\n\u0095\3\2\2\2\f\u009d\3\2\2\2\16"+
+		"\u00a4\3\2\2\2\20\u00ac\3\2\2\2\22\u00c1\3\2\2\2\24\u00ca\3\2\2\2\26\u00d0"+
+		"\3\2\2\2\30\u00d4\3\2\2\2\32\u00e2\3\2\2\2\34\u00f0\3\2\2\2\36\u00f3\3"+
+		"\2\2\2 \u00fa\3\2\2\2\"\u0102\3\2\2\2$\u0105\3\2\2\2&\u0107\3\2\2\2(\u010b"+
+		"\3\2\2\2*\u0132\3\2\2\2,\u013c\3\2\2\2.\u0147\3\2\2\2\60\u0160\3\2\2\2"+
+		"\62\u0166\3\2\2\2\64\u016e\3\2\2\2\66\u0178\3\2\2\28\u0188\3\2\2\2:\u018e"+
+		"\3\2\2\2<\u0190\3\2\2\2>\u019e\3\2\2\2@\u01a4\3\2\2\2B\u01a6\3\2\2\2D"+
+		"\u01ae\3\2\2\2F\u01bb\3\2\2\2H\u01ce\3\2\2\2J\u01db\3\2\2\2L\u01dd\3\2"+
+		"\2\2N\u01df\3\2\2\2P\u01e4\3\2\2\2R\u01e8\3\2\2\2T\u01ea\3\2\2\2V\u01ec"+
+		"\3\2\2\2X\u01ee\3\2\2\2Z\u01f0\3\2\2\2\\\u01f2\3\2\2\2^\u01f4\3\2\2\2"+
+		"`a\5\4\3\2a\3\3\2\2\2bd\7\3\2\2cb\3\2\2\2dg\3\2\2\2ec\3\2\2\2ef\3\2\2"+
+		"\2fh\3\2\2\2ge\3\2\2\2hq\5\6\4\2ik\7\3\2\2ji\3\2\2\2kl\3\2\2\2lj\3\2\2"+
+		"\2lm\3\2\2\2mn\3\2\2\2np\5\6\4\2oj\3\2\2\2ps\3\2\2\2qo\3\2\2\2qr\3\2\2"+
+		"\2rw\3\2\2\2sq\3\2\2\2tv\7\3\2\2ut\3\2\2\2vy\3\2\2\2wu\3\2\2\2wx\3\2\2"+
+		"\2x\5\3\2\2\2yw\3\2\2\2z\u0090\5\20\t\2{\u0090\5\b\5\2|\u0090\5\f\7\2"+
+		"}\u0090\5\n\6\2~\u0090\5\16\b\2\177\u0090\5\36\20\2\u0080\u0090\5 \21"+
+		"\2\u0081\u0090\5\22\n\2\u0082\u0090\5\24\13\2\u0083\u0090\5(\25\2\u0084"+
+		"\u0090\5.\30\2\u0085\u0090\5\60\31\2\u0086\u0090\5\62\32\2\u0087\u0090"+
+		"\5\30\r\2\u0088\u0090\5\32\16\2\u0089\u0090\5\34\17\2\u008a\u0090\5\""+
+		"\22\2\u008b\u0090\5&\24\2\u008c\u0090\5\26\f\2\u008d\u0090\5$\23\2\u008e"+
+		"\u0090\5\64\33\2\u008fz\3\2\2\2\u008f{\3\2\2\2\u008f|\3\2\2\2\u008f}\3"+
+		"\2\2\2\u008f~\3\2\2\2\u008f\177\3\2\2\2\u008f\u0080\3\2\2\2\u008f\u0081"+
+		"\3\2\2\2\u008f\u0082\3\2\2\2\u008f\u0083\3\2\2\2\u008f\u0084\3\2\2\2\u008f"+
+		"\u0085\3\2\2\2\u008f\u0086\3\2\2\2\u008f\u0087\3\2\2\2\u008f\u0088\3\2"+
+		"\2\2\u008f\u0089\3\2\2\2\u008f\u008a\3\2\2\2\u008f\u008b\3\2\2\2\u008f"+
+		"\u008c\3\2\2\2\u008f\u008d\3\2\2\2\u008f\u008e\3\2\2\2\u0090\7\3\2\2\2"+
+		"\u0091\u0092\7!\2\2\u0092\u0093\7\"\2\2\u0093\u0094\5R*\2\u0094\t\3\2"+
+		"\2\2\u0095\u0096\7&\2\2\u0096\u0099\7\"\2\2\u0097\u0098\7+\2\2\u0098\u009a"+
+		"\7(\2\2\u0099\u0097\3\2\2\2\u0099\u009a\3\2\2\2\u009a\u009b\3\2\2\2\u009b"+
+		"\u009c\5R*\2\u009c\13\3\2\2\2\u009d\u009e\7!\2\2\u009e\u009f\7?\2\2\u009f"+
+		"\u00a0\5V,\2\u00a0\u00a1\7,\2\2\u00a1\u00a2\7\34\2\2\u00a2\u00a3\5^\60"+
+		"\2\u00a3\r\3\2\2\2\u00a4\u00a5\7&\2\2\u00a5\u00a8\7?\2\2\u00a6\u00a7\7"+
+		"+\2\2\u00a7\u00a9\7(\2\2\u00a8\u00a6\3\2\2\2\u00a8\u00a9\3\2\2\2\u00a9"+
+		"\u00aa\3\2\2\2\u00aa\u00ab\5V,\2\u00ab\17\3\2\2\2\u00ac\u00ae\7!\2\2\u00ad"+
+		"\u00af\t\2\2\2\u00ae\u00ad\3\2\2\2\u00ae\u00af\3\2\2\2\u00af\u00b0\3\2"+
+		"\2\2\u00b0\u00b1\7;\2\2\u00b1\u00b2\5T+\2\u00b2\u00b3\7\4\2\2\u00b3\u00b8"+
+		"\5\66\34\2\u00b4\u00b5\7\5\2\2\u00b5\u00b7\5\66\34\2\u00b6\u00b4\3\2\2"+
+		"\2\u00b7\u00ba\3\2\2\2\u00b8\u00b6\3\2\2\2\u00b8\u00b9\3\2\2\2\u00b9\u00bd"+
+		"\3\2\2\2\u00ba\u00b8\3\2\2\2\u00bb\u00bc\7\5\2\2\u00bc\u00be\5F$\2\u00bd"+
+		"\u00bb\3\2\2\2\u00bd\u00be\3\2\2\2\u00be\u00bf\3\2\2\2\u00bf\u00c0\7\6"+
+		"\2\2\u00c0\21\3\2\2\2\u00c1\u00c2\7!\2\2\u00c2\u00c3\7-\2\2\u00c3\u00c4"+
+		"\5\\/\2\u00c4\u00c5\7\64\2\2\u00c5\u00c6\5T+\2\u00c6\u00c7\7\4\2\2\u00c7"+
+		"\u00c8\5X-\2\u00c8\u00c9\7\6\2\2\u00c9\23\3\2\2\2\u00ca\u00cb\7&\2\2\u00cb"+
+		"\u00cc\7-\2\2\u00cc\u00cd\5\\/\2\u00cd\u00ce\7\64\2\2\u00ce\u00cf\5T+"+
+		"\2\u00cf\25\3\2\2\2\u00d0\u00d1\7:\2\2\u00d1\u00d2\7;\2\2\u00d2\u00d3"+
+		"\5T+\2\u00d3\27\3\2\2\2\u00d4\u00d5\7*\2\2\u00d5\u00da\5L\'\2\u00d6\u00d7"+
+		"\7\5\2\2\u00d7\u00d9\5L\'\2\u00d8\u00d6\3\2\2\2\u00d9\u00dc\3\2\2\2\u00da"+
+		"\u00d8\3\2\2\2\u00da\u00db\3\2\2\2\u00db\u00dd\3\2\2\2\u00dc\u00da\3\2"+
+		"\2\2\u00dd\u00de\7\64\2\2\u00de\u00df\5T+\2\u00df\u00e0\7<\2\2\u00e0\u00e1"+
+		"\5V,\2\u00e1\31\3\2\2\2\u00e2\u00e3\7\67\2\2\u00e3\u00e8\5L\'\2\u00e4"+
+		"\u00e5\7\5\2\2\u00e5\u00e7\5L\'\2\u00e6\u00e4\3\2\2\2\u00e7\u00ea\3\2"+
+		"\2\2\u00e8\u00e6\3\2\2\2\u00e8\u00e9\3\2\2\2\u00e9\u00eb\3\2\2\2\u00ea"+
+		"\u00e8\3\2\2\2\u00eb\u00ec\7\64\2\2\u00ec\u00ed\5T+\2\u00ed\u00ee\7)\2"+
+		"\2\u00ee\u00ef\5V,\2\u00ef\33\3\2\2\2\u00f0\u00f1\7>\2\2\u00f1\u00f2\5"+
+		"R*\2\u00f2\35\3\2\2\2\u00f3\u00f4\7$\2\2\u00f4\u00f5\7)\2\2\u00f5\u00f8"+
+		"\5T+\2\u00f6\u00f7\7B\2\2\u00f7\u00f9\5<\37\2\u00f8\u00f6\3\2\2\2\u00f8"+
+		"\u00f9\3\2\2\2\u00f9\37\3\2\2\2\u00fa\u00fb\7&\2\2\u00fb\u00fe\7;\2\2"+
+		"\u00fc\u00fd\7+\2\2\u00fd\u00ff\7(\2\2\u00fe\u00fc\3\2\2\2\u00fe\u00ff"+
+		"\3\2\2\2\u00ff\u0100\3\2\2\2\u0100\u0101\5T+\2\u0101!\3\2\2\2\u0102\u0103"+
+		"\7:\2\2\u0103\u0104\7#\2\2\u0104#\3\2\2\2\u0105\u0106\7\66\2\2\u0106%"+
+		"\3\2\2\2\u0107\u0108\7:\2\2\u0108\u0109\7\"\2\2\u0109\u010a\5R*\2\u010a"+
+		"\'\3\2\2\2\u010b\u010c\7.\2\2\u010c\u010d\7/\2\2\u010d\u0119\5T+\2\u010e"+
+		"\u010f\7\4\2\2\u010f\u0114\5X-\2\u0110\u0111\7\5\2\2\u0111\u0113\5X-\2"+
+		"\u0112\u0110\3\2\2\2\u0113\u0116\3\2\2\2\u0114\u0112\3\2\2\2\u0114\u0115"+
+		"\3\2\2\2\u0115\u0117\3\2\2\2\u0116\u0114\3\2\2\2\u0117\u0118\7\6\2\2\u0118"+
+		"\u011a\3\2\2\2\u0119\u010e\3\2\2\2\u0119\u011a\3\2\2\2\u011a\u011b\3\2"+
+		"\2\2\u011b\u011c\7@\2\2\u011c\u0121\5,\27\2\u011d\u011e\7\5\2\2\u011e"+
+		"\u0120\5,\27\2\u011f\u011d\3\2\2\2\u0120\u0123\3\2\2\2\u0121\u011f\3\2"+
+		"\2\2\u0121\u0122\3\2\2\2\u0122\u0130\3\2\2\2\u0123\u0121\3\2\2\2\u0124"+
+		"\u0125\7\64\2\2\u0125\u0126\7\'\2\2\u0126\u0127\7\61\2\2\u0127\u0128\7"+
+		"=\2\2\u0128\u012d\5*\26\2\u0129\u012a\7\5\2\2\u012a\u012c\5*\26\2\u012b"+
+		"\u0129\3\2\2\2\u012c\u012f\3\2\2\2\u012d\u012b\3\2\2\2\u012d\u012e\3\2"+
+		"\2\2\u012e\u0131\3\2\2\2\u012f\u012d\3\2\2\2\u0130\u0124\3\2\2\2\u0130"+
+		"\u0131\3\2\2\2\u0131)\3\2\2\2\u0132\u0133\5X-\2\u0133\u013a\7\b\2\2\u0134"+
+		"\u013b\5N(\2\u0135\u0136\7@\2\2\u0136\u0137\7\4\2\2\u0137\u0138\5X-\2"+
+		"\u0138\u0139\7\6\2\2\u0139\u013b\3\2\2\2\u013a\u0134\3\2\2\2\u013a\u0135"+
+		"\3\2\2\2\u013b+\3\2\2\2\u013c\u013d\7\4\2\2\u013d\u0142\5N(\2\u013e\u013f"+
+		"\7\5\2\2\u013f\u0141\5N(\2\u0140\u013e\3\2\2\2\u0141\u0144\3\2\2\2\u0142"+
+		"\u0140\3\2\2\2\u0142\u0143\3\2\2\2\u0143\u0145\3\2\2\2\u0144\u0142\3\2"+
+		"\2\2\u0145\u0146\7\6\2\2\u0146-\3\2\2\2\u0147\u0149\78\2\2\u0148\u014a"+
+		"\t\3\2\2\u0149\u0148\3\2\2\2\u0149\u014a\3\2\2\2\u014a\u014b\3\2\2\2\u014b"+
+		"\u0150\5H%\2\u014c\u014d\7\5\2\2\u014d\u014f\5H%\2\u014e\u014c\3\2\2\2"+
+		"\u014f\u0152\3\2\2\2\u0150\u014e\3\2\2\2\u0150\u0151\3\2\2\2\u0151\u0153"+
+		"\3\2\2\2\u0152\u0150\3\2\2\2\u0153\u0154\7)\2\2\u0154\u0159\5J&\2\u0155"+
+		"\u0156\7\5\2\2\u0156\u0158\5J&\2\u0157\u0155\3\2\2\2\u0158\u015b\3\2\2"+
+		"\2\u0159\u0157\3\2\2\2\u0159\u015a\3\2\2\2\u015a\u015e\3\2\2\2\u015b\u0159"+
+		"\3\2\2\2\u015c\u015d\7B\2\2\u015d\u015f\5<\37\2\u015e\u015c\3\2\2\2\u015e"+
+		"\u015f\3\2\2\2\u015f/\3\2\2\2\u0160\u0161\7!\2\2\u0161\u0162\7A\2\2\u0162"+
+		"\u0163\5Z.\2\u0163\u0164\7\33\2\2\u0164\u0165\5.\30\2\u0165\61\3\2\2\2"+
+		"\u0166\u0167\7&\2\2\u0167\u016a\7A\2\2\u0168\u0169\7+\2\2\u0169\u016b"+
+		"\7(\2\2\u016a\u0168\3\2\2\2\u016a\u016b\3\2\2\2\u016b\u016c\3\2\2\2\u016c"+
+		"\u016d\5Z.\2\u016d\63\3\2\2\2\u016e\u016f\7=\2\2\u016f\u0170\5T+\2\u0170"+
+		"\u0171\79\2\2\u0171\u0172\5X-\2\u0172\u0173\7\b\2\2\u0173\u0176\5D#\2"+
+		"\u0174\u0175\7B\2\2\u0175\u0177\5<\37\2\u0176\u0174\3\2\2\2\u0176\u0177"+
+		"\3\2\2\2\u0177\65\3\2\2\2\u0178\u0179\5X-\2\u0179\u017d\58\35\2\u017a"+
+		"\u017c\5:\36\2\u017b\u017a\3\2\2\2\u017c\u017f\3\2\2\2\u017d\u017b\3\2"+
+		"\2\2\u017d\u017e\3\2\2\2\u017e\67\3\2\2\2\u017f\u017d\3\2\2\2\u0180\u0189"+
+		"\7\24\2\2\u0181\u0189\7\25\2\2\u0182\u0189\7\26\2\2\u0183\u0189\7\27\2"+
+		"\2\u0184\u0185\7\30\2\2\u0185\u0186\7\4\2\2\u0186\u0187\7D\2\2\u0187\u0189"+
+		"\7\6\2\2\u0188\u0180\3\2\2\2\u0188\u0181\3\2\2\2\u0188\u0182\3\2\2\2\u0188"+
+		"\u0183\3\2\2\2\u0188\u0184\3\2\2\2\u01899\3\2\2\2\u018a\u018b\7\65\2\2"+
+		"\u018b\u018f\7\61\2\2\u018c\u018d\7\62\2\2\u018d\u018f\7\63\2\2\u018e"+
+		"\u018a\3\2\2\2\u018e\u018c\3\2\2\2\u018f;\3\2\2\2\u0190\u0191\b\37\1\2"+
+		"\u0191\u0192\5> \2\u0192\u019b\3\2\2\2\u0193\u0194\f\4\2\2\u0194\u0195"+
+		"\7\22\2\2\u0195\u019a\5<\37\5\u0196\u0197\f\3\2\2\u0197\u0198\7\23\2\2"+
+		"\u0198\u019a\5<\37\4\u0199\u0193\3\2\2\2\u0199\u0196\3\2\2\2\u019a\u019d"+
+		"\3\2\2\2\u019b\u0199\3\2\2\2\u019b\u019c\3\2\2\2\u019c=\3\2\2\2\u019d"+
+		"\u019b\3\2\2\2\u019e\u019f\5D#\2\u019f\u01a0\5B\"\2\u01a0\u01a1\5D#\2"+
+		"\u01a1?\3\2\2\2\u01a2\u01a5\5P)\2\u01a3\u01a5\5N(\2\u01a4\u01a2\3\2\2"+
+		"\2\u01a4\u01a3\3\2\2\2\u01a5A\3\2\2\2\u01a6\u01a7\t\4\2\2\u01a7C\3\2\2"+
+		"\2\u01a8\u01a9\b#\1\2\u01a9\u01af\5@!\2\u01aa\u01ab\7\4\2\2\u01ab\u01ac"+
+		"\5D#\2\u01ac\u01ad\7\6\2\2\u01ad\u01af\3\2\2\2\u01ae\u01a8\3\2\2\2\u01ae"+
+		"\u01aa\3\2\2\2\u01af\u01b8\3\2\2\2\u01b0\u01b1\f\5\2\2\u01b1\u01b2\t\5"+
+		"\2\2\u01b2\u01b7\5D#\6\u01b3\u01b4\f\4\2\2\u01b4\u01b5\t\6\2\2\u01b5\u01b7"+
+		"\5D#\5\u01b6\u01b0\3\2\2\2\u01b6\u01b3\3\2\2\2\u01b7\u01ba\3\2\2\2\u01b8"+
+		"\u01b6\3\2\2\2\u01b8\u01b9\3\2\2\2\u01b9E\3\2\2\2\u01ba\u01b8\3\2\2\2"+
+		"\u01bb\u01bc\7\65\2\2\u01bc\u01bd\7\61\2\2\u01bd\u01be\7\4\2\2\u01be\u01c3"+
+		"\5X-\2\u01bf\u01c0\7\5\2\2\u01c0\u01c2\5X-\2\u01c1\u01bf\3\2\2\2\u01c2"+
+		"\u01c5\3\2\2\2\u01c3\u01c1\3\2\2\2\u01c3\u01c4\3\2\2\2\u01c4\u01c6\3\2"+
+		"\2\2\u01c5\u01c3\3\2\2\2\u01c6\u01c7\7\6\2\2\u01c7G\3\2\2\2\u01c8\u01cf"+
+		"\7\20\2\2\u01c9\u01ca\5T+\2\u01ca\u01cb\7\7\2\2\u01cb\u01cc\7\20\2\2\u01cc"+
+		"\u01cf\3\2\2\2\u01cd\u01cf\5P)\2\u01ce\u01c8\3\2\2\2\u01ce\u01c9\3\2\2"+
+		"\2\u01ce\u01cd\3\2\2\2\u01cfI\3\2\2\2\u01d0\u01dc\5T+\2\u01d1\u01d4\5"+
+		"T+\2\u01d2\u01d3\7\60\2\2\u01d3\u01d5\5T+\2\u01d4\u01d2\3\2\2\2\u01d5"+
+		"\u01d6\3\2\2\2\u01d6\u01d4\3\2\2\2\u01d6\u01d7\3\2\2\2\u01d7\u01d8\3\2"+
+		"\2\2\u01d8\u01d9\7\64\2\2\u01d9\u01da\5<\37\2\u01da\u01dc\3\2\2\2\u01db"+
+		"\u01d0\3\2\2\2\u01db\u01d1\3\2\2\2\u01dcK\3\2\2\2\u01dd\u01de\t\7\2\2"+
+		"\u01deM\3\2\2\2\u01df\u01e0\t\b\2\2\u01e0O\3\2\2\2\u01e1\u01e2\5T+\2\u01e2"+
+		"\u01e3\7\7\2\2\u01e3\u01e5\3\2\2\2\u01e4\u01e1\3\2\2\2\u01e4\u01e5\3\2"+
+		"\2\2\u01e5\u01e6\3\2\2\2\u01e6\u01e7\5X-\2\u01e7Q\3\2\2\2\u01e8\u01e9"+
+		"\7C\2\2\u01e9S\3\2\2\2\u01ea\u01eb\7C\2\2\u01ebU\3\2\2\2\u01ec\u01ed\7"+
+		"C\2\2\u01edW\3\2\2\2\u01ee\u01ef\7C\2\2\u01efY\3\2\2\2\u01f0\u01f1\7C"+
+		"\2\2\u01f1[\3\2\2\2\u01f2\u01f3\7C\2\2\u01f3]\3\2\2\2\u01f4\u01f5\7F\2"+
+		"\2\u01f5_\3\2\2\2+elqw\u008f\u0099\u00a8\u00ae\u00b8\u00bd\u00da\u00e8"+
+		"\u00f8\u00fe\u0114\u0119\u0121\u012d\u0130\u013a\u0142\u0149\u0150\u0159"+
+		"\u015e\u016a\u0176\u017d\u0188\u018e\u0199\u019b\u01a4\u01ae\u01b6\u01b8"+
+		"\u01c3\u01ce\u01d6\u01db\u01e4";
+	public static final ATN _ATN =
+		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
+	static {
+		_decisionToDFA = new DFA[_ATN.getNumberOfDecisions()];
+		for (int i = 0; i < _ATN.getNumberOfDecisions(); i++) {
+			_decisionToDFA[i] = new DFA(_ATN.getDecisionState(i), i);
+		}
+	}
 }
\ No newline at end of file
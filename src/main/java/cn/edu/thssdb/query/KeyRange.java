@@ -0,0 +1,71 @@
+package cn.edu.thssdb.query;
+
+import cn.edu.thssdb.schema.Cell;
+
+/**
+ * Designed to hold the key interval a WHERE clause restricts an indexed column to.
+ * A null bound means the interval is open on that side.
+ * Conditions joined by AND are folded in with intersectLower/intersectUpper.
+ */
+
+public class KeyRange {
+    public Cell lower;
+    public boolean lowerInclusive;
+    public Cell upper;
+    public boolean upperInclusive;
+
+    public KeyRange() {
+        lower = null;
+        upper = null;
+    }
+
+    public void intersectLower(Cell key, boolean inclusive) {
+        if (lower == null) {
+            lower = key;
+            lowerInclusive = inclusive;
+            return;
+        }
+        int cmp = key.compareTo(lower);
+        if (cmp > 0 || (cmp == 0 && !inclusive)) {
+            lower = key;
+            lowerInclusive = inclusive;
+        }
+    }
+
+    public void intersectUpper(Cell key, boolean inclusive) {
+        if (upper == null) {
+            upper = key;
+            upperInclusive = inclusive;
+            return;
+        }
+        int cmp = key.compareTo(upper);
+        if (cmp < 0 || (cmp == 0 && !inclusive)) {
+            upper = key;
+            upperInclusive = inclusive;
+        }
+    }
+
+    public boolean isUnbounded() {
+        return lower == null && upper == null;
+    }
+
+    // true if the range holds exactly one key
+    public boolean isPoint() {
+        return lower != null && upper != null && lowerInclusive && upperInclusive && lower.compareTo(upper) == 0;
+    }
+
+    // true if the value lies in the range, a null value lies in no range
+    public boolean contains(Cell value) {
+        if (value.value == null)
+            return false;
+        if (lower != null) {
+            int cmp = value.compareTo(lower);
+            if (cmp < 0 || (cmp == 0 && !lowerInclusive)) return false;
+        }
+        if (upper != null) {
+            int cmp = value.compareTo(upper);
+            if (cmp > 0 || (cmp == 0 && !upperInclusive)) return false;
+        }
+        return true;
+    }
+}
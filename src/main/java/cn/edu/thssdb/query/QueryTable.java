@@ -44,11 +44,14 @@ public class QueryTable implements Iterator<Row> {
     }
 
     public QueryTable(Table t) {
+        this(t, t.iterator());
+    }
+
+    public QueryTable(Table t, Iterator<Row> rowIterator) {
         // TODO: finished
         rows = new ArrayList<>();
         columnNames = column2ColumnName(t.columns);
 
-        Iterator<Row> rowIterator = t.iterator();
         while (rowIterator.hasNext()) {
             Row r = rowIterator.next();
             rows.add(r);
@@ -1,8 +1,10 @@
 package cn.edu.thssdb.schema;
 
 import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.type.ColumnType;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 public class Cell implements Comparable<Cell>, Serializable {
     private static final long serialVersionUID = -5809782578272943999L;
@@ -16,11 +18,29 @@ public class Cell implements Comparable<Cell>, Serializable {
         this.value = cell.value;
     }
 
+    /**
+     * Orders null first and values of different types by type, in the order INT, LONG, FLOAT,
+     * DOUBLE, STRING, so any two cells compare. OrderedCellCodec encodes the same order.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public int compareTo(Cell e) {
+        if (value == null || e.value == null)
+            return value == null ? (e.value == null ? 0 : -1) : 1;
+        if (value.getClass() != e.value.getClass())
+            return Integer.compare(typeRank(value), typeRank(e.value));
         return value.compareTo(e.value);
     }
 
+    private static int typeRank(Object value) {
+        if (value instanceof Integer) return 1;
+        if (value instanceof Long) return 2;
+        if (value instanceof Float) return 3;
+        if (value instanceof Double) return 4;
+        if (value instanceof String) return 5;
+        return 6;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
@@ -28,26 +48,23 @@ public class Cell implements Comparable<Cell>, Serializable {
         if (this.getClass() != obj.getClass())
             return false;
         Cell e = (Cell) obj;
-        return value.equals(e.value);
+        return Objects.equals(value, e.value);
     }
 
     public String toString() {
-        return value.toString();
+        return String.valueOf(value);
     }
 
     @Override
     public int hashCode() {
-        return value.hashCode();
+        return Objects.hashCode(value);
     }
 
     public String getValueType() {
         if (this.value == null) return Global.ENTRY_NULL;
-        String valueClassString = this.value.getClass().toString();
-        if (valueClassString.contains("Integer")) return "INT";
-        if (valueClassString.contains("Long")) return "LONG";
-        if (valueClassString.contains("Float")) return "FLOAT";
-        if (valueClassString.contains("Double")) return "DOUBLE";
-        if (valueClassString.contains("String")) return "STRING";
+        for (ColumnType type : ColumnType.values())
+            if (type.isInstance(this.value))
+                return type.name();
         return "UNKNOWN";
     }
 }
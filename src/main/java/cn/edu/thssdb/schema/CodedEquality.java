@@ -0,0 +1,72 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.storage.StringDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Compares the values of rows the way the WHERE and ON of a select do, comparing the codes of
+ * strings from a dictionary instead of the strings. A row of another kind, or a string its
+ * dictionary had no code for, is compared by value.
+ */
+
+final class CodedEquality {
+    private StringDictionary literalDictionary;
+    private int literalCode;
+    private StringDictionary from;
+    private StringDictionary to;
+    private int[] translated; // the code in to of each code of from, -1 for none, -2 not looked up yet
+
+    /**
+     * Whether the value of the column reads as the literal, so a null value matches "null".
+     */
+    boolean equalsLiteral(Row row, int column, String literal) {
+        int code = code(row, column);
+        if (code >= 0) {
+            StringDictionary dictionary = ((CompactRow) row).getLayout().getDictionary(column);
+            if (dictionary != literalDictionary) {
+                literalDictionary = dictionary;
+                literalCode = dictionary.find(literal);
+            }
+            return code == literalCode;
+        }
+        return String.valueOf(row.getValue(column)).equals(literal);
+    }
+
+    /**
+     * Whether the values of the two columns are equal. A null value equals nothing.
+     */
+    boolean equals(Row left, int leftColumn, Row right, int rightColumn) {
+        int leftCode = code(left, leftColumn);
+        int rightCode = code(right, rightColumn);
+        if (leftCode >= 0 && rightCode >= 0) {
+            StringDictionary leftDictionary = ((CompactRow) left).getLayout().getDictionary(leftColumn);
+            StringDictionary rightDictionary = ((CompactRow) right).getLayout().getDictionary(rightColumn);
+            return leftDictionary == rightDictionary ? leftCode == rightCode
+                    : translate(leftDictionary, rightDictionary, leftCode) == rightCode;
+        }
+        Comparable leftValue = left.getValue(leftColumn);
+        return leftValue != null && leftValue.equals(right.getValue(rightColumn));
+    }
+
+    // the code of a string the row holds as one, otherwise -1
+    private static int code(Row row, int column) {
+        return row instanceof CompactRow ? ((CompactRow) row).getCode(column) : -1;
+    }
+
+    private int translate(StringDictionary from, StringDictionary to, int code) {
+        if (from != this.from || to != this.to) {
+            this.from = from;
+            this.to = to;
+            this.translated = new int[0];
+        }
+        if (code >= translated.length) {
+            int length = translated.length;
+            translated = Arrays.copyOf(translated, Math.max(code + 1, from.size()));
+            Arrays.fill(translated, length, translated.length, -2);
+        }
+        if (translated[code] == -2)
+            translated[code] = to.find(from.decode(code));
+        return translated[code];
+    }
+}
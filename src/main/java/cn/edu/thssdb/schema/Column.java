@@ -36,12 +36,13 @@ public class Column implements Comparable<Column> {
         return this.type;
     }
 
+    // position of the column in the primary key counted from 1, or 0
     public int getPrimary() {
         return this.primary;
     }
 
     public boolean isPrimary() {
-        return this.primary == 1;
+        return this.primary > 0;
     }
 
     public boolean cantBeNull() {
@@ -0,0 +1,352 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import cn.edu.thssdb.index.BPlusTree;
+import cn.edu.thssdb.index.Index;
+import cn.edu.thssdb.query.KeyRange;
+import cn.edu.thssdb.storage.ColumnBlock;
+import cn.edu.thssdb.storage.ColumnStore;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Keeps the rows of a columnar table in a ColumnStore in key order, and the rows written
+ * since the store was built in a BPlusTree delta. A key written to the delta hides its row
+ * in the store, as does removing it. Once the delta and the hidden rows outgrow a quarter of
+ * the store, every row is encoded into a new store. Rows read from the store are built on
+ * every read, scan() builds only the cells of the columns asked for.
+ */
+
+class ColumnarIndex implements Index<Cell, Row> {
+    // a smaller table is rebuilt as often as a table of this many rows
+    private static final int MIN_MERGE_ROWS = 1 << 16;
+
+    private final List<Column> columns;
+    private final int[] primaryIndexes;
+    private ColumnStore store;
+    private BitSet removed; // rows of the store that are hidden
+    private int removedCount;
+    private BPlusTree<Cell, Row> delta;
+
+    ColumnarIndex(List<Column> columns, int[] primaryIndexes) {
+        this.columns = columns;
+        this.primaryIndexes = primaryIndexes;
+        load(ColumnStore.build(columns, Collections.emptyIterator()));
+    }
+
+    /**
+     * Replaces every row with the rows of the store.
+     */
+    void load(ColumnStore store) {
+        this.store = store;
+        this.removed = new BitSet();
+        this.removedCount = 0;
+        this.delta = new BPlusTree<>();
+    }
+
+    /**
+     * Returns a store of every row, the current one if nothing was written since it was built.
+     */
+    ColumnStore snapshot() {
+        if (delta.size() == 0 && removedCount == 0)
+            return store;
+        return ColumnStore.build(columns, new RowIterator(iterator()));
+    }
+
+    // encodes the delta into a new store
+    void merge() {
+        load(snapshot());
+    }
+
+    private void mergeIfLarge() {
+        if (delta.size() + removedCount > Math.max(MIN_MERGE_ROWS, store.getRowCount() / 4))
+            merge();
+    }
+
+    private Cell keyAt(int row) {
+        if (primaryIndexes.length == 1)
+            return new Cell(store.get(row, primaryIndexes[0]));
+        ArrayList<Cell> cells = new ArrayList<>(primaryIndexes.length);
+        for (int primaryIndex : primaryIndexes)
+            cells.add(new Cell(store.get(row, primaryIndex)));
+        return new Cell(CompositeKey.of(cells));
+    }
+
+    // the row of the key in the store, or -(the row it would be at) - 1
+    private int find(Cell key) {
+        int low = 0;
+        int high = store.getRowCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = keyAt(mid).compareTo(key);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -low - 1;
+    }
+
+    // the row of the key in the store if it is not hidden, otherwise -1
+    private int live(Cell key) {
+        int row = find(key);
+        return row >= 0 && !removed.get(row) ? row : -1;
+    }
+
+    private void hide(int row) {
+        removed.set(row);
+        removedCount++;
+    }
+
+    // the first row after the bound, or at it if inclusive
+    private int lowerRow(Cell bound, boolean inclusive) {
+        if (bound == null) return 0;
+        int row = find(bound);
+        return row >= 0 ? (inclusive ? row : row + 1) : -row - 1;
+    }
+
+    // the row after the last one before the bound, or at it if inclusive
+    private int upperRow(Cell bound, boolean inclusive) {
+        if (bound == null) return store.getRowCount();
+        int row = find(bound);
+        return row >= 0 ? (inclusive ? row + 1 : row) : -row - 1;
+    }
+
+    // about the bytes of heap the store and the delta take, a delta row counted as a cell per column
+    long memorySize() {
+        return store.memorySize() + removed.size() / 8 + (long) delta.size() * (64 + 32L * columns.size());
+    }
+
+    @Override
+    public int size() {
+        return store.getRowCount() - removedCount + delta.size();
+    }
+
+    @Override
+    public Row get(Cell key) {
+        if (key == null) throw new IllegalArgumentException("argument key to get() is null");
+        if (delta.contains(key))
+            return delta.get(key);
+        int row = live(key);
+        if (row < 0)
+            throw new KeyNotExistException();
+        return store.getRow(row);
+    }
+
+    @Override
+    public void put(Cell key, Row value) {
+        if (key == null) throw new IllegalArgumentException("argument key to put() is null");
+        if (delta.contains(key) || live(key) >= 0)
+            throw new DuplicateKeyException();
+        delta.put(key, value);
+        mergeIfLarge();
+    }
+
+    @Override
+    public void update(Cell key, Row value) {
+        if (key == null) throw new IllegalArgumentException("argument key to update() is null");
+        if (delta.contains(key)) {
+            delta.update(key, value);
+            return;
+        }
+        int row = live(key);
+        if (row < 0)
+            throw new KeyNotExistException();
+        hide(row);
+        delta.put(key, value);
+        mergeIfLarge();
+    }
+
+    @Override
+    public void remove(Cell key) {
+        if (key == null) throw new IllegalArgumentException("argument key to remove() is null");
+        // a key in the delta already hides its row in the store
+        if (delta.contains(key)) {
+            delta.remove(key);
+            return;
+        }
+        int row = live(key);
+        if (row < 0)
+            throw new KeyNotExistException();
+        hide(row);
+        mergeIfLarge();
+    }
+
+    @Override
+    public boolean contains(Cell key) {
+        if (key == null) throw new IllegalArgumentException("argument key to contains() is null");
+        return delta.contains(key) || live(key) >= 0;
+    }
+
+    @Override
+    public void bulkLoad(Iterator<Pair<Cell, Row>> sortedEntries) {
+        if (size() != 0) throw new IllegalStateException("bulkLoad() needs an empty index");
+        load(ColumnStore.build(columns, new Iterator<Row>() {
+            private Cell last;
+
+            @Override
+            public boolean hasNext() {
+                return sortedEntries.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                Pair<Cell, Row> entry = sortedEntries.next();
+                if (entry.left == null) throw new IllegalArgumentException("argument key to bulkLoad() is null");
+                if (last != null) {
+                    int cmp = last.compareTo(entry.left);
+                    if (cmp == 0) throw new DuplicateKeyException();
+                    if (cmp > 0) throw new IllegalArgumentException("keys given to bulkLoad() are not in ascending order");
+                }
+                last = entry.left;
+                return entry.right;
+            }
+        }));
+    }
+
+    @Override
+    public Iterator<Pair<Cell, Row>> iterator() {
+        return seek(null, false, null, false);
+    }
+
+    @Override
+    public Iterator<Pair<Cell, Row>> seek(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        return new MergeIterator(lowerRow(from, fromInclusive), upperRow(to, toInclusive), false,
+                delta.seek(from, fromInclusive, to, toInclusive));
+    }
+
+    @Override
+    public Iterator<Pair<Cell, Row>> descendingSeek(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        return new MergeIterator(lowerRow(from, fromInclusive), upperRow(to, toInclusive), true,
+                delta.descendingSeek(from, fromInclusive, to, toInclusive));
+    }
+
+    /**
+     * The cells of the projected columns of the rows whose cell in filterColumn lies in the
+     * range, in key order, or of every row if filterColumn is negative. Only the blocks of
+     * those columns are decoded, and a block whose zone map misses the range is skipped.
+     */
+    ArrayList<Row> scan(int[] projection, int filterColumn, KeyRange range) {
+        ArrayList<Pair<Cell, Row>> written = new ArrayList<>();
+        for (Pair<Cell, Row> entry : delta)
+            if (filterColumn < 0 || range.contains(entry.right.get(filterColumn)))
+                written.add(new Pair<>(entry.left, project(entry.right, projection)));
+        ArrayList<Row> rows = new ArrayList<>();
+        int next = 0;
+        for (int block = 0; block < store.getBlockCount(); block++) {
+            Comparable[] filter = null;
+            if (filterColumn >= 0) {
+                ColumnBlock filterBlock = store.getBlock(filterColumn, block);
+                if (!filterBlock.mayContain(range))
+                    continue;
+                filter = filterBlock.decode();
+            }
+            int first = block * ColumnStore.BLOCK_ROWS;
+            int count = Math.min(ColumnStore.BLOCK_ROWS, store.getRowCount() - first);
+            Comparable[][] projected = new Comparable[projection.length][];
+            for (int i = 0; i < count; i++) {
+                if (removed.get(first + i) || (filter != null && !range.contains(new Cell(filter[i]))))
+                    continue;
+                if (next < written.size()) {
+                    Cell key = keyAt(first + i);
+                    while (next < written.size() && written.get(next).left.compareTo(key) < 0)
+                        rows.add(written.get(next++).right);
+                }
+                ArrayList<Cell> cells = new ArrayList<>(projection.length);
+                for (int j = 0; j < projection.length; j++) {
+                    if (projected[j] == null)
+                        projected[j] = store.getBlock(projection[j], block).decode();
+                    cells.add(new Cell(projected[j][i]));
+                }
+                rows.add(new Row(cells));
+            }
+        }
+        while (next < written.size())
+            rows.add(written.get(next++).right);
+        return rows;
+    }
+
+    private static Row project(Row row, int[] projection) {
+        ArrayList<Cell> cells = new ArrayList<>(projection.length);
+        for (int column : projection)
+            cells.add(row.get(column));
+        return new Row(cells);
+    }
+
+    // rows of the store between from and to that are not hidden, merged with the delta
+    private class MergeIterator implements Iterator<Pair<Cell, Row>> {
+        private final int from;
+        private final int to;
+        private final boolean descending;
+        private final Iterator<Pair<Cell, Row>> written;
+        private int row;
+        private Pair<Cell, Row> nextWritten;
+
+        MergeIterator(int from, int to, boolean descending, Iterator<Pair<Cell, Row>> written) {
+            this.from = from;
+            this.to = to;
+            this.descending = descending;
+            this.written = written;
+            this.row = descending ? to - 1 : from;
+            this.nextWritten = written.hasNext() ? written.next() : null;
+            skipHidden();
+        }
+
+        private boolean storeHasNext() {
+            return descending ? row >= from : row < to;
+        }
+
+        private void skipHidden() {
+            while (storeHasNext() && removed.get(row))
+                row += descending ? -1 : 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return storeHasNext() || nextWritten != null;
+        }
+
+        @Override
+        public Pair<Cell, Row> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            if (storeHasNext()) {
+                Cell key = keyAt(row);
+                int cmp = nextWritten == null ? 0 : key.compareTo(nextWritten.left);
+                if (nextWritten == null || (descending ? cmp > 0 : cmp < 0)) {
+                    Pair<Cell, Row> entry = new Pair<>(key, store.getRow(row));
+                    row += descending ? -1 : 1;
+                    skipHidden();
+                    return entry;
+                }
+            }
+            Pair<Cell, Row> entry = nextWritten;
+            nextWritten = written.hasNext() ? written.next() : null;
+            return entry;
+        }
+    }
+
+    private static class RowIterator implements Iterator<Row> {
+        private final Iterator<Pair<Cell, Row>> iterator;
+
+        RowIterator(Iterator<Pair<Cell, Row>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Row next() {
+            return iterator.next().right;
+        }
+    }
+}
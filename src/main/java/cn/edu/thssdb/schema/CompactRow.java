@@ -0,0 +1,149 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.storage.StringDictionary;
+import cn.edu.thssdb.type.ColumnType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+/**
+ * A row laid out by a RowLayout, with no object per value. Tables keep their rows this way.
+ * The typed getters read a value without boxing it. get and getEntries build Cells on every
+ * call, and the list getEntries returns is a copy, so a compact row never changes.
+ */
+
+public final class CompactRow extends Row {
+    private static final long serialVersionUID = 3154619071365937742L;
+    static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final RowLayout layout;
+    private final byte[] data;
+    private final String[] strings;
+
+    CompactRow(RowLayout layout, byte[] data, String[] strings) {
+        super(layout);
+        this.layout = layout;
+        this.data = data;
+        this.strings = strings;
+    }
+
+    public RowLayout getLayout() {
+        return layout;
+    }
+
+    // about the bytes of heap the row takes, with compressed references and strings of one byte a char
+    long memorySize() {
+        long size = 32 + align(16 + data.length);
+        if (strings != null) {
+            size += align(16 + 4L * strings.length);
+            for (String string : strings)
+                if (string != null)
+                    size += 24 + align(16 + string.length());
+        }
+        return size;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    @Override
+    public int size() {
+        return layout.types.length;
+    }
+
+    public boolean isNull(int column) {
+        return (data[column >>> 3] & 1 << (column & 7)) != 0;
+    }
+
+    // the offset of a value of the type that is not null
+    private int offset(int column, ColumnType type) {
+        if (layout.types[column] != type)
+            throw new ClassCastException("column " + column + " holds " + layout.types[column] + ", not " + type);
+        if (isNull(column))
+            throw new NullPointerException("column " + column + " is null");
+        return layout.offsets[column];
+    }
+
+    public int getInt(int column) {
+        return (int) INTS.get(data, offset(column, ColumnType.INT));
+    }
+
+    public long getLong(int column) {
+        return (long) LONGS.get(data, offset(column, ColumnType.LONG));
+    }
+
+    public float getFloat(int column) {
+        return Float.intBitsToFloat((int) INTS.get(data, offset(column, ColumnType.FLOAT)));
+    }
+
+    public double getDouble(int column) {
+        return Double.longBitsToDouble((long) LONGS.get(data, offset(column, ColumnType.DOUBLE)));
+    }
+
+    public String getString(int column) {
+        if (layout.types[column] != ColumnType.STRING)
+            throw new ClassCastException("column " + column + " holds " + layout.types[column] + ", not STRING");
+        if (isNull(column))
+            return null;
+        StringDictionary dictionary = layout.dictionaries[column];
+        if (dictionary == null)
+            return strings[layout.offsets[column]];
+        int code = (int) INTS.get(data, layout.offsets[column]);
+        return code >= 0 ? dictionary.decode(code) : strings[layout.stringIndexes[column]];
+    }
+
+    /**
+     * Returns the code of the string in the dictionary of the column, or -1 if the string is
+     * null, the dictionary has no code for it or the column has no dictionary.
+     */
+    public int getCode(int column) {
+        if (layout.dictionaries[column] == null || isNull(column))
+            return -1;
+        return (int) INTS.get(data, layout.offsets[column]);
+    }
+
+    @Override
+    public Comparable getValue(int column) {
+        if (isNull(column))
+            return null;
+        switch (layout.types[column]) {
+            case INT:
+                return getInt(column);
+            case LONG:
+                return getLong(column);
+            case FLOAT:
+                return getFloat(column);
+            case DOUBLE:
+                return getDouble(column);
+            default:
+                return getString(column);
+        }
+    }
+
+    @Override
+    public Cell get(int column) {
+        return new Cell(getValue(column));
+    }
+
+    @Override
+    public ArrayList<Cell> getEntries() {
+        ArrayList<Cell> cells = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++)
+            cells.add(get(i));
+        return cells;
+    }
+
+    @Override
+    public void appendEntries(ArrayList<Cell> entries) {
+        throw new UnsupportedOperationException("a compact row never changes");
+    }
+
+    // written as a plain row, which needs no layout to be read back
+    private Object writeReplace() {
+        return new Row(this);
+    }
+}
@@ -0,0 +1,127 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.storage.OrderedCellCodec;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primary key value of a table keyed by several columns, held by the key Cell of each row.
+ * <p>
+ * The key columns are stored as their OrderedCellCodec encodings one after another, each
+ * behind a COLUMN byte, and the key ends with an END byte that sorts below it. No encoding is
+ * a prefix of another, so comparing the bytes unsigned orders keys column by column, a key
+ * with fewer columns sorts before the keys it is a prefix of, and the keys sharing leading
+ * columns form one contiguous range. The bytes need no length to be read back.
+ */
+
+public final class CompositeKey implements Comparable<CompositeKey>, Serializable {
+    private static final long serialVersionUID = 4190243811462723215L;
+    private static final OrderedCellCodec CODEC = new OrderedCellCodec();
+    private static final byte END = 0;
+    private static final byte COLUMN = 1;
+    // sorts after a COLUMN byte, so after every key sharing the columns before it
+    private static final byte AFTER = (byte) 0xff;
+
+    private final int columns;
+    private final byte[] bytes;
+
+    private CompositeKey(int columns, byte[] bytes) {
+        this.columns = columns;
+        this.bytes = bytes;
+    }
+
+    public static CompositeKey of(List<Cell> cells) {
+        return new CompositeKey(cells.size(), encode(cells, false));
+    }
+
+    /**
+     * A bound that sorts before every key starting with the cells, or after every such key.
+     */
+    public static CompositeKey prefix(List<Cell> cells, boolean after) {
+        return new CompositeKey(cells.size(), encode(cells, after));
+    }
+
+    /**
+     * Wraps the bytes of a key with the given number of columns, as getBytes() returned them.
+     */
+    public static CompositeKey wrap(int columns, byte[] bytes) {
+        return new CompositeKey(columns, bytes);
+    }
+
+    /**
+     * Reads the bytes of one key from the buffer, leaving it positioned after them.
+     */
+    public static CompositeKey read(ByteBuffer buffer) {
+        int start = buffer.position();
+        int columns = 0;
+        for (byte b = buffer.get(); b != END; b = buffer.get()) {
+            if (b == COLUMN) {
+                CODEC.read(buffer);
+                columns++;
+            }
+        }
+        byte[] bytes = new byte[buffer.position() - start];
+        buffer.position(start);
+        buffer.get(bytes);
+        return new CompositeKey(columns, bytes);
+    }
+
+    private static byte[] encode(List<Cell> cells, boolean after) {
+        int size = cells.size() + (after ? 2 : 1);
+        for (Cell cell : cells)
+            size += CODEC.size(cell);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Cell cell : cells) {
+            buffer.put(COLUMN);
+            CODEC.write(cell, buffer);
+        }
+        if (after)
+            buffer.put(AFTER);
+        buffer.put(END);
+        return buffer.array();
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public List<Cell> getCells() {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        ArrayList<Cell> cells = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            buffer.get();
+            cells.add(CODEC.read(buffer));
+        }
+        return cells;
+    }
+
+    @Override
+    public int compareTo(CompositeKey e) {
+        return Arrays.compareUnsigned(bytes, e.bytes);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CompositeKey))
+            return false;
+        return Arrays.equals(bytes, ((CompositeKey) obj).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return getCells().toString();
+    }
+}
@@ -6,12 +6,20 @@ import cn.edu.thssdb.exception.TableNotExistException;
 import cn.edu.thssdb.query.QueryResult;
 import cn.edu.thssdb.query.QueryTable;
 import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.type.TableStorage;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 
@@ -19,14 +27,23 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 // TODO Query: please also add other functions needed at Database level.
 
 public class Database {
+    // loads the tables of a database being recovered, at most recoveryThreads at a time
+    private static final ExecutorService loader = Executors.newFixedThreadPool(Global.recoveryThreads, task -> {
+        Thread thread = new Thread(task, "table-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private String databaseName;
     private HashMap<String, Table> tableMap;
+    // tables whose files are on disk but failed to recover; their names stay taken
+    private HashSet<String> failedTables;
     ReentrantReadWriteLock lock;
 
     public Database(String databaseName) {
         this.databaseName = databaseName;
         this.tableMap = new HashMap<>();
+        this.failedTables = new HashSet<>();
         this.lock = new ReentrantReadWriteLock();
         File tableFolder = new File(this.getDatabaseTableFolderPath());
         if (!tableFolder.exists())
@@ -45,6 +62,17 @@ public class Database {
                 OutputStreamWriter outputStreamWriter = new OutputStreamWriter(fileOutputStream);
                 for (Column column : columns)
                     outputStreamWriter.write(column.toString() + "\n");
+                if (table.getStorage() == TableStorage.COLUMNAR)
+                    outputStreamWriter.write(Global.COLUMNAR_META + "\n");
+                else if (table.getStorage() == TableStorage.PAGED)
+                    outputStreamWriter.write(Global.PAGED_META + "\n");
+                else if (table.getStorage() == TableStorage.OFF_HEAP)
+                    outputStreamWriter.write(Global.OFF_HEAP_META + "\n");
+                if (table.isCompressed())
+                    outputStreamWriter.write(Global.COMPRESSED_META + "\n");
+                for (SecondaryIndex secondaryIndex : table.getSecondaryIndexes())
+                    outputStreamWriter.write(Global.INDEX_META_PREFIX + secondaryIndex.getIndexName() + ","
+                            + columns.get(secondaryIndex.getColumnIndex()).getColumnName() + "\n");
                 outputStreamWriter.close();
                 fileOutputStream.close();
             } catch (Exception e) {
@@ -54,13 +82,27 @@ public class Database {
     }
 
     public void create(String tableName, Column[] columns) {
+        create(tableName, columns, false);
+    }
+
+    public void create(String tableName, Column[] columns, boolean columnar) {
+        create(tableName, columns, columnar, false);
+    }
+
+    public void create(String tableName, Column[] columns, boolean columnar, boolean compressed) {
+        create(tableName, columns,
+                columnar ? TableStorage.COLUMNAR : Global.pagedIndex ? TableStorage.PAGED : TableStorage.HEAP, compressed);
+    }
+
+    public void create(String tableName, Column[] columns, TableStorage storage, boolean compressed) {
         try {
             // TODO add lock control. finished
             lock.writeLock().lock();
-            if (this.tableMap.containsKey(tableName))
+            if (this.tableMap.containsKey(tableName) || this.failedTables.contains(tableName))
                 throw new DuplicateTableException(tableName);
-            Table table = new Table(this.databaseName, tableName, columns);
+            Table table = new Table(this.databaseName, tableName, columns, storage, compressed);
             this.tableMap.put(tableName, table);
+            TableCache.getInstance().add(table);
             this.persist();
         } finally {
             // TODO add lock control. finished
@@ -68,23 +110,55 @@ public class Database {
         }
     }
 
+    public void createIndex(String tableName, String indexName, String columnName) {
+        try {
+            lock.writeLock().lock();
+            if (!this.tableMap.containsKey(tableName))
+                throw new TableNotExistException(tableName);
+            this.tableMap.get(tableName).createSecondaryIndex(indexName, columnName);
+            this.persist();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void dropIndex(String tableName, String indexName) {
+        try {
+            lock.writeLock().lock();
+            if (!this.tableMap.containsKey(tableName))
+                throw new TableNotExistException(tableName);
+            this.tableMap.get(tableName).dropSecondaryIndex(indexName);
+            this.persist();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // a table unloaded by the table cache is read back before it is returned
     public Table get(String tableName) {
+        Table table;
         try {
             // TODO add lock control. finished
             lock.readLock().lock();
             if (!this.tableMap.containsKey(tableName))
                 throw new TableNotExistException(tableName);
-            return this.tableMap.get(tableName);
+            table = this.tableMap.get(tableName);
         } finally {
             // TODO add lock control. finished
             lock.readLock().unlock();
         }
+        TableCache.getInstance().access(table);
+        return table;
     }
 
     public void drop(String tableName) {
         try {
             // TODO add lock control. finished
             lock.writeLock().lock();
+            if (this.failedTables.contains(tableName)) {
+                dropFailed(tableName);
+                return;
+            }
             if (!this.tableMap.containsKey(tableName))
                 throw new TableNotExistException(tableName);
             Table table = this.tableMap.get(tableName);
@@ -93,6 +167,7 @@ public class Database {
             if (file.isFile() && !file.delete())
                 throw new FileIOException(tableName + " _meta  when drop a table in database");
 
+            TableCache.getInstance().remove(table);
             table.dropTable();
             this.tableMap.remove(tableName);
         } finally {
@@ -109,8 +184,11 @@ public class Database {
                 File file = new File(table.getTableMetaPath());
                 if (file.isFile() && !file.delete())
                     throw new FileIOException(this.databaseName + " _meta when drop the database");
+                TableCache.getInstance().remove(table);
                 table.dropTable();
             }
+            for (String tableName : new ArrayList<>(this.failedTables))
+                dropFailed(tableName);
             this.tableMap.clear();
             this.tableMap = null;
         } finally {
@@ -119,6 +197,26 @@ public class Database {
         }
     }
 
+    // A table that failed to recover has no Table to drop its files, so they are found by name:
+    // the table file, its _meta, _pages and _dict files and the tableName.* row and column files.
+    private void dropFailed(String tableName) {
+        File[] files = new File(this.getDatabaseTableFolderPath()).listFiles();
+        if (files != null)
+            for (File file : files) {
+                String fileName = file.getName();
+                if (!fileName.startsWith(tableName) || this.tableMap.containsKey(fileName)
+                        || !fileName.equals(tableName) && this.failedTables.contains(fileName))
+                    continue;
+                String suffix = fileName.substring(tableName.length());
+                if ((suffix.isEmpty() || suffix.startsWith(".") || suffix.equals(Global.META_SUFFIX)
+                        || suffix.equals(Global.PAGES_SUFFIX) || suffix.matches(Global.DICTIONARY_SUFFIX + "\\d+"))
+                        && !file.delete())
+                    throw new FileIOException(file.getPath() + " when drop a table in database");
+            }
+        this.failedTables.remove(tableName);
+    }
+
+    // reads the metadata of every table, then loads the tables on the shared loader threads
     private void recover() {
         System.out.println("! try to recover database " + this.databaseName);
         File tableFolder = new File(this.getDatabaseTableFolderPath());
@@ -126,30 +224,88 @@ public class Database {
 //        for(File f: files) System.out.println("...." + f.getName());
         if (files == null) return;
 
+        long start = System.nanoTime();
+        LinkedHashMap<String, Future<Table>> loading = new LinkedHashMap<>();
         for (File file : files) {
             if (!file.isFile() || !file.getName().endsWith(Global.META_SUFFIX)) continue;
+            String fileName = file.getName();
+            String tableName = fileName.substring(0, fileName.length() - Global.META_SUFFIX.length());
             try {
-                String fileName = file.getName();
-                String tableName = fileName.substring(0, fileName.length() - Global.META_SUFFIX.length());
-                if (this.tableMap.containsKey(tableName))
+                if (loading.containsKey(tableName))
                     throw new DuplicateTableException(tableName);
 
                 ArrayList<Column> columnList = new ArrayList<>();
+                ArrayList<String[]> indexList = new ArrayList<>();
+                TableStorage storage = null;
+                boolean compressed = false;
                 InputStreamReader reader = new InputStreamReader(new FileInputStream(file));
                 BufferedReader bufferedReader = new BufferedReader(reader);
                 String readLine;
-                while ((readLine = bufferedReader.readLine()) != null)
-                    columnList.add(Column.parseColumn(readLine));
+                while ((readLine = bufferedReader.readLine()) != null) {
+                    if (readLine.startsWith(Global.INDEX_META_PREFIX))
+                        indexList.add(readLine.substring(Global.INDEX_META_PREFIX.length()).split(","));
+                    else if (readLine.equals(Global.COLUMNAR_META))
+                        storage = TableStorage.COLUMNAR;
+                    else if (readLine.equals(Global.PAGED_META))
+                        storage = TableStorage.PAGED;
+                    else if (readLine.equals(Global.OFF_HEAP_META))
+                        storage = TableStorage.OFF_HEAP;
+                    else if (readLine.equals(Global.COMPRESSED_META))
+                        compressed = true;
+                    else
+                        columnList.add(Column.parseColumn(readLine));
+                }
                 bufferedReader.close();
                 reader.close();
-                Table table = new Table(this.databaseName, tableName, columnList.toArray(new Column[0]));
-                System.out.println(table.toString());
-                for (Row row : table)
-                    System.out.println(row.toString());
-                this.tableMap.put(tableName, table);
-            } catch (Exception ignored) {
+                // metadata written before the storage was recorded names none, a paged table left its pages
+                if (storage == null)
+                    storage = new File(tableFolder, tableName + Global.PAGES_SUFFIX).exists()
+                            ? TableStorage.PAGED : TableStorage.HEAP;
+                TableStorage tableStorage = storage;
+                boolean isCompressed = compressed;
+                loading.put(tableName, loader.submit(() -> {
+                    Table table = new Table(this.databaseName, tableName, columnList.toArray(new Column[0]),
+                            tableStorage, isCompressed);
+                    // secondary indexes are rebuilt from the recovered rows
+                    for (String[] indexDef : indexList)
+                        table.createSecondaryIndex(indexDef[0], indexDef[1]);
+                    return table;
+                }));
+            } catch (Exception e) {
+                failed(tableName, e);
+            }
+        }
+        if (loading.isEmpty())
+            return;
+        // a table that fails to load is left out, but its name is kept so its files are not reused
+        long rows = 0;
+        for (Map.Entry<String, Future<Table>> entry : loading.entrySet()) {
+            try {
+                Table table = entry.getValue().get();
+                System.out.print(table.toString());
+                rows += table.size();
+                this.tableMap.put(entry.getKey(), table);
+                TableCache.getInstance().add(table);
+            } catch (InterruptedException e) {
+                // the tables not yet taken keep their names, as if they had failed
+                Thread.currentThread().interrupt();
+                for (String tableName : loading.keySet())
+                    if (!this.tableMap.containsKey(tableName) && !this.failedTables.contains(tableName))
+                        failed(tableName, e);
+                break;
+            } catch (ExecutionException e) {
+                failed(entry.getKey(), e.getCause());
             }
         }
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.out.println("! recovered " + this.tableMap.size() + " tables, " + rows + " rows of database "
+                + this.databaseName + " in " + millis + " ms (" + rows * 1000 / Math.max(millis, 1) + " rows/s)");
+    }
+
+    private void failed(String tableName, Throwable cause) {
+        this.failedTables.add(tableName);
+        System.out.println("! failed to recover table " + tableName + " of database " + this.databaseName + ": "
+                + cause);
     }
 
     public void quit() {
@@ -163,15 +319,45 @@ public class Database {
         }
     }
 
+    /**
+     * Stops charging the tables to the table cache, for a database saved and no longer used.
+     */
+    public void close() {
+        try {
+            this.lock.writeLock().lock();
+            for (Table table : this.tableMap.values())
+                TableCache.getInstance().remove(table);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
 
     // TODO Query: please also add other functions needed at Database level.
 
     public QueryResult join(QueryTable lQueryTable, QueryTable rQueryTable) {
+        return join(lQueryTable, rQueryTable, -1, -1);
+    }
+
+    /**
+     * Joins the rows whose values in the two columns, counted across both tables, are equal,
+     * or every pair of rows if a column is negative. The pairs are compared before they are
+     * combined, on codes where the strings have them.
+     */
+    public QueryResult join(QueryTable lQueryTable, QueryTable rQueryTable, int lMatchIndex, int rMatchIndex) {
         ArrayList<Row> rowArrayList = new ArrayList<>();
         ArrayList<String> columnNames = new ArrayList<>();
+        int lSize = lQueryTable.getColumnNames().size();
+        CodedEquality equality = new CodedEquality();
 
         for (int i = 0; i < lQueryTable.getRow().size(); i++) {
             for (int j = 0; j < rQueryTable.getRow().size(); j++) {
+                Row lRow = lQueryTable.getRow(i);
+                Row rRow = rQueryTable.getRow(j);
+                if (lMatchIndex >= 0 && rMatchIndex >= 0
+                        && !equality.equals(lMatchIndex < lSize ? lRow : rRow, lMatchIndex < lSize ? lMatchIndex : lMatchIndex - lSize,
+                        rMatchIndex < lSize ? lRow : rRow, rMatchIndex < lSize ? rMatchIndex : rMatchIndex - lSize))
+                    continue;
                 LinkedList<Row> rowPair = new LinkedList<>();
 
                 rowPair.add(lQueryTable.getRow(i));
@@ -204,7 +390,21 @@ public class Database {
                     columnNames.add(queryTables[0].getTableName() + "." + cName);
                 }
             } else if (queryTables.length == 2) {
-                QueryResult joinResult = join(queryTables[0], queryTables[1]);
+                // the ON columns are looked up among the columns of both tables, before the projection
+                int lMatchIndex = -1;
+                int rMatchIndex = -1;
+                if (onEqualStatement != null) {
+                    List<String> joinedNames = new ArrayList<>();
+                    for (QueryTable queryTable : queryTables)
+                        for (String cName : queryTable.getColumnNames())
+                            joinedNames.add(queryTable.getTableName() + "." + cName);
+                    lMatchIndex = joinedNames.indexOf(onEqualStatement.get(0));
+                    rMatchIndex = joinedNames.indexOf(onEqualStatement.get(1));
+                    if (lMatchIndex == -1 || rMatchIndex == -1)
+                        return new QueryResult("Column Name Not Found for ON");
+                    onEqualStatement = null;
+                }
+                QueryResult joinResult = join(queryTables[0], queryTables[1], lMatchIndex, rMatchIndex);
 
                 rowList.addAll(joinResult.results);
                 columnNames.addAll(joinResult.getColumnNames());
@@ -233,8 +433,8 @@ public class Database {
                 int rightMatchIndex = columnNames.indexOf(onEqualStatement.get(1));
                 if (leftMatchIndex != -1 && rightMatchIndex != -1) {
                     rowList.removeIf(row -> {
-                        Comparable lVal = row.getEntries().get(leftMatchIndex).value;
-                        Comparable rVal = row.getEntries().get(rightMatchIndex).value;
+                        Comparable lVal = row.getValue(leftMatchIndex);
+                        Comparable rVal = row.getValue(rightMatchIndex);
                         boolean neq = !lVal.equals(rVal);
                         return neq;
                     });
@@ -246,8 +446,8 @@ public class Database {
             if (whereEqualStatement != null) {
                 int matchIndex = columnNames.indexOf(whereEqualStatement.get(0));
                 if (matchIndex != -1) {
-                    rowList.removeIf(row -> !row.getEntries().get(matchIndex).toString()
-                            .equals(whereEqualStatement.get(1)));
+                    CodedEquality equality = new CodedEquality();
+                    rowList.removeIf(row -> !equality.equalsLiteral(row, matchIndex, whereEqualStatement.get(1)));
                 } else {
                     return new QueryResult("Column Name Not Found for ON");
                 }
@@ -259,7 +459,7 @@ public class Database {
             for (Row srcRow : rowList) {
                 ArrayList<Cell> newRowCellList = new ArrayList<>();
                 for (int index : columnIndexFromResult) {
-                    newRowCellList.add(new Cell(srcRow.getEntries().get(index)));
+                    newRowCellList.add(new Cell(srcRow.getValue(index)));
                 }
 
                 Row targetRow = new Row(newRowCellList);
@@ -89,8 +89,10 @@ public class Manager {
     public void quit() {
         try {
             lock.writeLock().lock();
-            for (Database database : databases.values())
+            for (Database database : databases.values()) {
                 database.quit();
+                database.close();
+            }
             persist();
             databases.clear();
         } finally {
@@ -0,0 +1,146 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.index.Index;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Presents a primitive-keyed tree (IntBPlusTree, LongBPlusTree) as an index over Cells.
+ * Lookups pass the boxed value held by the Cell straight to the tree, so no new objects
+ * are created on the point lookup path.
+ */
+
+class PrimitiveKeyIndex<K extends Comparable<K>> implements Index<Cell, Row> {
+    private final Index<K, Row> tree;
+
+    PrimitiveKeyIndex(Index<K, Row> tree) {
+        this.tree = tree;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K unwrap(Cell cell) {
+        if (cell == null || cell.value == null) throw new IllegalArgumentException("primary key is null");
+        return (K) cell.value;
+    }
+
+    private K unwrapBound(Cell cell) {
+        return cell == null ? null : unwrap(cell);
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public Row get(Cell key) {
+        return tree.get(unwrap(key));
+    }
+
+    @Override
+    public void put(Cell key, Row value) {
+        tree.put(unwrap(key), value);
+    }
+
+    @Override
+    public void update(Cell key, Row value) {
+        tree.update(unwrap(key), value);
+    }
+
+    @Override
+    public void remove(Cell key) {
+        tree.remove(unwrap(key));
+    }
+
+    @Override
+    public boolean contains(Cell key) {
+        return tree.contains(unwrap(key));
+    }
+
+    @Override
+    public Row putIfAbsent(Cell key, Row value) {
+        return tree.putIfAbsent(unwrap(key), value);
+    }
+
+    @Override
+    public Row replace(Cell key, Row value) {
+        return tree.replace(unwrap(key), value);
+    }
+
+    @Override
+    public Row compute(Cell key, BiFunction<? super Cell, ? super Row, ? extends Row> remapping) {
+        return tree.compute(unwrap(key), (k, row) -> remapping.apply(key, row));
+    }
+
+    @Override
+    public int putAll(List<Pair<Cell, Row>> sortedEntries) {
+        ArrayList<Pair<K, Row>> entries = new ArrayList<>(sortedEntries.size());
+        for (Pair<Cell, Row> entry : sortedEntries)
+            entries.add(new Pair<>(unwrap(entry.left), entry.right));
+        return tree.putAll(entries);
+    }
+
+    @Override
+    public void bulkLoad(Iterator<Pair<Cell, Row>> sortedEntries) {
+        tree.bulkLoad(new Iterator<Pair<K, Row>>() {
+            @Override
+            public boolean hasNext() {
+                return sortedEntries.hasNext();
+            }
+
+            @Override
+            public Pair<K, Row> next() {
+                Pair<Cell, Row> pair = sortedEntries.next();
+                return new Pair<>(unwrap(pair.left), pair.right);
+            }
+        });
+    }
+
+    @Override
+    public int rank(Cell key, boolean inclusive) {
+        return tree.rank(unwrap(key), inclusive);
+    }
+
+    @Override
+    public int count(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        return tree.count(unwrapBound(from), fromInclusive, unwrapBound(to), toInclusive);
+    }
+
+    @Override
+    public Iterator<Pair<Cell, Row>> iterator() {
+        return new CellIterator(tree.iterator());
+    }
+
+    @Override
+    public Iterator<Pair<Cell, Row>> seek(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        return new CellIterator(tree.seek(unwrapBound(from), fromInclusive, unwrapBound(to), toInclusive));
+    }
+
+    @Override
+    public Iterator<Pair<Cell, Row>> descendingSeek(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        return new CellIterator(tree.descendingSeek(unwrapBound(from), fromInclusive, unwrapBound(to), toInclusive));
+    }
+
+    private class CellIterator implements Iterator<Pair<Cell, Row>> {
+        private final Iterator<Pair<K, Row>> iterator;
+
+        CellIterator(Iterator<Pair<K, Row>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Pair<Cell, Row> next() {
+            Pair<K, Row> pair = iterator.next();
+            return new Pair<>(new Cell(pair.left), pair.right);
+        }
+    }
+}
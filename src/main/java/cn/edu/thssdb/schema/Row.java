@@ -25,33 +25,46 @@ public class Row implements Serializable {
     }
 
     public Row(Row row) {
-        this.entries = new ArrayList<>();
-        for (Cell cell : row.entries)
-            this.entries.add(new Cell(cell));
+        this.entries = new ArrayList<>(row.size());
+        for (int i = 0; i < row.size(); i++)
+            this.entries.add(new Cell(row.getValue(i)));
+    }
+
+    // for CompactRow, which keeps its values in arrays of its own
+    Row(RowLayout layout) {
     }
 
     public ArrayList<Cell> getEntries() {
         return entries;
     }
 
+    public int size() {
+        return entries.size();
+    }
+
+    public Cell get(int index) {
+        return entries.get(index);
+    }
+
+    public Comparable getValue(int index) {
+        return entries.get(index).value;
+    }
+
     public void appendEntries(ArrayList<Cell> entries) {
         this.entries.addAll(entries);
     }
 
     public String toString() {
-        if (entries == null)
-            return "EMPTY";
         StringJoiner sj = new StringJoiner(", ");
-        for (Cell e : entries)
-            sj.add(e.toString());
+        for (int i = 0; i < size(); i++)
+            sj.add(String.valueOf(getValue(i)));
         return sj.toString();
     }
 
     public ArrayList<String> toStringList() {
-        ArrayList<String> valueList = new ArrayList<>();
-        if (entries == null) return valueList;
-        for (Cell cell : this.entries)
-            valueList.add(cell.toString());
+        ArrayList<String> valueList = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++)
+            valueList.add(String.valueOf(getValue(i)));
         return valueList;
     }
 
@@ -0,0 +1,126 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.storage.StringDictionary;
+import cn.edu.thssdb.type.ColumnType;
+
+import java.util.List;
+
+/**
+ * Where the values of a table's rows go in a CompactRow: a bitmap with a bit set for every
+ * null value, then the numbers at fixed offsets of one byte array, INT and FLOAT in 4 bytes,
+ * LONG and DOUBLE in 8. A string of a column with a dictionary takes 4 bytes for its code,
+ * other strings, and those a full dictionary has no code for, are kept in an array of their
+ * own.
+ */
+
+public final class RowLayout {
+    final ColumnType[] types;
+    final int[] offsets; // a byte offset into the data, for a string without a dictionary an index into the strings
+    final int[] stringIndexes; // for a string with a dictionary, where it goes if it has no code
+    final StringDictionary[] dictionaries; // by column, null for a column without one
+    private final int dataSize;
+    private final int stringCount;
+
+    public RowLayout(List<Column> columns) {
+        this(columns, new StringDictionary[columns.size()]);
+    }
+
+    /**
+     * Lays out the rows with the strings of each column that has a dictionary replaced by
+     * their codes.
+     */
+    public RowLayout(List<Column> columns, StringDictionary[] dictionaries) {
+        this.types = new ColumnType[columns.size()];
+        this.offsets = new int[types.length];
+        this.stringIndexes = new int[types.length];
+        this.dictionaries = dictionaries;
+        int offset = (types.length + 7) / 8;
+        int strings = 0;
+        for (int i = 0; i < types.length; i++) {
+            types[i] = columns.get(i).getColumnType();
+            switch (types[i]) {
+                case INT:
+                case FLOAT:
+                    offsets[i] = offset;
+                    offset += 4;
+                    break;
+                case LONG:
+                case DOUBLE:
+                    offsets[i] = offset;
+                    offset += 8;
+                    break;
+                default:
+                    if (dictionaries[i] != null) {
+                        offsets[i] = offset;
+                        offset += 4;
+                        stringIndexes[i] = strings++;
+                    } else {
+                        offsets[i] = strings++;
+                    }
+            }
+        }
+        this.dataSize = offset;
+        this.stringCount = strings;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public ColumnType getType(int column) {
+        return types[column];
+    }
+
+    public StringDictionary getDictionary(int column) {
+        return dictionaries[column];
+    }
+
+    /**
+     * Packs the row, whose values must be of the types of the columns. A row packed by this
+     * layout is returned as it is.
+     */
+    public CompactRow pack(Row row) {
+        if (row instanceof CompactRow && ((CompactRow) row).getLayout() == this)
+            return (CompactRow) row;
+        if (row.size() != types.length)
+            throw new IllegalArgumentException("row of " + row.size() + " cells for " + types.length + " columns");
+        byte[] data = new byte[dataSize];
+        String[] strings = null; // only a row with a string kept as it is needs them
+        for (int i = 0; i < types.length; i++) {
+            Comparable value = row.getValue(i);
+            if (value == null) {
+                data[i >>> 3] |= 1 << (i & 7);
+                continue;
+            }
+            switch (types[i]) {
+                case INT:
+                    CompactRow.INTS.set(data, offsets[i], (int) (Integer) value);
+                    break;
+                case LONG:
+                    CompactRow.LONGS.set(data, offsets[i], (long) (Long) value);
+                    break;
+                case FLOAT:
+                    CompactRow.INTS.set(data, offsets[i], Float.floatToRawIntBits((Float) value));
+                    break;
+                case DOUBLE:
+                    CompactRow.LONGS.set(data, offsets[i], Double.doubleToRawLongBits((Double) value));
+                    break;
+                default:
+                    int code = dictionaries[i] == null ? -1 : dictionaries[i].encode((String) value);
+                    if (code >= 0) {
+                        CompactRow.INTS.set(data, offsets[i], code);
+                        break;
+                    }
+                    if (strings == null)
+                        strings = new String[stringCount];
+                    if (dictionaries[i] == null) {
+                        strings[offsets[i]] = (String) value;
+                    } else {
+                        CompactRow.INTS.set(data, offsets[i], -1);
+                        strings[stringIndexes[i]] = (String) value;
+                    }
+            }
+        }
+        return new CompactRow(this, data, strings);
+    }
+}
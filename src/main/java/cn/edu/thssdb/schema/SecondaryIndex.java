@@ -0,0 +1,112 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.index.BPlusTree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Index on a non-primary column, mapping column values to primary keys.
+ * Entries are keyed by (value, primary key), so equal values are allowed and kept in
+ * primary key order. Null values are not indexed, no comparison can match them.
+ */
+
+public class SecondaryIndex {
+    private final String indexName;
+    private final int columnIndex;
+    private final Function<Row, Cell> primaryKey;
+    private BPlusTree<Entry, Cell> tree;
+
+    SecondaryIndex(String indexName, int columnIndex, Function<Row, Cell> primaryKey, Iterable<Row> rows) {
+        this.indexName = indexName;
+        this.columnIndex = columnIndex;
+        this.primaryKey = primaryKey;
+        rebuild(rows);
+    }
+
+    /**
+     * Replaces the entries with those of the rows.
+     */
+    synchronized void rebuild(Iterable<Row> rows) {
+        ArrayList<Pair<Entry, Cell>> entries = new ArrayList<>();
+        for (Row row : rows) {
+            Cell value = row.get(columnIndex);
+            if (value.value != null)
+                entries.add(new Pair<>(new Entry(value, primaryKey.apply(row), 0), null));
+        }
+        entries.sort((a, b) -> a.left.compareTo(b.left));
+        this.tree = new BPlusTree<>();
+        this.tree.bulkLoad(entries.iterator());
+    }
+
+    synchronized int size() {
+        return tree.size();
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    synchronized void insert(Row row) {
+        Entry entry = entryOf(row);
+        if (entry != null)
+            tree.put(entry, null);
+    }
+
+    synchronized void delete(Row row) {
+        Entry entry = entryOf(row);
+        if (entry != null)
+            tree.remove(entry);
+    }
+
+    synchronized void clear() {
+        tree = new BPlusTree<>();
+    }
+
+    /**
+     * Primary keys of the rows whose column value lies between from and to, in value order.
+     * A null bound is open.
+     */
+    public synchronized List<Cell> seek(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        Entry lower = from == null ? null : new Entry(from, null, fromInclusive ? -1 : 1);
+        Entry upper = to == null ? null : new Entry(to, null, toInclusive ? 1 : -1);
+        ArrayList<Cell> primaryKeys = new ArrayList<>();
+        Iterator<Pair<Entry, Cell>> iterator = tree.seek(lower, true, upper, false);
+        while (iterator.hasNext())
+            primaryKeys.add(iterator.next().left.primary);
+        return primaryKeys;
+    }
+
+    private Entry entryOf(Row row) {
+        Cell value = row.get(columnIndex);
+        return value.value == null ? null : new Entry(value, primaryKey.apply(row), 0);
+    }
+
+    // side -1 or 1 marks a bound that sorts before or after every entry with the same value
+    static final class Entry implements Comparable<Entry> {
+        final Cell value;
+        final Cell primary;
+        final int side;
+
+        Entry(Cell value, Cell primary, int side) {
+            this.value = value;
+            this.primary = primary;
+            this.side = side;
+        }
+
+        @Override
+        public int compareTo(Entry e) {
+            int cmp = value.compareTo(e.value);
+            if (cmp != 0) return cmp;
+            if (side != 0 || e.side != 0) return Integer.compare(side, e.side);
+            return primary.compareTo(e.primary);
+        }
+    }
+}
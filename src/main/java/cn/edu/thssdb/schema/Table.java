@@ -2,12 +2,35 @@ package cn.edu.thssdb.schema;
 
 import cn.edu.thssdb.exception.*;
 import cn.edu.thssdb.index.BPlusTree;
+import cn.edu.thssdb.index.ConcurrentBPlusTree;
+import cn.edu.thssdb.index.Index;
+import cn.edu.thssdb.index.IntBPlusTree;
+import cn.edu.thssdb.index.LongBPlusTree;
+import cn.edu.thssdb.index.OffHeapBPlusTree;
+import cn.edu.thssdb.index.PagedBPlusTree;
+import cn.edu.thssdb.index.VersionedBPlusTree;
 import cn.edu.thssdb.common.Global;
 import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.query.KeyRange;
+import cn.edu.thssdb.storage.BufferPool;
+import cn.edu.thssdb.storage.CellCodec;
+import cn.edu.thssdb.storage.ColumnFiles;
+import cn.edu.thssdb.storage.OrderedCellCodec;
+import cn.edu.thssdb.storage.RowCodec;
+import cn.edu.thssdb.storage.RowFile;
+import cn.edu.thssdb.storage.SegmentedRowFile;
+import cn.edu.thssdb.storage.StringDictionary;
+import cn.edu.thssdb.type.ColumnType;
+import cn.edu.thssdb.type.TableStorage;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
 
 import static cn.edu.thssdb.type.ColumnType.STRING;
 
@@ -15,12 +38,40 @@ import static cn.edu.thssdb.type.ColumnType.STRING;
 // TODO lock control, variables init.
 
 public class Table implements Iterable<Row> {
+    // writes the checkpoints of tables whose segments outgrew them, one table at a time
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "table-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // estimated heap bytes an entry takes in the primary index, besides the row, in a secondary
+    // index and in the keys changed since the last save
+    private static final int INDEX_ENTRY_BYTES = 40;
+    private static final int SECONDARY_ENTRY_BYTES = 72;
+    private static final int CHANGED_KEY_BYTES = 64;
+    // rows estimateMemory measures
+    private static final int MEMORY_SAMPLE = 256;
+
     ReentrantReadWriteLock lock;
     private String databaseName;
     public String tableName;
     public ArrayList<Column> columns;
-    public BPlusTree<Cell, Row> index;
-    private int primaryIndex;
+    private final RowLayout layout; // of the rows the index holds
+    private final StringDictionary[] dictionaries; // by column, of the STRING columns of a table saved as row files
+    public Index<Cell, Row> index;
+    private int[] primaryIndexes; // key columns in key order
+    private final TableStorage storage;
+    private boolean concurrent;
+    private PagedBPlusTree<Cell, Row> pages;
+    private ColumnarIndex columnar; // the index of a columnar table
+    private boolean compressed; // whether the row files are written in compressed blocks
+    private ColumnFiles columnFiles;
+    private SegmentedRowFile rowFiles;
+    private Set<Cell> changedKeys; // keys written or removed since the last persist
+    private volatile boolean loaded; // false once unloaded, until the rows are read back
+    private volatile long memoryEstimate = -1; // of estimateMemory, -1 once the rows or indexes change
+    private LinkedHashMap<String, SecondaryIndex> secondaryIndexes;
 
     // ADD lock variables for S, X locks and etc here.
 
@@ -33,24 +84,24 @@ public class Table implements Iterable<Row> {
 //        return sLockSet.contains(sessionId) || xLockSet.contains(sessionId);
 //    }
 
-    public Boolean testSLock(Long sessionId) {
+    public synchronized Boolean testSLock(Long sessionId) {
         return xLockSet.isEmpty() || xLockSet.contains(sessionId);
     }
 
-    public void takeSLock(Long sessionId) {
+    public synchronized void takeSLock(Long sessionId) {
         sLockSet.add(sessionId);
     }
 
-    public void releaseSLock(Long sessionId) {
+    public synchronized void releaseSLock(Long sessionId) {
         sLockSet.remove(sessionId);
     }
 
-    public Boolean testXLock(Long sessionId) {
+    public synchronized Boolean testXLock(Long sessionId) {
         // check if sLock is empty or only contains themselves and there is no xlock on only by themselves
         return (sLockSet.isEmpty() || (sLockSet.size() == 1 && sLockSet.contains(sessionId))) && (xLockSet.isEmpty() || xLockSet.contains(sessionId));
     }
 
-    public Boolean takeXLock(Long sessionId) {
+    public synchronized Boolean takeXLock(Long sessionId) {
         if (xLockSet.contains(sessionId)) {
             return false;
         }
@@ -61,35 +112,112 @@ public class Table implements Iterable<Row> {
         return true;
     } // 在test成功前提下拿X锁。返回值false表示session之前已拥有这个表的X锁。
 
-    public void releaseXLock(Long sessionId) {
+    public synchronized void releaseXLock(Long sessionId) {
         xLockSet.remove(sessionId);
     }
 
 
     // Initiate: Table, recover
     public Table(String databaseName, String tableName, Column[] columns) {
+        this(databaseName, tableName, columns, false);
+    }
+
+    /**
+     * A columnar table keeps its rows column by column in a ColumnarIndex and saves them as a
+     * file per column, whichever index the other tables use.
+     */
+    public Table(String databaseName, String tableName, Column[] columns, boolean columnar) {
+        this(databaseName, tableName, columns, columnar, false);
+    }
+
+    /**
+     * A compressed table writes its row files in deflated blocks. A table that does not save
+     * its rows as row files (columnar, paged) ignores it.
+     */
+    public Table(String databaseName, String tableName, Column[] columns, boolean columnar, boolean compressed) {
+        this(databaseName, tableName, columns,
+                columnar ? TableStorage.COLUMNAR : Global.pagedIndex ? TableStorage.PAGED : TableStorage.HEAP, compressed);
+    }
+
+    /**
+     * A table reopened from its files takes the storage they were written for. A table whose
+     * files were written for another storage is refused (see recover).
+     */
+    public Table(String databaseName, String tableName, Column[] columns, TableStorage storage, boolean compressed) {
         this.lock = new ReentrantReadWriteLock();
         this.databaseName = databaseName;
         this.tableName = tableName;
         this.columns = new ArrayList<>(Arrays.asList(columns));
-        this.index = new BPlusTree<>();
-        this.primaryIndex = -1;
-
+        this.secondaryIndexes = new LinkedHashMap<>();
+
+        // a column's primary value is its position in the key, counted from 1
+        int keyColumns = 0;
+        for (Column column : this.columns)
+            if (column.isPrimary())
+                keyColumns++;
+        if (keyColumns == 0)
+            throw new MultiPrimaryKeyException(this.tableName);
+        this.primaryIndexes = new int[keyColumns];
+        Arrays.fill(this.primaryIndexes, -1);
         for (int i = 0; i < this.columns.size(); i++) {
-            if (this.columns.get(i).isPrimary()) {
-                if (this.primaryIndex >= 0)
-                    throw new MultiPrimaryKeyException(this.tableName);
-                this.primaryIndex = i;
-            }
+            int position = this.columns.get(i).getPrimary();
+            if (position <= 0)
+                continue;
+            if (position > keyColumns || this.primaryIndexes[position - 1] >= 0)
+                throw new MultiPrimaryKeyException(this.tableName);
+            this.primaryIndexes[position - 1] = i;
         }
-        if (this.primaryIndex < 0)
-            throw new MultiPrimaryKeyException(this.tableName);
+        this.storage = storage;
+        this.concurrent = (Global.concurrentIndex || Global.versionedIndex) && storage == TableStorage.HEAP;
+        if (storage == TableStorage.COLUMNAR) {
+            this.columnar = new ColumnarIndex(this.columns, this.primaryIndexes);
+            this.columnFiles = new ColumnFiles(this.getTablePath(), this.columns);
+            this.index = this.columnar;
+        } else {
+            this.index = createIndex(keyColumns > 1 ? null : this.columns.get(this.primaryIndexes[0]).getColumnType());
+        }
+        // the strings of a table kept in rows on the heap are coded, in memory and in its files
+        this.dictionaries = new StringDictionary[this.columns.size()];
+        if (storage == TableStorage.HEAP)
+            for (int i = 0; i < this.dictionaries.length; i++)
+                if (this.columns.get(i).getColumnType() == STRING)
+                    this.dictionaries[i] = new StringDictionary(this.getTablePath() + Global.DICTIONARY_SUFFIX + i);
+        this.layout = new RowLayout(this.columns, this.dictionaries);
+        this.compressed = compressed && storage != TableStorage.COLUMNAR;
+        this.rowFiles = new SegmentedRowFile(this.getTablePath(), this.columns, this.dictionaries, this.compressed);
+        this.changedKeys = ConcurrentHashMap.newKeySet();
 
         // TODO initiate lock status.
         xLockSet = new HashSet<>();
         sLockSet = new HashSet<>();
 
         recover();
+        this.loaded = true;
+    }
+
+    // INT and LONG keys get a tree over primitive key arrays, other types and composite keys
+    // (a null type) compare Cells
+    private Index<Cell, Row> createIndex(ColumnType primaryType) {
+        if (this.storage == TableStorage.PAGED) {
+            File tableFolder = new File(this.getTableFolderPath());
+            if (!tableFolder.exists() && !tableFolder.mkdirs())
+                throw new FileIOException(this.getTableFolderPath() + " on opening table pages");
+            this.pages = new PagedBPlusTree<>(this.getTablePagesPath(), new CellCodec(), new RowCodec(),
+                    BufferPool.getInstance());
+            return this.pages;
+        }
+        if (this.storage == TableStorage.OFF_HEAP)
+            return new OffHeapBPlusTree<>(new OrderedCellCodec(), new RowCodec());
+        if (this.concurrent)
+            return Global.versionedIndex ? new VersionedBPlusTree<>() : new ConcurrentBPlusTree<>();
+        switch (primaryType == null ? STRING : primaryType) {
+            case INT:
+                return new PrimitiveKeyIndex<>(new IntBPlusTree<>());
+            case LONG:
+                return new PrimitiveKeyIndex<>(new LongBPlusTree<>());
+            default:
+                return new BPlusTree<>();
+        }
     }
 
     private void recover() {
@@ -97,9 +225,19 @@ public class Table implements Iterable<Row> {
         try {
             // TODO lock control : finished
             lock.writeLock().lock();
+            // a paged table reopens its pages, a table serialized by the heap index is loaded into it
+            if (this.index.size() > 0)
+                return;
+            // rows left in pages by another storage would be hidden by the files written next to them
+            if (this.storage != TableStorage.PAGED && new File(this.getTablePagesPath()).exists())
+                throw new FileIOException(this.getTablePagesPath() + " of a paged table when opening a "
+                        + this.storage + " table");
+            if (this.columnFiles != null && this.columnFiles.exists()) {
+                this.columnar.load(this.columnFiles.load());
+                return;
+            }
             ArrayList<Row> rowsOnDisk = deserialize();
-            for (Row row : rowsOnDisk)
-                this.index.put(row.getEntries().get(this.primaryIndex), row);
+            bulkLoad(rowsOnDisk);
         } finally {
             // TODO lock control : finished
             lock.writeLock().unlock();
@@ -110,88 +248,431 @@ public class Table implements Iterable<Row> {
     // Operations: get, insert, delete, update, dropTable, you can add other operations.
     // remember to use locks to fill the TODOs
 
+    // A concurrent index latches its own nodes and a versioned index serializes its own writers,
+    // so reads and single-key writes share the table lock (see lockWrite) and only wait for
+    // writes of several index steps and whole-table operations (recover, dropTable, CREATE INDEX).
+    // Scans of a versioned index read one version, so persist and SELECT see a consistent table.
+    // An unloaded table is read back first, and again should it be unloaded before the lock is taken.
+    private void lockRows(boolean write) {
+        if (this.concurrent) {
+            lock.readLock().lock();
+            return;
+        }
+        while (true) {
+            if (write) lock.writeLock().lock();
+            else lock.readLock().lock();
+            if (this.loaded) return;
+            if (write) lock.writeLock().unlock();
+            else lock.readLock().unlock();
+            load();
+        }
+    }
+
+    /**
+     * Whether the table may be unloaded: its rows are on the heap and every row operation
+     * takes the table lock, so unload can wait out the operations in flight.
+     */
+    public boolean isEvictable() {
+        return !this.concurrent && this.storage != TableStorage.PAGED && this.storage != TableStorage.OFF_HEAP;
+    }
+
+    public boolean isLoaded() {
+        return this.loaded;
+    }
+
+    /**
+     * Reads the rows of an unloaded table back from its files and rebuilds its secondary
+     * indexes.
+     */
+    public void load() {
+        try {
+            lock.writeLock().lock();
+            if (this.loaded)
+                return;
+            recover();
+            this.loaded = true;
+            this.memoryEstimate = -1;
+            for (SecondaryIndex secondaryIndex : this.secondaryIndexes.values())
+                secondaryIndex.rebuild(this);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Saves the rows and drops them and the secondary index entries from memory, unless the
+     * table is not evictable, an operation holds the table lock or a transaction has locked
+     * the table. Returns whether the table was unloaded.
+     */
+    boolean unload() {
+        if (!isEvictable() || !lock.writeLock().tryLock())
+            return false;
+        try {
+            if (!this.loaded || isLockedByTransaction())
+                return false;
+            if (this.columnar != null) {
+                serializeColumns();
+                this.columnar = new ColumnarIndex(this.columns, this.primaryIndexes);
+                this.index = this.columnar;
+            } else {
+                serialize();
+                this.index = createIndex(this.primaryIndexes.length > 1 ? null
+                        : this.columns.get(this.primaryIndexes[0]).getColumnType());
+            }
+            for (SecondaryIndex secondaryIndex : this.secondaryIndexes.values())
+                secondaryIndex.clear();
+            this.loaded = false;
+            this.memoryEstimate = -1;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the sessions take and test their locks under the monitor of the table
+    private synchronized boolean isLockedByTransaction() {
+        return !sLockSet.isEmpty() || !xLockSet.isEmpty();
+    }
+
+    /**
+     * About the bytes of heap the rows and indexes of the table take, measured on a sample of
+     * the rows, or 0 if the table is unloaded. The estimate is kept until the table is written.
+     */
+    public long estimateMemory() {
+        long estimate = this.memoryEstimate;
+        if (estimate >= 0)
+            return estimate;
+        try {
+            lock.readLock().lock();
+            if (!this.loaded)
+                return 0;
+            this.memoryEstimate = measureMemory();
+            return this.memoryEstimate;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // called with the table lock held on a loaded table
+    private long measureMemory() {
+        long size = (long) this.changedKeys.size() * CHANGED_KEY_BYTES;
+        for (SecondaryIndex secondaryIndex : this.secondaryIndexes.values())
+            size += (long) secondaryIndex.size() * SECONDARY_ENTRY_BYTES;
+        if (this.columnar != null)
+            return size + this.columnar.memorySize();
+        long sampled = 0;
+        long sampleSize = 0;
+        for (Iterator<Row> rows = this.iterator(); rows.hasNext() && sampled < MEMORY_SAMPLE; sampled++) {
+            Row row = rows.next();
+            sampleSize += row instanceof CompactRow ? ((CompactRow) row).memorySize() : 32L * this.columns.size();
+        }
+        if (sampled > 0)
+            size += this.index.size() * (sampleSize / sampled + INDEX_ENTRY_BYTES);
+        return size;
+    }
+
+    private void unlockRows(boolean write) {
+        if (write && !this.concurrent) lock.writeLock().unlock();
+        else lock.readLock().unlock();
+    }
+
+    // Takes the lock a write holds and returns it. A concurrent table shares it between writes
+    // of a single key and takes it exclusively for a write of several steps (a primary key
+    // change, a batch) and for any write while the table has a secondary index, so no one
+    // sees such a write halfway and the secondary indexes change in step with the rows.
+    private Lock lockWrite(boolean severalSteps) {
+        if (!this.concurrent) {
+            lockRows(true);
+            return lock.writeLock();
+        }
+        if (!severalSteps) {
+            lock.readLock().lock();
+            // CREATE INDEX takes the lock exclusively, so no index is added while it is shared
+            if (this.secondaryIndexes.isEmpty())
+                return lock.readLock();
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        return lock.writeLock();
+    }
+
     public Row get(Cell primaryCell) {
         try {
             // TODO lock control : finished
-            lock.readLock().lock();
+            lockRows(false);
             return this.index.get(primaryCell);
         } finally {
             // TODO lock control : finished
-            lock.readLock().unlock();
+            unlockRows(false);
         }
     }
 
     public void insert(Row row) {
+        // TODO lock control : finished
+        Lock rowsLock = lockWrite(false);
         try {
-            // TODO lock control : finished
-            lock.writeLock().lock();
             this.checkRowValidInTable(row);
-            if (this.containsRow(row))
+            CompactRow packed = this.layout.pack(row);
+            Cell primaryCell = this.getPrimaryKey(packed);
+            if (this.index.putIfAbsent(primaryCell, packed) != null)
                 throw new DuplicateKeyException();
-            this.index.put(row.getEntries().get(this.primaryIndex), row);
+            this.changed(primaryCell);
+            this.indexRow(packed);
         } finally {
             // TODO lock control : finished
-            lock.writeLock().unlock();
+            rowsLock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the row, or if its primary key is taken replaces the stored row with
+     * onDuplicate(stored row), in a single descent of the index. onDuplicate must keep the
+     * primary key. Returns true if the row was inserted.
+     */
+    public boolean upsert(Row row, UnaryOperator<Row> onDuplicate) {
+        Lock rowsLock = lockWrite(false);
+        try {
+            this.checkRowValidInTable(row);
+            CompactRow packed = this.layout.pack(row);
+            Cell primaryCell = this.getPrimaryKey(packed);
+            ArrayList<Row> replaced = new ArrayList<>(1);
+            Row stored = this.index.compute(primaryCell, (key, oldRow) -> {
+                if (oldRow == null)
+                    return packed;
+                Row newRow = onDuplicate.apply(oldRow);
+                this.checkRowValidInTable(newRow);
+                if (!this.getPrimaryKey(newRow).equals(key))
+                    throw new IllegalArgumentException("upsert cannot change the primary key");
+                replaced.add(oldRow);
+                return this.layout.pack(newRow);
+            });
+            this.changed(primaryCell);
+            if (replaced.isEmpty()) {
+                this.indexRow(stored);
+                return true;
+            }
+            this.unindexRow(replaced.get(0));
+            this.indexRow(stored);
+            return false;
+        } finally {
+            rowsLock.unlock();
+        }
+    }
+
+    /**
+     * Inserts all of the rows or none of them. The rows are validated and sorted by primary key
+     * before the lock is taken, then an empty table is built bottom-up and any other table
+     * takes them leaf by leaf. Throws DuplicateKeyException if a primary key is repeated in
+     * the batch or already in the table.
+     */
+    public void insertBatch(List<Row> rows) {
+        ArrayList<Pair<Cell, Row>> entries = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            this.checkRowValidInTable(row);
+            CompactRow packed = this.layout.pack(row);
+            entries.add(new Pair<>(this.getPrimaryKey(packed), packed));
+        }
+        entries.sort(Comparator.comparing(entry -> entry.left));
+        for (int i = 1; i < entries.size(); i++)
+            if (entries.get(i - 1).left.compareTo(entries.get(i).left) == 0)
+                throw new DuplicateKeyException();
+        Lock rowsLock = lockWrite(true);
+        try {
+            if (this.index.size() == 0 && !this.concurrent) {
+                this.index.bulkLoad(entries.iterator());
+            } else {
+                int inserted = this.index.putAll(entries);
+                if (inserted < entries.size()) {
+                    for (int i = 0; i < inserted; i++)
+                        this.index.remove(entries.get(i).left);
+                    throw new DuplicateKeyException();
+                }
+            }
+            for (Pair<Cell, Row> entry : entries) {
+                this.changed(entry.left);
+                this.indexRow(entry.right);
+            }
+        } finally {
+            rowsLock.unlock();
         }
     }
 
     public void delete(Row row) {
+        // TODO lock control. : finished
+        Lock rowsLock = lockWrite(false);
         try {
-            // TODO lock control. : finished
-            lock.writeLock().lock();
             this.checkRowValidInTable(row);
             if (!this.containsRow(row))
                 throw new KeyNotExistException();
-            this.index.remove(row.getEntries().get(this.primaryIndex));
+            Cell primaryCell = this.getPrimaryKey(row);
+            if (!this.secondaryIndexes.isEmpty())
+                this.unindexRow(this.index.get(primaryCell));
+            this.index.remove(primaryCell);
+            this.changed(primaryCell);
         } finally {
             // TODO lock control. finished
-            lock.writeLock().unlock();
+            rowsLock.unlock();
         }
     }
 
     public void update(Cell primaryCell, Row newRow) {
+        this.checkRowValidInTable(newRow);
+        CompactRow packed = this.layout.pack(newRow);
+        Cell newPrimaryCell = this.getPrimaryKey(packed);
+        // TODO lock control. : finished
+        Lock rowsLock = lockWrite(!newPrimaryCell.equals(primaryCell));
         try {
+            Row oldRow;
+            if (newPrimaryCell.equals(primaryCell)) {
+                oldRow = this.index.replace(primaryCell, packed);
+                if (oldRow == null)
+                    throw new KeyNotExistException();
+            } else {
+                oldRow = this.index.get(primaryCell);
+                if (this.index.putIfAbsent(newPrimaryCell, packed) != null)
+                    throw new DuplicateKeyException();   // 要么删并插入，要么抛出异常
+                this.index.remove(primaryCell);
+                this.changed(newPrimaryCell);
+            }
+            this.changed(primaryCell);
+            this.unindexRow(oldRow);
+            this.indexRow(packed);
+        } finally {
             // TODO lock control. : finished
+            rowsLock.unlock();
+        }
+    }
+
+    private void changed(Cell primaryCell) {
+        this.memoryEstimate = -1;
+        if (this.pages == null && this.columnar == null)
+            this.changedKeys.add(primaryCell);
+    }
+
+    private void indexRow(Row row) {
+        for (SecondaryIndex secondaryIndex : this.secondaryIndexes.values())
+            secondaryIndex.insert(row);
+    }
+
+    private void unindexRow(Row row) {
+        for (SecondaryIndex secondaryIndex : this.secondaryIndexes.values())
+            secondaryIndex.delete(row);
+    }
+
+    public void createSecondaryIndex(String indexName, String columnName) {
+        try {
             lock.writeLock().lock();
-            this.checkRowValidInTable(newRow);
-            Row oldRow = this.get(primaryCell);
-            if (this.containsRow(newRow))
-                throw new DuplicateKeyException();   // 要么删并插入，要么抛出异常
-            this.index.remove(primaryCell);
-            this.index.put(newRow.getEntries().get(this.primaryIndex), newRow);
+            load();
+            if (this.secondaryIndexes.containsKey(indexName))
+                throw new DuplicateIndexException(indexName);
+            int columnIndex = this.getColumnIndex(columnName);
+            this.secondaryIndexes.put(indexName, new SecondaryIndex(indexName, columnIndex, this::getPrimaryKey, this));
+            this.memoryEstimate = -1;
         } finally {
-            // TODO lock control. : finished
             lock.writeLock().unlock();
         }
     }
 
-    private void serialize() {
+    public void dropSecondaryIndex(String indexName) {
         try {
-            File tableFolder = new File(this.getTableFolderPath());
-            if (!tableFolder.exists() ? !tableFolder.mkdirs() : !tableFolder.isDirectory())
-                throw new FileIOException(this.getTableFolderPath() + " on serializing table in folder");
+            lock.writeLock().lock();
+            if (this.secondaryIndexes.remove(indexName) == null)
+                throw new IndexNotExistException(indexName);
+            this.memoryEstimate = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Collection<SecondaryIndex> getSecondaryIndexes() {
+        return this.secondaryIndexes.values();
+    }
+
+    // the first save writes a checkpoint of every row, later ones a segment of the changed rows
+    private void serialize() {
+        File tableFolder = new File(this.getTableFolderPath());
+        if (!tableFolder.exists() ? !tableFolder.mkdirs() : !tableFolder.isDirectory())
+            throw new FileIOException(this.getTableFolderPath() + " on serializing table in folder");
+        if (!this.rowFiles.exists()) {
+            this.changedKeys.clear();
+            this.memoryEstimate = -1;
+            this.rowFiles.checkpoint(this);
             File tableFile = new File(this.getTablePath());
-            if (!tableFile.exists() ? !tableFile.createNewFile() : !tableFile.isFile())
-                throw new FileIOException(this.getTablePath() + " on serializing table to file");
-            FileOutputStream fileOutputStream = new FileOutputStream(this.getTablePath());
-            ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream);
-            for (Row row : this)
-                objectOutputStream.writeObject(row);
-            objectOutputStream.close();
-            fileOutputStream.close();
-        } catch (IOException e) {
-            throw new FileIOException(this.getTablePath() + " on serializing");
+            if (tableFile.exists() && !tableFile.delete())
+                throw new FileIOException(this.getTablePath() + " on replacing serialized rows with a checkpoint");
+            return;
+        }
+        ArrayList<Row> written = new ArrayList<>();
+        ArrayList<Row> removed = new ArrayList<>();
+        // a key changed again after it is taken from the set is put back, so the next save has it
+        for (Iterator<Cell> keys = this.changedKeys.iterator(); keys.hasNext(); ) {
+            Cell primaryCell = keys.next();
+            keys.remove();
+            Iterator<Pair<Cell, Row>> stored = this.index.seek(primaryCell, true, primaryCell, true);
+            if (stored.hasNext())
+                written.add(stored.next().right);
+            else
+                removed.add(this.keyRow(primaryCell));
+        }
+        this.rowFiles.append(written, removed);
+        this.memoryEstimate = -1;
+        if (this.rowFiles.needsCompaction())
+            compactor.execute(this::compact);
+    }
+
+    // a columnar table saves a file per column, rows of an older format are replaced by them
+    private void serializeColumns() {
+        File tableFolder = new File(this.getTableFolderPath());
+        if (!tableFolder.exists() ? !tableFolder.mkdirs() : !tableFolder.isDirectory())
+            throw new FileIOException(this.getTableFolderPath() + " on serializing table in folder");
+        this.columnFiles.write(this.columnar.snapshot());
+        this.memoryEstimate = -1;
+        File tableFile = new File(this.getTablePath());
+        if (tableFile.exists() && !tableFile.delete())
+            throw new FileIOException(this.getTablePath() + " on replacing serialized rows with columns");
+        this.rowFiles.delete();
+    }
+
+    // folds the segments into a new checkpoint unless the table was dropped or compacted meanwhile
+    private void compact() {
+        try {
+            lock.readLock().lock();
+            if (this.loaded && this.rowFiles.needsCompaction())
+                this.rowFiles.checkpoint(this);
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
+    // a row holding only the cells of the key, as segments record removed rows
+    private Row keyRow(Cell primaryCell) {
+        Cell[] cells = new Cell[this.columns.size()];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = new Cell((Comparable) null);
+        List<Cell> keyCells = this.primaryIndexes.length == 1 ? Collections.singletonList(primaryCell)
+                : ((CompositeKey) primaryCell.value).getCells();
+        for (int i = 0; i < this.primaryIndexes.length; i++)
+            cells[this.primaryIndexes[i]] = keyCells.get(i);
+        return new Row(cells);
+    }
+
     private ArrayList<Row> deserialize() {
+        File tableFolder = new File(this.getTableFolderPath());
+        if (!tableFolder.exists() ? !tableFolder.mkdirs() : !tableFolder.isDirectory())
+            throw new FileIOException(this.getTableFolderPath() + " when deserialize");
+        if (this.rowFiles.exists())
+            return this.rowFiles.load(this::getPrimaryKey);
+        File tableFile = new File(this.getTablePath());
+        if (!tableFile.exists())
+            return new ArrayList<>();
+        if (RowFile.isRowFile(this.getTablePath()))
+            return RowFile.read(this.getTablePath(), this.columns);
+        return deserializeObjects();
+    }
+
+    // rows saved as serialized objects before the row file, the next persist rewrites them as one
+    private ArrayList<Row> deserializeObjects() {
         try {
-            File tableFolder = new File(this.getTableFolderPath());
-            if (!tableFolder.exists() ? !tableFolder.mkdirs() : !tableFolder.isDirectory())
-                throw new FileIOException(this.getTableFolderPath() + " when deserialize");
-            File tableFile = new File(this.getTablePath());
-            if (!tableFile.exists())
-                return new ArrayList<>();
             FileInputStream fileInputStream = new FileInputStream(this.getTablePath());
             ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream);
             ArrayList<Row> rowsOnDisk = new ArrayList<>();
@@ -214,7 +695,22 @@ public class Table implements Iterable<Row> {
         try {
             // TODO add lock control. : finished
             lock.readLock().lock();
-            serialize();
+            // an unloaded table was saved as it was unloaded and not written since
+            if (!this.loaded)
+                return;
+            if (this.columnar != null) {
+                serializeColumns();
+                return;
+            }
+            if (this.pages == null) {
+                serialize();
+                return;
+            }
+            this.pages.flush();
+            File tableFile = new File(this.getTablePath());
+            if (tableFile.exists() && !tableFile.delete())
+                throw new FileIOException(this.getTablePath() + " on replacing serialized rows with pages");
+            this.rowFiles.delete();
         } finally {
             // TODO add lock control. : finished
             lock.readLock().unlock();
@@ -231,6 +727,16 @@ public class Table implements Iterable<Row> {
             File tableFile = new File(this.getTablePath());
             if (tableFile.exists() && !tableFile.delete())
                 throw new FileIOException(this.getTablePath() + " when dropTable");
+            this.rowFiles.delete();
+            if (this.columnFiles != null)
+                this.columnFiles.delete();
+            if (this.pages != null)
+                this.pages.delete();
+            for (StringDictionary dictionary : this.dictionaries)
+                if (dictionary != null)
+                    dictionary.delete();
+            if (this.index instanceof OffHeapBPlusTree)
+                ((OffHeapBPlusTree<?, ?>) this.index).release();
         } finally {
             // TODO lock control. : finished
             lock.writeLock().unlock();
@@ -246,8 +752,8 @@ public class Table implements Iterable<Row> {
     private class TableIterator implements Iterator<Row> {
         private Iterator<Pair<Cell, Row>> iterator;
 
-        TableIterator(Table table) {
-            this.iterator = table.index.iterator();
+        TableIterator(Iterator<Pair<Cell, Row>> iterator) {
+            this.iterator = iterator;
         }
 
         @Override
@@ -261,31 +767,164 @@ public class Table implements Iterable<Row> {
         }
     }
 
+    // The iterators are taken from the index of the loaded table under the table lock. They read
+    // on after it is released, so a caller that needs the table not to be unloaded meanwhile holds
+    // a transaction lock on it.
     @Override
     public Iterator<Row> iterator() {
-        return new TableIterator(this);
+        try {
+            lockRows(false);
+            return new TableIterator(this.index.iterator());
+        } finally {
+            unlockRows(false);
+        }
+    }
+
+    // Rows whose primary key lies between from and to, in key order. A null bound is open.
+    public Iterator<Row> range(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        try {
+            lockRows(false);
+            return new TableIterator(this.index.seek(from, fromInclusive, to, toInclusive));
+        } finally {
+            unlockRows(false);
+        }
+    }
+
+    // Rows whose value in the indexed column lies between from and to, in value order.
+    public Iterator<Row> range(SecondaryIndex secondaryIndex, Cell from, boolean fromInclusive, Cell to,
+                               boolean toInclusive) {
+        try {
+            lockRows(false);
+            ArrayList<Row> rows = new ArrayList<>();
+            for (Cell primaryCell : secondaryIndex.seek(from, fromInclusive, to, toInclusive))
+                rows.add(this.index.get(primaryCell));
+            return rows.iterator();
+        } finally {
+            unlockRows(false);
+        }
+    }
+
+    public int size() {
+        try {
+            lockRows(false);
+            return this.index.size();
+        } finally {
+            unlockRows(false);
+        }
+    }
+
+    // Number of rows whose primary key lies between from and to, without reading them on the heap trees.
+    public int count(Cell from, boolean fromInclusive, Cell to, boolean toInclusive) {
+        try {
+            lockRows(false);
+            return this.index.count(from, fromInclusive, to, toInclusive);
+        } finally {
+            unlockRows(false);
+        }
+    }
+
+    public boolean isColumnar() {
+        return this.columnar != null;
     }
 
+    public TableStorage getStorage() {
+        return this.storage;
+    }
+
+    public boolean isCompressed() {
+        return this.compressed;
+    }
+
+    /**
+     * The cells of the given columns of the rows whose cell in filterColumn lies in the range,
+     * or of every row if filterColumn is negative, in key order. A columnar table reads only
+     * the blocks of those columns and skips the blocks whose zone map misses the range.
+     */
+    public List<Row> scan(int[] columns, int filterColumn, KeyRange range) {
+        try {
+            lockRows(false);
+            if (this.columnar != null)
+                return this.columnar.scan(columns, filterColumn, range);
+            ArrayList<Row> rows = new ArrayList<>();
+            for (Row row : this) {
+                if (filterColumn >= 0 && !range.contains(row.get(filterColumn)))
+                    continue;
+                ArrayList<Cell> cells = new ArrayList<>(columns.length);
+                for (int column : columns)
+                    cells.add(row.get(column));
+                rows.add(new Row(cells));
+            }
+            return rows;
+        } finally {
+            unlockRows(false);
+        }
+    }
+
+    /**
+     * The key the row is stored under: the cell of the primary column, or a CompositeKey of
+     * the cells of all key columns.
+     */
+    public Cell getPrimaryKey(Row row) {
+        if (this.primaryIndexes.length == 1)
+            return row.get(this.primaryIndexes[0]);
+        return new Cell(CompositeKey.of(this.getPrimaryCells(row)));
+    }
+
+    public List<Cell> getPrimaryCells(Row row) {
+        ArrayList<Cell> cells = new ArrayList<>(this.primaryIndexes.length);
+        for (int primaryIndex : this.primaryIndexes)
+            cells.add(row.get(primaryIndex));
+        return cells;
+    }
+
+    // key columns in key order
+    public List<Column> getPrimaryColumns() {
+        ArrayList<Column> primaryColumns = new ArrayList<>(this.primaryIndexes.length);
+        for (int primaryIndex : this.primaryIndexes)
+            primaryColumns.add(this.columns.get(primaryIndex));
+        return primaryColumns;
+    }
+
+    public int getColumnIndex(String columnName) {
+        for (int i = 0; i < this.columns.size(); i++)
+            if (this.columns.get(i).getColumnName().equals(columnName))
+                return i;
+        throw new ColumnNotExistException(columnName);
+    }
+
+    // a row packed by this table was checked when it was packed
     private void checkRowValidInTable(Row row) {
-        if (row.getEntries().size() != this.columns.size())
-            throw new SchemaLengthMismatchException(this.columns.size(), row.getEntries().size(), "when check Row Valid In table");
-        for (int i = 0; i < row.getEntries().size(); i++) {
-            String entryValueType = row.getEntries().get(i).getValueType();
+        if (row instanceof CompactRow && ((CompactRow) row).getLayout() == this.layout)
+            return;
+        if (row.size() != this.columns.size())
+            throw new SchemaLengthMismatchException(this.columns.size(), row.size(), "when check Row Valid In table");
+        for (int i = 0; i < row.size(); i++) {
+            Comparable entryValue = row.getValue(i);
             Column column = this.columns.get(i);
-            if (entryValueType.equals(Global.ENTRY_NULL)) {
+            if (entryValue == null) {
                 if (column.cantBeNull()) throw new NullValueException(column.getColumnName());
             } else {
-                if (!entryValueType.equals(column.getColumnType().name()))
+                if (!column.getColumnType().isInstance(entryValue))
                     throw new ValueFormatInvalidException("(when check row valid in table)");
-                Comparable entryValue = row.getEntries().get(i).value;
-                if (entryValueType.equals(STRING.name()) && ((String) entryValue).length() > column.getMaxLength())
+                if (column.getColumnType() == STRING && ((String) entryValue).length() > column.getMaxLength())
                     throw new ValueExceedException(column.getColumnName(), ((String) entryValue).length(), column.getMaxLength(), "(when check row valid in table)");
             }
         }
     }
 
+    // rows serialized by this table are already in key order, the sort only guards other input
+    private void bulkLoad(List<Row> rows) {
+        ArrayList<Pair<Cell, Row>> entries = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            CompactRow packed = this.layout.pack(row);
+            entries.add(new Pair<>(this.getPrimaryKey(packed), packed));
+        }
+        entries.sort(Comparator.comparing(entry -> entry.left));
+        this.index.bulkLoad(entries.iterator());
+    }
+
     private Boolean containsRow(Row row) {
-        return this.index.contains(row.getEntries().get(this.primaryIndex));
+        return this.index.contains(this.getPrimaryKey(row));
     }
 
     public String getTableFolderPath() {
@@ -296,6 +935,10 @@ public class Table implements Iterable<Row> {
         return this.getTableFolderPath() + File.separator + this.tableName;
     }
 
+    public String getTablePagesPath() {
+        return this.getTablePath() + Global.PAGES_SUFFIX;
+    }
+
     public String getTableMetaPath() {
         return this.getTablePath() + Global.META_SUFFIX;
     }
@@ -0,0 +1,155 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Global;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the evictable tables of every database within one memory budget. A table is charged
+ * the estimate of its rows and indexes taken when it was last accessed. Once the charges pass
+ * the budget, the least recently accessed tables are saved and unloaded, skipping those in
+ * use, and an unloaded table is read back on its next access. Without a budget (the largest
+ * long) nothing is charged or counted.
+ */
+
+public final class TableCache {
+    private final long budget;
+    private final LinkedHashMap<Table, Long> charges; // in access order, 0 for an unloaded table
+    private long charged;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public TableCache(long budget) {
+        if (budget <= 0) throw new IllegalArgumentException("table cache budget must be positive");
+        this.budget = budget;
+        this.charges = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static TableCache getInstance() {
+        return TableCacheHolder.INSTANCE;
+    }
+
+    private static class TableCacheHolder {
+        private static final TableCache INSTANCE = new TableCache(Global.tableCacheBytes);
+
+        private TableCacheHolder() {
+
+        }
+    }
+
+    /**
+     * Starts charging for a loaded table, a table that is not evictable is left out.
+     */
+    public void add(Table table) {
+        if (!table.isEvictable() || budget == Long.MAX_VALUE)
+            return;
+        long size = table.estimateMemory();
+        synchronized (this) {
+            charge(table, size);
+        }
+        evict(table);
+    }
+
+    /**
+     * Reads the table back if it was unloaded and charges it as the most recently accessed.
+     */
+    public void access(Table table) {
+        if (!table.isEvictable() || budget == Long.MAX_VALUE)
+            return;
+        boolean hit = table.isLoaded();
+        if (!hit)
+            table.load();
+        long size = table.estimateMemory();
+        synchronized (this) {
+            if (!charges.containsKey(table))
+                return; // removed meanwhile
+            if (hit) hits++;
+            else misses++;
+            charge(table, size);
+        }
+        evict(table);
+    }
+
+    public synchronized void remove(Table table) {
+        Long size = charges.remove(table);
+        if (size != null)
+            charged -= size;
+    }
+
+    private void charge(Table table, long size) {
+        Long old = charges.put(table, size);
+        charged += size - (old == null ? 0 : old);
+    }
+
+    // The least recently accessed first, never the table being accessed. The victims are picked
+    // and uncharged under the monitor but saved outside it, so other tables are accessed
+    // meanwhile. A table that cannot be unloaded is charged again and passed over.
+    private void evict(Table accessed) {
+        Set<Table> skipped = new HashSet<>();
+        skipped.add(accessed);
+        while (true) {
+            List<Map.Entry<Table, Long>> victims = new ArrayList<>();
+            synchronized (this) {
+                for (Map.Entry<Table, Long> entry : charges.entrySet()) {
+                    if (charged <= budget)
+                        break;
+                    if (entry.getValue() == 0 || skipped.contains(entry.getKey()))
+                        continue;
+                    charged -= entry.getValue();
+                    entry.setValue(0L);
+                    victims.add(entry);
+                }
+            }
+            if (victims.isEmpty())
+                return;
+            boolean failed = false;
+            for (Map.Entry<Table, Long> entry : victims) {
+                Table victim = entry.getKey();
+                boolean unloaded = victim.unload();
+                long size = unloaded ? 0 : victim.estimateMemory();
+                synchronized (this) {
+                    if (unloaded) evictions++;
+                    // set in place, keeping the table where it was in the access order, unless
+                    // the table was removed or an access read it back and charged it meanwhile
+                    if (charges.containsKey(victim) && !(unloaded && victim.isLoaded())) {
+                        charged += size - entry.getValue();
+                        entry.setValue(size);
+                    }
+                }
+                if (!unloaded) {
+                    skipped.add(victim);
+                    failed = true;
+                }
+            }
+            if (!failed)
+                return;
+        }
+    }
+
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    // the estimated bytes of the loaded tables
+    public synchronized long getCharged() {
+        return charged;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
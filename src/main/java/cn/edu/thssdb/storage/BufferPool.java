@@ -0,0 +1,176 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.common.Global;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Caches a bounded number of decoded pages shared by all page files.
+ * <p>
+ * A pinned page stays in memory until it is unpinned. Unpinned pages are evicted with the
+ * CLOCK policy: the hand clears the reference bit of recently used frames and takes the
+ * first frame whose bit is already clear. Dirty pages are written back when they are
+ * evicted or when their file is flushed.
+ */
+
+public final class BufferPool {
+    private final Frame<?>[] frames;
+    private final HashMap<Long, Frame<?>> pageTable;
+    private int hand;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BufferPool(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("buffer pool capacity must be positive");
+        this.frames = new Frame<?>[capacity];
+        this.pageTable = new HashMap<>();
+    }
+
+    public static BufferPool getInstance() {
+        return BufferPoolHolder.INSTANCE;
+    }
+
+    private static class BufferPoolHolder {
+        private static final BufferPool INSTANCE = new BufferPool(Global.bufferPoolPages);
+
+        private BufferPoolHolder() {
+
+        }
+    }
+
+    private static long pageKey(PageFile<?> file, int pageId) {
+        return ((long) file.id << 32) | (pageId & 0xffffffffL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Frame<T> pin(PageFile<T> file, int pageId) {
+        Frame<T> frame = (Frame<T>) pageTable.get(pageKey(file, pageId));
+        if (frame != null) {
+            hits++;
+        } else {
+            misses++;
+            int slot = victim();
+            frame = new Frame<>(file, pageId, slot, file.read(pageId));
+            install(frame);
+        }
+        frame.pinCount++;
+        frame.referenced = true;
+        return frame;
+    }
+
+    /**
+     * Allocates a new page in the file holding the given content and pins it.
+     * The page reaches the file when it is evicted or flushed.
+     */
+    public synchronized <T> Frame<T> pinNew(PageFile<T> file, T page) {
+        int slot = victim();
+        Frame<T> frame = new Frame<>(file, file.allocate(), slot, page);
+        install(frame);
+        frame.dirty = true;
+        frame.pinCount++;
+        frame.referenced = true;
+        return frame;
+    }
+
+    public synchronized void unpin(Frame<?> frame, boolean dirty) {
+        if (frame.pinCount <= 0)
+            throw new IllegalStateException("page " + frame.pageId + " is not pinned");
+        frame.pinCount--;
+        if (dirty) frame.dirty = true;
+    }
+
+    /**
+     * Writes every dirty page of the file, in page order.
+     */
+    public synchronized void flush(PageFile<?> file) {
+        ArrayList<Frame<?>> dirtyFrames = new ArrayList<>();
+        for (Frame<?> frame : frames)
+            if (frame != null && frame.file == file && frame.dirty)
+                dirtyFrames.add(frame);
+        dirtyFrames.sort(Comparator.comparingInt(frame -> frame.pageId));
+        for (Frame<?> frame : dirtyFrames)
+            writeBack(frame);
+    }
+
+    /**
+     * Drops every cached page of the file without writing it.
+     */
+    public synchronized void discard(PageFile<?> file) {
+        for (Frame<?> frame : frames)
+            if (frame != null && frame.file == file)
+                remove(frame);
+    }
+
+    /**
+     * Drops the cached page without writing it, the page must not be pinned.
+     */
+    public synchronized void discard(PageFile<?> file, int pageId) {
+        Frame<?> frame = pageTable.get(pageKey(file, pageId));
+        if (frame == null)
+            return;
+        if (frame.pinCount > 0)
+            throw new IllegalStateException("page " + pageId + " is pinned");
+        remove(frame);
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    public synchronized int size() {
+        return pageTable.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void install(Frame<?> frame) {
+        frames[frame.slot] = frame;
+        pageTable.put(pageKey(frame.file, frame.pageId), frame);
+    }
+
+    private void remove(Frame<?> frame) {
+        frames[frame.slot] = null;
+        pageTable.remove(pageKey(frame.file, frame.pageId));
+    }
+
+    // two sweeps of the hand clear every reference bit, so a free frame is found unless all are pinned
+    private int victim() {
+        for (int i = 0; i < 2 * frames.length; i++) {
+            int slot = hand;
+            hand = (hand + 1) % frames.length;
+            Frame<?> frame = frames[slot];
+            if (frame == null)
+                return slot;
+            if (frame.pinCount > 0)
+                continue;
+            if (frame.referenced) {
+                frame.referenced = false;
+                continue;
+            }
+            if (frame.dirty)
+                writeBack(frame);
+            remove(frame);
+            evictions++;
+            return slot;
+        }
+        throw new IllegalStateException("every page in the buffer pool is pinned");
+    }
+
+    private <T> void writeBack(Frame<T> frame) {
+        frame.file.write(frame.pageId, frame.page);
+        frame.dirty = false;
+    }
+}
@@ -0,0 +1,104 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.CompositeKey;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a Cell as a one byte type tag followed by its value.
+ * Strings are stored as a length-prefixed UTF-8 byte sequence, composite keys as their
+ * column count and length-prefixed bytes.
+ */
+
+public class CellCodec implements Codec<Cell> {
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte FLOAT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte COMPOSITE = 6;
+
+    @Override
+    public int size(Cell cell) {
+        Object value = cell.value;
+        if (value == null) return 1;
+        if (value instanceof Integer || value instanceof Float) return 5;
+        if (value instanceof Long || value instanceof Double) return 9;
+        if (value instanceof String) return 5 + utf8Length((String) value);
+        if (value instanceof CompositeKey) return 6 + ((CompositeKey) value).getBytes().length;
+        throw new IllegalArgumentException("cannot encode a cell of " + value.getClass());
+    }
+
+    @Override
+    public void write(Cell cell, ByteBuffer buffer) {
+        Object value = cell.value;
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof Integer) {
+            buffer.put(INT).putInt((Integer) value);
+        } else if (value instanceof Long) {
+            buffer.put(LONG).putLong((Long) value);
+        } else if (value instanceof Float) {
+            buffer.put(FLOAT).putFloat((Float) value);
+        } else if (value instanceof Double) {
+            buffer.put(DOUBLE).putDouble((Double) value);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            buffer.put(STRING).putInt(bytes.length).put(bytes);
+        } else if (value instanceof CompositeKey) {
+            CompositeKey key = (CompositeKey) value;
+            buffer.put(COMPOSITE).put((byte) key.getColumns()).putInt(key.getBytes().length).put(key.getBytes());
+        } else {
+            throw new IllegalArgumentException("cannot encode a cell of " + value.getClass());
+        }
+    }
+
+    @Override
+    public Cell read(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return new Cell((Comparable) null);
+            case INT:
+                return new Cell(buffer.getInt());
+            case LONG:
+                return new Cell(buffer.getLong());
+            case FLOAT:
+                return new Cell(buffer.getFloat());
+            case DOUBLE:
+                return new Cell(buffer.getDouble());
+            case STRING:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return new Cell(new String(bytes, StandardCharsets.UTF_8));
+            case COMPOSITE:
+                int columns = buffer.get();
+                byte[] keyBytes = new byte[buffer.getInt()];
+                buffer.get(keyBytes);
+                return new Cell(CompositeKey.wrap(columns, keyBytes));
+            default:
+                throw new IllegalStateException("unknown cell type tag " + tag);
+        }
+    }
+
+    static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
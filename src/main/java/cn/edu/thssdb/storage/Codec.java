@@ -0,0 +1,19 @@
+package cn.edu.thssdb.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes values of one type in a binary form, used to lay them out in pages.
+ */
+
+public interface Codec<T> {
+
+    /**
+     * Number of bytes write() takes for the value.
+     */
+    int size(T value);
+
+    void write(T value, ByteBuffer buffer);
+
+    T read(ByteBuffer buffer);
+}
@@ -0,0 +1,548 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.query.KeyRange;
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.type.ColumnType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * The values of one column for a run of consecutive rows, in whichever encoding takes the
+ * fewest bytes, with the smallest and largest value as a zone map:
+ * <ul>
+ * <li>BIT_PACKED: numbers as their distance from the smallest one, in as many bits as the
+ * largest distance needs</li>
+ * <li>DELTA: numbers as the zigzag-encoded difference from the previous one, bit-packed</li>
+ * <li>DICTIONARY: the distinct values in order and the bit-packed position of each value</li>
+ * <li>RUN_LENGTH: each run of equal values once, with the row the run ends before</li>
+ * <li>PLAIN: strings as their UTF-8 bytes one after another, with the offset of each</li>
+ * </ul>
+ * Numbers are packed as the 64 bits of their value, floats and doubles as their IEEE bits.
+ * A null cell has its bit set in a bitmap and holds the value before it, so it does not
+ * break a run or widen the packing. Blocks never change once encoded.
+ */
+
+public final class ColumnBlock {
+    enum Encoding {PLAIN, BIT_PACKED, DELTA, DICTIONARY, RUN_LENGTH}
+
+    // DELTA keeps the value of every 128th row, so get() adds up at most 127 differences
+    private static final int ANCHOR_SHIFT = 7;
+    private static final CellCodec CELL_CODEC = new CellCodec();
+
+    private final ColumnType type;
+    private final int count;
+    private final Encoding encoding;
+    private final long[] nulls; // null if no cell is null
+    private final Cell min; // null if every cell is null
+    private final Cell max;
+    private final long base; // BIT_PACKED smallest value, DELTA first value
+    private final int width;
+    private final long[] packed; // BIT_PACKED and DELTA values, DICTIONARY positions
+    private final Comparable[] values; // DICTIONARY entries in order, RUN_LENGTH run values
+    private final int[] ends; // RUN_LENGTH end of each run, PLAIN offset of each string and of the end
+    private final byte[] bytes; // PLAIN
+    private final long[] anchors; // DELTA
+
+    private ColumnBlock(ColumnType type, int count, Encoding encoding, long[] nulls, Cell min, Cell max, long base,
+                        int width, long[] packed, Comparable[] values, int[] ends, byte[] bytes) {
+        this.type = type;
+        this.count = count;
+        this.encoding = encoding;
+        this.nulls = nulls;
+        this.min = min;
+        this.max = max;
+        this.base = base;
+        this.width = width;
+        this.packed = packed;
+        this.values = values;
+        this.ends = ends;
+        this.bytes = bytes;
+        this.anchors = encoding == Encoding.DELTA ? anchors() : null;
+    }
+
+    /**
+     * Encodes the first count values of a column of the type, null values are null cells.
+     */
+    public static ColumnBlock encode(ColumnType type, Comparable[] column, int count) {
+        Comparable first = null;
+        for (int i = 0; i < count && first == null; i++)
+            first = column[i];
+        Comparable previous = first == null ? zero(type) : first;
+        Comparable[] filled = new Comparable[count];
+        long[] nulls = null;
+        Comparable min = null;
+        Comparable max = null;
+        for (int i = 0; i < count; i++) {
+            Comparable value = column[i];
+            if (value == null) {
+                if (nulls == null)
+                    nulls = new long[(count + 63) >>> 6];
+                nulls[i >>> 6] |= 1L << i;
+                value = previous;
+            } else {
+                if (min == null || compare(value, min) < 0) min = value;
+                if (max == null || compare(value, max) > 0) max = value;
+            }
+            filled[i] = value;
+            previous = value;
+        }
+        Cell minCell = min == null ? null : new Cell(min);
+        Cell maxCell = max == null ? null : new Cell(max);
+
+        // the size each encoding would take, the first of the smallest wins
+        int runs = count == 0 ? 0 : 1;
+        long runBytes = count == 0 ? 0 : valueSize(filled[0]) + 4;
+        for (int i = 1; i < count; i++) {
+            if (!filled[i].equals(filled[i - 1])) {
+                runs++;
+                runBytes += valueSize(filled[i]) + 4;
+            }
+        }
+        HashSet<Comparable> distinct = new HashSet<>(Arrays.asList(filled));
+        long dictionaryBytes = packedBytes(count, bitsFor(distinct.size() - 1));
+        for (Comparable value : distinct)
+            dictionaryBytes += valueSize(value);
+
+        Encoding encoding;
+        long bestBytes;
+        long[] bits = null;
+        long low = 0;
+        int packedWidth = 0;
+        int deltaWidth = 0;
+        if (type == ColumnType.STRING) {
+            encoding = Encoding.PLAIN;
+            bestBytes = 4;
+            for (Comparable value : filled)
+                bestBytes += valueSize(value);
+        } else {
+            bits = new long[count];
+            for (int i = 0; i < count; i++)
+                bits[i] = bits(type, filled[i]);
+            long high = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == 0 || bits[i] < low) low = bits[i];
+                if (i == 0 || bits[i] > high) high = bits[i];
+            }
+            packedWidth = bitsFor(high - low);
+            long deltaBits = 0;
+            for (int i = 1; i < count; i++)
+                deltaBits |= zigzag(bits[i] - bits[i - 1]);
+            deltaWidth = bitsFor(deltaBits);
+            encoding = Encoding.BIT_PACKED;
+            bestBytes = 8 + packedBytes(count, packedWidth);
+        }
+        if (dictionaryBytes < bestBytes) {
+            encoding = Encoding.DICTIONARY;
+            bestBytes = dictionaryBytes;
+        }
+        if (runBytes < bestBytes) {
+            encoding = Encoding.RUN_LENGTH;
+            bestBytes = runBytes;
+        }
+        if (bits != null && 8 + packedBytes(count, deltaWidth) < bestBytes)
+            encoding = Encoding.DELTA;
+
+        switch (encoding) {
+            case BIT_PACKED: {
+                long[] offsets = new long[count];
+                for (int i = 0; i < count; i++)
+                    offsets[i] = bits[i] - low;
+                return new ColumnBlock(type, count, encoding, nulls, minCell, maxCell, low, packedWidth,
+                        pack(offsets, packedWidth), null, null, null);
+            }
+            case DELTA: {
+                long[] deltas = new long[count];
+                for (int i = 1; i < count; i++)
+                    deltas[i] = zigzag(bits[i] - bits[i - 1]);
+                return new ColumnBlock(type, count, encoding, nulls, minCell, maxCell, bits[0], deltaWidth,
+                        pack(deltas, deltaWidth), null, null, null);
+            }
+            case DICTIONARY: {
+                Comparable[] dictionary = distinct.toArray(new Comparable[0]);
+                Arrays.sort(dictionary, ColumnBlock::compare);
+                HashMap<Comparable, Integer> positions = new HashMap<>();
+                for (int i = 0; i < dictionary.length; i++)
+                    positions.put(dictionary[i], i);
+                long[] codes = new long[count];
+                for (int i = 0; i < count; i++)
+                    codes[i] = positions.get(filled[i]);
+                int codeWidth = bitsFor(dictionary.length - 1);
+                return new ColumnBlock(type, count, encoding, nulls, minCell, maxCell, 0, codeWidth,
+                        pack(codes, codeWidth), dictionary, null, null);
+            }
+            case RUN_LENGTH: {
+                Comparable[] runValues = new Comparable[runs];
+                int[] runEnds = new int[runs];
+                int run = 0;
+                for (int i = 1; i <= count; i++) {
+                    if (i == count || !filled[i].equals(filled[i - 1])) {
+                        runValues[run] = filled[i - 1];
+                        runEnds[run++] = i;
+                    }
+                }
+                return new ColumnBlock(type, count, encoding, nulls, minCell, maxCell, 0, 0, null, runValues,
+                        runEnds, null);
+            }
+            default: {
+                int[] offsets = new int[count + 1];
+                byte[][] strings = new byte[count][];
+                for (int i = 0; i < count; i++) {
+                    strings[i] = ((String) filled[i]).getBytes(StandardCharsets.UTF_8);
+                    offsets[i + 1] = offsets[i] + strings[i].length;
+                }
+                byte[] utf8 = new byte[offsets[count]];
+                for (int i = 0; i < count; i++)
+                    System.arraycopy(strings[i], 0, utf8, offsets[i], strings[i].length);
+                return new ColumnBlock(type, count, encoding, nulls, minCell, maxCell, 0, 0, null, null, offsets,
+                        utf8);
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    Encoding getEncoding() {
+        return encoding;
+    }
+
+    // the zone map, null if every cell is null
+    public Cell getMin() {
+        return min;
+    }
+
+    public Cell getMax() {
+        return max;
+    }
+
+    public boolean isNull(int i) {
+        return nulls != null && (nulls[i >>> 6] & 1L << i) != 0;
+    }
+
+    /**
+     * Returns the value of the i-th cell, or null if the cell is null.
+     */
+    public Comparable get(int i) {
+        if (i < 0 || i >= count)
+            throw new IndexOutOfBoundsException("row " + i + " of a block of " + count);
+        if (isNull(i))
+            return null;
+        switch (encoding) {
+            case BIT_PACKED:
+                return number(type, base + unpack(packed, width, i));
+            case DELTA: {
+                int anchor = i >>> ANCHOR_SHIFT;
+                long value = anchors[anchor];
+                for (int j = (anchor << ANCHOR_SHIFT) + 1; j <= i; j++)
+                    value += unzigzag(unpack(packed, width, j));
+                return number(type, value);
+            }
+            case DICTIONARY:
+                return values[(int) unpack(packed, width, i)];
+            case RUN_LENGTH: {
+                int low = 0;
+                int high = ends.length - 1;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (ends[mid] > i) high = mid;
+                    else low = mid + 1;
+                }
+                return values[low];
+            }
+            default:
+                return new String(bytes, ends[i], ends[i + 1] - ends[i], StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Returns the values of every cell, null for null cells.
+     */
+    public Comparable[] decode() {
+        Comparable[] column = new Comparable[count];
+        switch (encoding) {
+            case BIT_PACKED:
+                for (int i = 0; i < count; i++)
+                    column[i] = number(type, base + unpack(packed, width, i));
+                break;
+            case DELTA: {
+                long value = base;
+                for (int i = 0; i < count; i++) {
+                    value += unzigzag(unpack(packed, width, i));
+                    column[i] = number(type, value);
+                }
+                break;
+            }
+            case DICTIONARY:
+                for (int i = 0; i < count; i++)
+                    column[i] = values[(int) unpack(packed, width, i)];
+                break;
+            case RUN_LENGTH:
+                for (int run = 0, i = 0; run < ends.length; run++)
+                    for (; i < ends[run]; i++)
+                        column[i] = values[run];
+                break;
+            default:
+                for (int i = 0; i < count; i++)
+                    column[i] = new String(bytes, ends[i], ends[i + 1] - ends[i], StandardCharsets.UTF_8);
+        }
+        if (nulls != null)
+            for (int i = 0; i < count; i++)
+                if (isNull(i)) column[i] = null;
+        return column;
+    }
+
+    /**
+     * Returns false if no cell can lie in the range, by the zone map and for a dictionary by
+     * its entries, so a scan with the range skips the block.
+     */
+    public boolean mayContain(KeyRange range) {
+        if (min == null)
+            return false;
+        if (range.lower != null) {
+            int cmp = max.compareTo(range.lower);
+            if (cmp < 0 || (cmp == 0 && !range.lowerInclusive)) return false;
+        }
+        if (range.upper != null) {
+            int cmp = min.compareTo(range.upper);
+            if (cmp > 0 || (cmp == 0 && !range.upperInclusive)) return false;
+        }
+        if (encoding != Encoding.DICTIONARY)
+            return true;
+        // the first entry not below the range is in it, or no entry is
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = range.lower == null ? 1 : new Cell(values[mid]).compareTo(range.lower);
+            if (cmp > 0 || (cmp == 0 && range.lowerInclusive)) high = mid;
+            else low = mid + 1;
+        }
+        return low < values.length && range.contains(new Cell(values[low]));
+    }
+
+    /**
+     * Number of bytes write() takes for the block.
+     */
+    public int serializedSize() {
+        int size = 4 + 1 + 1 + (nulls == null ? 0 : nulls.length * 8)
+                + CELL_CODEC.size(cellOf(min)) + CELL_CODEC.size(cellOf(max));
+        switch (encoding) {
+            case BIT_PACKED:
+            case DELTA:
+                return size + 8 + 1 + packed.length * 8;
+            case DICTIONARY:
+                return size + 4 + cellsSize(values) + 1 + packed.length * 8;
+            case RUN_LENGTH:
+                return size + 4 + cellsSize(values) + ends.length * 4;
+            default:
+                return size + 4 + bytes.length + ends.length * 4;
+        }
+    }
+
+    public void write(ByteBuffer buffer) {
+        buffer.putInt(count).put((byte) encoding.ordinal()).put((byte) (nulls == null ? 0 : 1));
+        if (nulls != null)
+            for (long word : nulls)
+                buffer.putLong(word);
+        CELL_CODEC.write(cellOf(min), buffer);
+        CELL_CODEC.write(cellOf(max), buffer);
+        switch (encoding) {
+            case BIT_PACKED:
+            case DELTA:
+                buffer.putLong(base).put((byte) width);
+                for (long word : packed)
+                    buffer.putLong(word);
+                break;
+            case DICTIONARY:
+                buffer.putInt(values.length);
+                for (Comparable value : values)
+                    CELL_CODEC.write(new Cell(value), buffer);
+                buffer.put((byte) width);
+                for (long word : packed)
+                    buffer.putLong(word);
+                break;
+            case RUN_LENGTH:
+                buffer.putInt(values.length);
+                for (Comparable value : values)
+                    CELL_CODEC.write(new Cell(value), buffer);
+                for (int end : ends)
+                    buffer.putInt(end);
+                break;
+            default:
+                buffer.putInt(bytes.length).put(bytes);
+                for (int offset : ends)
+                    buffer.putInt(offset);
+        }
+    }
+
+    public static ColumnBlock read(ColumnType type, ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Encoding encoding = Encoding.values()[buffer.get()];
+        long[] nulls = null;
+        if (buffer.get() != 0) {
+            nulls = new long[(count + 63) >>> 6];
+            for (int i = 0; i < nulls.length; i++)
+                nulls[i] = buffer.getLong();
+        }
+        Cell min = CELL_CODEC.read(buffer);
+        Cell max = CELL_CODEC.read(buffer);
+        if (min.value == null) {
+            min = null;
+            max = null;
+        }
+        switch (encoding) {
+            case BIT_PACKED:
+            case DELTA: {
+                long base = buffer.getLong();
+                int width = buffer.get();
+                return new ColumnBlock(type, count, encoding, nulls, min, max, base, width,
+                        readWords(buffer, count, width), null, null, null);
+            }
+            case DICTIONARY: {
+                Comparable[] dictionary = readValues(buffer, buffer.getInt());
+                int width = buffer.get();
+                return new ColumnBlock(type, count, encoding, nulls, min, max, 0, width,
+                        readWords(buffer, count, width), dictionary, null, null);
+            }
+            case RUN_LENGTH: {
+                Comparable[] runValues = readValues(buffer, buffer.getInt());
+                int[] runEnds = new int[runValues.length];
+                for (int i = 0; i < runEnds.length; i++)
+                    runEnds[i] = buffer.getInt();
+                return new ColumnBlock(type, count, encoding, nulls, min, max, 0, 0, null, runValues, runEnds, null);
+            }
+            default: {
+                byte[] utf8 = new byte[buffer.getInt()];
+                buffer.get(utf8);
+                int[] offsets = new int[count + 1];
+                for (int i = 0; i <= count; i++)
+                    offsets[i] = buffer.getInt();
+                return new ColumnBlock(type, count, encoding, nulls, min, max, 0, 0, null, null, offsets, utf8);
+            }
+        }
+    }
+
+    private long[] anchors() {
+        long[] values = new long[(count + (1 << ANCHOR_SHIFT) - 1) >>> ANCHOR_SHIFT];
+        long value = base;
+        for (int i = 0; i < count; i++) {
+            value += unzigzag(unpack(packed, width, i));
+            if ((i & ((1 << ANCHOR_SHIFT) - 1)) == 0)
+                values[i >>> ANCHOR_SHIFT] = value;
+        }
+        return values;
+    }
+
+    private static Cell cellOf(Cell value) {
+        return value == null ? new Cell((Comparable) null) : value;
+    }
+
+    private static int cellsSize(Comparable[] values) {
+        int size = 0;
+        for (Comparable value : values)
+            size += CELL_CODEC.size(new Cell(value));
+        return size;
+    }
+
+    private static Comparable[] readValues(ByteBuffer buffer, int count) {
+        Comparable[] values = new Comparable[count];
+        for (int i = 0; i < count; i++)
+            values[i] = CELL_CODEC.read(buffer).value;
+        return values;
+    }
+
+    private static long[] readWords(ByteBuffer buffer, int count, int width) {
+        long[] words = new long[(int) (((long) count * width + 63) >>> 6)];
+        for (int i = 0; i < words.length; i++)
+            words[i] = buffer.getLong();
+        return words;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Comparable a, Comparable b) {
+        return a.compareTo(b);
+    }
+
+    private static Comparable zero(ColumnType type) {
+        return type == ColumnType.STRING ? "" : number(type, 0);
+    }
+
+    private static long valueSize(Comparable value) {
+        if (value instanceof String)
+            return 4 + CellCodec.utf8Length((String) value);
+        return value instanceof Integer || value instanceof Float ? 4 : 8;
+    }
+
+    private static long bits(ColumnType type, Comparable value) {
+        switch (type) {
+            case INT:
+                return (Integer) value;
+            case LONG:
+                return (Long) value;
+            case FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            default:
+                return Double.doubleToRawLongBits((Double) value);
+        }
+    }
+
+    private static Comparable number(ColumnType type, long bits) {
+        switch (type) {
+            case INT:
+                return (int) bits;
+            case LONG:
+                return bits;
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            default:
+                return Double.longBitsToDouble(bits);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // bits of the largest unsigned value, 0 when every value is 0
+    private static int bitsFor(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long packedBytes(int count, int width) {
+        return ((long) count * width + 63) / 64 * 8;
+    }
+
+    static long[] pack(long[] values, int width) {
+        long[] words = new long[(int) (((long) values.length * width + 63) >>> 6)];
+        for (int i = 0; width > 0 && i < values.length; i++) {
+            long bit = (long) i * width;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            words[word] |= values[i] << shift;
+            if (shift + width > 64)
+                words[word + 1] |= values[i] >>> (64 - shift);
+        }
+        return words;
+    }
+
+    static long unpack(long[] words, int width, int i) {
+        if (width == 0)
+            return 0;
+        long bit = (long) i * width;
+        int word = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long value = words[word] >>> shift;
+        if (shift + width > 64)
+            value |= words[word + 1] << (64 - shift);
+        return width == 64 ? value : value & ((1L << width) - 1);
+    }
+}
@@ -0,0 +1,183 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.exception.FileIOException;
+import cn.edu.thssdb.schema.Column;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A ColumnStore saved as one file per column. A column file holds a header with the format
+ * version, the column type and the block count, then every block in the form of
+ * ColumnBlock.write. A manifest names the generation of the files and the row count and is
+ * replaced atomically, so files it does not name are never read. A store loaded from the
+ * files reads each column file the first time the column is asked for.
+ */
+
+public final class ColumnFiles {
+    private static final int MAGIC = 0x54434f4c;
+    private static final short VERSION = 1;
+    private static final String MANIFEST_SUFFIX = ".columns";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String path;
+    private final List<Column> columns;
+    private int generation; // -1 before the first write
+    private int rowCount;
+    private ColumnStore saved; // the store the files hold, if it was written or loaded here
+    private boolean deleted;
+
+    /**
+     * Opens the files saved under the path, table files take the path of the table.
+     */
+    public ColumnFiles(String path, List<Column> columns) {
+        this.path = path;
+        this.columns = columns;
+        this.generation = -1;
+        File manifest = new File(path + MANIFEST_SUFFIX);
+        if (!manifest.exists())
+            return;
+        try {
+            String[] fields = new String(Files.readAllBytes(manifest.toPath()), StandardCharsets.UTF_8).trim().split(" ");
+            this.generation = Integer.parseInt(fields[0]);
+            this.rowCount = Integer.parseInt(fields[1]);
+        } catch (IOException | RuntimeException e) {
+            throw new FileIOException(manifest.getPath() + " when reading manifest");
+        }
+    }
+
+    /**
+     * Returns whether a store was saved.
+     */
+    public synchronized boolean exists() {
+        return generation >= 0;
+    }
+
+    /**
+     * Returns the saved store, its columns are read when first used.
+     */
+    public synchronized ColumnStore load() {
+        if (generation < 0)
+            throw new IllegalStateException("load() needs saved columns");
+        int loaded = generation;
+        saved = new ColumnStore(columns, rowCount, column -> readColumn(columnPath(loaded, column), column));
+        return saved;
+    }
+
+    /**
+     * Saves the store as a new generation and drops the previous files, unless the files
+     * already hold it.
+     */
+    public synchronized void write(ColumnStore store) {
+        if (deleted || store == saved)
+            return;
+        int next = generation + 1;
+        for (int i = 0; i < columns.size(); i++)
+            writeColumn(columnPath(next, i), store.getColumn(i), i);
+        writeManifest(next, store.getRowCount());
+        deleteGeneration();
+        generation = next;
+        rowCount = store.getRowCount();
+        saved = store;
+    }
+
+    /**
+     * Deletes every file, later writes are ignored.
+     */
+    public synchronized void delete() {
+        deleteGeneration();
+        File manifest = new File(path + MANIFEST_SUFFIX);
+        if (manifest.exists() && !manifest.delete())
+            throw new FileIOException(manifest.getPath() + " when deleting");
+        generation = -1;
+        saved = null;
+        deleted = true;
+    }
+
+    private void writeColumn(String file, ColumnBlock[] blocks, int column) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putShort(VERSION).put((byte) columns.get(column).getColumnType().ordinal())
+                    .putInt(blocks.length);
+            for (ColumnBlock block : blocks) {
+                int size = block.serializedSize();
+                if (buffer.remaining() < size) {
+                    drain(channel, buffer);
+                    if (buffer.capacity() < size)
+                        buffer = ByteBuffer.allocateDirect(size);
+                }
+                block.write(buffer);
+            }
+            drain(channel, buffer);
+        } catch (IOException e) {
+            throw new FileIOException(file + " when writing column");
+        }
+    }
+
+    private ColumnBlock[] readColumn(String file, int column) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocateDirect((int) channel.size());
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0) break;
+            buffer.flip();
+        } catch (IOException e) {
+            throw new FileIOException(file + " when reading column");
+        }
+        if (buffer.remaining() < 11 || buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+            throw new FileIOException(file + " when reading column (not a column file)");
+        if (buffer.get() != columns.get(column).getColumnType().ordinal())
+            throw new FileIOException(file + " when reading column (written for another type)");
+        ColumnBlock[] blocks = new ColumnBlock[buffer.getInt()];
+        try {
+            for (int i = 0; i < blocks.length; i++)
+                blocks[i] = ColumnBlock.read(columns.get(column).getColumnType(), buffer);
+        } catch (RuntimeException e) {
+            throw new FileIOException(file + " when reading column (file ends within a block)");
+        }
+        return blocks;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void deleteGeneration() {
+        if (generation < 0)
+            return;
+        for (int i = 0; i < columns.size(); i++) {
+            File file = new File(columnPath(generation, i));
+            if (file.exists() && !file.delete())
+                throw new FileIOException(file.getPath() + " when deleting");
+        }
+    }
+
+    // the manifest is written aside and moved over the old one, so it is always whole
+    private void writeManifest(int generation, int rowCount) {
+        Path manifest = Paths.get(path + MANIFEST_SUFFIX);
+        Path written = Paths.get(path + MANIFEST_SUFFIX + ".tmp");
+        try {
+            Files.write(written, (generation + " " + rowCount + "\n").getBytes(StandardCharsets.UTF_8));
+            Files.move(written, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileIOException(manifest + " when writing manifest");
+        }
+    }
+
+    private String columnPath(int generation, int column) {
+        return path + "." + generation + ".col" + column;
+    }
+}
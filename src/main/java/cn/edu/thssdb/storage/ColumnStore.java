@@ -0,0 +1,126 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.Row;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * Rows held column by column: each column is cut into ColumnBlocks of BLOCK_ROWS rows, and
+ * block b of every column holds the same rows. A store read from files loads a column the
+ * first time it is asked for, so a scan of a few columns reads only their files. Stores
+ * never change, the rows are replaced by building a new one.
+ */
+
+public final class ColumnStore {
+    public static final int BLOCK_ROWS = 4096;
+
+    private final List<Column> columns;
+    private final int rowCount;
+    private final AtomicReferenceArray<ColumnBlock[]> blocks; // by column, null until loaded
+    private final IntFunction<ColumnBlock[]> loader;
+
+    ColumnStore(List<Column> columns, int rowCount, IntFunction<ColumnBlock[]> loader) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.blocks = new AtomicReferenceArray<>(columns.size());
+        this.loader = loader;
+    }
+
+    /**
+     * Encodes the rows, which must have the given columns, in the order given.
+     */
+    public static ColumnStore build(List<Column> columns, Iterator<Row> rows) {
+        ArrayList<ArrayList<ColumnBlock>> built = new ArrayList<>();
+        Comparable[][] pending = new Comparable[columns.size()][BLOCK_ROWS];
+        for (int i = 0; i < columns.size(); i++)
+            built.add(new ArrayList<>());
+        int rowCount = 0;
+        while (rows.hasNext()) {
+            Row row = rows.next();
+            for (int i = 0; i < pending.length; i++)
+                pending[i][rowCount % BLOCK_ROWS] = row.getValue(i);
+            if (++rowCount % BLOCK_ROWS == 0)
+                encodeBlocks(columns, pending, BLOCK_ROWS, built);
+        }
+        if (rowCount % BLOCK_ROWS != 0)
+            encodeBlocks(columns, pending, rowCount % BLOCK_ROWS, built);
+        ColumnStore store = new ColumnStore(columns, rowCount, null);
+        for (int i = 0; i < pending.length; i++)
+            store.blocks.set(i, built.get(i).toArray(new ColumnBlock[0]));
+        return store;
+    }
+
+    private static void encodeBlocks(List<Column> columns, Comparable[][] pending, int count,
+                                     ArrayList<ArrayList<ColumnBlock>> built) {
+        for (int i = 0; i < pending.length; i++)
+            built.get(i).add(ColumnBlock.encode(columns.get(i).getColumnType(), pending[i], count));
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getBlockCount() {
+        return (rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS;
+    }
+
+    /**
+     * Returns the blocks of the column, loading them if the store was read from files.
+     */
+    public ColumnBlock[] getColumn(int column) {
+        ColumnBlock[] loaded = blocks.get(column);
+        if (loaded == null) {
+            loaded = loader.apply(column);
+            if (loaded.length != getBlockCount())
+                throw new IllegalStateException("column " + column + " has " + loaded.length + " blocks for "
+                        + rowCount + " rows");
+            if (!blocks.compareAndSet(column, null, loaded))
+                loaded = blocks.get(column);
+        }
+        return loaded;
+    }
+
+    /**
+     * About the bytes of the columns in memory, taken as the size of their blocks in a file.
+     */
+    public long memorySize() {
+        long size = 0;
+        for (int i = 0; i < blocks.length(); i++) {
+            ColumnBlock[] loaded = blocks.get(i);
+            if (loaded != null)
+                for (ColumnBlock block : loaded)
+                    size += block.serializedSize();
+        }
+        return size;
+    }
+
+    // whether the column is in memory, for tests
+    boolean isLoaded(int column) {
+        return blocks.get(column) != null;
+    }
+
+    public ColumnBlock getBlock(int column, int block) {
+        return getColumn(column)[block];
+    }
+
+    public Comparable get(int row, int column) {
+        return getBlock(column, row / BLOCK_ROWS).get(row % BLOCK_ROWS);
+    }
+
+    public Row getRow(int row) {
+        ArrayList<Cell> entries = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++)
+            entries.add(new Cell(get(row, i)));
+        return new Row(entries);
+    }
+}
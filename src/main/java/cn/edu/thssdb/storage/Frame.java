@@ -0,0 +1,31 @@
+package cn.edu.thssdb.storage;
+
+/**
+ * A buffer pool slot holding the decoded content of one page.
+ * The page may only be used between BufferPool.pin() and BufferPool.unpin().
+ */
+
+public final class Frame<T> {
+    final PageFile<T> file;
+    final int pageId;
+    final int slot;
+    final T page;
+    int pinCount;
+    boolean dirty;
+    boolean referenced;
+
+    Frame(PageFile<T> file, int pageId, int slot, T page) {
+        this.file = file;
+        this.pageId = pageId;
+        this.slot = slot;
+        this.page = page;
+    }
+
+    public int getPageId() {
+        return pageId;
+    }
+
+    public T getPage() {
+        return page;
+    }
+}
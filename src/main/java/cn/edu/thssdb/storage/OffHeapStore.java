@@ -0,0 +1,169 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.exception.EntryTooLargeException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Variable-length blocks carved out of direct ByteBuffer slabs, so the data they hold adds
+ * nothing to the Java heap.
+ * <p>
+ * Block sizes are powers of two. A block starts with the length of its payload and is named
+ * by an address holding its slab and offset. Freed blocks go onto a free list per size,
+ * linked through their own bytes, and are handed out again before the slab grows. Slabs are
+ * only returned to the system by release().
+ * <p>
+ * Not thread-safe for writers. Views of distinct blocks may be read concurrently.
+ */
+
+public final class OffHeapStore {
+    public static final long NONE = -1;
+    public static final int HEADER = 4;
+    private static final int MIN_SHIFT = 4;
+
+    private final int slabSize;
+    private final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+    private final long[] freeLists;
+    private int top;
+    private long allocatedBytes;
+
+    public OffHeapStore() {
+        this(Global.offHeapSlabSize);
+    }
+
+    public OffHeapStore(int slabSize) {
+        if (Integer.bitCount(slabSize) != 1 || slabSize < 1 << MIN_SHIFT)
+            throw new IllegalArgumentException("slab size must be a power of two of at least " + (1 << MIN_SHIFT));
+        this.slabSize = slabSize;
+        this.freeLists = new long[Integer.numberOfTrailingZeros(slabSize) + 1];
+        Arrays.fill(freeLists, NONE);
+        this.top = slabSize;
+    }
+
+    /**
+     * Returns the address of a block with room for the given number of bytes.
+     */
+    public long allocate(int length) {
+        if (length < 0) throw new IllegalArgumentException("argument length to allocate() is negative");
+        if (length > slabSize - HEADER)
+            throw new EntryTooLargeException(length, slabSize - HEADER);
+        int shift = shiftFor(length);
+        long address = freeLists[shift];
+        if (address != NONE) {
+            freeLists[shift] = slab(address).getLong(offset(address) + HEADER);
+        } else {
+            if (top + (1 << shift) > slabSize)
+                grow();
+            address = address(slabs.size() - 1, top);
+            top += 1 << shift;
+        }
+        slab(address).putInt(offset(address), length);
+        allocatedBytes += 1 << shift;
+        return address;
+    }
+
+    public void free(long address) {
+        ByteBuffer slab = slab(address);
+        int shift = shiftFor(slab.getInt(offset(address)));
+        push(address, shift);
+        allocatedBytes -= 1 << shift;
+    }
+
+    /**
+     * Returns a buffer over the payload of the block, positioned at its first byte.
+     */
+    public ByteBuffer view(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address) + HEADER;
+        return slab.duplicate().position(offset).limit(offset + slab.getInt(offset - HEADER)).slice();
+    }
+
+    public <T> long store(T value, Codec<T> codec) {
+        long address = allocate(codec.size(value));
+        codec.write(value, view(address));
+        return address;
+    }
+
+    public <T> T load(long address, Codec<T> codec) {
+        return codec.read(view(address));
+    }
+
+    /**
+     * Writes the value over the block if it needs a block of the same size, or else frees
+     * the block and stores the value in a new one. Returns the address of the value.
+     */
+    public <T> long replace(long address, T value, Codec<T> codec) {
+        int length = codec.size(value);
+        ByteBuffer slab = slab(address);
+        if (shiftFor(length) != shiftFor(slab.getInt(offset(address)))) {
+            // the new block is taken before the old one is freed, so they never overlap
+            long moved = store(value, codec);
+            free(address);
+            return moved;
+        }
+        slab.putInt(offset(address), length);
+        codec.write(value, view(address));
+        return address;
+    }
+
+    /**
+     * Bytes of the slabs taken from the system.
+     */
+    public long getReservedBytes() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    /**
+     * Bytes of the blocks in use, headers included.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Drops every block. The slabs are freed once the collector finds them unreachable.
+     */
+    public void release() {
+        slabs.clear();
+        Arrays.fill(freeLists, NONE);
+        top = slabSize;
+        allocatedBytes = 0;
+    }
+
+    private int shiftFor(int length) {
+        return Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(length + HEADER - 1));
+    }
+
+    private void push(long address, int shift) {
+        slab(address).putLong(offset(address) + HEADER, freeLists[shift]);
+        freeLists[shift] = address;
+    }
+
+    // the unused tail of the current slab is cut into free blocks before a new slab is taken
+    private void grow() {
+        if (!slabs.isEmpty()) {
+            while (slabSize - top >= 1 << MIN_SHIFT) {
+                int shift = 31 - Integer.numberOfLeadingZeros(slabSize - top);
+                push(address(slabs.size() - 1, top), shift);
+                top += 1 << shift;
+            }
+        }
+        slabs.add(ByteBuffer.allocateDirect(slabSize));
+        top = 0;
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static long address(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+}
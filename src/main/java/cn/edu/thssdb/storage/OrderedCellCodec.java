@@ -0,0 +1,125 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.CompositeKey;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a Cell so that encodings compare as unsigned bytes in the order of Cell.compareTo.
+ * <p>
+ * A one byte type tag comes first, so null sorts before every value and values of different
+ * types sort by type. Numbers follow in big-endian order with the sign bit flipped, and
+ * negative floating point numbers have all their bits flipped. A string is the sequence of
+ * its chars, each taking one to three bytes that keep char order, ended by a zero byte. A
+ * CompositeKey is its bytes, which already hold its columns in this form and end themselves.
+ */
+
+public class OrderedCellCodec implements OrderedCodec<Cell> {
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte FLOAT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte COMPOSITE = 6;
+    private static final byte END = 0;
+    // chars below ONE_BYTE take one byte, those below TWO_BYTES take two and the rest three
+    private static final int ONE_BYTE = 0x7f;
+    private static final int TWO_BYTES = 0x3f7f;
+    private static final int THREE_BYTES_TAG = 0xff;
+
+    @Override
+    public int size(Cell cell) {
+        Object value = cell.value;
+        if (value == null) return 1;
+        if (value instanceof Integer || value instanceof Float) return 5;
+        if (value instanceof Long || value instanceof Double) return 9;
+        if (value instanceof String) {
+            String s = (String) value;
+            int size = 2;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                size += c < ONE_BYTE ? 1 : c < TWO_BYTES ? 2 : 3;
+            }
+            return size;
+        }
+        if (value instanceof CompositeKey) return 1 + ((CompositeKey) value).getBytes().length;
+        throw new IllegalArgumentException("cannot encode a cell of " + value.getClass());
+    }
+
+    @Override
+    public void write(Cell cell, ByteBuffer buffer) {
+        Object value = cell.value;
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof Integer) {
+            buffer.put(INT).putInt((Integer) value ^ Integer.MIN_VALUE);
+        } else if (value instanceof Long) {
+            buffer.put(LONG).putLong((Long) value ^ Long.MIN_VALUE);
+        } else if (value instanceof Float) {
+            int bits = Float.floatToIntBits((Float) value);
+            buffer.put(FLOAT).putInt(bits ^ ((bits >> 31) | Integer.MIN_VALUE));
+        } else if (value instanceof Double) {
+            long bits = Double.doubleToLongBits((Double) value);
+            buffer.put(DOUBLE).putLong(bits ^ ((bits >> 63) | Long.MIN_VALUE));
+        } else if (value instanceof String) {
+            String s = (String) value;
+            buffer.put(STRING);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < ONE_BYTE) {
+                    buffer.put((byte) (c + 1));
+                } else if (c < TWO_BYTES) {
+                    int d = c - ONE_BYTE;
+                    buffer.put((byte) (0x80 + (d >>> 8))).put((byte) d);
+                } else {
+                    buffer.put((byte) THREE_BYTES_TAG).putChar(c);
+                }
+            }
+            buffer.put(END);
+        } else if (value instanceof CompositeKey) {
+            CompositeKey key = (CompositeKey) value;
+            buffer.put(COMPOSITE).put(key.getBytes());
+        } else {
+            throw new IllegalArgumentException("cannot encode a cell of " + value.getClass());
+        }
+    }
+
+    @Override
+    public Cell read(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return new Cell((Comparable) null);
+            case INT:
+                return new Cell(buffer.getInt() ^ Integer.MIN_VALUE);
+            case LONG:
+                return new Cell(buffer.getLong() ^ Long.MIN_VALUE);
+            case FLOAT: {
+                int bits = buffer.getInt();
+                return new Cell(Float.intBitsToFloat(bits ^ ((~bits >> 31) | Integer.MIN_VALUE)));
+            }
+            case DOUBLE: {
+                long bits = buffer.getLong();
+                return new Cell(Double.longBitsToDouble(bits ^ ((~bits >> 63) | Long.MIN_VALUE)));
+            }
+            case STRING: {
+                StringBuilder builder = new StringBuilder();
+                for (int b = buffer.get() & 0xff; b != END; b = buffer.get() & 0xff) {
+                    if (b <= ONE_BYTE)
+                        builder.append((char) (b - 1));
+                    else if (b < THREE_BYTES_TAG)
+                        builder.append((char) ((((b - 0x80) << 8) | (buffer.get() & 0xff)) + ONE_BYTE));
+                    else
+                        builder.append(buffer.getChar());
+                }
+                return new Cell(builder.toString());
+            }
+            case COMPOSITE:
+                return new Cell(CompositeKey.read(buffer));
+            default:
+                throw new IllegalStateException("unknown cell type tag " + tag);
+        }
+    }
+}
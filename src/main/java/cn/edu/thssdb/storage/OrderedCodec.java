@@ -0,0 +1,10 @@
+package cn.edu.thssdb.storage;
+
+/**
+ * A Codec whose encodings compare as unsigned byte strings in the same order as the values
+ * they encode, so stored keys can be compared without decoding them. No encoding is a
+ * prefix of another.
+ */
+
+public interface OrderedCodec<T> extends Codec<T> {
+}
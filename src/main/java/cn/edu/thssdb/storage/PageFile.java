@@ -0,0 +1,146 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.exception.FileIOException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A file of fixed-size pages, each holding one value encoded by the file's codec.
+ * Page 0 is reserved for a header owned by the user of the file. Pages the user frees are
+ * allocated again before the file grows.
+ */
+
+public final class PageFile<T> implements Closeable {
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    final int id;
+    private final String path;
+    private final Codec<T> codec;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final ArrayDeque<Integer> freePages;
+    private int pageCount;
+
+    public PageFile(String path, Codec<T> codec) {
+        this.id = nextId.getAndIncrement();
+        this.path = path;
+        this.codec = codec;
+        this.buffer = ByteBuffer.allocateDirect(Global.pageSize);
+        this.freePages = new ArrayDeque<>();
+        this.pageCount = 1;
+        try {
+            this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new FileIOException(path + " when opening page file");
+        }
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    synchronized int allocate() {
+        Integer pageId = freePages.poll();
+        return pageId != null ? pageId : pageCount++;
+    }
+
+    /**
+     * Makes the page available to allocate again.
+     */
+    public synchronized void free(int pageId) {
+        freePages.add(pageId);
+    }
+
+    synchronized T read(int pageId) {
+        readPage(pageId);
+        return codec.read(buffer);
+    }
+
+    synchronized void write(int pageId, T page) {
+        buffer.clear();
+        int size = codec.size(page);
+        if (size > Global.pageSize)
+            throw new IllegalStateException("page " + pageId + " of " + path + " overflows: " + size + " bytes");
+        codec.write(page, buffer);
+        writePage(pageId);
+    }
+
+    /**
+     * Returns the header page, or null if nothing was ever written to the file.
+     */
+    public synchronized ByteBuffer readHeader() {
+        try {
+            if (channel.size() == 0) return null;
+        } catch (IOException e) {
+            throw new FileIOException(path + " when reading header");
+        }
+        readPage(0);
+        ByteBuffer header = ByteBuffer.allocate(Global.pageSize);
+        header.put(buffer).flip();
+        return header;
+    }
+
+    public synchronized void writeHeader(ByteBuffer header) {
+        buffer.clear();
+        buffer.put(header);
+        writePage(0);
+    }
+
+    public void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new FileIOException(path + " when syncing");
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new FileIOException(path + " when closing");
+        }
+    }
+
+    private void readPage(int pageId) {
+        buffer.clear();
+        long position = (long) pageId * Global.pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) break;
+            }
+        } catch (IOException e) {
+            throw new FileIOException(path + " when reading page " + pageId);
+        }
+        buffer.flip();
+    }
+
+    private void writePage(int pageId) {
+        buffer.flip();
+        long position = (long) pageId * Global.pageSize;
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer, position + buffer.position());
+        } catch (IOException e) {
+            throw new FileIOException(path + " when writing page " + pageId);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Row;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Writes a Row as its cell count followed by every cell.
+ */
+
+public class RowCodec implements Codec<Row> {
+    private final CellCodec cellCodec = new CellCodec();
+
+    @Override
+    public int size(Row row) {
+        int size = 2;
+        for (int i = 0; i < row.size(); i++)
+            size += cellCodec.size(row.get(i));
+        return size;
+    }
+
+    @Override
+    public void write(Row row, ByteBuffer buffer) {
+        buffer.putShort((short) row.size());
+        for (int i = 0; i < row.size(); i++)
+            cellCodec.write(row.get(i), buffer);
+    }
+
+    @Override
+    public Row read(ByteBuffer buffer) {
+        int count = buffer.getShort();
+        ArrayList<Cell> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            entries.add(cellCodec.read(buffer));
+        return new Row(entries);
+    }
+}
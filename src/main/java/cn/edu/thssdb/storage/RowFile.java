@@ -0,0 +1,339 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.exception.FileIOException;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.Row;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The rows of a table saved as one file: a header with the format version, the row count and
+ * the column types the rows were written with, then every row in the form of SchemaRowCodec.
+ * Rows are copied through one buffer, so the channel only sees large sequential transfers.
+ * Files whose strings are written as dictionary codes have a later version and mark the
+ * types of those columns. A compressed file has the rows in blocks of about BLOCK_SIZE bytes,
+ * each deflated on its own behind a header with its lengths, its row count and a checksum of
+ * what is stored, so the blocks are checked and inflated in parallel when read.
+ */
+
+public final class RowFile {
+    private static final int MAGIC = 0x54524f57;
+    private static final short VERSION = 1;
+    private static final short DICTIONARY_VERSION = 2;
+    private static final short BLOCK_VERSION = 3;
+    private static final int DICTIONARY_FLAG = 0x80;
+    // header: magic, version, column count, row count, then the ordinal of each column type
+    private static final int ROW_COUNT = 8;
+    private static final int TYPES = 16;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // block header: raw length, stored length (the raw length if not deflated), row count, checksum
+    private static final int BLOCK_HEADER = 16;
+    private static final int BLOCK_SIZE = 1 << 17;
+
+    private RowFile() {
+    }
+
+    /**
+     * Returns whether the file starts with the header of a row file.
+     */
+    public static boolean isRowFile(String path) {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            while (magic.hasRemaining())
+                if (channel.read(magic) < 0) return false;
+        } catch (IOException e) {
+            throw new FileIOException(path + " when reading row file header");
+        }
+        return magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Replaces the file with the rows, which must have the given columns.
+     */
+    public static void write(String path, List<Column> columns, Iterable<Row> rows) {
+        write(path, columns, new StringDictionary[columns.size()], rows);
+    }
+
+    /**
+     * Replaces the file with the rows, writing the strings of each column that has a
+     * dictionary as their codes. The dictionaries must be flushed before the file is read.
+     */
+    public static void write(String path, List<Column> columns, StringDictionary[] dictionaries, Iterable<Row> rows) {
+        write(path, columns, dictionaries, false, rows);
+    }
+
+    /**
+     * Replaces the file with the rows as write does, in deflated blocks if compressed.
+     */
+    public static void write(String path, List<Column> columns, StringDictionary[] dictionaries, boolean compressed,
+                             Iterable<Row> rows) {
+        SchemaRowCodec codec = new SchemaRowCodec(columns, dictionaries);
+        boolean coded = false;
+        for (StringDictionary dictionary : dictionaries)
+            coded |= dictionary != null;
+        short version = compressed ? BLOCK_VERSION : coded ? DICTIONARY_VERSION : VERSION;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(MAGIC).putShort(version).putShort((short) columns.size()).putLong(0);
+            for (int i = 0; i < columns.size(); i++)
+                buffer.put((byte) (columns.get(i).getColumnType().ordinal() | (dictionaries[i] != null ? DICTIONARY_FLAG : 0)));
+            long count = compressed ? writeBlocks(channel, buffer, codec, rows) : writeRows(channel, buffer, codec, rows);
+            // the count is only known once the rows are written
+            ByteBuffer rowCount = ByteBuffer.allocate(8).putLong(0, count);
+            while (rowCount.hasRemaining())
+                channel.write(rowCount, ROW_COUNT + rowCount.position());
+        } catch (IOException e) {
+            throw new FileIOException(path + " when writing rows");
+        }
+    }
+
+    private static long writeRows(FileChannel channel, ByteBuffer buffer, SchemaRowCodec codec, Iterable<Row> rows)
+            throws IOException {
+        long count = 0;
+        for (Row row : rows) {
+            int size = codec.size(row);
+            if (buffer.remaining() < size) {
+                drain(channel, buffer);
+                if (buffer.capacity() < size)
+                    buffer = ByteBuffer.allocateDirect(size);
+            }
+            codec.write(row, buffer);
+            count++;
+        }
+        drain(channel, buffer);
+        return count;
+    }
+
+    // a block ends before the row that would take it past BLOCK_SIZE, a larger row is a block of its own
+    private static long writeBlocks(FileChannel channel, ByteBuffer buffer, SchemaRowCodec codec, Iterable<Row> rows)
+            throws IOException {
+        drain(channel, buffer);
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        long count = 0;
+        int blockRows = 0;
+        try {
+            for (Row row : rows) {
+                int size = codec.size(row);
+                if (block.remaining() < size && blockRows > 0) {
+                    writeBlock(channel, block, blockRows, deflater);
+                    blockRows = 0;
+                }
+                if (block.capacity() < size)
+                    block = ByteBuffer.allocate(size);
+                codec.write(row, block);
+                blockRows++;
+                count++;
+            }
+            if (blockRows > 0)
+                writeBlock(channel, block, blockRows, deflater);
+        } finally {
+            deflater.end();
+        }
+        return count;
+    }
+
+    private static void writeBlock(FileChannel channel, ByteBuffer block, int rows, Deflater deflater)
+            throws IOException {
+        int length = block.position();
+        byte[] stored = new byte[BLOCK_HEADER + length];
+        deflater.reset();
+        deflater.setInput(block.array(), 0, length);
+        deflater.finish();
+        // the reader inflates exactly the blocks stored shorter than they are, so a block deflate
+        // cannot make shorter, even by one byte, is stored as it is
+        int storedLength = length > 1 ? deflater.deflate(stored, BLOCK_HEADER, length - 1) : 0;
+        if (!deflater.finished()) {
+            System.arraycopy(block.array(), 0, stored, BLOCK_HEADER, length);
+            storedLength = length;
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(stored, BLOCK_HEADER, storedLength);
+        ByteBuffer buffer = ByteBuffer.wrap(stored, 0, BLOCK_HEADER + storedLength);
+        buffer.putInt(length).putInt(storedLength).putInt(rows).putInt((int) checksum.getValue()).rewind();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        block.clear();
+    }
+
+    /**
+     * Reads back the rows written with the given columns.
+     */
+    public static ArrayList<Row> read(String path, List<Column> columns) {
+        return read(path, columns, new StringDictionary[columns.size()]);
+    }
+
+    /**
+     * Reads back the rows written with the given columns, taking the strings written as codes
+     * from the dictionaries of their columns.
+     */
+    public static ArrayList<Row> read(String path, List<Column> columns, StringDictionary[] dictionaries) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            refill(channel, buffer);
+            if (buffer.remaining() < TYPES || buffer.getInt() != MAGIC)
+                throw new FileIOException(path + " when reading rows (not a row file)");
+            short version = buffer.getShort();
+            if (version != VERSION && version != DICTIONARY_VERSION && version != BLOCK_VERSION)
+                throw new FileIOException(path + " when reading rows (unknown format version)");
+            boolean matches = buffer.getShort() == columns.size();
+            long count = buffer.getLong();
+            StringDictionary[] used = new StringDictionary[columns.size()];
+            for (int i = 0; matches && i < columns.size(); i++) {
+                int type = buffer.get() & 0xff;
+                if (version != VERSION && (type & DICTIONARY_FLAG) != 0) {
+                    used[i] = dictionaries[i];
+                    matches = used[i] != null;
+                    type &= ~DICTIONARY_FLAG;
+                }
+                matches &= type == columns.get(i).getColumnType().ordinal();
+            }
+            if (!matches)
+                throw new FileIOException(path + " when reading rows (written for other columns)");
+            SchemaRowCodec codec = new SchemaRowCodec(columns, used);
+            if (version == BLOCK_VERSION)
+                return readBlocks(path, channel, TYPES + columns.size(), count, codec);
+            ArrayList<Row> rows = new ArrayList<>((int) count);
+            while (rows.size() < count) {
+                buffer.mark();
+                try {
+                    rows.add(codec.read(buffer));
+                } catch (IllegalArgumentException e) {
+                    throw new FileIOException(path + " when reading rows (a code its dictionary does not have)");
+                } catch (BufferUnderflowException e) {
+                    // the row runs past the buffer, it is read again once the buffer holds all of it
+                    buffer.reset();
+                    if (buffer.position() == 0 && buffer.limit() == buffer.capacity())
+                        buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2).put(buffer).flip();
+                    if (!refill(channel, buffer))
+                        throw new FileIOException(path + " when reading rows (file ends within a row)");
+                }
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new FileIOException(path + " when reading rows");
+        }
+    }
+
+    // where a block is stored and what it holds
+    private static final class Block {
+        final long position;
+        final int length;
+        final int storedLength;
+        final int rows;
+        final int checksum;
+
+        Block(long position, ByteBuffer header) {
+            this.position = position + BLOCK_HEADER;
+            this.length = header.getInt();
+            this.storedLength = header.getInt();
+            this.rows = header.getInt();
+            this.checksum = header.getInt();
+        }
+    }
+
+    // the headers are read one after another, then the blocks read, checked and decoded in parallel
+    private static ArrayList<Row> readBlocks(String path, FileChannel channel, long position, long count,
+                                             SchemaRowCodec codec) throws IOException {
+        ArrayList<Block> blocks = new ArrayList<>();
+        long blockRows = 0;
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER);
+        while (position < channel.size()) {
+            readFully(path, channel, header.clear(), position);
+            Block block = new Block(position, header.flip());
+            if (block.length < 0 || block.storedLength < 0 || block.storedLength > block.length || block.rows <= 0)
+                throw new FileIOException(path + " when reading rows (damaged block header)");
+            blocks.add(block);
+            blockRows += block.rows;
+            position = block.position + block.storedLength;
+        }
+        if (blockRows != count)
+            throw new FileIOException(path + " when reading rows (blocks hold " + blockRows + " of " + count + " rows)");
+        List<List<Row>> decoded = blocks.parallelStream()
+                .map(block -> readBlock(path, channel, block, codec))
+                .collect(Collectors.toList());
+        ArrayList<Row> rows = new ArrayList<>((int) count);
+        for (List<Row> blockRowList : decoded)
+            rows.addAll(blockRowList);
+        return rows;
+    }
+
+    private static List<Row> readBlock(String path, FileChannel channel, Block block, SchemaRowCodec codec) {
+        byte[] stored = new byte[block.storedLength];
+        try {
+            readFully(path, channel, ByteBuffer.wrap(stored), block.position);
+        } catch (IOException e) {
+            throw new FileIOException(path + " when reading rows");
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(stored);
+        if ((int) checksum.getValue() != block.checksum)
+            throw new FileIOException(path + " when reading rows (block checksum mismatch)");
+        byte[] raw = stored;
+        if (block.storedLength < block.length) {
+            raw = new byte[block.length];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored);
+                if (inflater.inflate(raw) != block.length || !inflater.finished())
+                    throw new FileIOException(path + " when reading rows (block inflates to another length)");
+            } catch (DataFormatException e) {
+                throw new FileIOException(path + " when reading rows (block does not inflate)");
+            } finally {
+                inflater.end();
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        ArrayList<Row> rows = new ArrayList<>(block.rows);
+        try {
+            while (rows.size() < block.rows)
+                rows.add(codec.read(buffer));
+        } catch (IllegalArgumentException e) {
+            throw new FileIOException(path + " when reading rows (a code its dictionary does not have)");
+        } catch (BufferUnderflowException e) {
+            throw new FileIOException(path + " when reading rows (block ends within a row)");
+        }
+        return rows;
+    }
+
+    private static void readFully(String path, FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new FileIOException(path + " when reading rows (file ends within a block)");
+            position += read;
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    // keeps the unread bytes and reads after them, returns false if the file had no more
+    private static boolean refill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int unread = buffer.remaining();
+        buffer.compact();
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0) break;
+        buffer.flip();
+        return buffer.remaining() > unread;
+    }
+}
@@ -0,0 +1,184 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.CompactRow;
+import cn.edu.thssdb.schema.Row;
+import cn.edu.thssdb.type.ColumnType;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a Row of a table by the types of its columns, so no cell needs a type tag: a bitmap
+ * with a bit set for every null cell, then the other cells in column order, numbers at their
+ * fixed width and strings as their UTF-8 length, seven bits a byte, followed by the bytes.
+ * A string of a column with a dictionary is written as its code plus one in the same form,
+ * or as 0 and the string if the dictionary has no code for it.
+ */
+
+public class SchemaRowCodec implements Codec<Row> {
+    private final ColumnType[] types;
+    private final StringDictionary[] dictionaries;
+    private final int bitmapSize;
+
+    public SchemaRowCodec(List<Column> columns) {
+        this(columns, new StringDictionary[columns.size()]);
+    }
+
+    public SchemaRowCodec(List<Column> columns, StringDictionary[] dictionaries) {
+        this.types = new ColumnType[columns.size()];
+        for (int i = 0; i < types.length; i++)
+            types[i] = columns.get(i).getColumnType();
+        this.dictionaries = dictionaries;
+        this.bitmapSize = (types.length + 7) / 8;
+    }
+
+    // the code of the string in the column's dictionary, -1 if it has none
+    private int code(Row row, int column, Object value) {
+        if (dictionaries[column] == null)
+            return -1;
+        if (row instanceof CompactRow && ((CompactRow) row).getLayout().getDictionary(column) == dictionaries[column])
+            return ((CompactRow) row).getCode(column);
+        return dictionaries[column].find((String) value);
+    }
+
+    @Override
+    public int size(Row row) {
+        int size = bitmapSize;
+        for (int i = 0; i < types.length; i++) {
+            Object value = row.getValue(i);
+            if (value == null)
+                continue;
+            switch (types[i]) {
+                case INT:
+                case FLOAT:
+                    size += 4;
+                    break;
+                case LONG:
+                case DOUBLE:
+                    size += 8;
+                    break;
+                default:
+                    int code = code(row, i, value);
+                    if (code >= 0) {
+                        size += lengthSize(code + 1);
+                        break;
+                    }
+                    if (dictionaries[i] != null)
+                        size++;
+                    int length = CellCodec.utf8Length((String) value);
+                    size += lengthSize(length) + length;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void write(Row row, ByteBuffer buffer) {
+        if (row.size() != types.length)
+            throw new IllegalArgumentException("row of " + row.size() + " cells for " + types.length + " columns");
+        int bitmap = buffer.position();
+        for (int i = 0; i < bitmapSize; i++)
+            buffer.put((byte) 0);
+        for (int i = 0; i < types.length; i++) {
+            Object value = row.getValue(i);
+            if (value == null) {
+                buffer.put(bitmap + i / 8, (byte) (buffer.get(bitmap + i / 8) | 1 << (i % 8)));
+                continue;
+            }
+            switch (types[i]) {
+                case INT:
+                    buffer.putInt((Integer) value);
+                    break;
+                case LONG:
+                    buffer.putLong((Long) value);
+                    break;
+                case FLOAT:
+                    buffer.putFloat((Float) value);
+                    break;
+                case DOUBLE:
+                    buffer.putDouble((Double) value);
+                    break;
+                default:
+                    int code = code(row, i, value);
+                    if (code >= 0) {
+                        putLength(code + 1, buffer);
+                        break;
+                    }
+                    if (dictionaries[i] != null)
+                        buffer.put((byte) 0);
+                    byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    putLength(bytes.length, buffer);
+                    buffer.put(bytes);
+            }
+        }
+    }
+
+    @Override
+    public Row read(ByteBuffer buffer) {
+        int bitmap = buffer.position();
+        if (buffer.remaining() < bitmapSize)
+            throw new BufferUnderflowException();
+        buffer.position(bitmap + bitmapSize);
+        ArrayList<Cell> entries = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            if ((buffer.get(bitmap + i / 8) & 1 << (i % 8)) != 0) {
+                entries.add(new Cell((Comparable) null));
+                continue;
+            }
+            switch (types[i]) {
+                case INT:
+                    entries.add(new Cell(buffer.getInt()));
+                    break;
+                case LONG:
+                    entries.add(new Cell(buffer.getLong()));
+                    break;
+                case FLOAT:
+                    entries.add(new Cell(buffer.getFloat()));
+                    break;
+                case DOUBLE:
+                    entries.add(new Cell(buffer.getDouble()));
+                    break;
+                default:
+                    int code = dictionaries[i] == null ? 0 : getLength(buffer);
+                    if (code > 0) {
+                        entries.add(new Cell(dictionaries[i].decode(code - 1)));
+                        break;
+                    }
+                    byte[] bytes = new byte[getLength(buffer)];
+                    buffer.get(bytes);
+                    entries.add(new Cell(new String(bytes, StandardCharsets.UTF_8)));
+            }
+        }
+        return new Row(entries);
+    }
+
+    private static int lengthSize(int length) {
+        int size = 1;
+        while ((length >>>= 7) != 0)
+            size++;
+        return size;
+    }
+
+    private static void putLength(int length, ByteBuffer buffer) {
+        while ((length & ~0x7f) != 0) {
+            buffer.put((byte) (length & 0x7f | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+    }
+
+    private static int getLength(ByteBuffer buffer) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            length |= (b & 0x7f) << shift;
+            if (b >= 0)
+                return length;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.exception.FileIOException;
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.Row;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The rows of a table saved as a checkpoint and the changes appended after it, so a save
+ * costs as much as the rows it changed.
+ * <p>
+ * The checkpoint is a RowFile of every row. Each append adds a segment of two RowFiles, the
+ * rows written since the previous save and the keys of the rows removed since, whose other
+ * cells are null. A manifest names the checkpoint generation and its segment count and is
+ * replaced atomically, so files it does not name are never read. Loading applies the
+ * segments to the checkpoint in order. Once the segments outgrow the checkpoint the table
+ * writes a new one, which drops them.
+ */
+
+public final class SegmentedRowFile {
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String REMOVED_SUFFIX = ".removed";
+    // segments smaller than this are not worth a checkpoint, however small the table
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final String path;
+    private final List<Column> columns;
+    private final StringDictionary[] dictionaries; // by column, of the strings written as codes
+    private final boolean compressed;
+    private int generation; // -1 before the first checkpoint
+    private int segments;
+    private long checkpointBytes;
+    private long segmentBytes;
+    private boolean deleted;
+
+    /**
+     * Opens the files saved under the path, table files take the path of the table.
+     */
+    public SegmentedRowFile(String path, List<Column> columns) {
+        this(path, columns, new StringDictionary[columns.size()]);
+    }
+
+    /**
+     * Opens the files saved under the path, writing the strings of each column that has a
+     * dictionary as their codes. A save flushes the dictionaries before the manifest names
+     * its files.
+     */
+    public SegmentedRowFile(String path, List<Column> columns, StringDictionary[] dictionaries) {
+        this(path, columns, dictionaries, false);
+    }
+
+    /**
+     * Opens the files saved under the path as above, writing the checkpoints and segments in
+     * compressed blocks if compressed. Files of either kind are read.
+     */
+    public SegmentedRowFile(String path, List<Column> columns, StringDictionary[] dictionaries, boolean compressed) {
+        this.path = path;
+        this.columns = columns;
+        this.dictionaries = dictionaries;
+        this.compressed = compressed;
+        this.generation = -1;
+        File manifest = new File(path + MANIFEST_SUFFIX);
+        if (!manifest.exists())
+            return;
+        try {
+            String[] fields = new String(Files.readAllBytes(manifest.toPath()), StandardCharsets.UTF_8).trim().split(" ");
+            this.generation = Integer.parseInt(fields[0]);
+            this.segments = Integer.parseInt(fields[1]);
+        } catch (IOException | RuntimeException e) {
+            throw new FileIOException(manifest.getPath() + " when reading manifest");
+        }
+        this.checkpointBytes = new File(checkpointPath(generation)).length();
+        for (int i = 0; i < segments; i++)
+            this.segmentBytes += new File(segmentPath(i)).length() + new File(segmentPath(i) + REMOVED_SUFFIX).length();
+    }
+
+    /**
+     * Returns whether a checkpoint was saved.
+     */
+    public synchronized boolean exists() {
+        return generation >= 0;
+    }
+
+    /**
+     * Reads the rows of the checkpoint with every segment applied, in no particular order.
+     */
+    public synchronized ArrayList<Row> load(Function<Row, Cell> primaryKey) {
+        if (generation < 0)
+            return new ArrayList<>();
+        HashMap<Cell, Row> rows = new HashMap<>();
+        for (Row row : RowFile.read(checkpointPath(generation), columns, dictionaries))
+            rows.put(primaryKey.apply(row), row);
+        for (int i = 0; i < segments; i++) {
+            for (Row row : RowFile.read(segmentPath(i) + REMOVED_SUFFIX, columns, dictionaries))
+                rows.remove(primaryKey.apply(row));
+            for (Row row : RowFile.read(segmentPath(i), columns, dictionaries))
+                rows.put(primaryKey.apply(row), row);
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    /**
+     * Saves the rows written and the keys removed since the last save as a new segment. A key
+     * may only be in one of them.
+     */
+    public synchronized void append(List<Row> written, List<Row> removed) {
+        if (generation < 0)
+            throw new IllegalStateException("append() needs a checkpoint");
+        if (deleted || (written.isEmpty() && removed.isEmpty()))
+            return;
+        String segment = segmentPath(segments);
+        RowFile.write(segment, columns, dictionaries, compressed, written);
+        RowFile.write(segment + REMOVED_SUFFIX, columns, dictionaries, compressed, removed);
+        flushDictionaries();
+        writeManifest(generation, segments + 1);
+        segments++;
+        segmentBytes += new File(segment).length() + new File(segment + REMOVED_SUFFIX).length();
+    }
+
+    /**
+     * Returns whether the segments take more than the checkpoint, so a new one would shrink
+     * the files and shorten loading.
+     */
+    public synchronized boolean needsCompaction() {
+        return !deleted && segments > 0 && segmentBytes > Math.max(checkpointBytes, MIN_COMPACTION_BYTES);
+    }
+
+    /**
+     * Saves every row as the checkpoint of a new generation and drops the previous files.
+     */
+    public synchronized void checkpoint(Iterable<Row> rows) {
+        if (deleted)
+            return;
+        int next = generation + 1;
+        RowFile.write(checkpointPath(next), columns, dictionaries, compressed, rows);
+        flushDictionaries();
+        writeManifest(next, 0);
+        deleteGeneration();
+        generation = next;
+        segments = 0;
+        checkpointBytes = new File(checkpointPath(next)).length();
+        segmentBytes = 0;
+    }
+
+    /**
+     * Deletes every file, later saves are ignored.
+     */
+    public synchronized void delete() {
+        deleteGeneration();
+        File manifest = new File(path + MANIFEST_SUFFIX);
+        if (manifest.exists() && !manifest.delete())
+            throw new FileIOException(manifest.getPath() + " when deleting");
+        generation = -1;
+        segments = 0;
+        deleted = true;
+    }
+
+    // every code in the files written was given out before this, so the flush holds it
+    private void flushDictionaries() {
+        for (StringDictionary dictionary : dictionaries)
+            if (dictionary != null)
+                dictionary.flush();
+    }
+
+    private void deleteGeneration() {
+        if (generation < 0)
+            return;
+        ArrayList<String> paths = new ArrayList<>();
+        paths.add(checkpointPath(generation));
+        for (int i = 0; i < segments; i++) {
+            paths.add(segmentPath(i));
+            paths.add(segmentPath(i) + REMOVED_SUFFIX);
+        }
+        for (String file : paths)
+            if (new File(file).exists() && !new File(file).delete())
+                throw new FileIOException(file + " when deleting");
+    }
+
+    // the manifest is written aside and moved over the old one, so it is always whole
+    private void writeManifest(int generation, int segments) {
+        Path manifest = Paths.get(path + MANIFEST_SUFFIX);
+        Path written = Paths.get(path + MANIFEST_SUFFIX + ".tmp");
+        try {
+            Files.write(written, (generation + " " + segments + "\n").getBytes(StandardCharsets.UTF_8));
+            Files.move(written, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FileIOException(manifest + " when writing manifest");
+        }
+    }
+
+    private String checkpointPath(int generation) {
+        return path + "." + generation;
+    }
+
+    private String segmentPath(int segment) {
+        return checkpointPath(generation) + "." + segment;
+    }
+}
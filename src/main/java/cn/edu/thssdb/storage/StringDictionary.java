@@ -0,0 +1,188 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.exception.FileIOException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The distinct values of a STRING column, each under a code counted from 0 in the order the
+ * values were first seen. Codes never change, so rows and files may hold a code in place of
+ * the string. A column with more than MAX_SIZE distinct values keeps the later ones as
+ * strings. The file holds a header then every value in code order, as its UTF-8 length,
+ * seven bits a byte, followed by the bytes, and a flush only appends the values added since
+ * the last one.
+ */
+
+public final class StringDictionary {
+    public static final int MAX_SIZE = 1 << 14;
+    private static final int MAGIC = 0x54444943;
+    private static final short VERSION = 1;
+    private static final int HEADER = 6;
+
+    private final String path;
+    private final ConcurrentHashMap<String, Integer> codes;
+    private volatile String[] values; // by code, replaced by a larger copy when full
+    private volatile int size;
+    private int flushed; // values already in the file
+    private long fileEnd; // where the last whole value in the file ends, 0 if there is no file
+    private boolean deleted;
+
+    /**
+     * Opens the dictionary saved at the path, or an empty one if there is none.
+     */
+    public StringDictionary(String path) {
+        this.path = path;
+        this.codes = new ConcurrentHashMap<>();
+        this.values = new String[16];
+        File file = new File(path);
+        if (file.exists())
+            read(file);
+    }
+
+    private void read(File file) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            throw new FileIOException(path + " when reading dictionary");
+        }
+        if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+            throw new FileIOException(path + " when reading dictionary (not a dictionary file)");
+        // a flush cut short leaves a partial value at the end, which no row refers to and the
+        // next flush writes over
+        fileEnd = buffer.position();
+        try {
+            while (buffer.hasRemaining()) {
+                int length = getLength(buffer);
+                if (length > buffer.remaining())
+                    break;
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                add(new String(bytes, StandardCharsets.UTF_8));
+                fileEnd = buffer.position();
+            }
+        } catch (BufferUnderflowException ignored) {
+        }
+        flushed = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the code of the value, adding it if it is new, or -1 if it is new and the
+     * dictionary is full.
+     */
+    public int encode(String value) {
+        if (value == null) throw new IllegalArgumentException("argument value to encode() is null");
+        Integer code = codes.get(value);
+        if (code != null)
+            return code;
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null)
+                return code;
+            return size < MAX_SIZE ? add(value) : -1;
+        }
+    }
+
+    /**
+     * Returns the code of the value, or -1 if it has none.
+     */
+    public int find(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        if (code < 0 || code >= size)
+            throw new IllegalArgumentException("code " + code + " of a dictionary of " + size + " values");
+        return values[code];
+    }
+
+    // the value is published before the code, so a reader given the code finds the value
+    private int add(String value) {
+        int code = size;
+        String[] current = values;
+        if (code == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            values = current;
+        }
+        current[code] = value;
+        size = code + 1;
+        codes.put(value, code);
+        return code;
+    }
+
+    /**
+     * Appends the values added since the last flush to the file and forces them to disk, so
+     * rows written afterwards may refer to them.
+     */
+    public synchronized void flush() {
+        if (deleted || (flushed == size && fileEnd > 0))
+            return;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            long end = fileEnd;
+            channel.truncate(end);
+            int length = end == 0 ? HEADER : 0;
+            for (int i = flushed; i < size; i++)
+                length += 5 + CellCodec.utf8Length(values[i]);
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            if (end == 0)
+                buffer.putInt(MAGIC).putShort(VERSION);
+            for (int i = flushed; i < size; i++) {
+                byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+                putLength(bytes.length, buffer);
+                buffer.put(bytes);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining())
+                end += channel.write(buffer, end);
+            channel.force(false);
+            fileEnd = end;
+        } catch (IOException e) {
+            throw new FileIOException(path + " when writing dictionary");
+        }
+        flushed = size;
+    }
+
+    /**
+     * Deletes the file, later flushes are ignored.
+     */
+    public synchronized void delete() {
+        File file = new File(path);
+        if (file.exists() && !file.delete())
+            throw new FileIOException(path + " when deleting");
+        deleted = true;
+    }
+
+    private static void putLength(int length, ByteBuffer buffer) {
+        while ((length & ~0x7f) != 0) {
+            buffer.put((byte) (length & 0x7f | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+    }
+
+    private static int getLength(ByteBuffer buffer) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            length |= (b & 0x7f) << shift;
+            if (b >= 0)
+                return length;
+        }
+    }
+}
@@ -1,5 +1,16 @@
 package cn.edu.thssdb.type;
 
 public enum ColumnType {
-    INT, LONG, FLOAT, DOUBLE, STRING
+    INT(Integer.class), LONG(Long.class), FLOAT(Float.class), DOUBLE(Double.class), STRING(String.class);
+
+    private final Class<?> valueClass;
+
+    ColumnType(Class<?> valueClass) {
+        this.valueClass = valueClass;
+    }
+
+    // whether the value has the class values of this type are held in
+    public boolean isInstance(Object value) {
+        return value != null && value.getClass() == valueClass;
+    }
 }
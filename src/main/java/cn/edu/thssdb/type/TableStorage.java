@@ -0,0 +1,9 @@
+package cn.edu.thssdb.type;
+
+// how a table keeps its rows, recorded in its metadata so the table is reopened the way its files were written
+public enum TableStorage {
+    HEAP,     // a B+ tree on the heap, saved as row files
+    COLUMNAR, // a ColumnarIndex, saved as a file per column
+    PAGED,    // a PagedBPlusTree file cached by the shared BufferPool
+    OFF_HEAP  // an OffHeapBPlusTree in direct memory, saved as row files
+}
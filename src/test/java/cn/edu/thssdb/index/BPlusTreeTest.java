@@ -1,13 +1,21 @@
 package cn.edu.thssdb.index;
 
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class BPlusTreeTest {
@@ -69,4 +77,247 @@ public class BPlusTreeTest {
     }
     assertEquals(values.size(), c);
   }
+
+  @Test
+  public void testSeek() {
+    TreeMap<Integer, Integer> sorted = new TreeMap<>(map);
+    int size = keys.size();
+    for (int i = 0; i < 100; i++) {
+      int from = (int) (Math.random() * size);
+      int to = from + (int) (Math.random() * size / 10);
+      // check both bounds inclusive/exclusive, and the open ends
+      assertRange(sorted.subMap(from, true, to, false), tree.seek(from, to));
+      assertRange(sorted.subMap(from, false, to, true), tree.seek(from, false, to, true));
+      assertRange(sorted.headMap(to, false), tree.seek(null, to));
+      assertRange(sorted.tailMap(from, true), tree.seek(from, null));
+    }
+    assertFalse(tree.seek(sorted.lastKey() + 1, null).hasNext());
+  }
+
+  @Test
+  public void testDescendingSeek() {
+    TreeMap<Integer, Integer> sorted = new TreeMap<>(map);
+    int size = keys.size();
+    for (int i = 0; i < 100; i++) {
+      int from = (int) (Math.random() * size);
+      int to = from + (int) (Math.random() * size / 10);
+      assertRange(sorted.subMap(from, true, to, true).descendingMap(), tree.descendingSeek(from, true, to, true));
+      assertRange(sorted.subMap(from, false, to, false).descendingMap(), tree.descendingSeek(from, false, to, false));
+    }
+    assertRange(sorted.descendingMap(), tree.descendingSeek(null, false, null, false));
+  }
+
+  @Test
+  public void testBulkLoad() {
+    TreeMap<Integer, Integer> sorted = new TreeMap<>(map);
+    BPlusTree<Integer, Integer> loaded = new BPlusTree<>();
+    ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+    for (Map.Entry<Integer, Integer> entry : sorted.entrySet()) {
+      entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+    }
+    loaded.bulkLoad(entries.iterator());
+    assertEquals(sorted.size(), loaded.size());
+    assertRange(sorted, loaded.iterator());
+    assertRange(sorted.descendingMap(), loaded.descendingSeek(null, false, null, false));
+    // the packed tree must keep working for ordinary updates
+    for (int i = 0; i < keys.size(); i += 2) {
+      loaded.remove(keys.get(i));
+      sorted.remove(keys.get(i));
+    }
+    for (int i = 0; i < keys.size(); i += 2) {
+      loaded.put(-keys.get(i) - 1, i);
+      sorted.put(-keys.get(i) - 1, i);
+    }
+    assertRange(sorted, loaded.iterator());
+  }
+
+  @Test
+  public void testPutIfAbsentAndReplace() {
+    TreeMap<Integer, Integer> sorted = new TreeMap<>(map);
+    for (int key = -1000; key < 11000; key++) {
+      Integer previous = tree.putIfAbsent(key, -key);
+      assertEquals(sorted.putIfAbsent(key, -key), previous);
+    }
+    for (int key = 0; key < 12000; key += 3) {
+      assertEquals(sorted.replace(key, key), tree.replace(key, key));
+    }
+    assertEquals(sorted.size(), tree.size());
+    assertRange(sorted, tree.iterator());
+  }
+
+  @Test
+  public void testCompute() {
+    TreeMap<Integer, Integer> sorted = new TreeMap<>(map);
+    // increment present keys, insert absent ones and remove every key that reaches an even count
+    for (int i = 0; i < 30000; i++) {
+      int key = (int) (Math.random() * 12000);
+      BiFunction<Integer, Integer, Integer> remapping = (k, v) -> v == null ? Integer.valueOf(1) : v % 2 == 1 ? null : Integer.valueOf(v + 1);
+      assertEquals(sorted.compute(key, remapping), tree.compute(key, remapping));
+    }
+    assertEquals(sorted.size(), tree.size());
+    assertRange(sorted, tree.iterator());
+    // a throwing function leaves the tree unchanged
+    try {
+      tree.compute(keys.get(0), (k, v) -> {
+        throw new IllegalStateException();
+      });
+    } catch (IllegalStateException ignored) {
+    }
+    assertRange(sorted, tree.iterator());
+  }
+
+  @Test
+  public void testPutAll() {
+    TreeMap<Integer, Integer> sorted = new TreeMap<>(map);
+    // sorted batches of absent keys, spread over the keys present and beyond them
+    for (int batch = 0; batch < 20; batch++) {
+      TreeMap<Integer, Integer> entries = new TreeMap<>();
+      while (entries.size() < 1000) {
+        int key = (int) (Math.random() * 40000);
+        if (!sorted.containsKey(key))
+          entries.put(key, -key);
+      }
+      ArrayList<Pair<Integer, Integer>> batchEntries = new ArrayList<>();
+      for (Map.Entry<Integer, Integer> entry : entries.entrySet())
+        batchEntries.add(new Pair<>(entry.getKey(), entry.getValue()));
+      assertEquals(1000, tree.putAll(batchEntries));
+      sorted.putAll(entries);
+    }
+    assertEquals(sorted.size(), tree.size());
+    assertRange(sorted, tree.iterator());
+    // a batch stops before the first key that is present
+    ArrayList<Pair<Integer, Integer>> batchEntries = new ArrayList<>();
+    batchEntries.add(new Pair<>(-1, 1));
+    batchEntries.add(new Pair<>(sorted.firstKey(), 0));
+    batchEntries.add(new Pair<>(50000, 0));
+    assertEquals(1, tree.putAll(batchEntries));
+    sorted.put(-1, 1);
+    assertEquals(sorted.size(), tree.size());
+    assertRange(sorted, tree.iterator());
+  }
+
+  @Test
+  public void testOrderStatistics() {
+    TreeMap<Integer, Integer> sorted = new TreeMap<>(map);
+    assertOrderStatistics(sorted, tree);
+    // every path that changes the tree must keep the subtree counts: removals that merge,
+    // compute, appends past the last key and batches
+    for (int key = 0; key < 10000; key += 3) {
+      if (sorted.remove(key) != null)
+        tree.remove(key);
+    }
+    for (int i = 0; i < 5000; i++) {
+      int key = (int) (Math.random() * 12000);
+      BiFunction<Integer, Integer, Integer> remapping = (k, v) -> v == null ? k : null;
+      assertEquals(sorted.compute(key, remapping), tree.compute(key, remapping));
+    }
+    for (int key = 12000; key < 14000; key++) {
+      tree.put(key, key);
+      sorted.put(key, key);
+    }
+    ArrayList<Pair<Integer, Integer>> batch = new ArrayList<>();
+    for (int key = 14001; key < 18000; key += 2)
+      batch.add(new Pair<>(-key, key));
+    batch.sort((a, b) -> a.left.compareTo(b.left));
+    assertEquals(batch.size(), tree.putAll(batch));
+    for (Pair<Integer, Integer> entry : batch)
+      sorted.put(entry.left, entry.right);
+    assertOrderStatistics(sorted, tree);
+
+    BPlusTree<Integer, Integer> loaded = new BPlusTree<>();
+    ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+    for (Map.Entry<Integer, Integer> entry : sorted.entrySet())
+      entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+    loaded.bulkLoad(entries.iterator());
+    assertOrderStatistics(sorted, loaded);
+  }
+
+  private void assertOrderStatistics(TreeMap<Integer, Integer> sorted, BPlusTree<Integer, Integer> tree) {
+    int rank = 0;
+    for (Map.Entry<Integer, Integer> entry : sorted.entrySet()) {
+      Pair<Integer, Integer> selected = tree.select(rank);
+      assertEquals(entry.getKey(), selected.left);
+      assertEquals(entry.getValue(), selected.right);
+      rank++;
+    }
+    int low = sorted.firstKey() - 10;
+    int high = sorted.lastKey() + 10;
+    for (int i = 0; i < 200; i++) {
+      int from = low + (int) (Math.random() * (high - low));
+      int to = from + (int) (Math.random() * (high - from));
+      assertEquals(sorted.headMap(from, false).size(), tree.rank(from, false));
+      assertEquals(sorted.headMap(from, true).size(), tree.rank(from, true));
+      assertEquals(sorted.subMap(from, true, to, false).size(), tree.count(from, true, to, false));
+      assertEquals(sorted.subMap(from, false, to, true).size(), tree.count(from, false, to, true));
+      assertEquals(sorted.headMap(to, true).size(), tree.count(null, false, to, true));
+    }
+    assertEquals(sorted.size(), tree.count(null, false, null, false));
+    assertEquals(0, tree.count(high, true, low, true));
+  }
+
+  @Test
+  public void testBulkLoadSizes() {
+    // sizes around the node capacity exercise the re-balancing of the last node on each level
+    int capacity = Global.fanout - 1;
+    int[] sizes = {0, 1, capacity - 1, capacity, capacity + 1, capacity * Global.fanout + 1, 50000};
+    for (int n : sizes) {
+      BPlusTree<Integer, Integer> loaded = new BPlusTree<>();
+      TreeMap<Integer, Integer> expected = new TreeMap<>();
+      ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        entries.add(new Pair<>(i * 2, i));
+        expected.put(i * 2, i);
+      }
+      loaded.bulkLoad(entries.iterator());
+      assertRange(expected, loaded.iterator());
+      for (int i = 0; i < n; i++) {
+        loaded.remove(i * 2);
+      }
+      assertEquals(0, loaded.size());
+      assertFalse(loaded.iterator().hasNext());
+    }
+  }
+
+  @Test
+  public void testAscendingInsertFillsLeaves() {
+    BPlusTree<Integer, Integer> appended = new BPlusTree<>();
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    int n = 50000;
+    for (int i = 0; i < n; i++) {
+      if (i % 2 == 0)
+        appended.put(i, i);
+      else
+        appended.putIfAbsent(i, i);
+      expected.put(i, i);
+    }
+    // every leaf but the last is full
+    int capacity = Global.fanout - 1;
+    int leaves = 0;
+    for (BPlusTreeLeafNode<Integer, Integer> leaf = appended.root.getFirstLeaf(); leaf != null; leaf = leaf.next) {
+      leaves++;
+      if (leaf.next != null)
+        assertEquals(capacity, leaf.size());
+    }
+    assertEquals((n + capacity - 1) / capacity, leaves);
+    // the full nodes must still take inserts and removals in the middle
+    for (int i = 0; i < n; i += 7) {
+      appended.remove(i);
+      expected.remove(i);
+      appended.put(-i - 1, i);
+      expected.put(-i - 1, i);
+    }
+    assertEquals(expected.size(), appended.size());
+    assertRange(expected, appended.iterator());
+    assertRange(expected.descendingMap(), appended.descendingSeek(null, false, null, false));
+  }
+
+  private void assertRange(NavigableMap<Integer, Integer> expected, Iterator<Pair<Integer, Integer>> actual) {
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertTrue(actual.hasNext());
+      Pair<Integer, Integer> pair = actual.next();
+      assertEquals(entry.getKey(), pair.left);
+      assertEquals(entry.getValue(), pair.right);
+    }
+    assertFalse(actual.hasNext());
+  }
 }
@@ -0,0 +1,200 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentBPlusTreeTest {
+  private static final int THREADS = 8;
+  private static final int PER_THREAD = 20000;
+
+  private ConcurrentBPlusTree<Integer, Integer> tree;
+  private ConcurrentLinkedQueue<Throwable> errors;
+
+  @Before
+  public void setUp() {
+    tree = new ConcurrentBPlusTree<>();
+    errors = new ConcurrentLinkedQueue<>();
+  }
+
+  private void runAll(List<Runnable> tasks) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    ArrayList<Thread> threads = new ArrayList<>();
+    for (Runnable task : tasks) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+          task.run();
+        } catch (Throwable e) {
+          errors.add(e);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads)
+      thread.join();
+    if (!errors.isEmpty())
+      throw new AssertionError(errors.peek());
+  }
+
+  // thread t owns the keys congruent to t modulo THREADS, inserted in shuffled order
+  private List<Integer> keysOf(int t) {
+    ArrayList<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < PER_THREAD; i++)
+      keys.add(i * THREADS + t);
+    Collections.shuffle(keys);
+    return keys;
+  }
+
+  private void insertAll() throws InterruptedException {
+    ArrayList<Runnable> tasks = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      List<Integer> keys = keysOf(t);
+      tasks.add(() -> {
+        for (Integer key : keys)
+          tree.put(key, key * 2);
+      });
+    }
+    runAll(tasks);
+  }
+
+  @Test
+  public void testConcurrentPut() throws InterruptedException {
+    insertAll();
+    int total = THREADS * PER_THREAD;
+    assertEquals(total, tree.size());
+    int expected = 0;
+    for (Pair<Integer, Integer> pair : tree) {
+      assertEquals(expected, (int) pair.left);
+      assertEquals(expected * 2, (int) pair.right);
+      expected++;
+    }
+    assertEquals(total, expected);
+  }
+
+  @Test
+  public void testConcurrentDuplicatePut() throws InterruptedException {
+    AtomicInteger rejected = new AtomicInteger();
+    ArrayList<Runnable> tasks = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      tasks.add(() -> {
+        for (int i = 0; i < PER_THREAD; i++) {
+          try {
+            tree.put(i, i);
+          } catch (DuplicateKeyException e) {
+            rejected.incrementAndGet();
+          }
+        }
+      });
+    }
+    runAll(tasks);
+    assertEquals(PER_THREAD, tree.size());
+    assertEquals((THREADS - 1) * PER_THREAD, rejected.get());
+  }
+
+  @Test
+  public void testConcurrentCompute() throws InterruptedException {
+    // every thread counts every key once, the counters only add up if compute is atomic
+    ArrayList<Runnable> tasks = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      List<Integer> keys = keysOf(0);
+      tasks.add(() -> {
+        for (Integer key : keys) {
+          tree.compute(key, (k, v) -> v == null ? 1 : v + 1);
+          tree.putIfAbsent(-key - 1, key);
+        }
+      });
+    }
+    runAll(tasks);
+    assertEquals(2 * PER_THREAD, tree.size());
+    for (Integer key : keysOf(0)) {
+      assertEquals(THREADS, (int) tree.get(key));
+      assertEquals(key, tree.get(-key - 1));
+    }
+  }
+
+  @Test
+  public void testMixedWorkload() throws InterruptedException {
+    int total = THREADS * PER_THREAD;
+    for (int i = 0; i < total; i += 2)
+      tree.put(i, i);
+    ArrayList<Runnable> tasks = new ArrayList<>();
+    for (int t = 0; t < THREADS / 2; t++) {
+      int owner = t;
+      // writers: remove the even keys they own and insert the odd ones
+      tasks.add(() -> {
+        for (int i = owner * 2; i < total; i += THREADS) {
+          tree.remove(i);
+          tree.put(i + 1, i + 1);
+        }
+      });
+    }
+    for (int t = 0; t < THREADS / 2; t++) {
+      // readers: every key seen must map to itself and scans must stay sorted
+      tasks.add(() -> {
+        for (int round = 0; round < 20; round++) {
+          int last = -1;
+          Iterator<Pair<Integer, Integer>> iterator = tree.seek(round * 1000, true, null, false);
+          while (iterator.hasNext()) {
+            Pair<Integer, Integer> pair = iterator.next();
+            if (pair.left <= last || !pair.left.equals(pair.right))
+              fail("inconsistent scan at " + pair.left);
+            last = pair.left;
+          }
+          // odd keys are only ever inserted, so one seen by contains() stays readable
+          for (int i = 1; i < total; i += 98) {
+            if (tree.contains(i))
+              assertEquals(i, (int) tree.get(i));
+          }
+        }
+      });
+    }
+    runAll(tasks);
+    assertEquals(total / 2, tree.size());
+    for (int i = 0; i < total; i++)
+      assertEquals(i % 2 == 1, tree.contains(i));
+  }
+
+  @Test
+  public void testSeek() throws InterruptedException {
+    insertAll();
+    Iterator<Pair<Integer, Integer>> iterator = tree.seek(100, false, 5000, true);
+    for (int i = 101; i <= 5000; i++)
+      assertEquals(i, (int) iterator.next().left);
+    assertFalse(iterator.hasNext());
+    iterator = tree.descendingSeek(null, false, 300, false);
+    for (int i = 299; i >= 0; i--)
+      assertEquals(i, (int) iterator.next().left);
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testBulkLoad() {
+    ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+    for (int i = 0; i < 50000; i++)
+      entries.add(new Pair<>(i * 3, i));
+    tree.bulkLoad(entries.iterator());
+    assertEquals(50000, tree.size());
+    for (int i = 0; i < 50000; i++)
+      assertEquals(i, (int) tree.get(i * 3));
+    tree.put(1, -1);
+    assertTrue(tree.contains(1));
+    assertEquals(50001, tree.size());
+  }
+}
@@ -0,0 +1,299 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntBPlusTreeTest {
+  private IntBPlusTree<Integer> tree;
+  private ArrayList<Integer> keys;
+  private TreeMap<Integer, Integer> map;
+
+  @Before
+  public void setUp() {
+    tree = new IntBPlusTree<>();
+    keys = new ArrayList<>();
+    map = new TreeMap<>();
+    int size = 10000;
+    for (int i = 0; i < size; i++) {
+      // negative keys included, to check the primitive ordering
+      int key = (int) ((Math.random() - 0.5) * 40000);
+      if (map.containsKey(key)) continue;
+      keys.add(key);
+      map.put(key, Integer.valueOf(key * 7));
+      tree.put(key, Integer.valueOf(key * 7));
+    }
+  }
+
+  @Test
+  public void testGet() {
+    for (Integer key : keys) {
+      assertEquals(map.get(key), tree.get(key.intValue()));
+      assertTrue(tree.contains(key.intValue()));
+    }
+    assertEquals(keys.size(), tree.size());
+  }
+
+  @Test
+  public void testRemove() {
+    int size = keys.size();
+    for (int i = 0; i < size; i += 2) {
+      tree.remove(keys.get(i).intValue());
+      map.remove(keys.get(i));
+    }
+    assertEquals(map.size(), tree.size());
+    for (int i = 0; i < size; i++) {
+      assertEquals(i % 2 == 1, tree.contains(keys.get(i).intValue()));
+    }
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testIterator() {
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testSeek() {
+    for (int i = 0; i < 100; i++) {
+      Integer from = keys.get((int) (Math.random() * keys.size()));
+      Integer to = keys.get((int) (Math.random() * keys.size()));
+      if (from > to) {
+        Integer tmp = from;
+        from = to;
+        to = tmp;
+      }
+      assertRange(map.subMap(from, true, to, false), tree.seek(from, true, to, false));
+      assertRange(map.subMap(from, false, to, true), tree.seek(from, false, to, true));
+      assertRange(map.tailMap(from, true), tree.seek(from, true, null, false));
+      assertRange(map.subMap(from, true, to, true).descendingMap(), tree.descendingSeek(from, true, to, true));
+    }
+  }
+
+  @Test
+  public void testBulkLoad() {
+    IntBPlusTree<Integer> loaded = new IntBPlusTree<>();
+    ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+    for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+      entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+    }
+    loaded.bulkLoad(entries.iterator());
+    assertEquals(map.size(), loaded.size());
+    assertRange(map, loaded.iterator());
+    for (int i = 0; i < keys.size(); i += 2) {
+      loaded.remove(keys.get(i).intValue());
+      map.remove(keys.get(i));
+    }
+    assertRange(map, loaded.iterator());
+  }
+
+  @Test
+  public void testCompute() {
+    // half of the operations hit existing keys, some remove them
+    for (int i = 0; i < 20000; i++) {
+      Integer key = i % 2 == 0 ? keys.get(i % keys.size()) : Integer.valueOf((int) ((Math.random() - 0.5) * 40000));
+      BiFunction<Integer, Integer, Integer> remapping = (k, v) -> v == null ? k : v.equals(k) ? null : k;
+      assertEquals(map.compute(key, remapping), tree.compute(key.intValue(), remapping));
+    }
+    for (Integer key : keys) {
+      assertEquals(map.putIfAbsent(key, key), tree.putIfAbsent(key.intValue(), key));
+      assertEquals(map.replace(key, Integer.valueOf(1)), tree.replace(key.intValue(), Integer.valueOf(1)));
+    }
+    assertEquals(map.size(), tree.size());
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testComputeSeeded() {
+    // a sequence that once removed the first key of a child without refreshing its separator
+    Random random = new Random(51);
+    tree = new IntBPlusTree<>();
+    keys.clear();
+    map.clear();
+    for (int i = 0; i < 10000; i++) {
+      int key = (int) ((random.nextDouble() - 0.5) * 40000);
+      if (map.containsKey(key)) continue;
+      keys.add(key);
+      map.put(key, key * 7);
+      tree.put(key, Integer.valueOf(key * 7));
+    }
+    for (int i = 0; i < 20000; i++) {
+      Integer key = i % 2 == 0 ? keys.get(i % keys.size()) : Integer.valueOf((int) ((random.nextDouble() - 0.5) * 40000));
+      BiFunction<Integer, Integer, Integer> remapping = (k, v) -> v == null ? k : v.equals(k) ? null : k;
+      assertEquals(map.compute(key, remapping), tree.compute(key.intValue(), remapping));
+    }
+    assertEquals(map.size(), tree.size());
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testPutAll() {
+    for (int batch = 0; batch < 20; batch++) {
+      TreeMap<Integer, Integer> entries = new TreeMap<>();
+      while (entries.size() < 1000) {
+        int key = (int) ((Math.random() - 0.5) * 2 * 40000);
+        if (!map.containsKey(key))
+          entries.put(key, key);
+      }
+      ArrayList<Pair<Integer, Integer>> batchEntries = new ArrayList<>();
+      for (Map.Entry<Integer, Integer> entry : entries.entrySet())
+        batchEntries.add(new Pair<>(entry.getKey(), entry.getValue()));
+      assertEquals(1000, tree.putAll(batchEntries));
+      map.putAll(entries);
+    }
+    assertEquals(map.size(), tree.size());
+    assertRange(map, tree.iterator());
+    // a batch stops before the first key that is present
+    ArrayList<Pair<Integer, Integer>> batchEntries = new ArrayList<>();
+    Integer absent = Integer.valueOf(map.firstKey() - 1);
+    batchEntries.add(new Pair<>(absent, absent));
+    batchEntries.add(new Pair<>(map.firstKey(), absent));
+    batchEntries.add(new Pair<>(map.lastKey() + 1, absent));
+    assertEquals(1, tree.putAll(batchEntries));
+    map.put(absent, absent);
+    assertEquals(map.size(), tree.size());
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testOrderStatistics() {
+    assertOrderStatistics(map, tree);
+    // every path that changes the tree must keep the subtree counts: removals that merge,
+    // compute, appends past the last key and batches
+    for (int key = -20000; key < 20000; key += 3) {
+      if (map.remove(key) != null)
+        tree.remove(key);
+    }
+    for (int i = 0; i < 5000; i++) {
+      Integer key = (int) ((Math.random() - 0.5) * 40000);
+      BiFunction<Integer, Integer, Integer> remapping = (k, v) -> v == null ? k : null;
+      assertEquals(map.compute(key, remapping), tree.compute(key.intValue(), remapping));
+    }
+    for (int key = 20000; key < 22000; key++) {
+      tree.put(key, Integer.valueOf(key));
+      map.put(key, key);
+    }
+    ArrayList<Pair<Integer, Integer>> batch = new ArrayList<>();
+    for (int key = -24001; key < -20000; key += 2)
+      batch.add(new Pair<>(key, key));
+    assertEquals(batch.size(), tree.putAll(batch));
+    for (Pair<Integer, Integer> entry : batch)
+      map.put(entry.left, entry.right);
+    assertOrderStatistics(map, tree);
+
+    IntBPlusTree<Integer> loaded = new IntBPlusTree<>();
+    ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+    for (Map.Entry<Integer, Integer> entry : map.entrySet())
+      entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+    loaded.bulkLoad(entries.iterator());
+    assertOrderStatistics(map, loaded);
+  }
+
+  private void assertOrderStatistics(TreeMap<Integer, Integer> sorted, IntBPlusTree<Integer> tree) {
+    int rank = 0;
+    for (Map.Entry<Integer, Integer> entry : sorted.entrySet()) {
+      Pair<Integer, Integer> selected = tree.select(rank);
+      assertEquals(entry.getKey(), selected.left);
+      assertEquals(entry.getValue(), selected.right);
+      rank++;
+    }
+    int low = sorted.firstKey() - 10;
+    int high = sorted.lastKey() + 10;
+    for (int i = 0; i < 200; i++) {
+      int from = low + (int) (Math.random() * (high - low));
+      int to = from + (int) (Math.random() * (high - from));
+      assertEquals(sorted.headMap(from, false).size(), tree.rank(from, false));
+      assertEquals(sorted.headMap(from, true).size(), tree.rank(from, true));
+      assertEquals(sorted.subMap(from, true, to, false).size(), tree.count(from, true, to, false));
+      assertEquals(sorted.subMap(from, false, to, true).size(), tree.count(from, false, to, true));
+      assertEquals(sorted.headMap(to, true).size(), tree.count(null, false, to, true));
+    }
+    assertEquals(sorted.size(), tree.count(null, false, null, false));
+    assertEquals(0, tree.count(high, true, low, true));
+  }
+
+  @Test
+  public void testAscendingInsertFillsLeaves() {
+    IntBPlusTree<Integer> appended = new IntBPlusTree<>();
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    int n = 50000;
+    for (int i = 0; i < n; i++) {
+      appended.put(i, Integer.valueOf(i));
+      expected.put(Integer.valueOf(i), Integer.valueOf(i));
+    }
+    int capacity = Global.fanout - 1;
+    int leaves = 0;
+    for (IntBPlusTree.LeafNode<Integer> leaf = appended.root.getFirstLeaf(); leaf != null; leaf = leaf.next) {
+      leaves++;
+      if (leaf.next != null)
+        assertEquals(capacity, leaf.nodeSize);
+    }
+    assertEquals((n + capacity - 1) / capacity, leaves);
+    for (int i = 0; i < n; i += 7) {
+      appended.remove(i);
+      expected.remove(Integer.valueOf(i));
+    }
+    assertEquals(expected.size(), appended.size());
+    assertRange(expected, appended.iterator());
+  }
+
+  private void assertRange(Map<Integer, Integer> expected, Iterator<Pair<Integer, Integer>> actual) {
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertTrue(actual.hasNext());
+      Pair<Integer, Integer> pair = actual.next();
+      assertEquals(entry.getKey(), pair.left);
+      assertEquals(entry.getValue(), pair.right);
+    }
+    assertFalse(actual.hasNext());
+  }
+
+  @Test
+  public void testFanoutIsFixedPerTree() {
+    int fanout = Global.fanout;
+    try {
+      Global.fanout = 4;
+      IntBPlusTree<Integer> small = new IntBPlusTree<>();
+      // a tree keeps the fanout it was created with, its nodes are sized for it
+      Global.fanout = 8;
+      TreeMap<Integer, Integer> expected = new TreeMap<>();
+      for (int i = 0; i < 1000; i++) {
+        small.put(i, Integer.valueOf(i));
+        expected.put(i, i);
+      }
+      for (int key : keys.subList(0, 500)) {
+        if (expected.containsKey(key))
+          continue;
+        small.put(key, Integer.valueOf(key));
+        expected.put(key, key);
+      }
+      assertEquals(expected.size(), small.size());
+      assertRange(expected, small.iterator());
+      Global.fanout = 4;
+      IntBPlusTree<Integer> loaded = new IntBPlusTree<>();
+      ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+      for (Map.Entry<Integer, Integer> entry : expected.entrySet())
+        entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+      Global.fanout = 8;
+      loaded.bulkLoad(entries.iterator());
+      for (int i = 0; i < 1000; i += 3) {
+        loaded.remove(i);
+        expected.remove(i);
+      }
+      assertRange(expected, loaded.iterator());
+    } finally {
+      Global.fanout = fanout;
+    }
+  }
+}
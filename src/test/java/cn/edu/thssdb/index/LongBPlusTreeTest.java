@@ -0,0 +1,237 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongBPlusTreeTest {
+  private LongBPlusTree<Long> tree;
+  private ArrayList<Long> keys;
+  private TreeMap<Long, Long> map;
+
+  @Before
+  public void setUp() {
+    tree = new LongBPlusTree<>();
+    keys = new ArrayList<>();
+    map = new TreeMap<>();
+    int size = 10000;
+    for (int i = 0; i < size; i++) {
+      // negative keys included, to check the primitive ordering
+      long key = (long) ((Math.random() - 0.5) * 4e12);
+      if (map.containsKey(key)) continue;
+      keys.add(key);
+      map.put(key, Long.valueOf(key * 7));
+      tree.put(key, Long.valueOf(key * 7));
+    }
+  }
+
+  @Test
+  public void testGet() {
+    for (Long key : keys) {
+      assertEquals(map.get(key), tree.get(key.longValue()));
+      assertTrue(tree.contains(key.longValue()));
+    }
+    assertEquals(keys.size(), tree.size());
+  }
+
+  @Test
+  public void testRemove() {
+    int size = keys.size();
+    for (int i = 0; i < size; i += 2) {
+      tree.remove(keys.get(i).longValue());
+      map.remove(keys.get(i));
+    }
+    assertEquals(map.size(), tree.size());
+    for (int i = 0; i < size; i++) {
+      assertEquals(i % 2 == 1, tree.contains(keys.get(i).longValue()));
+    }
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testIterator() {
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testSeek() {
+    for (int i = 0; i < 100; i++) {
+      Long from = keys.get((int) (Math.random() * keys.size()));
+      Long to = keys.get((int) (Math.random() * keys.size()));
+      if (from > to) {
+        Long tmp = from;
+        from = to;
+        to = tmp;
+      }
+      assertRange(map.subMap(from, true, to, false), tree.seek(from, true, to, false));
+      assertRange(map.subMap(from, false, to, true), tree.seek(from, false, to, true));
+      assertRange(map.tailMap(from, true), tree.seek(from, true, null, false));
+      assertRange(map.subMap(from, true, to, true).descendingMap(), tree.descendingSeek(from, true, to, true));
+    }
+  }
+
+  @Test
+  public void testBulkLoad() {
+    LongBPlusTree<Long> loaded = new LongBPlusTree<>();
+    ArrayList<Pair<Long, Long>> entries = new ArrayList<>();
+    for (Map.Entry<Long, Long> entry : map.entrySet()) {
+      entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+    }
+    loaded.bulkLoad(entries.iterator());
+    assertEquals(map.size(), loaded.size());
+    assertRange(map, loaded.iterator());
+    for (int i = 0; i < keys.size(); i += 2) {
+      loaded.remove(keys.get(i).longValue());
+      map.remove(keys.get(i));
+    }
+    assertRange(map, loaded.iterator());
+  }
+
+  @Test
+  public void testCompute() {
+    // half of the operations hit existing keys, some remove them
+    for (int i = 0; i < 20000; i++) {
+      Long key = i % 2 == 0 ? keys.get(i % keys.size()) : Long.valueOf((long) ((Math.random() - 0.5) * 4e12));
+      BiFunction<Long, Long, Long> remapping = (k, v) -> v == null ? k : v.equals(k) ? null : k;
+      assertEquals(map.compute(key, remapping), tree.compute(key.longValue(), remapping));
+    }
+    for (Long key : keys) {
+      assertEquals(map.putIfAbsent(key, key), tree.putIfAbsent(key.longValue(), key));
+      assertEquals(map.replace(key, Long.valueOf((long) 1)), tree.replace(key.longValue(), Long.valueOf((long) 1)));
+    }
+    assertEquals(map.size(), tree.size());
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testPutAll() {
+    for (int batch = 0; batch < 20; batch++) {
+      TreeMap<Long, Long> entries = new TreeMap<>();
+      while (entries.size() < 1000) {
+        long key = (long) ((Math.random() - 0.5) * 2 * 4e12);
+        if (!map.containsKey(key))
+          entries.put(key, key);
+      }
+      ArrayList<Pair<Long, Long>> batchEntries = new ArrayList<>();
+      for (Map.Entry<Long, Long> entry : entries.entrySet())
+        batchEntries.add(new Pair<>(entry.getKey(), entry.getValue()));
+      assertEquals(1000, tree.putAll(batchEntries));
+      map.putAll(entries);
+    }
+    assertEquals(map.size(), tree.size());
+    assertRange(map, tree.iterator());
+    // a batch stops before the first key that is present
+    ArrayList<Pair<Long, Long>> batchEntries = new ArrayList<>();
+    Long absent = Long.valueOf(map.firstKey() - 1);
+    batchEntries.add(new Pair<>(absent, absent));
+    batchEntries.add(new Pair<>(map.firstKey(), absent));
+    batchEntries.add(new Pair<>(map.lastKey() + 1, absent));
+    assertEquals(1, tree.putAll(batchEntries));
+    map.put(absent, absent);
+    assertEquals(map.size(), tree.size());
+    assertRange(map, tree.iterator());
+  }
+
+  @Test
+  public void testOrderStatistics() {
+    assertOrderStatistics(map, tree);
+    // every path that changes the tree must keep the subtree counts: removals that merge,
+    // compute, appends past the last key and batches
+    for (int i = 0; i < keys.size(); i += 3) {
+      tree.remove(keys.get(i).longValue());
+      map.remove(keys.get(i));
+    }
+    for (int i = 0; i < 5000; i++) {
+      Long key = i % 2 == 0 ? keys.get(i % keys.size()) : Long.valueOf((long) ((Math.random() - 0.5) * 4e12));
+      BiFunction<Long, Long, Long> remapping = (k, v) -> v == null ? k : null;
+      assertEquals(map.compute(key, remapping), tree.compute(key.longValue(), remapping));
+    }
+    for (long key = 3_000_000_000_000L; key < 3_000_000_002_000L; key++) {
+      tree.put(key, Long.valueOf(key));
+      map.put(key, key);
+    }
+    ArrayList<Pair<Long, Long>> batch = new ArrayList<>();
+    for (long key = -3_000_000_004_001L; key < -3_000_000_000_000L; key += 2)
+      batch.add(new Pair<>(key, key));
+    assertEquals(batch.size(), tree.putAll(batch));
+    for (Pair<Long, Long> entry : batch)
+      map.put(entry.left, entry.right);
+    assertOrderStatistics(map, tree);
+
+    LongBPlusTree<Long> loaded = new LongBPlusTree<>();
+    ArrayList<Pair<Long, Long>> entries = new ArrayList<>();
+    for (Map.Entry<Long, Long> entry : map.entrySet())
+      entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+    loaded.bulkLoad(entries.iterator());
+    assertOrderStatistics(map, loaded);
+  }
+
+  private void assertOrderStatistics(TreeMap<Long, Long> sorted, LongBPlusTree<Long> tree) {
+    int rank = 0;
+    for (Map.Entry<Long, Long> entry : sorted.entrySet()) {
+      Pair<Long, Long> selected = tree.select(rank);
+      assertEquals(entry.getKey(), selected.left);
+      assertEquals(entry.getValue(), selected.right);
+      rank++;
+    }
+    long low = sorted.firstKey() - 10;
+    long high = sorted.lastKey() + 10;
+    for (int i = 0; i < 200; i++) {
+      long from = low + (long) (Math.random() * (high - low));
+      long to = from + (long) (Math.random() * (high - from));
+      assertEquals(sorted.headMap(from, false).size(), tree.rank(from, false));
+      assertEquals(sorted.headMap(from, true).size(), tree.rank(from, true));
+      assertEquals(sorted.subMap(from, true, to, false).size(), tree.count(from, true, to, false));
+      assertEquals(sorted.subMap(from, false, to, true).size(), tree.count(from, false, to, true));
+      assertEquals(sorted.headMap(to, true).size(), tree.count(null, false, to, true));
+    }
+    assertEquals(sorted.size(), tree.count(null, false, null, false));
+    assertEquals(0, tree.count(high, true, low, true));
+  }
+
+  @Test
+  public void testAscendingInsertFillsLeaves() {
+    LongBPlusTree<Long> appended = new LongBPlusTree<>();
+    TreeMap<Long, Long> expected = new TreeMap<>();
+    int n = 50000;
+    for (int i = 0; i < n; i++) {
+      appended.put((long) i, Long.valueOf(i));
+      expected.put(Long.valueOf(i), Long.valueOf(i));
+    }
+    int capacity = Global.fanout - 1;
+    int leaves = 0;
+    for (LongBPlusTree.LeafNode<Long> leaf = appended.root.getFirstLeaf(); leaf != null; leaf = leaf.next) {
+      leaves++;
+      if (leaf.next != null)
+        assertEquals(capacity, leaf.nodeSize);
+    }
+    assertEquals((n + capacity - 1) / capacity, leaves);
+    for (int i = 0; i < n; i += 7) {
+      appended.remove((long) i);
+      expected.remove(Long.valueOf(i));
+    }
+    assertEquals(expected.size(), appended.size());
+    assertRange(expected, appended.iterator());
+  }
+
+  private void assertRange(Map<Long, Long> expected, Iterator<Pair<Long, Long>> actual) {
+    for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+      assertTrue(actual.hasNext());
+      Pair<Long, Long> pair = actual.next();
+      assertEquals(entry.getKey(), pair.left);
+      assertEquals(entry.getValue(), pair.right);
+    }
+    assertFalse(actual.hasNext());
+  }
+}
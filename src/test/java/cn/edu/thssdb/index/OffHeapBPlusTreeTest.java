@@ -0,0 +1,269 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.EntryTooLargeException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.storage.OffHeapStore;
+import cn.edu.thssdb.storage.OrderedCellCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static cn.edu.thssdb.index.TestCodecs.INT_CODEC;
+import static cn.edu.thssdb.index.TestCodecs.STRING_CODEC;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffHeapBPlusTreeTest {
+  private int pageSize;
+  private OffHeapStore store;
+  private OffHeapBPlusTree<Integer, String> tree;
+  private TreeMap<Integer, String> expected;
+
+  @Before
+  public void setUp() {
+    pageSize = Global.pageSize;
+    Global.pageSize = 512;
+    store = new OffHeapStore(4096);
+    tree = new OffHeapBPlusTree<>(INT_CODEC, STRING_CODEC, store);
+    expected = new TreeMap<>();
+    ArrayList<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 5000; i++)
+      keys.add(i * 2);
+    Collections.shuffle(keys, new Random(3));
+    for (Integer key : keys) {
+      tree.put(key, "v" + key);
+      expected.put(key, "v" + key);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    Global.pageSize = pageSize;
+  }
+
+  private <K, V> void assertContents(Iterator<Pair<K, V>> iterator, Map<K, V> map) {
+    for (Map.Entry<K, V> entry : map.entrySet()) {
+      assertTrue(iterator.hasNext());
+      Pair<K, V> pair = iterator.next();
+      assertEquals(entry.getKey(), pair.left);
+      assertEquals(entry.getValue(), pair.right);
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testGet() {
+    assertEquals(expected.size(), tree.size());
+    for (Map.Entry<Integer, String> entry : expected.entrySet())
+      assertEquals(entry.getValue(), tree.get(entry.getKey()));
+    assertFalse(tree.contains(1));
+    assertTrue(store.getReservedBytes() >= store.getAllocatedBytes());
+  }
+
+  @Test
+  public void testPutDuplicate() {
+    try {
+      tree.put(10, "again");
+      fail();
+    } catch (DuplicateKeyException ignored) {
+    }
+    assertEquals("v10", tree.get(10));
+  }
+
+  @Test
+  public void testRemove() {
+    for (int key = 0; key < 10000; key += 4) {
+      tree.remove(key);
+      expected.remove(key);
+    }
+    assertEquals(expected.size(), tree.size());
+    for (int key = 0; key < 10000; key += 2)
+      assertEquals(expected.containsKey(key), tree.contains(key));
+    assertContents(tree.iterator(), expected);
+    try {
+      tree.remove(0);
+      fail();
+    } catch (KeyNotExistException ignored) {
+    }
+  }
+
+  @Test
+  public void testUpdate() {
+    String longValue = String.join("", Collections.nCopies(40, "x"));
+    for (int key = 0; key < 10000; key += 6) {
+      tree.update(key, longValue + key);
+      expected.put(key, longValue + key);
+    }
+    for (int key = 0; key < 10000; key += 12) {
+      tree.update(key, "s");
+      expected.put(key, "s");
+    }
+    assertEquals(expected.size(), tree.size());
+    assertContents(tree.iterator(), expected);
+  }
+
+  @Test
+  public void testSeek() {
+    assertContents(tree.seek(101, true, 3000, true), expected.subMap(101, true, 3000, true));
+    assertContents(tree.seek(100, false, 3000, false), expected.subMap(100, false, 3000, false));
+    assertContents(tree.seek(null, false, 50, true), expected.headMap(50, true));
+    NavigableMap<Integer, String> descending = expected.subMap(2000, true, 6000, false).descendingMap();
+    assertContents(tree.descendingSeek(2000, true, 6000, false), descending);
+    assertContents(tree.descendingSeek(null, false, null, false), expected.descendingMap());
+  }
+
+  @Test
+  public void testCompute() {
+    for (int key = 0; key < 10000; key += 3) {
+      assertEquals(expected.putIfAbsent(key, "p" + key), tree.putIfAbsent(key, "p" + key));
+      assertEquals(expected.replace(key, "r" + key), tree.replace(key, "r" + key));
+    }
+    // grow, shrink or remove the value, depending on its length
+    for (int key = 0; key < 10000; key += 5) {
+      String value = tree.compute(key, (k, v) -> v == null ? "c" : v.length() > 3 ? null : v + "xxxxxxxx");
+      assertEquals(expected.compute(key, (k, v) -> v == null ? "c" : v.length() > 3 ? null : v + "xxxxxxxx"), value);
+    }
+    assertEquals(expected.size(), tree.size());
+    assertContents(tree.iterator(), expected);
+  }
+
+  @Test
+  public void testEntryTooLarge() {
+    String value = String.join("", Collections.nCopies(4096, "x"));
+    try {
+      tree.put(1, value);
+      fail();
+    } catch (EntryTooLargeException ignored) {
+    }
+    assertFalse(tree.contains(1));
+    OffHeapBPlusTree<String, Integer> strings = new OffHeapBPlusTree<>(STRING_CODEC, INT_CODEC, store);
+    try {
+      strings.put(String.join("", Collections.nCopies(Global.pageSize / 4, "k")), 1);
+      fail();
+    } catch (EntryTooLargeException ignored) {
+    }
+    assertEquals(0, strings.size());
+  }
+
+  @Test
+  public void testFreeListReuse() {
+    // removed values return their blocks to the free lists and nodes keep their pages
+    long reserved = store.getReservedBytes();
+    for (Integer key : expected.keySet())
+      tree.remove(key);
+    assertEquals(0, tree.size());
+    assertFalse(tree.iterator().hasNext());
+    for (Map.Entry<Integer, String> entry : expected.entrySet())
+      tree.put(entry.getKey(), entry.getValue());
+    assertEquals(reserved, store.getReservedBytes());
+    assertContents(tree.iterator(), expected);
+    tree.release();
+    assertEquals(0, tree.size());
+    assertEquals(Global.pageSize, store.getAllocatedBytes());
+  }
+
+  @Test
+  public void testVariableLengthKeys() {
+    // removed keys leave holes in their nodes that later inserts reclaim
+    OffHeapBPlusTree<String, Integer> strings = new OffHeapBPlusTree<>(STRING_CODEC, INT_CODEC);
+    TreeMap<String, Integer> map = new TreeMap<>();
+    Random random = new Random(11);
+    for (int i = 0; i < 20000; i++) {
+      String key = String.join("", Collections.nCopies(random.nextInt(8) + 1, Integer.toString(random.nextInt(3000))));
+      if (random.nextInt(3) == 0) {
+        if (map.remove(key) != null)
+          strings.remove(key);
+      } else {
+        assertEquals(map.putIfAbsent(key, i), strings.putIfAbsent(key, i));
+      }
+    }
+    assertEquals(map.size(), strings.size());
+    assertContents(strings.iterator(), map);
+    assertContents(strings.descendingSeek("2", true, "5", false), map.subMap("2", true, "5", false).descendingMap());
+  }
+
+  @Test
+  public void testOrderedKeys() {
+    // keys of an OrderedCodec are compared as bytes, in the order of Cell.compareTo
+    OffHeapBPlusTree<Cell, Integer> cells = new OffHeapBPlusTree<>(new OrderedCellCodec(), INT_CODEC);
+    TreeMap<Cell, Integer> map = new TreeMap<>();
+    Random random = new Random(13);
+    for (int i = 0; i < 20000; i++) {
+      Cell key;
+      switch (random.nextInt(4)) {
+        case 0:
+          key = new Cell(random.nextInt(4000) - 2000);
+          break;
+        case 1:
+          key = new Cell((double) random.nextInt(4000) / 7 - 200);
+          break;
+        case 2:
+          key = new Cell("k" + random.nextInt(4000));
+          break;
+        default:
+          key = new Cell(random.nextInt(1000) == 0 ? null : Long.valueOf(random.nextInt(4000)));
+      }
+      if (random.nextInt(3) == 0) {
+        if (map.remove(key) != null)
+          cells.remove(key);
+      } else {
+        assertEquals(map.putIfAbsent(key, i), cells.putIfAbsent(key, i));
+      }
+    }
+    assertEquals(map.size(), cells.size());
+    assertContents(cells.iterator(), map);
+    assertContents(cells.seek(new Cell(-100.0), true, new Cell("k2"), false),
+        map.subMap(new Cell(-100.0), true, new Cell("k2"), false));
+  }
+
+  @Test
+  public void testCompressedKeys() {
+    // keys sharing long prefixes are stored past their node prefix, separators cut short
+    OffHeapStore urls = new OffHeapStore(4096);
+    OffHeapBPlusTree<Cell, Integer> cells = new OffHeapBPlusTree<>(new OrderedCellCodec(), INT_CODEC, urls);
+    TreeMap<Cell, Integer> map = new TreeMap<>();
+    Random random = new Random(17);
+    String[] hosts = {"https://www.example.com/", "https://www.example.com/docs/", "https://www.example.org/"};
+    long keyBytes = 0;
+    for (int i = 0; i < 20000; i++) {
+      String url = hosts[random.nextInt(hosts.length)] + "section/" + random.nextInt(50) + "/page-" + random.nextInt(2000);
+      Cell key = new Cell(url);
+      if (random.nextInt(4) == 0) {
+        if (map.remove(key) != null) {
+          cells.remove(key);
+          keyBytes -= url.length();
+        }
+      } else if (map.putIfAbsent(key, i) == null) {
+        assertEquals(null, cells.putIfAbsent(key, i));
+        keyBytes += url.length();
+      }
+    }
+    assertEquals(map.size(), cells.size());
+    for (Map.Entry<Cell, Integer> entry : map.entrySet())
+      assertEquals(entry.getValue(), cells.get(entry.getKey()));
+    assertFalse(cells.contains(new Cell("https://www.example.com/section/")));
+    assertContents(cells.iterator(), map);
+    Cell from = new Cell("https://www.example.com/docs/section/3");
+    Cell to = new Cell("https://www.example.com/section/30/page-1");
+    assertContents(cells.seek(from, true, to, false), map.subMap(from, true, to, false));
+    assertContents(cells.descendingSeek(from, false, to, true), map.subMap(from, false, to, true).descendingMap());
+    assertContents(cells.seek(new Cell("https://www.example.com/s"), true, null, false),
+        map.tailMap(new Cell("https://www.example.com/s"), true));
+    // past the 16 byte block of each value, the nodes take less than the keys alone would
+    assertTrue(urls.getAllocatedBytes() - 16L * map.size() < keyBytes);
+  }
+}
@@ -0,0 +1,234 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.EntryTooLargeException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import cn.edu.thssdb.storage.BufferPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static cn.edu.thssdb.index.TestCodecs.INT_CODEC;
+import static cn.edu.thssdb.index.TestCodecs.STRING_CODEC;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PagedBPlusTreeTest {
+  private int pageSize;
+  private File path;
+  private BufferPool pool;
+  private PagedBPlusTree<Integer, String> tree;
+  private TreeMap<Integer, String> expected;
+
+  @Before
+  public void setUp() throws IOException {
+    pageSize = Global.pageSize;
+    Global.pageSize = 512;
+    path = File.createTempFile("paged", ".pages");
+    path.delete();
+    pool = new BufferPool(16);
+    tree = new PagedBPlusTree<>(path.getPath(), INT_CODEC, STRING_CODEC, pool);
+    expected = new TreeMap<>();
+    ArrayList<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 5000; i++)
+      keys.add(i * 2);
+    Collections.shuffle(keys);
+    for (Integer key : keys) {
+      tree.put(key, "v" + key);
+      expected.put(key, "v" + key);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    tree.delete();
+    Global.pageSize = pageSize;
+  }
+
+  private void assertContents(Iterator<Pair<Integer, String>> iterator, Map<Integer, String> map) {
+    for (Map.Entry<Integer, String> entry : map.entrySet()) {
+      assertTrue(iterator.hasNext());
+      Pair<Integer, String> pair = iterator.next();
+      assertEquals(entry.getKey(), pair.left);
+      assertEquals(entry.getValue(), pair.right);
+    }
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testGet() {
+    assertEquals(expected.size(), tree.size());
+    for (Map.Entry<Integer, String> entry : expected.entrySet())
+      assertEquals(entry.getValue(), tree.get(entry.getKey()));
+    assertFalse(tree.contains(1));
+    assertTrue(pool.getEvictions() > 0);
+    assertTrue(pool.size() <= pool.getCapacity());
+  }
+
+  @Test
+  public void testPutDuplicate() {
+    try {
+      tree.put(10, "again");
+      fail();
+    } catch (DuplicateKeyException ignored) {
+    }
+    assertEquals("v10", tree.get(10));
+  }
+
+  @Test
+  public void testRemove() {
+    for (int key = 0; key < 10000; key += 4) {
+      tree.remove(key);
+      expected.remove(key);
+    }
+    assertEquals(expected.size(), tree.size());
+    for (int key = 0; key < 10000; key += 2)
+      assertEquals(expected.containsKey(key), tree.contains(key));
+    assertContents(tree.iterator(), expected);
+    try {
+      tree.remove(0);
+      fail();
+    } catch (KeyNotExistException ignored) {
+    }
+  }
+
+  @Test
+  public void testUpdate() {
+    String longValue = String.join("", Collections.nCopies(20, "x"));
+    for (int key = 0; key < 10000; key += 6) {
+      tree.update(key, longValue + key);
+      expected.put(key, longValue + key);
+    }
+    assertEquals(expected.size(), tree.size());
+    assertContents(tree.iterator(), expected);
+  }
+
+  @Test
+  public void testSeek() {
+    assertContents(tree.seek(101, true, 3000, true), expected.subMap(101, true, 3000, true));
+    assertContents(tree.seek(100, false, 3000, false), expected.subMap(100, false, 3000, false));
+    assertContents(tree.seek(null, false, 50, true), expected.headMap(50, true));
+    NavigableMap<Integer, String> descending = expected.subMap(2000, true, 6000, false).descendingMap();
+    assertContents(tree.descendingSeek(2000, true, 6000, false), descending);
+    assertContents(tree.descendingSeek(null, false, null, false), expected.descendingMap());
+  }
+
+  @Test
+  public void testReopen() {
+    tree.flush();
+    tree.close();
+    tree = new PagedBPlusTree<>(path.getPath(), INT_CODEC, STRING_CODEC, pool);
+    assertEquals(expected.size(), tree.size());
+    assertContents(tree.iterator(), expected);
+    tree.put(1, "v1");
+    assertEquals("v1", tree.get(1));
+  }
+
+  @Test
+  public void testCompute() {
+    for (int key = 0; key < 10000; key += 3) {
+      assertEquals(expected.putIfAbsent(key, "p" + key), tree.putIfAbsent(key, "p" + key));
+      assertEquals(expected.replace(key, "r" + key), tree.replace(key, "r" + key));
+    }
+    // grow, shrink or remove the value, depending on its length
+    for (int key = 0; key < 10000; key += 5) {
+      String value = tree.compute(key, (k, v) -> v == null ? "c" : v.length() > 3 ? null : v + "xxxxxxxx");
+      assertEquals(expected.compute(key, (k, v) -> v == null ? "c" : v.length() > 3 ? null : v + "xxxxxxxx"), value);
+    }
+    assertEquals(expected.size(), tree.size());
+    assertContents(tree.iterator(), expected);
+  }
+
+  @Test
+  public void testEntryTooLarge() {
+    String value = String.join("", Collections.nCopies(Global.pageSize, "x"));
+    try {
+      tree.put(1, value);
+      fail();
+    } catch (EntryTooLargeException ignored) {
+    }
+    assertFalse(tree.contains(1));
+  }
+
+  @Test
+  public void testCrashAfterFlush() {
+    tree.flush();
+    long evictions = pool.getEvictions();
+    for (int key = 0; key < 10000; key += 3) {
+      if (key % 2 == 0)
+        tree.remove(key);
+      else
+        tree.put(key, "n" + key);
+    }
+    assertTrue(pool.getEvictions() > evictions);
+    // the pages evicted since the flush went to new pages, the tree the header points to is whole
+    tree = new PagedBPlusTree<>(path.getPath(), INT_CODEC, STRING_CODEC, new BufferPool(16));
+    assertEquals(expected.size(), tree.size());
+    assertContents(tree.iterator(), expected);
+    tree.put(1, "v1");
+    expected.put(1, "v1");
+    assertContents(tree.iterator(), expected);
+  }
+
+  @Test
+  public void testFlushReusesPages() {
+    tree.flush();
+    long length = 0;
+    for (int round = 0; round < 4; round++) {
+      for (int key = 0; key < 10000; key += 2)
+        tree.update(key, "w" + key);
+      tree.flush();
+      // a round copies every page, onto the pages the round before stopped using
+      if (round == 1)
+        length = path.length();
+      if (round > 1)
+        assertEquals(length, path.length());
+    }
+  }
+
+  @Test
+  public void testBulkLoad() throws IOException {
+    File bulkPath = File.createTempFile("bulk", ".pages");
+    bulkPath.delete();
+    PagedBPlusTree<Integer, String> bulk = new PagedBPlusTree<>(bulkPath.getPath(), INT_CODEC, STRING_CODEC, pool);
+    try {
+      ArrayList<Pair<Integer, String>> entries = new ArrayList<>();
+      for (Map.Entry<Integer, String> entry : expected.entrySet())
+        entries.add(new Pair<>(entry.getKey(), entry.getValue()));
+      bulk.bulkLoad(entries.iterator());
+      assertEquals(expected.size(), bulk.size());
+      assertContents(bulk.iterator(), expected);
+      assertContents(bulk.seek(101, true, 3000, true), expected.subMap(101, true, 3000, true));
+      // full leaves take fewer pages than the half-full ones splits leave
+      bulk.flush();
+      tree.flush();
+      assertTrue(bulkPath.length() * 5 < path.length() * 4);
+
+      bulk.put(1, "v1");
+      expected.put(1, "v1");
+      bulk.close();
+      bulk = new PagedBPlusTree<>(bulkPath.getPath(), INT_CODEC, STRING_CODEC, pool);
+      assertContents(bulk.iterator(), expected);
+      try {
+        bulk.bulkLoad(entries.iterator());
+        fail();
+      } catch (IllegalStateException ignored) {
+      }
+    } finally {
+      bulk.delete();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.storage.Codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// codecs of the int keys and string values the trees over encoded entries are tested with
+final class TestCodecs {
+  static final Codec<Integer> INT_CODEC = new Codec<Integer>() {
+    @Override
+    public int size(Integer value) {
+      return 4;
+    }
+
+    @Override
+    public void write(Integer value, ByteBuffer buffer) {
+      buffer.putInt(value);
+    }
+
+    @Override
+    public Integer read(ByteBuffer buffer) {
+      return buffer.getInt();
+    }
+  };
+
+  static final Codec<String> STRING_CODEC = new Codec<String>() {
+    @Override
+    public int size(String value) {
+      return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Override
+    public void write(String value, ByteBuffer buffer) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(bytes.length).put(bytes);
+    }
+
+    @Override
+    public String read(ByteBuffer buffer) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  };
+
+  private TestCodecs() {
+  }
+}
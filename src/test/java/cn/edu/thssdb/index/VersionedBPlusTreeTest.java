@@ -0,0 +1,203 @@
+package cn.edu.thssdb.index;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VersionedBPlusTreeTest {
+  private int fanout;
+  private VersionedBPlusTree<Integer, Integer> tree;
+
+  @Before
+  public void setUp() {
+    // a small fanout makes splits and merges happen on every few operations
+    fanout = Global.fanout;
+    Global.fanout = 5;
+    tree = new VersionedBPlusTree<>();
+  }
+
+  @After
+  public void tearDown() {
+    Global.fanout = fanout;
+  }
+
+  private void assertSameEntries(Map<Integer, Integer> expected, Iterable<Pair<Integer, Integer>> actual) {
+    Iterator<Map.Entry<Integer, Integer>> entries = expected.entrySet().iterator();
+    for (Pair<Integer, Integer> pair : actual) {
+      Map.Entry<Integer, Integer> entry = entries.next();
+      assertEquals(entry.getKey(), pair.left);
+      assertEquals(entry.getValue(), pair.right);
+    }
+    assertFalse(entries.hasNext());
+  }
+
+  @Test
+  public void testRandomOperations() {
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    Random random = new Random(7);
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(2000);
+      switch (random.nextInt(4)) {
+        case 0:
+          assertEquals(expected.putIfAbsent(key, i), tree.putIfAbsent(key, i));
+          break;
+        case 1:
+          assertEquals(expected.replace(key, i), tree.replace(key, i));
+          break;
+        case 2:
+          if (expected.remove(key) != null)
+            tree.remove(key);
+          break;
+        default:
+          assertEquals(expected.merge(key, 1, Integer::sum), tree.compute(key, (k, v) -> v == null ? 1 : v + 1));
+      }
+      assertEquals(expected.size(), tree.size());
+    }
+    assertSameEntries(expected, tree);
+    while (!expected.isEmpty())
+      tree.remove(expected.pollFirstEntry().getKey());
+    assertEquals(0, tree.size());
+    assertFalse(tree.iterator().hasNext());
+  }
+
+  @Test
+  public void testExceptions() {
+    tree.put(1, 1);
+    try {
+      tree.put(1, 2);
+      fail();
+    } catch (DuplicateKeyException ignored) {
+    }
+    try {
+      tree.remove(2);
+      fail();
+    } catch (KeyNotExistException ignored) {
+    }
+    try {
+      tree.update(2, 2);
+      fail();
+    } catch (KeyNotExistException ignored) {
+    }
+    assertNull(tree.replace(2, 2));
+    assertEquals(1, tree.size());
+    assertEquals(1, (int) tree.get(1));
+  }
+
+  @Test
+  public void testSnapshot() {
+    for (int i = 0; i < 1000; i++)
+      tree.put(i, i);
+    VersionedBPlusTree.Snapshot<Integer, Integer> snapshot = tree.snapshot();
+    Iterator<Pair<Integer, Integer>> iterator = tree.iterator();
+    for (int i = 0; i < 1000; i += 2)
+      tree.remove(i);
+    for (int i = 1; i < 1000; i += 2)
+      tree.update(i, -i);
+    for (int i = 1000; i < 2000; i++)
+      tree.put(i, i);
+    // the snapshot and the iterator opened before the writes still see the first version
+    assertEquals(1000, snapshot.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, (int) snapshot.get(i));
+      assertEquals(i, (int) iterator.next().right);
+    }
+    assertFalse(iterator.hasNext());
+    assertFalse(snapshot.contains(1500));
+    assertEquals(1500, tree.size());
+    assertEquals(-999, (int) tree.get(999));
+  }
+
+  @Test
+  public void testSeek() {
+    for (int i = 0; i < 1000; i += 2)
+      tree.put(i, i);
+    Iterator<Pair<Integer, Integer>> iterator = tree.seek(100, false, 501, true);
+    for (int i = 102; i <= 500; i += 2)
+      assertEquals(i, (int) iterator.next().left);
+    assertFalse(iterator.hasNext());
+    iterator = tree.descendingSeek(99, true, 300, false);
+    for (int i = 298; i >= 100; i -= 2)
+      assertEquals(i, (int) iterator.next().left);
+    assertFalse(iterator.hasNext());
+    iterator = tree.descendingSeek(null, false, null, false);
+    for (int i = 998; i >= 0; i -= 2)
+      assertEquals(i, (int) iterator.next().left);
+    assertFalse(iterator.hasNext());
+    assertFalse(tree.seek(999, true, null, false).hasNext());
+  }
+
+  @Test
+  public void testBulkLoad() {
+    ArrayList<Pair<Integer, Integer>> entries = new ArrayList<>();
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    for (int i = 0; i < 5000; i++) {
+      entries.add(new Pair<>(i * 3, i));
+      expected.put(i * 3, i);
+    }
+    tree.bulkLoad(entries.iterator());
+    assertSameEntries(expected, tree);
+    for (int i = 0; i < 5000; i += 2) {
+      tree.remove(i * 3);
+      expected.remove(i * 3);
+      tree.put(i * 3 + 1, i);
+      expected.put(i * 3 + 1, i);
+    }
+    assertEquals(expected.size(), tree.size());
+    assertSameEntries(expected, tree);
+  }
+
+  @Test
+  public void testScansDuringWrites() throws InterruptedException {
+    // round r sets every value to r from the highest key down, so a single version holds r - 1
+    // below some key and r from there on, while a scan mixing versions would see a larger gap
+    for (int i = 0; i < 2000; i++)
+      tree.put(i, 0);
+    AtomicBoolean done = new AtomicBoolean();
+    ArrayList<Throwable> errors = new ArrayList<>();
+    Thread reader = new Thread(() -> {
+      try {
+        while (!done.get()) {
+          VersionedBPlusTree.Snapshot<Integer, Integer> snapshot = tree.snapshot();
+          int first = -1;
+          int last = -1;
+          int count = 0;
+          for (Pair<Integer, Integer> pair : snapshot) {
+            if (first < 0)
+              first = pair.right;
+            if (pair.right < last || pair.right > first + 1)
+              fail("inconsistent scan at key " + pair.left);
+            last = pair.right;
+            count++;
+          }
+          assertEquals(snapshot.size(), count);
+        }
+      } catch (Throwable e) {
+        errors.add(e);
+      }
+    });
+    reader.start();
+    for (int round = 1; round <= 20; round++)
+      for (int i = 1999; i >= 0; i--)
+        tree.update(i, round);
+    done.set(true);
+    reader.join();
+    assertTrue(errors.toString(), errors.isEmpty());
+  }
+}
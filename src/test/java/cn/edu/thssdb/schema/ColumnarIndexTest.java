@@ -0,0 +1,188 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import cn.edu.thssdb.query.KeyRange;
+import cn.edu.thssdb.type.ColumnType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ColumnarIndexTest {
+  private static final List<Column> COLUMNS = Arrays.asList(
+      new Column("id", ColumnType.INT, 1, true, 0),
+      new Column("region", ColumnType.STRING, 0, false, 16),
+      new Column("amount", ColumnType.LONG, 0, false, 0));
+
+  private ColumnarIndex index;
+  private TreeMap<Integer, Row> expected;
+
+  @Before
+  public void setUp() {
+    index = new ColumnarIndex(COLUMNS, new int[]{0});
+    expected = new TreeMap<>();
+  }
+
+  private static Row row(int id, String region, Long amount) {
+    return new Row(new Cell[]{new Cell(id), new Cell(region), new Cell(amount)});
+  }
+
+  private static Cell key(int id) {
+    return new Cell(id);
+  }
+
+  private void assertRows(Iterator<Pair<Cell, Row>> actual, Iterable<Map.Entry<Integer, Row>> rows) {
+    for (Map.Entry<Integer, Row> entry : rows) {
+      assertTrue(actual.hasNext());
+      Pair<Cell, Row> pair = actual.next();
+      assertEquals(key(entry.getKey()), pair.left);
+      assertEquals(entry.getValue().getEntries(), pair.right.getEntries());
+    }
+    assertFalse(actual.hasNext());
+  }
+
+  private void assertIndex() {
+    assertEquals(expected.size(), index.size());
+    assertRows(index.iterator(), expected.entrySet());
+    assertRows(index.seek(key(200), true, key(700), false), expected.subMap(200, true, 700, false).entrySet());
+    assertRows(index.descendingSeek(key(100), false, key(900), true),
+        expected.subMap(100, false, 900, true).descendingMap().entrySet());
+  }
+
+  @Test
+  public void testOperations() {
+    ArrayList<Pair<Cell, Row>> entries = new ArrayList<>();
+    for (int i = 0; i < 1000; i += 2) {
+      Row row = row(i, "region-" + i % 7, (long) i * 10);
+      entries.add(new Pair<>(key(i), row));
+      expected.put(i, row);
+    }
+    index.bulkLoad(entries.iterator());
+    assertIndex();
+
+    Random random = new Random(22);
+    for (int round = 0; round < 3; round++) {
+      for (int op = 0; op < 2000; op++) {
+        int id = random.nextInt(1000);
+        Row row = row(id, random.nextBoolean() ? null : "region-" + random.nextInt(7), (long) random.nextInt());
+        switch (random.nextInt(3)) {
+          case 0:
+            try {
+              index.put(key(id), row);
+              assertFalse(expected.containsKey(id));
+              expected.put(id, row);
+            } catch (DuplicateKeyException e) {
+              assertTrue(expected.containsKey(id));
+            }
+            break;
+          case 1:
+            try {
+              index.update(key(id), row);
+              assertTrue(expected.containsKey(id));
+              expected.put(id, row);
+            } catch (KeyNotExistException e) {
+              assertFalse(expected.containsKey(id));
+            }
+            break;
+          default:
+            try {
+              index.remove(key(id));
+              assertTrue(expected.containsKey(id));
+              expected.remove(id);
+            } catch (KeyNotExistException e) {
+              assertFalse(expected.containsKey(id));
+            }
+        }
+        assertEquals(expected.containsKey(id), index.contains(key(id)));
+        if (expected.containsKey(id))
+          assertEquals(expected.get(id).getEntries(), index.get(key(id)).getEntries());
+      }
+      assertIndex();
+      // the delta and the hidden rows are encoded into a new store
+      index.merge();
+      assertIndex();
+    }
+    try {
+      index.get(key(5000));
+      fail();
+    } catch (KeyNotExistException ignored) {
+    }
+  }
+
+  @Test
+  public void testScan() {
+    ArrayList<Pair<Cell, Row>> entries = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      Row row = row(i, "region-" + i / 5000, (long) i);
+      entries.add(new Pair<>(key(i), row));
+      expected.put(i, row);
+    }
+    index.bulkLoad(entries.iterator());
+    // rows written since the store was built come out in key order with the others
+    index.update(key(7), row(7, "region-9", 70L));
+    index.put(key(20005), row(20005, "region-3", 5L));
+    index.remove(key(15001));
+    expected.put(7, row(7, "region-9", 70L));
+    expected.put(20005, row(20005, "region-3", 5L));
+    expected.remove(15001);
+
+    KeyRange range = new KeyRange();
+    range.intersectLower(new Cell("region-3"), true);
+    range.intersectUpper(new Cell("region-3"), true);
+    List<Row> rows = index.scan(new int[]{2, 0}, 1, range);
+    ArrayList<Row> wanted = new ArrayList<>();
+    for (Row row : expected.values())
+      if ("region-3".equals(row.getEntries().get(1).value))
+        wanted.add(new Row(new Cell[]{row.getEntries().get(2), row.getEntries().get(0)}));
+    assertEquals(wanted.size(), rows.size());
+    for (int i = 0; i < rows.size(); i++)
+      assertEquals(wanted.get(i).getEntries(), rows.get(i).getEntries());
+
+    // every row, projected
+    rows = index.scan(new int[]{1}, -1, null);
+    assertEquals(expected.size(), rows.size());
+    assertEquals("region-9", rows.get(7).getEntries().get(0).value);
+
+    // a range no block can hold
+    range = new KeyRange();
+    range.intersectLower(new Cell(30000L), true);
+    assertTrue(index.scan(new int[]{0}, 2, range).isEmpty());
+  }
+
+  @Test
+  public void testCompositeKey() {
+    index = new ColumnarIndex(COLUMNS, new int[]{1, 0});
+    NavigableMap<Cell, Row> rows = new TreeMap<>();
+    for (int i = 0; i < 3000; i++) {
+      Row row = row(i, "region-" + i % 3, (long) i);
+      Cell primaryKey = new Cell(CompositeKey.of(Arrays.asList(row.getEntries().get(1), row.getEntries().get(0))));
+      index.put(primaryKey, row);
+      rows.put(primaryKey, row);
+    }
+    index.merge();
+    Cell lower = new Cell(CompositeKey.prefix(Arrays.asList(new Cell("region-1")), false));
+    Cell upper = new Cell(CompositeKey.prefix(Arrays.asList(new Cell("region-1")), true));
+    Iterator<Pair<Cell, Row>> actual = index.seek(lower, true, upper, false);
+    for (Map.Entry<Cell, Row> entry : rows.subMap(lower, true, upper, false).entrySet()) {
+      Pair<Cell, Row> pair = actual.next();
+      assertEquals(entry.getKey(), pair.left);
+      assertEquals(entry.getValue().getEntries(), pair.right.getEntries());
+    }
+    assertFalse(actual.hasNext());
+    assertEquals(1000, rows.subMap(lower, true, upper, false).size());
+  }
+}
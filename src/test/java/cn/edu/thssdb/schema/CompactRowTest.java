@@ -0,0 +1,105 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.type.ColumnType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompactRowTest {
+  private static final List<Column> COLUMNS = Arrays.asList(
+      new Column("id", ColumnType.INT, 1, true, 0),
+      new Column("name", ColumnType.STRING, 0, false, 16),
+      new Column("total", ColumnType.LONG, 0, false, 0),
+      new Column("ratio", ColumnType.FLOAT, 0, false, 0),
+      new Column("price", ColumnType.DOUBLE, 0, false, 0),
+      new Column("city", ColumnType.STRING, 0, false, 16),
+      new Column("rank", ColumnType.INT, 0, false, 0),
+      new Column("code", ColumnType.LONG, 0, false, 0),
+      new Column("flag", ColumnType.INT, 0, false, 0));
+
+  private static final RowLayout LAYOUT = new RowLayout(COLUMNS);
+
+  private static Row row(Comparable... values) {
+    Cell[] cells = new Cell[values.length];
+    for (int i = 0; i < values.length; i++)
+      cells[i] = new Cell(values[i]);
+    return new Row(cells);
+  }
+
+  @Test
+  public void testValues() {
+    Row row = row(-7, "alice", Long.MIN_VALUE, -0.0f, Double.NaN, "beijing", Integer.MAX_VALUE, 42L, 0);
+    CompactRow packed = LAYOUT.pack(row);
+    assertEquals(row.getEntries(), packed.getEntries());
+    assertEquals(row.toString(), packed.toString());
+    assertEquals(-7, packed.getInt(0));
+    assertEquals("alice", packed.getString(1));
+    assertEquals(Long.MIN_VALUE, packed.getLong(2));
+    assertEquals(Float.floatToRawIntBits(-0.0f), Float.floatToRawIntBits(packed.getFloat(3)));
+    assertTrue(Double.isNaN(packed.getDouble(4)));
+    assertEquals(42L, packed.getLong(7));
+    assertEquals(new Cell("beijing"), packed.get(5));
+    assertSame(packed, LAYOUT.pack(packed));
+
+    // the list is a copy, the row never changes
+    packed.getEntries().set(0, new Cell(1));
+    assertEquals(-7, packed.getValue(0));
+    Row copy = new Row(packed);
+    copy.getEntries().set(0, new Cell(1));
+    assertEquals(1, LAYOUT.pack(copy).getInt(0));
+  }
+
+  @Test
+  public void testNulls() {
+    // the ninth column takes the second byte of the bitmap
+    Row row = row(1, null, null, null, null, "x", null, null, null);
+    CompactRow packed = LAYOUT.pack(row);
+    assertEquals(row.getEntries(), packed.getEntries());
+    assertFalse(packed.isNull(0));
+    assertTrue(packed.isNull(1) && packed.isNull(4) && packed.isNull(8));
+    assertNull(packed.getString(1));
+    assertNull(packed.getValue(8));
+    try {
+      packed.getInt(8);
+      fail();
+    } catch (NullPointerException ignored) {
+    }
+    try {
+      packed.getLong(0);
+      fail();
+    } catch (ClassCastException ignored) {
+    }
+    try {
+      LAYOUT.pack(row(1, "x"));
+      fail();
+    } catch (IllegalArgumentException ignored) {
+    }
+  }
+
+  @Test
+  public void testSerialization() throws IOException, ClassNotFoundException {
+    CompactRow packed = LAYOUT.pack(row(3, "bob", 9L, 1.5f, 2.5, null, 0, -1L, 5));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(packed);
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Row read = (Row) input.readObject();
+      assertEquals(Row.class, read.getClass());
+      assertEquals(packed.getEntries(), read.getEntries());
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Pair;
+import cn.edu.thssdb.index.BPlusTree;
+import cn.edu.thssdb.storage.CellCodec;
+import cn.edu.thssdb.storage.Codec;
+import cn.edu.thssdb.storage.OrderedCellCodec;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompositeKeyTest {
+  private static CompositeKey key(Object... values) {
+    ArrayList<Cell> cells = new ArrayList<>();
+    for (Object value : values)
+      cells.add(new Cell((Comparable) value));
+    return CompositeKey.of(cells);
+  }
+
+  private static CompositeKey prefix(boolean after, Object... values) {
+    ArrayList<Cell> cells = new ArrayList<>();
+    for (Object value : values)
+      cells.add(new Cell((Comparable) value));
+    return CompositeKey.prefix(cells, after);
+  }
+
+  @Test
+  public void testColumnOrder() {
+    // the first column decides before any later one, however long
+    List<CompositeKey> sorted = Arrays.asList(key(-5, "zzz"), key(1, ""), key(1, "a"), key(1, "ab"), key(1, "b"),
+        key(2, ""), key(10, "a"));
+    ArrayList<CompositeKey> shuffled = new ArrayList<>(sorted);
+    Collections.shuffle(shuffled, new Random(2));
+    Collections.sort(shuffled);
+    assertEquals(sorted, shuffled);
+    assertEquals(key(1, "a"), key(1, "a"));
+    assertEquals(key(1, "a").hashCode(), key(1, "a").hashCode());
+    assertEquals(Arrays.asList(new Cell(3), new Cell(4L)), key(3, 4L).getCells());
+  }
+
+  @Test
+  public void testPrefixBounds() {
+    BPlusTree<Cell, Integer> tree = new BPlusTree<>();
+    for (int tenant = 0; tenant < 20; tenant++)
+      for (long id = 0; id < 50; id++)
+        tree.put(new Cell(key(tenant, id)), tenant * 100 + (int) id);
+    Iterator<Pair<Cell, Integer>> iterator = tree.seek(new Cell(prefix(false, 7)), true,
+        new Cell(prefix(true, 7)), false);
+    for (int id = 0; id < 50; id++)
+      assertEquals(700 + id, (int) iterator.next().right);
+    assertFalse(iterator.hasNext());
+    // tenant 3 with id > 10, then tenants above 17
+    iterator = tree.seek(new Cell(prefix(true, 3, 10L)), true, new Cell(prefix(true, 3)), false);
+    for (int id = 11; id < 50; id++)
+      assertEquals(300 + id, (int) iterator.next().right);
+    assertFalse(iterator.hasNext());
+    iterator = tree.seek(new Cell(prefix(true, 17)), true, null, false);
+    for (int tenant = 18; tenant < 20; tenant++)
+      for (int id = 0; id < 50; id++)
+        assertEquals(tenant * 100 + id, (int) iterator.next().right);
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testCodecs() {
+    Cell cell = new Cell(key(7, "tenant", 2.5, null));
+    for (Codec<Cell> codec : Arrays.<Codec<Cell>>asList(new CellCodec(), new OrderedCellCodec())) {
+      ByteBuffer buffer = ByteBuffer.allocate(codec.size(cell) + 1);
+      codec.write(cell, buffer);
+      buffer.put((byte) 42).flip();
+      assertEquals(cell, codec.read(buffer));
+      assertEquals(42, buffer.get());
+    }
+    ByteBuffer smaller = ByteBuffer.allocate(64);
+    ByteBuffer larger = ByteBuffer.allocate(64);
+    new OrderedCellCodec().write(new Cell(key(7, "tenant")), smaller);
+    new OrderedCellCodec().write(new Cell(key(7, "tenant\0")), larger);
+    assertTrue(Arrays.compareUnsigned(smaller.array(), 0, smaller.position(), larger.array(), 0,
+        larger.position()) < 0);
+    // a bound on fewer columns encodes in the order it compares, around the keys it prefixes
+    List<CompositeKey> sorted = Arrays.asList(prefix(false, 7), key(7, 1L), key(7, 2L), prefix(true, 7), key(8, 0L));
+    for (int i = 0; i + 1 < sorted.size(); i++) {
+      ByteBuffer lower = ByteBuffer.allocate(64);
+      ByteBuffer upper = ByteBuffer.allocate(64);
+      new OrderedCellCodec().write(new Cell(sorted.get(i)), lower);
+      new OrderedCellCodec().write(new Cell(sorted.get(i + 1)), upper);
+      assertTrue(sorted.get(i).compareTo(sorted.get(i + 1)) < 0);
+      assertTrue(Arrays.compareUnsigned(lower.array(), 0, lower.position(), upper.array(), 0, upper.position()) < 0);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.exception.DuplicateTableException;
+import cn.edu.thssdb.exception.TableNotExistException;
+import cn.edu.thssdb.type.ColumnType;
+import cn.edu.thssdb.type.TableStorage;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DatabaseTest {
+  private static final String DATABASE = "database_test";
+
+  private Database database;
+
+  private static Column[] columns() {
+    return new Column[]{
+        new Column("id", ColumnType.INT, 1, true, 0),
+        new Column("name", ColumnType.STRING, 0, false, 16)};
+  }
+
+  @After
+  public void tearDown() {
+    Global.pagedIndex = false;
+    if (database == null)
+      return;
+    database.dropDatabase();
+  }
+
+  @Test
+  public void testFailedTableKeepsItsName() throws IOException {
+    database = new Database(DATABASE);
+    database.create("good", columns());
+    database.create("broken", columns());
+    for (String name : new String[]{"good", "broken"})
+      database.get(name).insert(new Row(new Cell[]{new Cell(1), new Cell(name)}));
+    String brokenMeta = database.get("broken").getTableMetaPath();
+    database.quit();
+    database.close();
+    // an index on a column the table lacks, so loading the table throws
+    try (FileWriter writer = new FileWriter(brokenMeta, true)) {
+      writer.write(Global.INDEX_META_PREFIX + "by_age,age\n");
+    }
+
+    database = new Database(DATABASE);
+    assertEquals(1, database.get("good").size());
+    try {
+      database.get("broken");
+      fail();
+    } catch (TableNotExistException expected) {
+    }
+    try {
+      database.create("broken", columns());
+      fail();
+    } catch (DuplicateTableException expected) {
+    }
+    // the files of the table that failed to load are left alone
+    assertTrue(new File(brokenMeta).isFile());
+
+    // until it is dropped
+    database.drop("broken");
+    assertFalse(new File(brokenMeta).exists());
+    database.create("broken", columns());
+    assertEquals(0, database.get("broken").size());
+    assertEquals(1, database.get("good").size());
+  }
+
+  @Test
+  public void testFailedTableIsDroppedWithTheDatabase() throws IOException {
+    database = new Database(DATABASE);
+    database.create("broken", columns());
+    database.get("broken").insert(new Row(new Cell[]{new Cell(1), new Cell("name")}));
+    String brokenMeta = database.get("broken").getTableMetaPath();
+    database.quit();
+    database.close();
+    try (FileWriter writer = new FileWriter(brokenMeta, true)) {
+      writer.write(Global.INDEX_META_PREFIX + "by_age,age\n");
+    }
+
+    database = new Database(DATABASE);
+    String folder = database.getDatabaseTableFolderPath();
+    database.dropDatabase();
+    database = null;
+    String[] left = new File(folder).list();
+    assertEquals(0, left == null ? 0 : left.length);
+  }
+
+  @Test
+  public void testTableKeepsItsStorage() {
+    Global.pagedIndex = true;
+    database = new Database(DATABASE);
+    database.create("paged", columns());
+    for (int i = 0; i < 100; i++)
+      database.get("paged").insert(new Row(new Cell[]{new Cell(i), new Cell("name" + i)}));
+    database.quit();
+    database.close();
+
+    // reopened with its pages, whichever storage new tables get
+    Global.pagedIndex = false;
+    database = new Database(DATABASE);
+    assertEquals(TableStorage.PAGED, database.get("paged").getStorage());
+    assertEquals(100, database.get("paged").size());
+    database.create("heap", columns());
+    assertEquals(TableStorage.HEAP, database.get("heap").getStorage());
+    database.quit();
+    database.close();
+
+    database = new Database(DATABASE);
+    assertEquals(100, database.get("paged").size());
+    assertEquals(TableStorage.HEAP, database.get("heap").getStorage());
+  }
+
+  @Test
+  public void testOffHeapTableKeepsItsStorage() {
+    database = new Database(DATABASE);
+    database.create("offheap", columns(), TableStorage.OFF_HEAP, false);
+    database.create("heap", columns());
+    for (String name : new String[]{"offheap", "heap"})
+      for (int i = 0; i < 10; i++)
+        database.get(name).insert(new Row(new Cell[]{new Cell(i), new Cell(name + i)}));
+    database.quit();
+    database.close();
+
+    database = new Database(DATABASE);
+    assertEquals(TableStorage.OFF_HEAP, database.get("offheap").getStorage());
+    assertEquals(TableStorage.HEAP, database.get("heap").getStorage());
+    for (String name : new String[]{"offheap", "heap"}) {
+      assertEquals(10, database.get(name).size());
+      assertEquals(name + 3, database.get(name).get(new Cell(3)).getEntries().get(1).value);
+    }
+  }
+
+  @Test
+  public void testStalePagesAreRefused() throws IOException {
+    database = new Database(DATABASE);
+    database.create("heap", columns());
+    database.get("heap").insert(new Row(new Cell[]{new Cell(1), new Cell("name")}));
+    String pagesPath = database.get("heap").getTablePagesPath();
+    database.quit();
+    database.close();
+    assertTrue(new File(pagesPath).createNewFile());
+
+    database = new Database(DATABASE);
+    try {
+      database.get("heap");
+      fail();
+    } catch (TableNotExistException expected) {
+    }
+  }
+}
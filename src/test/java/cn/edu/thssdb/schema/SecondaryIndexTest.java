@@ -0,0 +1,113 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.common.Global;
+import cn.edu.thssdb.exception.DuplicateKeyException;
+import cn.edu.thssdb.exception.KeyNotExistException;
+import cn.edu.thssdb.type.ColumnType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SecondaryIndexTest {
+  private SecondaryIndex index;
+
+  private static Row row(int id, Integer age) {
+    return new Row(new Cell[]{new Cell(id), new Cell(age)});
+  }
+
+  private static List<Cell> keys(int... ids) {
+    ArrayList<Cell> cells = new ArrayList<>();
+    for (int id : ids)
+      cells.add(new Cell(id));
+    return cells;
+  }
+
+  @Before
+  public void setUp() {
+    List<Row> rows = Arrays.asList(row(5, 30), row(1, 30), row(2, 25), row(4, null), row(3, 41));
+    index = new SecondaryIndex("idx_age", 1, row -> row.getEntries().get(0), rows);
+  }
+
+  @Test
+  public void testSeekEqual() {
+    assertEquals(keys(1, 5), index.seek(new Cell(30), true, new Cell(30), true));
+    assertTrue(index.seek(new Cell(30), false, new Cell(30), true).isEmpty());
+    assertTrue(index.seek(new Cell(26), true, new Cell(29), true).isEmpty());
+  }
+
+  @Test
+  public void testSeekRange() {
+    assertEquals(keys(2, 1, 5, 3), index.seek(null, false, null, false));
+    assertEquals(keys(1, 5, 3), index.seek(new Cell(25), false, null, false));
+    assertEquals(keys(2, 1, 5), index.seek(null, false, new Cell(41), false));
+    assertEquals(keys(2), index.seek(new Cell(25), true, new Cell(30), false));
+  }
+
+  @Test
+  public void testInsertDelete() {
+    index.insert(row(6, 30));
+    index.insert(row(7, null));
+    index.delete(row(1, 30));
+    assertEquals(keys(5, 6), index.seek(new Cell(30), true, new Cell(30), true));
+    index.delete(row(4, null));
+    assertEquals(keys(2, 5, 6, 3), index.seek(null, false, null, false));
+  }
+
+  @Test
+  public void testConcurrentTable() throws InterruptedException {
+    boolean concurrentIndex = Global.concurrentIndex;
+    boolean versionedIndex = Global.versionedIndex;
+    try {
+      for (int versioned = 0; versioned < 2; versioned++) {
+        Global.concurrentIndex = versioned == 0;
+        Global.versionedIndex = versioned == 1;
+        checkConcurrentTable();
+      }
+    } finally {
+      Global.concurrentIndex = concurrentIndex;
+      Global.versionedIndex = versionedIndex;
+    }
+  }
+
+  // writers that move rows between a few keys and change their indexed value leave every row
+  // in the secondary index under its value, and nothing else
+  private static void checkConcurrentTable() throws InterruptedException {
+    Table table = new Table("secondary_index_test", "moves", new Column[]{
+        new Column("id", ColumnType.INT, 1, true, 0),
+        new Column("age", ColumnType.INT, 0, false, 0)});
+    try {
+      for (int id = 0; id < 10; id++)
+        table.insert(row(id, id % 3));
+      table.createSecondaryIndex("idx_age", "age");
+      Thread[] writers = new Thread[4];
+      for (int i = 0; i < writers.length; i++) {
+        Random random = new Random(i);
+        writers[i] = new Thread(() -> {
+          for (int j = 0; j < 3000; j++) {
+            try {
+              table.update(new Cell(random.nextInt(20)), row(random.nextInt(20), random.nextInt(3)));
+            } catch (DuplicateKeyException | KeyNotExistException ignored) {
+            }
+          }
+        });
+        writers[i].start();
+      }
+      for (Thread writer : writers)
+        writer.join();
+      SecondaryIndex ages = table.getSecondaryIndexes().iterator().next();
+      assertEquals(10, table.size());
+      assertEquals(10, ages.seek(null, false, null, false).size());
+      for (Row row : table)
+        assertTrue(ages.seek(row.get(1), true, row.get(1), true).contains(row.get(0)));
+    } finally {
+      table.dropTable();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package cn.edu.thssdb.schema;
+
+import cn.edu.thssdb.type.ColumnType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TableCacheTest {
+  private static final String DATABASE = "table_cache_test";
+
+  private final List<Table> tables = new ArrayList<>();
+
+  private Table table(String name, boolean columnar) {
+    Table table = new Table(DATABASE, name, new Column[]{
+        new Column("id", ColumnType.INT, 1, true, 0),
+        new Column("city", ColumnType.STRING, 0, false, 16),
+        new Column("amount", ColumnType.LONG, 0, false, 0)}, columnar);
+    for (int i = 0; i < 2000; i++)
+      table.insert(new Row(new Cell[]{new Cell(i), new Cell("city-" + i % 10), new Cell((long) i * 3)}));
+    tables.add(table);
+    return table;
+  }
+
+  private static List<String> rows(Table table) {
+    ArrayList<String> rows = new ArrayList<>();
+    for (Row row : table)
+      rows.add(row.toString());
+    return rows;
+  }
+
+  @After
+  public void tearDown() {
+    for (Table table : tables)
+      table.dropTable();
+    tables.clear();
+  }
+
+  @Test
+  public void testEviction() {
+    Table first = table("first", false);
+    first.createSecondaryIndex("by_city", "city");
+    Table second = table("second", false);
+    Table third = table("third", false);
+    // saved, so the estimates leave out the keys changed since the last save
+    for (Table table : tables)
+      table.persist();
+    long size = first.estimateMemory();
+    assertTrue(size > 2000 * 40);
+
+    // short of room for all three
+    TableCache cache = new TableCache(size + second.estimateMemory() + third.estimateMemory() - 1);
+    cache.add(first);
+    cache.add(second);
+    assertTrue(first.isLoaded());
+    // a table used by a transaction stays
+    first.takeSLock(1L);
+    cache.add(third);
+    assertTrue(first.isLoaded());
+    assertFalse(second.isLoaded());
+    first.releaseSLock(1L);
+    assertEquals(1, cache.getEvictions());
+
+    // rows changed before the table is unloaded are saved with it
+    first.delete(first.get(new Cell(5)));
+    first.update(new Cell(6), new Row(new Cell[]{new Cell(6), new Cell("moved"), new Cell(0L)}));
+    List<String> expected = rows(first);
+    cache.access(second);
+    assertTrue(second.isLoaded());
+    assertFalse(first.isLoaded());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, cache.getEvictions());
+    assertTrue(cache.getCharged() <= cache.getBudget());
+    assertEquals(0, first.estimateMemory());
+
+    // an unloaded table reads its rows back on any access, its secondary index with them
+    assertEquals(21L, first.get(new Cell(7)).getValue(2));
+    assertTrue(first.isLoaded());
+    assertEquals(expected, rows(first));
+    assertEquals(9, first.count(new Cell(0), true, new Cell(10), false));
+    SecondaryIndex byCity = first.getSecondaryIndexes().iterator().next();
+    assertEquals(1, byCity.seek(new Cell("moved"), true, new Cell("moved"), true).size());
+    assertEquals(199, byCity.seek(new Cell("city-5"), true, new Cell("city-5"), true).size());
+
+    cache.access(third);
+    assertEquals(1, cache.getHits());
+
+    cache.remove(first);
+    cache.remove(second);
+    cache.remove(third);
+    assertEquals(0, cache.getCharged());
+  }
+
+  @Test
+  public void testUnbounded() {
+    Table table = table("unbounded", false);
+    TableCache cache = new TableCache(Long.MAX_VALUE);
+    cache.add(table);
+    cache.access(table);
+    assertEquals(0, cache.getCharged());
+    assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  public void testColumnar() {
+    Table table = table("columnar", true);
+    List<String> expected = rows(table);
+    assertTrue(table.estimateMemory() > 0);
+    assertTrue(table.unload());
+    assertFalse(table.unload());
+    assertEquals(10, table.count(new Cell(1990), true, null, false));
+    Iterator<Row> rows = table.range(new Cell(1990), true, null, false);
+    int count = 0;
+    while (rows.hasNext()) {
+      rows.next();
+      count++;
+    }
+    assertEquals(10, count);
+    assertEquals(expected, rows(table));
+    assertTrue(table.unload());
+    assertEquals(2000, table.size());
+  }
+}
@@ -0,0 +1,175 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.query.KeyRange;
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.Row;
+import cn.edu.thssdb.type.ColumnType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnStoreTest {
+  private static final List<Column> COLUMNS = Arrays.asList(
+      new Column("id", ColumnType.LONG, 1, true, 0),
+      new Column("city", ColumnType.STRING, 0, false, 32),
+      new Column("count", ColumnType.INT, 0, false, 0),
+      new Column("price", ColumnType.DOUBLE, 0, false, 0));
+
+  private File folder;
+
+  @Before
+  public void setUp() throws IOException {
+    folder = File.createTempFile("columns", "");
+    folder.delete();
+    folder.mkdirs();
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : Objects.requireNonNull(folder.listFiles()))
+      file.delete();
+    folder.delete();
+  }
+
+  private static KeyRange range(Comparable lower, boolean lowerInclusive, Comparable upper, boolean upperInclusive) {
+    KeyRange range = new KeyRange();
+    if (lower != null) range.intersectLower(new Cell(lower), lowerInclusive);
+    if (upper != null) range.intersectUpper(new Cell(upper), upperInclusive);
+    return range;
+  }
+
+  private static ColumnBlock roundTrip(ColumnType type, Comparable[] values) {
+    ColumnBlock block = ColumnBlock.encode(type, values, values.length);
+    assertArrayEquals(values, block.decode());
+    for (int i = 0; i < values.length; i++)
+      assertEquals(values[i], block.get(i));
+    ByteBuffer buffer = ByteBuffer.allocate(block.serializedSize());
+    block.write(buffer);
+    assertFalse(buffer.hasRemaining());
+    buffer.flip();
+    ColumnBlock read = ColumnBlock.read(type, buffer);
+    assertEquals(block.getEncoding(), read.getEncoding());
+    assertArrayEquals(values, read.decode());
+    assertEquals(block.getMin(), read.getMin());
+    assertEquals(block.getMax(), read.getMax());
+    return block;
+  }
+
+  @Test
+  public void testEncodings() {
+    Random random = new Random(20);
+    int n = ColumnStore.BLOCK_ROWS;
+    Comparable[] ascending = new Comparable[n];
+    Comparable[] small = new Comparable[n];
+    Comparable[] runs = new Comparable[n];
+    Comparable[] cities = new Comparable[n];
+    Comparable[] names = new Comparable[n];
+    Comparable[] doubles = new Comparable[n];
+    for (int i = 0; i < n; i++) {
+      ascending[i] = 1_600_000_000_000L + i * 1000L + random.nextInt(10);
+      small[i] = random.nextInt(100) - 50;
+      runs[i] = (long) (i / 1000);
+      cities[i] = "city-" + random.nextInt(8);
+      names[i] = "name-" + random.nextLong();
+      doubles[i] = random.nextDouble();
+    }
+    assertEquals(ColumnBlock.Encoding.DELTA, roundTrip(ColumnType.LONG, ascending).getEncoding());
+    assertEquals(ColumnBlock.Encoding.BIT_PACKED, roundTrip(ColumnType.INT, small).getEncoding());
+    assertEquals(ColumnBlock.Encoding.RUN_LENGTH, roundTrip(ColumnType.LONG, runs).getEncoding());
+    assertEquals(ColumnBlock.Encoding.DICTIONARY, roundTrip(ColumnType.STRING, cities).getEncoding());
+    assertEquals(ColumnBlock.Encoding.PLAIN, roundTrip(ColumnType.STRING, names).getEncoding());
+    roundTrip(ColumnType.DOUBLE, doubles);
+    // seven bits a value instead of 32
+    assertTrue(roundTrip(ColumnType.INT, small).serializedSize() < n);
+
+    Comparable[] withNulls = {null, 3.5f, null, Float.NaN, -0.0f, null};
+    ColumnBlock block = roundTrip(ColumnType.FLOAT, withNulls);
+    assertTrue(block.isNull(0) && !block.isNull(1) && block.isNull(5));
+    assertEquals(new Cell(-0.0f), block.getMin());
+    assertEquals(new Cell(Float.NaN), block.getMax());
+    ColumnBlock allNull = roundTrip(ColumnType.STRING, new Comparable[]{null, null});
+    assertNull(allNull.getMin());
+    assertFalse(allNull.mayContain(range(null, false, null, false)));
+    roundTrip(ColumnType.LONG, new Comparable[]{Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L});
+    roundTrip(ColumnType.INT, new Comparable[]{7});
+  }
+
+  @Test
+  public void testZoneMaps() {
+    Comparable[] values = new Comparable[100];
+    for (int i = 0; i < values.length; i++)
+      values[i] = 100 + i;
+    ColumnBlock block = ColumnBlock.encode(ColumnType.INT, values, values.length);
+    assertEquals(new Cell(100), block.getMin());
+    assertEquals(new Cell(199), block.getMax());
+    assertTrue(block.mayContain(range(150, true, 150, true)));
+    assertTrue(block.mayContain(range(199, true, null, false)));
+    assertFalse(block.mayContain(range(199, false, null, false)));
+    assertFalse(block.mayContain(range(null, false, 100, false)));
+    assertFalse(block.mayContain(range(300, true, 400, true)));
+    // a dictionary is searched for an entry in the range
+    ColumnBlock cities = ColumnBlock.encode(ColumnType.STRING,
+        new Comparable[]{"beijing", "shanghai", "beijing", "shenzhen", "beijing"}, 5);
+    assertEquals(ColumnBlock.Encoding.DICTIONARY, cities.getEncoding());
+    assertTrue(cities.mayContain(range("shanghai", true, "shanghai", true)));
+    assertFalse(cities.mayContain(range("guangzhou", true, "guangzhou", true)));
+    assertFalse(cities.mayContain(range("c", true, "r", true)));
+    assertFalse(cities.mayContain(range("c", true, "sh", false)));
+  }
+
+  @Test
+  public void testFiles() {
+    ArrayList<Row> rows = new ArrayList<>();
+    Random random = new Random(21);
+    int count = ColumnStore.BLOCK_ROWS * 3 + 17;
+    for (int i = 0; i < count; i++)
+      rows.add(new Row(new Cell[]{new Cell((long) i), new Cell(i % 5 == 0 ? null : "city-" + random.nextInt(20)),
+          new Cell(random.nextInt(1000)), new Cell(random.nextDouble())}));
+    ColumnStore store = ColumnStore.build(COLUMNS, rows.iterator());
+    assertEquals(count, store.getRowCount());
+    assertEquals(4, store.getBlockCount());
+    for (int i = 0; i < count; i += 97)
+      assertEquals(rows.get(i).getEntries(), store.getRow(i).getEntries());
+
+    String path = folder.getPath() + File.separator + "table";
+    ColumnFiles files = new ColumnFiles(path, COLUMNS);
+    assertFalse(files.exists());
+    files.write(store);
+    // a file per column and the manifest
+    assertEquals(COLUMNS.size() + 1, Objects.requireNonNull(folder.listFiles()).length);
+
+    ColumnStore loaded = new ColumnFiles(path, COLUMNS).load();
+    assertEquals(count, loaded.getRowCount());
+    assertEquals(rows.get(count - 1).getEntries().get(2).value, loaded.get(count - 1, 2));
+    assertTrue(loaded.isLoaded(2));
+    assertFalse(loaded.isLoaded(0) || loaded.isLoaded(1) || loaded.isLoaded(3));
+    for (int i = 0; i < count; i++)
+      assertEquals(rows.get(i).getEntries(), loaded.getRow(i).getEntries());
+
+    // the files already hold a loaded store, a new one replaces them
+    ColumnFiles reopened = new ColumnFiles(path, COLUMNS);
+    ColumnStore same = reopened.load();
+    reopened.write(same);
+    reopened.write(ColumnStore.build(COLUMNS, rows.subList(0, 5).iterator()));
+    assertEquals(COLUMNS.size() + 1, Objects.requireNonNull(folder.listFiles()).length);
+    assertEquals(5, new ColumnFiles(path, COLUMNS).load().getRowCount());
+    reopened.delete();
+    assertEquals(0, Objects.requireNonNull(folder.listFiles()).length);
+  }
+}
@@ -0,0 +1,85 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.schema.Cell;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class OrderedCellCodecTest {
+  private final OrderedCellCodec codec = new OrderedCellCodec();
+
+  private byte[] encode(Cell cell) {
+    ByteBuffer buffer = ByteBuffer.allocate(codec.size(cell));
+    codec.write(cell, buffer);
+    assertFalse(buffer.hasRemaining());
+    return buffer.array();
+  }
+
+  private ArrayList<Cell> cells() {
+    ArrayList<Cell> cells = new ArrayList<>();
+    cells.add(new Cell((Comparable) null));
+    for (int value : new int[]{Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE})
+      cells.add(new Cell(value));
+    for (long value : new long[]{Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE})
+      cells.add(new Cell(value));
+    for (float value : new float[]{Float.NEGATIVE_INFINITY, -1.5f, -0.0f, 0.0f, Float.MIN_VALUE, 2.5f,
+        Float.POSITIVE_INFINITY, Float.NaN})
+      cells.add(new Cell(value));
+    for (double value : new double[]{Double.NEGATIVE_INFINITY, -1e300, -0.0, 0.0, Double.MIN_VALUE, 1e300,
+        Double.POSITIVE_INFINITY, Double.NaN})
+      cells.add(new Cell(value));
+    for (String value : new String[]{"", "\0", "a", "a\0", "ab", "b", "~", "\u007f", "\u00e9", "\u3f7e", "\u3f7f",
+        "\ud83d\ude00", "\ue000", "\uffff"})
+      cells.add(new Cell(value));
+    Random random = new Random(5);
+    for (int i = 0; i < 300; i++) {
+      cells.add(new Cell(random.nextInt()));
+      cells.add(new Cell(random.nextLong()));
+      cells.add(new Cell((float) random.nextGaussian()));
+      cells.add(new Cell(random.nextGaussian() * 1e6));
+      char[] chars = new char[random.nextInt(6)];
+      for (int j = 0; j < chars.length; j++)
+        chars[j] = (char) (random.nextBoolean() ? random.nextInt(0x100) : random.nextInt(0x10000));
+      cells.add(new Cell(new String(chars)));
+    }
+    return cells;
+  }
+
+  @Test
+  public void testRoundTrip() {
+    for (Cell cell : cells())
+      assertEquals(cell, codec.read(ByteBuffer.wrap(encode(cell))));
+  }
+
+  @Test
+  public void testOrder() {
+    ArrayList<Cell> cells = cells();
+    ArrayList<byte[]> encoded = new ArrayList<>();
+    for (Cell cell : cells)
+      encoded.add(encode(cell));
+    for (int i = 0; i < cells.size(); i++)
+      for (int j = 0; j < cells.size(); j++)
+        if (Integer.signum(cells.get(i).compareTo(cells.get(j)))
+            != Integer.signum(Arrays.compareUnsigned(encoded.get(i), encoded.get(j))))
+          fail(cells.get(i) + " and " + cells.get(j) + " encode out of order");
+  }
+
+  @Test
+  public void testNullAndMixedTypes() {
+    // null sorts first, then values by type regardless of magnitude
+    assertEquals(0, new Cell((Comparable) null).compareTo(new Cell((Comparable) null)));
+    assertEquals(-1, Integer.signum(new Cell((Comparable) null).compareTo(new Cell(Integer.MIN_VALUE))));
+    assertEquals(-1, Integer.signum(new Cell(5).compareTo(new Cell(1L))));
+    assertEquals(1, Integer.signum(new Cell("").compareTo(new Cell(Double.MAX_VALUE))));
+    assertEquals(new Cell((Comparable) null), new Cell((Comparable) null));
+    assertArrayEquals(new byte[]{0}, encode(new Cell((Comparable) null)));
+  }
+}
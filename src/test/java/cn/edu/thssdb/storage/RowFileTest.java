@@ -0,0 +1,214 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.exception.FileIOException;
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.Row;
+import cn.edu.thssdb.schema.RowLayout;
+import cn.edu.thssdb.type.ColumnType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RowFileTest {
+  private static final List<Column> COLUMNS = Arrays.asList(
+      new Column("id", ColumnType.INT, 1, true, 0),
+      new Column("big", ColumnType.LONG, 0, false, 0),
+      new Column("ratio", ColumnType.FLOAT, 0, false, 0),
+      new Column("score", ColumnType.DOUBLE, 0, false, 0),
+      new Column("name", ColumnType.STRING, 0, false, 100000));
+
+  private File path;
+
+  @Before
+  public void setUp() throws IOException {
+    path = File.createTempFile("rows", ".table");
+  }
+
+  @After
+  public void tearDown() {
+    path.delete();
+  }
+
+  private static Row row(Object... values) {
+    ArrayList<Cell> cells = new ArrayList<>();
+    for (Object value : values)
+      cells.add(new Cell((Comparable) value));
+    return new Row(cells);
+  }
+
+  private static void assertRows(List<Row> expected, List<Row> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++)
+      assertEquals(expected.get(i).getEntries(), actual.get(i).getEntries());
+  }
+
+  @Test
+  public void testCodec() {
+    SchemaRowCodec codec = new SchemaRowCodec(COLUMNS);
+    for (Row row : Arrays.asList(row(1, 2L, 0.5f, -1.5, "\u4f60\u597d, world"), row(-7, null, null, null, null),
+        row(0, Long.MIN_VALUE, Float.NaN, Double.MAX_VALUE, ""))) {
+      ByteBuffer buffer = ByteBuffer.allocate(codec.size(row) + 1);
+      codec.write(row, buffer);
+      assertEquals(codec.size(row), buffer.position());
+      buffer.put((byte) 42).flip();
+      assertEquals(row.getEntries(), codec.read(buffer).getEntries());
+      assertEquals(42, buffer.get());
+    }
+    // a null bitmap byte, an int and a one byte string length
+    assertEquals(1 + 4 + 1 + 2, codec.size(row(3, null, null, null, "ab")));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    // rows of varying size cross the boundaries of the copy buffer, a few are larger than it
+    ArrayList<Row> rows = new ArrayList<>();
+    Random random = new Random(19);
+    for (int i = 0; i < 20000; i++) {
+      String name = i % 5000 == 7 ? String.join("", Collections.nCopies(70000 + i, "x")) : "name-" + random.nextInt();
+      rows.add(row(i, random.nextBoolean() ? null : random.nextLong(), random.nextFloat(), random.nextDouble(), name));
+    }
+    RowFile.write(path.getPath(), COLUMNS, rows);
+    assertTrue(RowFile.isRowFile(path.getPath()));
+    assertRows(rows, RowFile.read(path.getPath(), COLUMNS));
+    // rewriting replaces the rows
+    RowFile.write(path.getPath(), COLUMNS, rows.subList(0, 3));
+    assertRows(rows.subList(0, 3), RowFile.read(path.getPath(), COLUMNS));
+    RowFile.write(path.getPath(), COLUMNS, Collections.emptyList());
+    assertEquals(0, RowFile.read(path.getPath(), COLUMNS).size());
+  }
+
+  @Test
+  public void testOtherFiles() throws IOException {
+    RowFile.write(path.getPath(), COLUMNS, Collections.singletonList(row(1, 2L, 3f, 4.0, "five")));
+    try {
+      RowFile.read(path.getPath(), COLUMNS.subList(0, 4));
+      fail();
+    } catch (FileIOException ignored) {
+    }
+    try (ObjectOutputStream stream = new ObjectOutputStream(new FileOutputStream(path))) {
+      stream.writeObject(row(1, 2L, 3f, 4.0, "five"));
+    }
+    assertFalse(RowFile.isRowFile(path.getPath()));
+    try {
+      RowFile.read(path.getPath(), COLUMNS);
+      fail();
+    } catch (FileIOException ignored) {
+    }
+  }
+
+  @Test
+  public void testDictionaryCodes() throws IOException {
+    File dictionaryPath = File.createTempFile("rows", ".dict");
+    dictionaryPath.delete();
+    try {
+      StringDictionary[] dictionaries = new StringDictionary[]{null, null, null, null,
+          new StringDictionary(dictionaryPath.getPath())};
+      RowLayout layout = new RowLayout(COLUMNS, dictionaries);
+      ArrayList<Row> rows = new ArrayList<>();
+      for (int i = 0; i < 1000; i++)
+        rows.add(row(i, (long) i, 0f, 0.0, i % 10 == 0 ? null : "city-" + i % 7));
+      // packed rows give their codes, others are looked up
+      ArrayList<Row> packed = new ArrayList<>();
+      for (Row row : rows)
+        packed.add(layout.pack(row));
+      RowFile.write(path.getPath(), COLUMNS, dictionaries, packed.subList(0, 500));
+      long coded = path.length();
+      RowFile.write(path.getPath(), COLUMNS, rows.subList(0, 500));
+      assertTrue(coded < path.length());
+      RowFile.write(path.getPath(), COLUMNS, dictionaries, rows);
+      dictionaries[4].flush();
+
+      StringDictionary[] reopened = new StringDictionary[]{null, null, null, null,
+          new StringDictionary(dictionaryPath.getPath())};
+      assertRows(rows, RowFile.read(path.getPath(), COLUMNS, reopened));
+      // codes cannot be read without their dictionary
+      try {
+        RowFile.read(path.getPath(), COLUMNS);
+        fail();
+      } catch (FileIOException ignored) {
+      }
+      // a code added after the flush the reader opened
+      RowFile.write(path.getPath(), COLUMNS, dictionaries,
+          Collections.singletonList(layout.pack(row(1, 1L, 0f, 0.0, "unseen"))));
+      try {
+        RowFile.read(path.getPath(), COLUMNS, reopened);
+        fail();
+      } catch (FileIOException ignored) {
+      }
+    } finally {
+      dictionaryPath.delete();
+    }
+  }
+
+  @Test
+  public void testCompressedBlocks() throws IOException {
+    // repetitive rows deflate, random ones are stored as they are, large ones take a block each
+    ArrayList<Row> rows = new ArrayList<>();
+    Random random = new Random(23);
+    for (int i = 0; i < 30000; i++) {
+      String name = i % 9000 == 11 ? String.join("", Collections.nCopies(200000, "z"))
+          : i < 15000 ? "name-" + i % 50 : Long.toString(random.nextLong(), 36);
+      rows.add(row(i, i % 3 == 0 ? null : (long) i, 1f, (double) (i % 10), name));
+    }
+    RowFile.write(path.getPath(), COLUMNS, new StringDictionary[COLUMNS.size()], true, rows);
+    long compressed = path.length();
+    assertRows(rows, RowFile.read(path.getPath(), COLUMNS));
+    RowFile.write(path.getPath(), COLUMNS, rows);
+    assertTrue(compressed * 2 < path.length());
+    RowFile.write(path.getPath(), COLUMNS, new StringDictionary[COLUMNS.size()], true, Collections.emptyList());
+    assertEquals(0, RowFile.read(path.getPath(), COLUMNS).size());
+
+    RowFile.write(path.getPath(), COLUMNS, new StringDictionary[COLUMNS.size()], true, rows.subList(0, 1000));
+    try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+      file.seek(file.length() - 10);
+      int b = file.read();
+      file.seek(file.length() - 10);
+      file.write(b ^ 1);
+    }
+    try {
+      RowFile.read(path.getPath(), COLUMNS);
+      fail();
+    } catch (FileIOException ignored) {
+    }
+    RowFile.write(path.getPath(), COLUMNS, new StringDictionary[COLUMNS.size()], true, rows.subList(0, 1000));
+    try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+      file.setLength(file.length() - 1);
+    }
+    try {
+      RowFile.read(path.getPath(), COLUMNS);
+      fail();
+    } catch (FileIOException ignored) {
+    }
+  }
+
+  @Test
+  public void testTinyBlocks() {
+    // this block deflates to exactly its own length, and is stored as it is
+    List<Column> columns = Arrays.asList(
+        new Column("a", ColumnType.INT, 1, true, 0),
+        new Column("b", ColumnType.INT, 1, true, 0),
+        new Column("s", ColumnType.STRING, 0, false, 8));
+    List<Row> rows = Arrays.asList(row(1, 1, "x"), row(1, 1, "ab"));
+    RowFile.write(path.getPath(), columns, new StringDictionary[columns.size()], true, rows);
+    assertRows(rows, RowFile.read(path.getPath(), columns));
+    assertEquals(16 + columns.size() + 16 + 23, path.length());
+  }
+}
@@ -0,0 +1,126 @@
+package cn.edu.thssdb.storage;
+
+import cn.edu.thssdb.schema.Cell;
+import cn.edu.thssdb.schema.Column;
+import cn.edu.thssdb.schema.Row;
+import cn.edu.thssdb.type.ColumnType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedRowFileTest {
+  private static final List<Column> COLUMNS = Arrays.asList(
+      new Column("id", ColumnType.INT, 1, true, 0),
+      new Column("name", ColumnType.STRING, 0, false, 64));
+
+  private File folder;
+  private String path;
+
+  @Before
+  public void setUp() throws IOException {
+    folder = File.createTempFile("segments", "");
+    folder.delete();
+    folder.mkdirs();
+    path = folder.getPath() + File.separator + "table";
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : Objects.requireNonNull(folder.listFiles()))
+      file.delete();
+    folder.delete();
+  }
+
+  private static Row row(int id, String name) {
+    return new Row(new Cell[]{new Cell(id), new Cell(name)});
+  }
+
+  private static Cell key(Row row) {
+    return row.getEntries().get(0);
+  }
+
+  private void assertLoads(TreeMap<Integer, String> expected) {
+    ArrayList<Row> rows = new SegmentedRowFile(path, COLUMNS).load(SegmentedRowFileTest::key);
+    TreeMap<Integer, String> actual = new TreeMap<>();
+    for (Row row : rows)
+      actual.put((Integer) key(row).value, (String) row.getEntries().get(1).value);
+    assertEquals(expected, actual);
+  }
+
+  private static List<Row> rows(Map<Integer, String> map) {
+    ArrayList<Row> rows = new ArrayList<>();
+    for (Map.Entry<Integer, String> entry : map.entrySet())
+      rows.add(row(entry.getKey(), entry.getValue()));
+    return rows;
+  }
+
+  @Test
+  public void testAppend() {
+    SegmentedRowFile files = new SegmentedRowFile(path, COLUMNS);
+    assertFalse(files.exists());
+    TreeMap<Integer, String> expected = new TreeMap<>();
+    for (int i = 0; i < 1000; i++)
+      expected.put(i, "row" + i);
+    files.checkpoint(rows(expected));
+    assertTrue(files.exists());
+    // each save writes only its changes
+    for (int round = 0; round < 5; round++) {
+      ArrayList<Row> written = new ArrayList<>();
+      ArrayList<Row> removed = new ArrayList<>();
+      for (int i = round; i < 1200; i += 7) {
+        if (expected.containsKey(i) && i % 2 == 0) {
+          expected.remove(i);
+          removed.add(row(i, null));
+        } else {
+          expected.put(i, "round" + round);
+          written.add(row(i, "round" + round));
+        }
+      }
+      files.append(written, removed);
+      assertLoads(expected);
+    }
+    files.append(Collections.emptyList(), Collections.emptyList());
+    assertEquals(1 + 5 * 2 + 1, Objects.requireNonNull(folder.listFiles()).length);
+    assertFalse(files.needsCompaction());
+    // a checkpoint replaces the segments
+    files.checkpoint(rows(expected));
+    assertLoads(expected);
+    assertEquals(2, Objects.requireNonNull(folder.listFiles()).length);
+    files.delete();
+    assertEquals(0, Objects.requireNonNull(folder.listFiles()).length);
+  }
+
+  @Test
+  public void testCompaction() {
+    SegmentedRowFile files = new SegmentedRowFile(path, COLUMNS);
+    files.checkpoint(Collections.singletonList(row(0, "hot")));
+    // one hot row saved over and over, the segments outgrow the checkpoint
+    String name = String.join("", Collections.nCopies(4000, "x"));
+    List<Row> written = Collections.singletonList(row(0, name));
+    int appends = 0;
+    while (!files.needsCompaction()) {
+      files.append(written, Collections.emptyList());
+      appends++;
+    }
+    assertTrue(appends > 100);
+    files.checkpoint(written);
+    assertFalse(files.needsCompaction());
+    TreeMap<Integer, String> expected = new TreeMap<>();
+    expected.put(0, name);
+    assertLoads(expected);
+  }
+}
@@ -0,0 +1,94 @@
+package cn.edu.thssdb.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class StringDictionaryTest {
+  private File path;
+
+  @Before
+  public void setUp() throws IOException {
+    path = File.createTempFile("strings", ".dict");
+    path.delete();
+  }
+
+  @After
+  public void tearDown() {
+    path.delete();
+  }
+
+  @Test
+  public void testCodes() {
+    StringDictionary dictionary = new StringDictionary(path.getPath());
+    assertEquals(0, dictionary.encode("north"));
+    assertEquals(1, dictionary.encode("北京"));
+    assertEquals(2, dictionary.encode(""));
+    assertEquals(0, dictionary.encode("north"));
+    assertEquals(1, dictionary.find("北京"));
+    assertEquals(-1, dictionary.find("south"));
+    assertEquals("", dictionary.decode(2));
+    assertEquals(3, dictionary.size());
+    try {
+      dictionary.decode(3);
+      fail();
+    } catch (IllegalArgumentException ignored) {
+    }
+    assertFalse(path.exists());
+  }
+
+  @Test
+  public void testFlush() throws IOException {
+    StringDictionary dictionary = new StringDictionary(path.getPath());
+    for (int i = 0; i < 100; i++)
+      dictionary.encode("value-" + i);
+    dictionary.flush();
+    // a flush appends only the values added since the last one
+    long length = path.length();
+    dictionary.encode(String.join("", Collections.nCopies(300, "y")));
+    dictionary.flush();
+    assertEquals(length + 2 + 300, path.length());
+
+    StringDictionary reopened = new StringDictionary(path.getPath());
+    assertEquals(101, reopened.size());
+    assertEquals(42, reopened.find("value-42"));
+    assertEquals(101, reopened.encode("value-100"));
+
+    // a value cut short by a crash is dropped and written over
+    try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+      file.setLength(path.length() - 1);
+    }
+    reopened = new StringDictionary(path.getPath());
+    assertEquals(100, reopened.size());
+    assertEquals(100, reopened.encode("last"));
+    reopened.flush();
+    reopened = new StringDictionary(path.getPath());
+    assertEquals(101, reopened.size());
+    assertEquals("last", reopened.decode(100));
+
+    reopened.delete();
+    assertFalse(path.exists());
+    reopened.encode("gone");
+    reopened.flush();
+    assertFalse(path.exists());
+  }
+
+  @Test
+  public void testFull() {
+    StringDictionary dictionary = new StringDictionary(path.getPath());
+    for (int i = 0; i < StringDictionary.MAX_SIZE; i++)
+      assertEquals(i, dictionary.encode(Integer.toString(i)));
+    assertEquals(-1, dictionary.encode("one more"));
+    assertEquals(7, dictionary.encode("7"));
+    assertEquals(StringDictionary.MAX_SIZE, dictionary.size());
+  }
+}